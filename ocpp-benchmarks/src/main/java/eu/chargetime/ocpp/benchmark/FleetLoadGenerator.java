@@ -0,0 +1,275 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.AsyncPromiseFulfillerDecorator;
+import eu.chargetime.ocpp.MultiProtocolJSONServer;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.ServerEvents;
+import eu.chargetime.ocpp.model.SessionInformation;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Simulates a fleet of charge points from one JVM against a central system, and reports the
+ * throughput and latency percentiles of each kind of request.
+ *
+ * <p>{@code java -cp target/benchmarks.jar eu.chargetime.ocpp.benchmark.FleetLoadGenerator
+ * --url=ws://localhost:8887 --charge-points=5000}
+ *
+ * <p>Without {@code --url} a {@link MultiProtocolJSONServer} is started on a local port that
+ * answers every request with a sample confirmation. Durations are in seconds, run with {@code
+ * --help} for all options.
+ */
+public final class FleetLoadGenerator {
+
+  private static final long PROGRESS_INTERVAL_SECONDS = 10;
+
+  private static final String USAGE =
+      "Options, durations in seconds:\n"
+          + "  --url=ws://host:port/path   central system, the identity is appended,"
+          + " a local one if not set\n"
+          + "  --protocol=OCPP1_6          OCPP1_6, OCPP2_0_1 or OCPP2_1\n"
+          + "  --charge-points=1000\n"
+          + "  --identity-prefix=CP\n"
+          + "  --boot-storm=10             window in which all charge points connect and boot\n"
+          + "  --heartbeat-interval=60     0 disables heartbeats\n"
+          + "  --transaction-interval=120  0 disables transactions\n"
+          + "  --transaction-duration=60\n"
+          + "  --meter-values-interval=10  0 disables meter values\n"
+          + "  --sampled-values=4          sampled values per meter value message\n"
+          + "  --request-timeout=30        0 waits forever for a confirmation\n"
+          + "  --duration=60\n"
+          + "  --threads=<processors>      threads that run the behaviour of the fleet\n";
+
+  private FleetLoadGenerator() {}
+
+  public static void main(String[] args) throws InterruptedException {
+    Map<String, String> options;
+    FleetProfile profile;
+    try {
+      options = parse(args);
+      if (options.containsKey("help")) {
+        System.out.print(USAGE);
+        return;
+      }
+      profile = profile(options);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.print(USAGE);
+      System.exit(1);
+      return;
+    }
+    run(profile, options, System.out);
+  }
+
+  private static void run(FleetProfile profile, Map<String, String> options, PrintStream out)
+      throws InterruptedException {
+    // Replace the shared pool of the clients' promise fulfillers, so it can be shut down.
+    ExecutorService fulfillers = Executors.newCachedThreadPool();
+    AsyncPromiseFulfillerDecorator.setExecutor(fulfillers);
+    FleetMessages messages = FleetMessages.of(profile.getProtocolVersion());
+
+    String url = options.get("url");
+    MultiProtocolJSONServer server = null;
+    if (url == null) {
+      server = openLocalCentralSystem(profile.getProtocolVersion(), messages);
+      url = "ws://localhost:" + server.getPort();
+    }
+    out.printf("%s against %s%n", profile, url);
+
+    int threads =
+        Integer.parseInt(
+            options.getOrDefault(
+                "threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(threads, daemon());
+    scheduler.setRemoveOnCancelPolicy(true);
+
+    FleetStatistics statistics = new FleetStatistics();
+    String identityPrefix = options.getOrDefault("identity-prefix", "CP");
+    List<SimulatedChargePoint> fleet = new ArrayList<>(profile.getChargePoints());
+    for (int i = 1; i <= profile.getChargePoints(); i++) {
+      fleet.add(
+          new SimulatedChargePoint(
+              String.format("%s%06d", identityPrefix, i),
+              profile,
+              messages,
+              statistics,
+              scheduler));
+    }
+
+    long started = System.nanoTime();
+    long bootStormNanos = profile.getBootStorm().toNanos();
+    for (SimulatedChargePoint chargePoint : fleet) {
+      long delay = bootStormNanos == 0 ? 0 : ThreadLocalRandom.current().nextLong(bootStormNanos);
+      chargePoint.start(url, Duration.ofNanos(delay));
+    }
+
+    long end = started + profile.getDuration().toNanos();
+    for (long now = System.nanoTime(); now < end; now = System.nanoTime()) {
+      TimeUnit.NANOSECONDS.sleep(
+          Math.min(end - now, TimeUnit.SECONDS.toNanos(PROGRESS_INTERVAL_SECONDS)));
+      out.printf(
+          "%4ds: %d of %d connected, %d requests confirmed%n",
+          TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started),
+          statistics.getConnected(),
+          profile.getChargePoints(),
+          statistics.getCompleted());
+    }
+    long elapsed = System.nanoTime() - started;
+
+    scheduler.shutdownNow();
+    for (SimulatedChargePoint chargePoint : fleet) {
+      chargePoint.stop();
+    }
+    if (server != null) {
+      server.close();
+    }
+    fulfillers.shutdown();
+
+    out.println();
+    statistics.print(out, elapsed);
+  }
+
+  private static MultiProtocolJSONServer openLocalCentralSystem(
+      ProtocolVersion protocolVersion, FleetMessages messages) throws InterruptedException {
+    MultiProtocolJSONServer server =
+        new MultiProtocolJSONServer(Collections.singletonList(protocolVersion));
+    messages.addServerFeatures(server);
+    server.open(
+        "localhost",
+        0,
+        new ServerEvents() {
+          @Override
+          public void authenticateSession(
+              SessionInformation information, String username, byte[] password) {}
+
+          @Override
+          public void newSession(UUID sessionIndex, SessionInformation information) {}
+
+          @Override
+          public void lostSession(UUID sessionIndex) {}
+        });
+    // The server binds its socket in the background.
+    while (server.getPort() <= 0) {
+      Thread.sleep(1);
+    }
+    return server;
+  }
+
+  private static Map<String, String> parse(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) {
+        throw new IllegalArgumentException("Unknown argument " + arg);
+      }
+      int separator = arg.indexOf('=');
+      if (separator < 0) {
+        options.put(arg.substring(2), "");
+      } else {
+        options.put(arg.substring(2, separator), arg.substring(separator + 1));
+      }
+    }
+    return options;
+  }
+
+  private static FleetProfile profile(Map<String, String> options) {
+    FleetProfile.Builder builder = new FleetProfile.Builder();
+    for (Map.Entry<String, String> option : options.entrySet()) {
+      String value = option.getValue();
+      try {
+        switch (option.getKey()) {
+          case "protocol":
+            builder.protocolVersion(ProtocolVersion.valueOf(value));
+            break;
+          case "charge-points":
+            builder.chargePoints(Integer.parseInt(value));
+            break;
+          case "boot-storm":
+            builder.bootStorm(seconds(value));
+            break;
+          case "heartbeat-interval":
+            builder.heartbeatInterval(seconds(value));
+            break;
+          case "transaction-interval":
+            builder.transactionInterval(seconds(value));
+            break;
+          case "transaction-duration":
+            builder.transactionDuration(seconds(value));
+            break;
+          case "meter-values-interval":
+            builder.meterValuesInterval(seconds(value));
+            break;
+          case "sampled-values":
+            builder.sampledValues(Integer.parseInt(value));
+            break;
+          case "request-timeout":
+            builder.requestTimeout(seconds(value));
+            break;
+          case "duration":
+            builder.duration(seconds(value));
+            break;
+          case "help":
+          case "url":
+          case "identity-prefix":
+          case "threads":
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option --" + option.getKey());
+        }
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid --" + option.getKey() + "=" + value);
+      }
+    }
+    return builder.build();
+  }
+
+  private static Duration seconds(String value) {
+    return Duration.ofMillis(Math.round(Double.parseDouble(value) * 1000));
+  }
+
+  private static ThreadFactory daemon() {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, "ocpp-fleet-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,74 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.MultiProtocolJSONClient;
+import eu.chargetime.ocpp.MultiProtocolJSONServer;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+
+/** The messages a simulated charge point sends, in one protocol version. */
+interface FleetMessages {
+
+  static FleetMessages of(ProtocolVersion protocolVersion) {
+    switch (protocolVersion) {
+      case OCPP1_6:
+        return new OCPP16FleetMessages();
+      case OCPP2_0_1:
+        return new OCPP201FleetMessages();
+      case OCPP2_1:
+        return new OCPP21FleetMessages();
+      default:
+        throw new IllegalArgumentException("Unknown protocol version " + protocolVersion);
+    }
+  }
+
+  /** Add what a charge point needs to send the messages, answering anything it receives. */
+  void addClientFeatures(MultiProtocolJSONClient client);
+
+  /** Add what a central system needs to answer the messages with sample confirmations. */
+  void addServerFeatures(MultiProtocolJSONServer server);
+
+  Request bootNotification(String identity);
+
+  Request heartbeat();
+
+  Request startTransaction(String transactionId, long meterWh);
+
+  /**
+   * The id the central system knows a transaction by.
+   *
+   * @param transactionId the id given to {@link #startTransaction(String, long)}.
+   * @param confirmation the confirmation of the start request.
+   * @return the id to use in following messages of the transaction.
+   */
+  String transactionId(String transactionId, Confirmation confirmation);
+
+  Request meterValues(String transactionId, int seqNo, long meterWh, int sampledValues);
+
+  Request stopTransaction(String transactionId, int seqNo, long meterWh);
+}
@@ -0,0 +1,201 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.utilities.MoreObjects;
+import java.time.Duration;
+
+/** How a simulated charge point fleet behaves, see {@link FleetLoadGenerator}. */
+final class FleetProfile {
+
+  private final ProtocolVersion protocolVersion;
+  private final int chargePoints;
+  private final Duration bootStorm;
+  private final Duration heartbeatInterval;
+  private final Duration transactionInterval;
+  private final Duration transactionDuration;
+  private final Duration meterValuesInterval;
+  private final int sampledValues;
+  private final Duration requestTimeout;
+  private final Duration duration;
+
+  private FleetProfile(Builder builder) {
+    protocolVersion = builder.protocolVersion;
+    chargePoints = builder.chargePoints;
+    bootStorm = builder.bootStorm;
+    heartbeatInterval = builder.heartbeatInterval;
+    transactionInterval = builder.transactionInterval;
+    transactionDuration = builder.transactionDuration;
+    meterValuesInterval = builder.meterValuesInterval;
+    sampledValues = builder.sampledValues;
+    requestTimeout = builder.requestTimeout;
+    duration = builder.duration;
+  }
+
+  ProtocolVersion getProtocolVersion() {
+    return protocolVersion;
+  }
+
+  int getChargePoints() {
+    return chargePoints;
+  }
+
+  /** All charge points connect and boot at a random moment within this window, zero at once. */
+  Duration getBootStorm() {
+    return bootStorm;
+  }
+
+  /** Zero disables heartbeats. */
+  Duration getHeartbeatInterval() {
+    return heartbeatInterval;
+  }
+
+  /** How often each charge point starts a transaction, zero disables transactions. */
+  Duration getTransactionInterval() {
+    return transactionInterval;
+  }
+
+  Duration getTransactionDuration() {
+    return transactionDuration;
+  }
+
+  /** How often meter values are sent during a transaction, zero disables them. */
+  Duration getMeterValuesInterval() {
+    return meterValuesInterval;
+  }
+
+  /** Number of sampled values in each meter value message. */
+  int getSampledValues() {
+    return sampledValues;
+  }
+
+  /** Requests that aren't confirmed within this time count as errors, zero waits forever. */
+  Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  /** How long the load runs, counted from the start of the boot storm. */
+  Duration getDuration() {
+    return duration;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("protocolVersion", protocolVersion)
+        .add("chargePoints", chargePoints)
+        .add("bootStorm", bootStorm)
+        .add("heartbeatInterval", heartbeatInterval)
+        .add("transactionInterval", transactionInterval)
+        .add("transactionDuration", transactionDuration)
+        .add("meterValuesInterval", meterValuesInterval)
+        .add("sampledValues", sampledValues)
+        .add("requestTimeout", requestTimeout)
+        .add("duration", duration)
+        .toString();
+  }
+
+  static class Builder {
+    private ProtocolVersion protocolVersion = ProtocolVersion.OCPP1_6;
+    private int chargePoints = 1000;
+    private Duration bootStorm = Duration.ofSeconds(10);
+    private Duration heartbeatInterval = Duration.ofSeconds(60);
+    private Duration transactionInterval = Duration.ofSeconds(120);
+    private Duration transactionDuration = Duration.ofSeconds(60);
+    private Duration meterValuesInterval = Duration.ofSeconds(10);
+    private int sampledValues = 4;
+    private Duration requestTimeout = Duration.ofSeconds(30);
+    private Duration duration = Duration.ofSeconds(60);
+
+    Builder protocolVersion(ProtocolVersion protocolVersion) {
+      this.protocolVersion = protocolVersion;
+      return this;
+    }
+
+    Builder chargePoints(int chargePoints) {
+      if (chargePoints < 1) {
+        throw new IllegalArgumentException("At least one charge point is needed");
+      }
+      this.chargePoints = chargePoints;
+      return this;
+    }
+
+    Builder bootStorm(Duration bootStorm) {
+      this.bootStorm = requireNotNegative(bootStorm);
+      return this;
+    }
+
+    Builder heartbeatInterval(Duration heartbeatInterval) {
+      this.heartbeatInterval = requireNotNegative(heartbeatInterval);
+      return this;
+    }
+
+    Builder transactionInterval(Duration transactionInterval) {
+      this.transactionInterval = requireNotNegative(transactionInterval);
+      return this;
+    }
+
+    Builder transactionDuration(Duration transactionDuration) {
+      this.transactionDuration = requireNotNegative(transactionDuration);
+      return this;
+    }
+
+    Builder meterValuesInterval(Duration meterValuesInterval) {
+      this.meterValuesInterval = requireNotNegative(meterValuesInterval);
+      return this;
+    }
+
+    Builder sampledValues(int sampledValues) {
+      if (sampledValues < 1) {
+        throw new IllegalArgumentException("At least one sampled value is needed");
+      }
+      this.sampledValues = sampledValues;
+      return this;
+    }
+
+    Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requireNotNegative(requestTimeout);
+      return this;
+    }
+
+    Builder duration(Duration duration) {
+      this.duration = requireNotNegative(duration);
+      return this;
+    }
+
+    FleetProfile build() {
+      return new FleetProfile(this);
+    }
+
+    private static Duration requireNotNegative(Duration duration) {
+      if (duration.isNegative()) {
+        throw new IllegalArgumentException("Negative duration " + duration);
+      }
+      return duration;
+    }
+  }
+}
@@ -0,0 +1,112 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latencies and counts of a simulated fleet, per action. */
+final class FleetStatistics {
+
+  static final String CONNECT = "Connect";
+
+  private final Map<String, Action> actions = new ConcurrentSkipListMap<>();
+  private final AtomicInteger connected = new AtomicInteger();
+
+  void completed(String action, long nanos) {
+    action(action).latencies.record(nanos);
+  }
+
+  void failed(String action) {
+    action(action).errors.increment();
+  }
+
+  void opened(long nanos) {
+    connected.incrementAndGet();
+    completed(CONNECT, nanos);
+  }
+
+  void closed() {
+    connected.decrementAndGet();
+  }
+
+  int getConnected() {
+    return connected.get();
+  }
+
+  long getCompleted() {
+    long completed = 0;
+    for (Map.Entry<String, Action> entry : actions.entrySet()) {
+      if (!CONNECT.equals(entry.getKey())) {
+        completed += entry.getValue().latencies.getCount();
+      }
+    }
+    return completed;
+  }
+
+  /**
+   * Print a table with throughput and latency percentiles of each action.
+   *
+   * @param out where to print.
+   * @param elapsedNanos the time the fleet ran, to calculate throughput.
+   */
+  void print(PrintStream out, long elapsedNanos) {
+    double seconds = Math.max(1, elapsedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    out.printf(
+        "%-18s %10s %8s %10s %10s %10s %10s %10s%n",
+        "action", "ok", "errors", "per sec", "p50 ms", "p99 ms", "p999 ms", "max ms");
+    for (Map.Entry<String, Action> entry : actions.entrySet()) {
+      LatencyHistogram latencies = entry.getValue().latencies;
+      out.printf(
+          "%-18s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n",
+          entry.getKey(),
+          latencies.getCount(),
+          entry.getValue().errors.sum(),
+          latencies.getCount() / seconds,
+          millis(latencies.getPercentileMicros(0.5)),
+          millis(latencies.getPercentileMicros(0.99)),
+          millis(latencies.getPercentileMicros(0.999)),
+          millis(latencies.getMaxMicros()));
+    }
+  }
+
+  private Action action(String action) {
+    return actions.computeIfAbsent(action, name -> new Action());
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  private static class Action {
+    final LatencyHistogram latencies = new LatencyHistogram();
+    final LongAdder errors = new LongAdder();
+  }
+}
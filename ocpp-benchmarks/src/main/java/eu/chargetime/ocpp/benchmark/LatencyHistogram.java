@@ -0,0 +1,118 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of latencies in microseconds.
+ *
+ * <p>Values below 64 µs are counted exactly, above that each power of two is split into 32 buckets,
+ * so a percentile is off by at most about 3%.
+ */
+final class LatencyHistogram {
+
+  private static final int EXACT = 64;
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int EXACT_BITS = 6;
+
+  private final AtomicLongArray counts =
+      new AtomicLongArray(EXACT + (Long.SIZE - EXACT_BITS) * SUB_BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Record a latency.
+   *
+   * @param nanos the latency in nanoseconds.
+   */
+  void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    counts.incrementAndGet(index(micros));
+    count.increment();
+    sum.add(micros);
+    max.accumulate(micros);
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  long getMaxMicros() {
+    return max.get();
+  }
+
+  double getMeanMicros() {
+    long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * The latency below which the given fraction of the recorded latencies falls.
+   *
+   * @param quantile between 0 and 1, e.g. 0.99.
+   * @return the latency in microseconds, 0 if nothing was recorded.
+   */
+  long getPercentileMicros(double quantile) {
+    long total = count.sum();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(midpoint(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  private static int index(long micros) {
+    if (micros < EXACT) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+    return EXACT + (exponent - EXACT_BITS) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long midpoint(int index) {
+    if (index < EXACT) {
+      return index;
+    }
+    int exponent = (index - EXACT) / SUB_BUCKETS + EXACT_BITS;
+    long subBucket = (index - EXACT) % SUB_BUCKETS + SUB_BUCKETS;
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (subBucket << shift) + (1L << (shift - 1));
+  }
+}
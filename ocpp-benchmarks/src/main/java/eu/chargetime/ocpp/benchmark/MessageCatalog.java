@@ -0,0 +1,390 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.Validatable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import javax.annotation.Nullable;
+
+/**
+ * Finds every request and confirmation model of a protocol version on the class path, and builds a
+ * valid sample of each.
+ *
+ * <p>A sample is built through the widest public constructor, then every optional property is set
+ * through its setter, so the payload is as large as the model allows. Properties that are rejected
+ * by a setter are left unset. When the sample as a whole doesn't validate, only the constructor
+ * arguments are kept.
+ *
+ * <p>Samples also stand in for a central system or charge point: {@link #withSampleHandler(Class)}
+ * answers every incoming request with a sample confirmation.
+ */
+final class MessageCatalog {
+
+  private static final String OCPP1_6_MODELS = "eu/chargetime/ocpp/model/";
+  private static final String OCPP2_0_1_MODELS = "eu/chargetime/ocpp/v201/model/messages/";
+  private static final String OCPP2_1_MODELS = "eu/chargetime/ocpp/v21/model/messages/";
+
+  private static final ZonedDateTime TIMESTAMP =
+      ZonedDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+  /** Nesting depth below which optional properties are still set. */
+  private static final int OPTIONAL_DEPTH = 3;
+
+  /** Nesting depth at which no more objects are built. */
+  private static final int MAX_DEPTH = 8;
+
+  private static final Set<String> SKIPPED_PROPERTIES =
+      new HashSet<>(Arrays.asList("CustomData", "OcppMessageId", "CompletedHandler"));
+
+  private MessageCatalog() {}
+
+  /**
+   * All concrete request and confirmation models of a protocol version, sorted by name.
+   *
+   * @param protocolVersion the protocol version.
+   * @return the model classes.
+   */
+  static List<Class<?>> messages(ProtocolVersion protocolVersion) {
+    String prefix = modelPath(protocolVersion);
+    List<Class<?>> messages = new ArrayList<>();
+    for (String className : classNames(prefix)) {
+      // OCPP 1.6 models live in sub packages, the common base classes right below the prefix.
+      if (protocolVersion == ProtocolVersion.OCPP1_6
+          && className.indexOf('.', prefix.length()) < 0) {
+        continue;
+      }
+      Class<?> type = load(className);
+      if (isMessage(type)) {
+        messages.add(type);
+      }
+    }
+    messages.sort(Comparator.comparing(Class::getSimpleName));
+    return messages;
+  }
+
+  /**
+   * Find a model by its simple name, like {@code BootNotificationRequest}.
+   *
+   * @param protocolVersion the protocol version.
+   * @param simpleName the simple class name.
+   * @return the model class.
+   * @throws IllegalArgumentException if the protocol version has no such model.
+   */
+  static Class<?> find(ProtocolVersion protocolVersion, String simpleName) {
+    for (Class<?> type : messages(protocolVersion)) {
+      if (type.getSimpleName().equals(simpleName)) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException(simpleName + " is not a message of " + protocolVersion);
+  }
+
+  /**
+   * The action name of a model, like {@code BootNotification}.
+   *
+   * @param type the model class.
+   * @return the action name.
+   */
+  static String action(Class<?> type) {
+    String name = type.getSimpleName();
+    for (String suffix : new String[] {"Request", "Confirmation", "Response"}) {
+      if (name.endsWith(suffix)) {
+        return name.substring(0, name.length() - suffix.length());
+      }
+    }
+    return name;
+  }
+
+  /**
+   * Build a valid sample of a model.
+   *
+   * @param type the model class.
+   * @param <T> the model type.
+   * @return a sample that passes {@link Validatable#validate()}.
+   * @throws IllegalArgumentException if no valid sample could be built.
+   */
+  static <T> T sample(Class<T> type) {
+    for (boolean optional : new boolean[] {true, false}) {
+      Object sample = instantiate(type, 0, optional);
+      if (sample != null && isValid(sample)) {
+        return type.cast(sample);
+      }
+    }
+    throw new IllegalArgumentException("Can't build a valid sample of " + type.getName());
+  }
+
+  /**
+   * Create a feature profile or function whose event handler answers every request with a sample
+   * confirmation.
+   *
+   * @param type the {@code Profile} or {@code Function} class, constructed with its event handler
+   *     or without arguments.
+   * @param <T> the profile or function type.
+   * @return the profile or function.
+   */
+  static <T> T withSampleHandler(Class<T> type) {
+    Constructor<?> constructor = widestConstructor(type);
+    if (constructor == null) {
+      throw new IllegalArgumentException(type.getName() + " has no public constructor");
+    }
+    try {
+      if (constructor.getParameterCount() == 0) {
+        return type.cast(constructor.newInstance());
+      }
+      Class<?> handlerType = constructor.getParameterTypes()[0];
+      Map<Method, Object> confirmations = new HashMap<>();
+      for (Method method : handlerType.getMethods()) {
+        if (Confirmation.class.isAssignableFrom(method.getReturnType())) {
+          confirmations.put(method, sample(method.getReturnType()));
+        }
+      }
+      Object handler =
+          Proxy.newProxyInstance(
+              handlerType.getClassLoader(),
+              new Class<?>[] {handlerType},
+              (proxy, method, args) -> confirmations.get(method));
+      return type.cast(constructor.newInstance(handler));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("Can't create " + type.getName(), e);
+    }
+  }
+
+  private static boolean isMessage(Class<?> type) {
+    return !type.isInterface()
+        && !Modifier.isAbstract(type.getModifiers())
+        && (Request.class.isAssignableFrom(type) || Confirmation.class.isAssignableFrom(type));
+  }
+
+  private static boolean isValid(Object sample) {
+    try {
+      return !(sample instanceof Validatable) || ((Validatable) sample).validate();
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+  @Nullable
+  private static Object instantiate(Class<?> type, int depth, boolean optional) {
+    Constructor<?> constructor = widestConstructor(type);
+    if (constructor == null) {
+      return null;
+    }
+
+    Class<?>[] parameterTypes = constructor.getParameterTypes();
+    Object[] arguments = new Object[parameterTypes.length];
+    for (int i = 0; i < parameterTypes.length; i++) {
+      arguments[i] = value(parameterTypes[i], depth, optional);
+      if (arguments[i] == null) {
+        return null;
+      }
+    }
+
+    Object instance;
+    try {
+      instance = constructor.newInstance(arguments);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+
+    if (optional && depth < OPTIONAL_DEPTH) {
+      setOptionalProperties(instance, depth);
+    }
+    return instance;
+  }
+
+  private static void setOptionalProperties(Object instance, int depth) {
+    for (Method setter : instance.getClass().getMethods()) {
+      String name = setter.getName();
+      if (!name.startsWith("set")
+          || setter.getParameterCount() != 1
+          || SKIPPED_PROPERTIES.contains(name.substring(3))
+          || isSet(instance, name.substring(3))) {
+        continue;
+      }
+      Object value = value(setter.getParameterTypes()[0], depth, true);
+      if (value == null) {
+        continue;
+      }
+      try {
+        setter.invoke(instance, value);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // The model rejects the value, leave the property unset.
+      }
+    }
+  }
+
+  private static boolean isSet(Object instance, String property) {
+    for (String prefix : new String[] {"get", "is"}) {
+      try {
+        return instance.getClass().getMethod(prefix + property).invoke(instance) != null;
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // Try the next naming convention.
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private static Object value(Class<?> type, int depth, boolean optional) {
+    if (type == String.class) {
+      return "abc";
+    } else if (type == Integer.class || type == int.class) {
+      return 1;
+    } else if (type == Long.class || type == long.class) {
+      return 1L;
+    } else if (type == Double.class || type == double.class) {
+      return 1.0;
+    } else if (type == BigDecimal.class) {
+      return BigDecimal.ONE;
+    } else if (type == Boolean.class || type == boolean.class) {
+      return Boolean.TRUE;
+    } else if (type == ZonedDateTime.class) {
+      return TIMESTAMP;
+    } else if (type.isEnum()) {
+      return type.getEnumConstants()[0];
+    } else if (type.isArray()) {
+      Object element = value(type.getComponentType(), depth, optional);
+      if (element == null) {
+        return null;
+      }
+      Object array = Array.newInstance(type.getComponentType(), 1);
+      Array.set(array, 0, element);
+      return array;
+    } else if (depth >= MAX_DEPTH
+        || type.isInterface()
+        || type.isPrimitive()
+        || type.getName().startsWith("java.")) {
+      return null;
+    }
+    return instantiate(type, depth + 1, optional);
+  }
+
+  @Nullable
+  private static Constructor<?> widestConstructor(Class<?> type) {
+    Constructor<?> widest = null;
+    for (Constructor<?> constructor : type.getConstructors()) {
+      if (widest == null || constructor.getParameterCount() > widest.getParameterCount()) {
+        widest = constructor;
+      }
+    }
+    return widest;
+  }
+
+  private static String modelPath(ProtocolVersion protocolVersion) {
+    switch (protocolVersion) {
+      case OCPP1_6:
+        return OCPP1_6_MODELS;
+      case OCPP2_0_1:
+        return OCPP2_0_1_MODELS;
+      case OCPP2_1:
+        return OCPP2_1_MODELS;
+      default:
+        throw new IllegalArgumentException("Unknown protocol version " + protocolVersion);
+    }
+  }
+
+  private static List<String> classNames(String prefix) {
+    Set<String> classNames = new HashSet<>();
+    try {
+      Enumeration<URL> roots = MessageCatalog.class.getClassLoader().getResources(prefix);
+      while (roots.hasMoreElements()) {
+        URL root = roots.nextElement();
+        if ("jar".equals(root.getProtocol())) {
+          collectFromJar(
+              ((JarURLConnection) root.openConnection()).getJarFile(), prefix, classNames);
+        } else {
+          collectFromDirectory(new File(root.toURI()), prefix, classNames);
+        }
+      }
+    } catch (IOException | URISyntaxException e) {
+      throw new IllegalStateException("Can't list the models in " + prefix, e);
+    }
+    List<String> sorted = new ArrayList<>(classNames);
+    sorted.sort(null);
+    return sorted;
+  }
+
+  private static void collectFromJar(JarFile jar, String prefix, Set<String> classNames) {
+    Enumeration<JarEntry> entries = jar.entries();
+    while (entries.hasMoreElements()) {
+      addClassName(entries.nextElement().getName(), prefix, classNames);
+    }
+  }
+
+  private static void collectFromDirectory(File directory, String path, Set<String> classNames) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        collectFromDirectory(file, path + file.getName() + "/", classNames);
+      } else {
+        addClassName(path + file.getName(), path, classNames);
+      }
+    }
+  }
+
+  private static void addClassName(String entry, String prefix, Set<String> classNames) {
+    if (entry.startsWith(prefix) && entry.endsWith(".class") && entry.indexOf('$') < 0) {
+      classNames.add(entry.substring(0, entry.length() - ".class".length()).replace('/', '.'));
+    }
+  }
+
+  private static Class<?> load(String className) {
+    try {
+      return Class.forName(className, false, MessageCatalog.class.getClassLoader());
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.JSONCodec;
+import eu.chargetime.ocpp.JSONCommunicator;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Message;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.Validatable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * JSON encoding, decoding and validation of a single message.
+ *
+ * <p>{@code encode} packs the message into a complete CALL or CALLRESULT frame, {@code decode}
+ * parses such a frame and unpacks the payload back into the model, and {@code validate} runs the
+ * model's own {@code validate()}. Any request or confirmation of the protocol version can be
+ * selected by its class name, e.g. {@code java -jar target/benchmarks.jar MessageCodec -p
+ * protocol=OCPP2_0_1 -p message=TransactionEventRequest}. {@link RegressionSuite} runs every
+ * message.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+  private static final String UNIQUE_ID = "19223201";
+
+  @State(Scope.Thread)
+  public static class Sample {
+
+    @Param({"OCPP1_6", "OCPP2_0_1", "OCPP2_1"})
+    String protocol;
+
+    @Param({"BootNotificationRequest"})
+    String message;
+
+    Class<?> type;
+    String action;
+    Object payload;
+    String frame;
+    FrameCodec codec;
+
+    @Setup
+    public void setup() {
+      type = MessageCatalog.find(ProtocolVersion.valueOf(protocol), message);
+      action = MessageCatalog.action(type);
+      payload = MessageCatalog.sample(type);
+      codec = new FrameCodec(JSONCodec.TREE);
+      frame = codec.encode(action, payload).toString();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Decoder {
+
+    @Param({"TREE", "STREAMING"})
+    String codec;
+
+    FrameCodec frameCodec;
+
+    @Setup
+    public void setup() {
+      frameCodec = new FrameCodec(JSONCodec.valueOf(codec));
+    }
+  }
+
+  @Benchmark
+  public Object encode(Sample sample) {
+    return sample.codec.encode(sample.action, sample.payload);
+  }
+
+  @Benchmark
+  public Object decode(Sample sample, Decoder decoder) {
+    return decoder.frameCodec.decode(sample.frame, sample.type);
+  }
+
+  @Benchmark
+  public boolean validate(Sample sample) {
+    return ((Validatable) sample.payload).validate();
+  }
+
+  /** Opens up the frame level packing and parsing of {@link JSONCommunicator}. */
+  static class FrameCodec extends JSONCommunicator {
+
+    FrameCodec(JSONCodec codec) {
+      super(null, false, codec);
+    }
+
+    Object encode(String action, Object payload) {
+      return payload instanceof Request
+          ? packCall(UNIQUE_ID, action, (Request) payload)
+          : packCallResult(UNIQUE_ID, action, (Confirmation) payload);
+    }
+
+    <T> T decode(String frame, Class<T> type) {
+      Message message = parse(frame);
+      return unpackPayload(message.getPayload(), type);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.MultiProtocolJSONClient;
+import eu.chargetime.ocpp.MultiProtocolJSONServer;
+import eu.chargetime.ocpp.feature.profile.ClientCoreProfile;
+import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.core.BootNotificationRequest;
+import eu.chargetime.ocpp.model.core.HeartbeatRequest;
+import eu.chargetime.ocpp.model.core.MeterValue;
+import eu.chargetime.ocpp.model.core.MeterValuesRequest;
+import eu.chargetime.ocpp.model.core.SampledValue;
+import eu.chargetime.ocpp.model.core.StartTransactionConfirmation;
+import eu.chargetime.ocpp.model.core.StartTransactionRequest;
+import eu.chargetime.ocpp.model.core.StopTransactionRequest;
+import java.time.ZonedDateTime;
+
+/** OCPP 1.6 core profile messages. */
+class OCPP16FleetMessages implements FleetMessages {
+
+  private static final int CONNECTOR_ID = 1;
+  private static final String ID_TAG = "FLEET";
+
+  @Override
+  public void addClientFeatures(MultiProtocolJSONClient client) {
+    client.addFeatureProfile(MessageCatalog.withSampleHandler(ClientCoreProfile.class));
+  }
+
+  @Override
+  public void addServerFeatures(MultiProtocolJSONServer server) {
+    server.addFeatureProfile(MessageCatalog.withSampleHandler(ServerCoreProfile.class));
+  }
+
+  @Override
+  public Request bootNotification(String identity) {
+    BootNotificationRequest request = new BootNotificationRequest("ChargeTime", "Fleet");
+    request.setChargePointSerialNumber(identity);
+    return request;
+  }
+
+  @Override
+  public Request heartbeat() {
+    return new HeartbeatRequest();
+  }
+
+  @Override
+  public Request startTransaction(String transactionId, long meterWh) {
+    return new StartTransactionRequest(CONNECTOR_ID, ID_TAG, (int) meterWh, ZonedDateTime.now());
+  }
+
+  @Override
+  public String transactionId(String transactionId, Confirmation confirmation) {
+    return String.valueOf(((StartTransactionConfirmation) confirmation).getTransactionId());
+  }
+
+  @Override
+  public Request meterValues(String transactionId, int seqNo, long meterWh, int sampledValues) {
+    SampledValue[] values = new SampledValue[sampledValues];
+    for (int i = 0; i < sampledValues; i++) {
+      values[i] = new SampledValue(Long.toString(meterWh + i));
+    }
+    MeterValuesRequest request = new MeterValuesRequest(CONNECTOR_ID);
+    request.setTransactionId(Integer.valueOf(transactionId));
+    request.setMeterValue(new MeterValue[] {new MeterValue(ZonedDateTime.now(), values)});
+    return request;
+  }
+
+  @Override
+  public Request stopTransaction(String transactionId, int seqNo, long meterWh) {
+    return new StopTransactionRequest(
+        (int) meterWh, ZonedDateTime.now(), Integer.valueOf(transactionId));
+  }
+}
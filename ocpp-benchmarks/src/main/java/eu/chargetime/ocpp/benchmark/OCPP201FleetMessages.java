@@ -0,0 +1,140 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.MultiProtocolJSONClient;
+import eu.chargetime.ocpp.MultiProtocolJSONServer;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.v201.feature.function.ClientMeterValuesFunction;
+import eu.chargetime.ocpp.v201.feature.function.ClientProvisioningFunction;
+import eu.chargetime.ocpp.v201.feature.function.ClientTransactionsFunction;
+import eu.chargetime.ocpp.v201.feature.function.ServerMeterValuesFunction;
+import eu.chargetime.ocpp.v201.feature.function.ServerProvisioningFunction;
+import eu.chargetime.ocpp.v201.feature.function.ServerTransactionsFunction;
+import eu.chargetime.ocpp.v201.model.messages.BootNotificationRequest;
+import eu.chargetime.ocpp.v201.model.messages.HeartbeatRequest;
+import eu.chargetime.ocpp.v201.model.messages.TransactionEventRequest;
+import eu.chargetime.ocpp.v201.model.types.BootReasonEnum;
+import eu.chargetime.ocpp.v201.model.types.ChargingStation;
+import eu.chargetime.ocpp.v201.model.types.EVSE;
+import eu.chargetime.ocpp.v201.model.types.IdToken;
+import eu.chargetime.ocpp.v201.model.types.IdTokenEnum;
+import eu.chargetime.ocpp.v201.model.types.MeterValue;
+import eu.chargetime.ocpp.v201.model.types.SampledValue;
+import eu.chargetime.ocpp.v201.model.types.Transaction;
+import eu.chargetime.ocpp.v201.model.types.TransactionEventEnum;
+import eu.chargetime.ocpp.v201.model.types.TriggerReasonEnum;
+import java.time.ZonedDateTime;
+
+/** OCPP 2.0.1 messages, a transaction is a series of TransactionEvent requests. */
+class OCPP201FleetMessages implements FleetMessages {
+
+  private static final ProtocolVersion PROTOCOL_VERSION = ProtocolVersion.OCPP2_0_1;
+  private static final int EVSE_ID = 1;
+  private static final String ID_TOKEN = "FLEET";
+
+  @Override
+  public void addClientFeatures(MultiProtocolJSONClient client) {
+    client.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ClientProvisioningFunction.class));
+    client.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ClientTransactionsFunction.class));
+    client.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ClientMeterValuesFunction.class));
+  }
+
+  @Override
+  public void addServerFeatures(MultiProtocolJSONServer server) {
+    server.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ServerProvisioningFunction.class));
+    server.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ServerTransactionsFunction.class));
+    server.addFunction(
+        PROTOCOL_VERSION, MessageCatalog.withSampleHandler(ServerMeterValuesFunction.class));
+  }
+
+  @Override
+  public Request bootNotification(String identity) {
+    return new BootNotificationRequest(
+        new ChargingStation("Fleet", "ChargeTime").withSerialNumber(identity),
+        BootReasonEnum.PowerUp);
+  }
+
+  @Override
+  public Request heartbeat() {
+    return new HeartbeatRequest();
+  }
+
+  @Override
+  public Request startTransaction(String transactionId, long meterWh) {
+    return new TransactionEventRequest(
+            TransactionEventEnum.Started,
+            ZonedDateTime.now(),
+            TriggerReasonEnum.Authorized,
+            0,
+            new Transaction(transactionId))
+        .withEvse(new EVSE(EVSE_ID))
+        .withIdToken(new IdToken(ID_TOKEN, IdTokenEnum.ISO14443))
+        .withMeterValue(meterValue(meterWh, 1));
+  }
+
+  @Override
+  public String transactionId(String transactionId, Confirmation confirmation) {
+    return transactionId;
+  }
+
+  @Override
+  public Request meterValues(String transactionId, int seqNo, long meterWh, int sampledValues) {
+    return new TransactionEventRequest(
+            TransactionEventEnum.Updated,
+            ZonedDateTime.now(),
+            TriggerReasonEnum.MeterValuePeriodic,
+            seqNo,
+            new Transaction(transactionId))
+        .withMeterValue(meterValue(meterWh, sampledValues));
+  }
+
+  @Override
+  public Request stopTransaction(String transactionId, int seqNo, long meterWh) {
+    return new TransactionEventRequest(
+            TransactionEventEnum.Ended,
+            ZonedDateTime.now(),
+            TriggerReasonEnum.StopAuthorized,
+            seqNo,
+            new Transaction(transactionId))
+        .withMeterValue(meterValue(meterWh, 1));
+  }
+
+  private static MeterValue[] meterValue(long meterWh, int sampledValues) {
+    SampledValue[] values = new SampledValue[sampledValues];
+    for (int i = 0; i < sampledValues; i++) {
+      values[i] = new SampledValue((double) (meterWh + i));
+    }
+    return new MeterValue[] {new MeterValue(values, ZonedDateTime.now())};
+  }
+}
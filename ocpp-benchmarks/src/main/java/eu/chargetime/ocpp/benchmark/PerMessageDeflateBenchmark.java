@@ -0,0 +1,166 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.JSONConfiguration;
+import eu.chargetime.ocpp.PerMessageDeflateExtension;
+import eu.chargetime.ocpp.PerMessageDeflateExtensionFactory;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.java_websocket.extensions.IExtension;
+import org.java_websocket.framing.TextFrame;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * CPU per message and resident memory per connection of permessage-deflate.
+ *
+ * <p>{@code message} compresses a typical OCPP call on one end and decompresses it on the other.
+ * {@code connections} opens a fleet of negotiated connections which each exchanged one message and
+ * reports the growth of the process resident set in kB, native zlib memory included. With context
+ * takeover every connection keeps its own compressors, without it they go back to a shared pool
+ * after each message. Run the latter with {@code -p connections=1000} on small machines, 50000
+ * connections with context takeover need several GB.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class PerMessageDeflateBenchmark {
+
+  private static final byte[] MESSAGE =
+      ("[2,\"c0a8e3b2-6f5d-4a9e-9b1f-2d7c5e8a4f10\",\"MeterValues\",{\"evseId\":1,"
+              + "\"meterValue\":[{\"timestamp\":\"2024-01-01T12:00:00Z\",\"sampledValue\":["
+              + "{\"value\":7360.0,\"measurand\":\"Power.Active.Import\",\"unitOfMeasure\":"
+              + "{\"unit\":\"W\"}},{\"value\":32.0,\"measurand\":\"Current.Import\",\"phase\":\"L1\"},"
+              + "{\"value\":230.1,\"measurand\":\"Voltage\",\"phase\":\"L1-N\"},"
+              + "{\"value\":12873.4,\"measurand\":\"Energy.Active.Import.Register\"}]}]}]")
+          .getBytes(StandardCharsets.UTF_8);
+
+  @Param({"1", "6", "9"})
+  int level;
+
+  @Param({"true", "false"})
+  boolean contextTakeover;
+
+  private PerMessageDeflateExtension template;
+  private PerMessageDeflateExtension sender;
+  private PerMessageDeflateExtension receiver;
+
+  @Setup
+  public void setup() {
+    template =
+        PerMessageDeflateExtensionFactory.forServer(
+            JSONConfiguration.get()
+                .setParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_LEVEL, level)
+                .setParameter(
+                    JSONConfiguration.WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER, !contextTakeover));
+    sender = connect(template);
+    receiver = (PerMessageDeflateExtension) template.copyInstance();
+    receiver.acceptProvidedExtensionAsClient(sender.getProvidedExtensionAsServer());
+  }
+
+  @TearDown
+  public void tearDown() {
+    sender.reset();
+    receiver.reset();
+  }
+
+  private PerMessageDeflateExtension connect(IExtension template) {
+    PerMessageDeflateExtension connection = (PerMessageDeflateExtension) template.copyInstance();
+    connection.acceptProvidedExtensionAsServer(template.getProvidedExtensionAsClient());
+    return connection;
+  }
+
+  private static TextFrame frame() {
+    TextFrame frame = new TextFrame();
+    frame.setPayload(ByteBuffer.wrap(MESSAGE));
+    frame.setFin(true);
+    return frame;
+  }
+
+  @Benchmark
+  public void message(Blackhole blackhole) throws Exception {
+    TextFrame frame = frame();
+    sender.encodeFrame(frame);
+    receiver.decodeFrame(frame);
+    blackhole.consume(frame.getPayloadData());
+  }
+
+  @State(Scope.Thread)
+  public static class Fleet {
+    @Param({"50000"})
+    int connections;
+  }
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Memory {
+    public long residentKb;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1)
+  public void connections(Fleet fleet, Memory memory) throws Exception {
+    System.gc();
+    long before = residentKb();
+    List<PerMessageDeflateExtension> open = new ArrayList<>(fleet.connections);
+    for (int i = 0; i < fleet.connections; i++) {
+      PerMessageDeflateExtension connection = connect(template);
+      connection.encodeFrame(frame());
+      open.add(connection);
+    }
+    System.gc();
+    memory.residentKb = residentKb() - before;
+    for (PerMessageDeflateExtension connection : open) {
+      connection.reset();
+    }
+  }
+
+  /** VmRSS of this process, 0 where /proc is not available. */
+  private static long residentKb() throws IOException {
+    if (!Files.isReadable(Paths.get("/proc/self/status"))) {
+      return 0;
+    }
+    for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+      if (line.startsWith("VmRSS:")) {
+        return Long.parseLong(line.replaceAll("[^0-9]", ""));
+      }
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,143 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.AsyncPromiseFulfillerDecorator;
+import eu.chargetime.ocpp.PromiseFulfiller;
+import eu.chargetime.ocpp.PromiseFulfillerExecutor;
+import eu.chargetime.ocpp.SessionEvents;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.core.HeartbeatRequest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Time to complete a burst of requests whose handlers block, e.g. on a database.
+ *
+ * <p>{@code cached} is the default shared cached thread pool, which starts a platform thread per
+ * blocked handler, at 100000 it may run out of native threads. {@code virtual} runs each handler on
+ * a virtual thread and needs Java 21, on older JVMs the setup fails and JMH skips it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromiseFulfillerBenchmark {
+
+  @Param({"1000", "10000", "100000"})
+  int inFlight;
+
+  @Param({"cached", "virtual"})
+  String mode;
+
+  @Param({"10"})
+  int handlerMillis;
+
+  private PromiseFulfillerExecutor executor;
+  private ExecutorService cachedPool;
+  private ExecutorService previousExecutor;
+  private AsyncPromiseFulfillerDecorator fulfiller;
+  private volatile CountDownLatch completed;
+
+  @Setup
+  public void setup() {
+    PromiseFulfiller blockingHandler =
+        (promise, events, request) -> {
+          try {
+            Thread.sleep(handlerMillis);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          }
+          completed.countDown();
+        };
+    if ("virtual".equals(mode)) {
+      executor = PromiseFulfillerExecutor.virtualThreads(inFlight, false);
+      fulfiller = new AsyncPromiseFulfillerDecorator(blockingHandler, executor.sessionExecutor());
+    } else {
+      cachedPool = Executors.newCachedThreadPool();
+      previousExecutor = AsyncPromiseFulfillerDecorator.getExecutor();
+      AsyncPromiseFulfillerDecorator.setExecutor(cachedPool);
+      fulfiller = new AsyncPromiseFulfillerDecorator(blockingHandler);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (executor != null) executor.shutdown();
+    if (cachedPool != null) {
+      AsyncPromiseFulfillerDecorator.setExecutor(previousExecutor);
+      cachedPool.shutdown();
+    }
+  }
+
+  @Benchmark
+  public void blockingBurst() throws InterruptedException {
+    completed = new CountDownLatch(inFlight);
+    SessionEvents events = new NoSessionEvents();
+    Request request = new HeartbeatRequest();
+    for (int i = 0; i < inFlight; i++) {
+      fulfiller.fulfill(new CompletableFuture<>(), events, request);
+    }
+    completed.await();
+  }
+
+  static class NoSessionEvents implements SessionEvents {
+    @Override
+    public void handleConfirmation(String uniqueId, @Nullable Confirmation confirmation) {}
+
+    @Override
+    public Confirmation handleRequest(Request request) {
+      return null;
+    }
+
+    @Override
+    public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation) {
+      return false;
+    }
+
+    @Override
+    public void handleError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConfirmationError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConnectionClosed() {}
+
+    @Override
+    public void handleConnectionOpened() {}
+  }
+}
@@ -0,0 +1,114 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ * Runs the codec benchmarks for every message of OCPP 1.6, 2.0.1 and 2.1, and the loopback round
+ * trips, and writes all results to one JSON file that can be compared between releases.
+ *
+ * <p>{@code java -cp target/benchmarks.jar eu.chargetime.ocpp.benchmark.RegressionSuite}
+ *
+ * <p>Takes the usual JMH options, e.g. {@code -f 3} for more forks, {@code -e decode} to exclude
+ * benchmarks, or {@code -rff results.json} for another result file than {@value #DEFAULT_RESULT}.
+ * Iterations are shorter than the JMH defaults, as there are over a thousand benchmarks to run.
+ */
+public final class RegressionSuite {
+
+  static final String DEFAULT_RESULT = "ocpp-benchmarks.json";
+
+  private RegressionSuite() {}
+
+  public static void main(String[] args)
+      throws CommandLineOptionException, RunnerException, IOException {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    List<RunResult> results = new ArrayList<>();
+
+    for (ProtocolVersion protocolVersion : ProtocolVersion.values()) {
+      List<String> messages = new ArrayList<>();
+      for (Class<?> type : MessageCatalog.messages(protocolVersion)) {
+        messages.add(type.getSimpleName());
+      }
+      results.addAll(
+          run(
+              options(commandLine, MessageCodecBenchmark.class)
+                  .param("protocol", protocolVersion.name())
+                  .param("message", messages.toArray(new String[0]))));
+    }
+    results.addAll(
+        run(
+            options(commandLine, SOAPMessageCodecBenchmark.class)
+                .param("message", SOAPMessageCodecBenchmark.messages().toArray(new String[0]))));
+    results.addAll(run(options(commandLine, RoundTripBenchmark.class)));
+
+    String file = commandLine.getResult().orElse(DEFAULT_RESULT);
+    try (PrintStream out = new PrintStream(new FileOutputStream(file), true, "UTF-8")) {
+      ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+    }
+    System.out.printf("Wrote %d results to %s%n", results.size(), file);
+  }
+
+  private static ChainedOptionsBuilder options(CommandLineOptions commandLine, Class<?> benchmark) {
+    ChainedOptionsBuilder options =
+        new OptionsBuilder()
+            .parent(commandLine)
+            .include("^" + Pattern.quote(benchmark.getName()) + "\\.");
+    if (!commandLine.getWarmupIterations().hasValue()) {
+      options.warmupIterations(2);
+    }
+    if (!commandLine.getWarmupTime().hasValue()) {
+      options.warmupTime(TimeValue.milliseconds(300));
+    }
+    if (!commandLine.getMeasurementIterations().hasValue()) {
+      options.measurementIterations(3);
+    }
+    if (!commandLine.getMeasurementTime().hasValue()) {
+      options.measurementTime(TimeValue.milliseconds(300));
+    }
+    return options;
+  }
+
+  private static List<RunResult> run(ChainedOptionsBuilder options) throws RunnerException {
+    return new ArrayList<>(new Runner(options.build()).run());
+  }
+}
@@ -0,0 +1,181 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.AsyncPromiseFulfillerDecorator;
+import eu.chargetime.ocpp.ClientEvents;
+import eu.chargetime.ocpp.MultiProtocolJSONClient;
+import eu.chargetime.ocpp.MultiProtocolJSONServer;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.ServerEvents;
+import eu.chargetime.ocpp.feature.function.Function;
+import eu.chargetime.ocpp.feature.profile.ClientCoreProfile;
+import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.SessionInformation;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * End to end latency of a call between a {@link MultiProtocolJSONClient} and a {@link
+ * MultiProtocolJSONServer} in the same process, over a loopback WebSocket.
+ *
+ * <p>{@code clientCall} is a Heartbeat sent by the charging station, {@code serverCall} is a
+ * DataTransfer sent by the central system. Both wait for the confirmation before the next call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoundTripBenchmark {
+
+  private static final long TIMEOUT_SECONDS = 10;
+
+  @Param({"OCPP1_6", "OCPP2_0_1", "OCPP2_1"})
+  String protocol;
+
+  private ExecutorService fulfillers;
+  private MultiProtocolJSONServer server;
+  private MultiProtocolJSONClient client;
+  private volatile UUID session;
+  private Request heartbeat;
+  private Request dataTransfer;
+
+  @Setup
+  public void setup() throws Exception {
+    ProtocolVersion protocolVersion = ProtocolVersion.valueOf(protocol);
+    List<ProtocolVersion> protocolVersions = Collections.singletonList(protocolVersion);
+    // Replace the shared pool of the client's promise fulfiller, so it can be shut down.
+    fulfillers = Executors.newCachedThreadPool();
+    AsyncPromiseFulfillerDecorator.setExecutor(fulfillers);
+    server = new MultiProtocolJSONServer(protocolVersions);
+    client = new MultiProtocolJSONClient(protocolVersions);
+    if (protocolVersion == ProtocolVersion.OCPP1_6) {
+      server.addFeatureProfile(MessageCatalog.withSampleHandler(ServerCoreProfile.class));
+      client.addFeatureProfile(MessageCatalog.withSampleHandler(ClientCoreProfile.class));
+    } else {
+      String functions =
+          protocolVersion == ProtocolVersion.OCPP2_0_1
+              ? "eu.chargetime.ocpp.v201.feature.function."
+              : "eu.chargetime.ocpp.v21.feature.function.";
+      for (String function : new String[] {"Provisioning", "DataTransfer"}) {
+        server.addFunction(
+            protocolVersion,
+            (Function) withSampleHandler(functions + "Server" + function + "Function"));
+        client.addFunction(
+            protocolVersion,
+            (Function) withSampleHandler(functions + "Client" + function + "Function"));
+      }
+    }
+    heartbeat = sample(protocolVersion, "HeartbeatRequest");
+    dataTransfer = sample(protocolVersion, "DataTransferRequest");
+
+    CountDownLatch connected = new CountDownLatch(1);
+    server.open(
+        "localhost",
+        0,
+        new ServerEvents() {
+          @Override
+          public void authenticateSession(
+              SessionInformation information, String username, byte[] password) {}
+
+          @Override
+          public void newSession(UUID sessionIndex, SessionInformation information) {
+            session = sessionIndex;
+            connected.countDown();
+          }
+
+          @Override
+          public void lostSession(UUID sessionIndex) {}
+        });
+    try {
+      connect(connected);
+    } catch (Exception e) {
+      tearDown();
+      throw e;
+    }
+  }
+
+  private void connect(CountDownLatch connected) throws InterruptedException {
+    // The server binds its socket in the background.
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+    while (server.getPort() <= 0) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Loopback server didn't bind a port");
+      }
+      Thread.sleep(1);
+    }
+    client.connect(
+        "ws://localhost:" + server.getPort(),
+        new ClientEvents() {
+          @Override
+          public void connectionOpened() {}
+
+          @Override
+          public void connectionClosed() {}
+        });
+    if (!connected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Client didn't connect to the loopback server");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    client.disconnect();
+    server.close();
+    fulfillers.shutdown();
+  }
+
+  @Benchmark
+  public Confirmation clientCall() throws Exception {
+    return client.send(heartbeat).toCompletableFuture().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  public Confirmation serverCall() throws Exception {
+    return server
+        .send(session, dataTransfer)
+        .toCompletableFuture()
+        .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private static Object withSampleHandler(String className) throws ClassNotFoundException {
+    return MessageCatalog.withSampleHandler(Class.forName(className));
+  }
+
+  private static Request sample(ProtocolVersion protocolVersion, String message) {
+    return (Request) MessageCatalog.sample(MessageCatalog.find(protocolVersion, message));
+  }
+}
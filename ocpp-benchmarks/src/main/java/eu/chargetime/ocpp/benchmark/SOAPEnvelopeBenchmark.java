@@ -0,0 +1,156 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.SOAPEnvelope;
+import eu.chargetime.ocpp.SOAPEnvelopeCodec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.MimeHeaders;
+import javax.xml.soap.SOAPConstants;
+import javax.xml.soap.SOAPHeader;
+import javax.xml.soap.SOAPMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+/**
+ * Cost of reading and writing a whole SOAP envelope, headers and payload included.
+ *
+ * <p>{@code stax} is {@link SOAPEnvelopeCodec}. {@code saaj} is how it used to work: a SAAJ DOM per
+ * message, searched once per header.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SOAPEnvelopeBenchmark {
+
+  private static final String[] HEADERS = {
+    "chargeBoxIdentity", "Action", "MessageID", "RelatesTo", "From", "To"
+  };
+
+  @Param({"stax", "saaj"})
+  String mode;
+
+  private byte[] request;
+  private SOAPEnvelope response;
+  private MessageFactory messageFactory;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() throws Exception {
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setNamespace("urn://Ocpp/Cs/2015/10/");
+    envelope.setChargeBoxIdentity("benchmark");
+    envelope.setAction("/StatusNotification");
+    envelope.setMessageId("urn:uuid:6b8ce5c5-5f34-4c5a-8a1b-9b2e4a7f3d10");
+    envelope.setFrom("http://localhost:8000");
+    envelope.setReplyTo(SOAPEnvelopeCodec.ANONYMOUS_ADDRESS);
+    envelope.setTo("http://localhost:8890");
+    envelope.setPayload(
+        document(
+            "<statusNotificationRequest xmlns=\"urn://Ocpp/Cs/2015/10/\">"
+                + "<connectorId>1</connectorId><status>Charging</status>"
+                + "<errorCode>NoError</errorCode><timestamp>2024-01-01T12:00:00Z</timestamp>"
+                + "</statusNotificationRequest>"));
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    SOAPEnvelopeCodec.write(envelope, buffer);
+    request = buffer.toByteArray();
+
+    response = new SOAPEnvelope();
+    response.setNamespace("urn://Ocpp/Cp/2015/10/");
+    response.setChargeBoxIdentity("benchmark");
+    response.setAction("/StatusNotificationResponse");
+    response.setMessageId(envelope.getMessageId());
+    response.setRelatesTo(envelope.getMessageId());
+    response.setFrom("http://localhost:8890");
+    response.setReplyTo(SOAPEnvelopeCodec.ANONYMOUS_ADDRESS);
+    response.setTo("http://localhost:8000");
+    response.setPayload(document("<statusNotificationResponse xmlns=\"urn://Ocpp/Cp/2015/10/\"/>"));
+
+    messageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
+    out = new ByteArrayOutputStream();
+  }
+
+  private static Document document(String xml) throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+  }
+
+  @Benchmark
+  public void read(Blackhole blackhole) throws Exception {
+    if ("stax".equals(mode)) {
+      SOAPEnvelope envelope = SOAPEnvelopeCodec.read(new ByteArrayInputStream(request));
+      blackhole.consume(envelope.getChargeBoxIdentity());
+      blackhole.consume(envelope.getPayload());
+    } else {
+      SOAPMessage message =
+          messageFactory.createMessage(new MimeHeaders(), new ByteArrayInputStream(request));
+      SOAPHeader header = message.getSOAPHeader();
+      for (String name : HEADERS) {
+        blackhole.consume(header.getElementsByTagNameNS("*", name).getLength());
+      }
+      blackhole.consume(message.getSOAPBody().extractContentAsDocument());
+    }
+  }
+
+  @Benchmark
+  public int write() throws Exception {
+    out.reset();
+    if ("stax".equals(mode)) {
+      SOAPEnvelopeCodec.write(response, out);
+    } else {
+      SOAPMessage message = messageFactory.createMessage();
+      message.setProperty(SOAPMessage.WRITE_XML_DECLARATION, "true");
+      SOAPHeader header = message.getSOAPHeader();
+      header
+          .addHeaderElement(new QName(response.getNamespace(), "chargeBoxIdentity", "cs"))
+          .setValue(response.getChargeBoxIdentity());
+      addHeader(header, "Action", response.getAction());
+      addHeader(header, "MessageID", response.getMessageId());
+      addHeader(header, "RelatesTo", response.getRelatesTo());
+      addHeader(header, "From", response.getFrom());
+      addHeader(header, "To", response.getTo());
+      message.getSOAPBody().addDocument((Document) response.getPayload().cloneNode(true));
+      message.writeTo(out);
+    }
+    return out.size();
+  }
+
+  private static void addHeader(SOAPHeader header, String name, String value) throws Exception {
+    header
+        .addHeaderElement(new QName(SOAPEnvelopeCodec.WSA_NAMESPACE, name, "wsa"))
+        .setValue(value);
+  }
+}
@@ -0,0 +1,151 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.SOAPCommunicator;
+import eu.chargetime.ocpp.SOAPEnvelope;
+import eu.chargetime.ocpp.SOAPEnvelopeCodec;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Message;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.SOAPHostInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.xml.stream.XMLStreamException;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+
+/**
+ * SOAP encoding and decoding of a single OCPP 1.6 message, envelope included.
+ *
+ * <p>{@code encode} marshals the message and writes the envelope to bytes, {@code decode} reads the
+ * envelope and unmarshals the payload back into the model. Select a message by its class name, e.g.
+ * {@code java -jar target/benchmarks.jar SOAPMessageCodec -p message=MeterValuesRequest}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SOAPMessageCodecBenchmark {
+
+  private static final String UNIQUE_ID = "urn:uuid:6b8ce5c5-5f34-4c5a-8a1b-9b2e4a7f3d10";
+  private static final String URL = "http://localhost:8890";
+
+  @Param({"BootNotificationRequest"})
+  String message;
+
+  private FrameCodec codec;
+  private Class<?> type;
+  private String action;
+  private Object payload;
+  private byte[] frame;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() throws Exception {
+    codec = new FrameCodec();
+    type = MessageCatalog.find(ProtocolVersion.OCPP1_6, message);
+    action = MessageCatalog.action(type);
+    payload = MessageCatalog.sample(type);
+    if (!codec.canPack(payload)) {
+      throw new IllegalArgumentException(message + " can't be marshalled to SOAP");
+    }
+    out = new ByteArrayOutputStream();
+    encode();
+    frame = out.toByteArray();
+  }
+
+  @Benchmark
+  public int encode() throws XMLStreamException {
+    out.reset();
+    SOAPEnvelopeCodec.write(codec.encode(action, payload), out);
+    return out.size();
+  }
+
+  @Benchmark
+  public Object decode() throws XMLStreamException {
+    return codec.decode(SOAPEnvelopeCodec.read(new ByteArrayInputStream(frame)), type);
+  }
+
+  /**
+   * The OCPP 1.6 messages that can be marshalled to SOAP, not every model has JAXB bindings.
+   *
+   * @return simple class names of the messages.
+   */
+  static List<String> messages() {
+    FrameCodec codec = new FrameCodec();
+    List<String> messages = new ArrayList<>();
+    for (Class<?> type : MessageCatalog.messages(ProtocolVersion.OCPP1_6)) {
+      if (codec.canPack(MessageCatalog.sample(type))) {
+        messages.add(type.getSimpleName());
+      }
+    }
+    return messages;
+  }
+
+  /** Opens up the envelope level packing and parsing of {@link SOAPCommunicator}. */
+  static class FrameCodec extends SOAPCommunicator {
+
+    FrameCodec() {
+      super(
+          new SOAPHostInfo.Builder()
+              .chargeBoxIdentity("benchmark")
+              .fromUrl(URL)
+              .namespace(SOAPHostInfo.NAMESPACE_CHARGEBOX)
+              .build(),
+          null);
+      // Address the envelopes to ourselves, so they pass our own parse.
+      setToUrl(URL);
+    }
+
+    boolean canPack(Object payload) {
+      try {
+        Document document = (Document) packPayload(payload);
+        return document != null && document.getDocumentElement() != null;
+      } catch (RuntimeException e) {
+        return false;
+      }
+    }
+
+    SOAPEnvelope encode(String action, Object payload) {
+      return (SOAPEnvelope)
+          (payload instanceof Request
+              ? packCall(UNIQUE_ID, action, (Request) payload)
+              : packCallResult(UNIQUE_ID, action, (Confirmation) payload));
+    }
+
+    <T> T decode(SOAPEnvelope envelope, Class<T> type) {
+      Message message = parse(envelope);
+      return unpackPayload(message.getPayload(), type);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.RadioEvents;
+import eu.chargetime.ocpp.SOAPCommunicator;
+import eu.chargetime.ocpp.Transmitter;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.SOAPHostInfo;
+import eu.chargetime.ocpp.model.core.HeartbeatRequest;
+import eu.chargetime.ocpp.model.core.MeterValue;
+import eu.chargetime.ocpp.model.core.MeterValuesRequest;
+import eu.chargetime.ocpp.model.core.SampledValue;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.openjdk.jmh.annotations.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Cost of packing and unpacking a SOAP payload.
+ *
+ * <p>{@code cached} is {@link SOAPCommunicator}, which reuses a JAXB context and marshallers and
+ * renames elements in place. {@code uncached} is how it used to work: a new JAXB context per
+ * message and a copy of the DOM to change the namespace.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class SOAPPayloadBenchmark {
+
+  private static final String MODEL_NAMESPACE = "urn://Ocpp/Cs/2015/10/";
+  private static final String HOST_NAMESPACE = "urn://Ocpp/Cp/2015/10/";
+
+  @Param({"heartbeat", "meterValues"})
+  String payload;
+
+  @Param({"cached", "uncached"})
+  String mode;
+
+  private SOAPCommunicator communicator;
+  private Request request;
+  private Document packed;
+
+  @Setup
+  public void setup() throws Exception {
+    SOAPHostInfo hostInfo =
+        new SOAPHostInfo.Builder()
+            .chargeBoxIdentity("benchmark")
+            .fromUrl("http://localhost")
+            .namespace(HOST_NAMESPACE)
+            .build();
+    Transmitter transmitter =
+        new Transmitter() {
+          @Override
+          public void connect(String uri, RadioEvents events) {}
+
+          @Override
+          public void disconnect() {}
+
+          @Override
+          public void send(Object message) {}
+
+          @Override
+          public boolean isClosed() {
+            return false;
+          }
+        };
+    communicator = new SOAPCommunicator(hostInfo, transmitter);
+
+    if ("heartbeat".equals(payload)) {
+      request = new HeartbeatRequest();
+    } else {
+      SampledValue[] sampledValues = new SampledValue[8];
+      for (int i = 0; i < sampledValues.length; i++) {
+        sampledValues[i] = new SampledValue(Integer.toString(1000 + i));
+        sampledValues[i].setUnit("Wh");
+      }
+      MeterValuesRequest meterValues = new MeterValuesRequest(1);
+      meterValues.setTransactionId(42);
+      meterValues.setMeterValue(
+          new MeterValue[] {new MeterValue(ZonedDateTime.now(), sampledValues)});
+      request = meterValues;
+    }
+    packed = (Document) communicator.packPayload(request);
+  }
+
+  @Benchmark
+  public Object pack() throws Exception {
+    return "cached".equals(mode) ? communicator.packPayload(request) : uncachedPack(request);
+  }
+
+  @Benchmark
+  public Object unpack() throws Exception {
+    Document input = (Document) packed.cloneNode(true);
+    return "cached".equals(mode)
+        ? communicator.unpackPayload(input, request.getClass())
+        : uncachedUnpack(input, request.getClass());
+  }
+
+  private static Document uncachedPack(Object payload) throws Exception {
+    Marshaller marshaller = JAXBContext.newInstance(payload.getClass()).createMarshaller();
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(false);
+    Document document = factory.newDocumentBuilder().newDocument();
+    marshaller.marshal(payload, document);
+    copyToNamespace(document, HOST_NAMESPACE);
+    return document;
+  }
+
+  private static Object uncachedUnpack(Document input, Class<?> type) throws Exception {
+    copyToNamespace(input, MODEL_NAMESPACE);
+    Unmarshaller unmarshaller = JAXBContext.newInstance(type).createUnmarshaller();
+    return unmarshaller.unmarshal(input, type).getValue();
+  }
+
+  private static void copyToNamespace(Document document, String namespace) {
+    Element original = document.getDocumentElement();
+    Element copy = document.createElementNS(namespace, original.getNodeName());
+    NodeList children = original.getChildNodes();
+    for (int i = 0; i < children.getLength(); i++) {
+      copyChild(document, copy, children.item(i), namespace);
+    }
+    document.replaceChild(copy, original);
+  }
+
+  private static void copyChild(Document document, Node destination, Node child, String namespace) {
+    Node copy = child;
+    if (child.getNodeType() == Node.ELEMENT_NODE) {
+      copy = document.createElementNS(namespace, child.getNodeName());
+      NodeList children = child.getChildNodes();
+      for (int i = 0; i < children.getLength(); i++) {
+        copyChild(document, copy, children.item(i), namespace);
+      }
+    }
+    destination.appendChild(copy);
+  }
+}
@@ -0,0 +1,269 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.FeatureRepository;
+import eu.chargetime.ocpp.JSONCommunicator;
+import eu.chargetime.ocpp.OccurenceConstraintException;
+import eu.chargetime.ocpp.Queue;
+import eu.chargetime.ocpp.RadioEvents;
+import eu.chargetime.ocpp.Receiver;
+import eu.chargetime.ocpp.Session;
+import eu.chargetime.ocpp.SessionEvents;
+import eu.chargetime.ocpp.SimplePromiseFulfiller;
+import eu.chargetime.ocpp.UnsupportedFeatureException;
+import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.feature.profile.ServerCoreEventHandler;
+import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.core.*;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Server side throughput of incoming Heartbeat calls spread over many sessions, from the raw frame
+ * to the transmitted CALLRESULT.
+ *
+ * <p>{@code direct} handles a call on the thread that received it, {@code serial} hands it to a
+ * per-session mailbox drained by a shared pool. Compare both across thread counts, e.g. {@code java
+ * -jar target/benchmarks.jar SessionDispatch -t 1 -t 4 -t 16}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionDispatchBenchmark {
+
+  private static final int BATCH = 64;
+  private static final String HEARTBEAT = "[2,\"1\",\"Heartbeat\",{}]";
+
+  @State(Scope.Benchmark)
+  public static class Sessions {
+
+    @Param({"10000"})
+    int sessionCount;
+
+    @Param({"direct", "serial"})
+    String dispatch;
+
+    StubRadio[] radios;
+    ExecutorService pool;
+    final AtomicInteger nextSlice = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+      FeatureRepository featureRepository = new FeatureRepository();
+      featureRepository.addFeatureProfile(new ServerCoreProfile(new HeartbeatHandler()));
+      pool =
+          "serial".equals(dispatch)
+              ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors())
+              : null;
+
+      radios = new StubRadio[sessionCount];
+      for (int i = 0; i < sessionCount; i++) {
+        radios[i] = new StubRadio();
+        Session session =
+            new Session(
+                new JSONCommunicator(radios[i]),
+                new Queue(),
+                new SimplePromiseFulfiller(),
+                featureRepository,
+                pool);
+        session.accept(new FeatureSessionEvents(session));
+      }
+    }
+
+    @TearDown
+    public void tearDown() {
+      if (pool != null) pool.shutdownNow();
+    }
+  }
+
+  /** Each benchmark thread owns a disjoint slice of the sessions. */
+  @State(Scope.Thread)
+  public static class Slice {
+    final AtomicLong responses = new AtomicLong();
+    StubRadio[] radios;
+    int cursor;
+    long expected;
+
+    @Setup
+    public void setup(Sessions sessions, BenchmarkParams params) {
+      int threads = params.getThreads();
+      int index = sessions.nextSlice.getAndIncrement();
+      int size = Math.max(1, sessions.sessionCount / threads);
+      int from = Math.min(index * size, sessions.sessionCount - size);
+      radios = new StubRadio[size];
+      for (int i = 0; i < size; i++) {
+        radios[i] = sessions.radios[from + i];
+        radios[i].responses = responses;
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public long heartbeat(Slice slice) {
+    for (int i = 0; i < BATCH; i++) {
+      slice.radios[slice.cursor].events.receivedMessage(HEARTBEAT);
+      slice.cursor = (slice.cursor + 1) % slice.radios.length;
+    }
+    slice.expected += BATCH;
+    while (slice.responses.get() < slice.expected) {
+      Thread.yield();
+    }
+    return slice.expected;
+  }
+
+  static class StubRadio implements Receiver {
+    volatile RadioEvents events;
+    volatile AtomicLong responses = new AtomicLong();
+
+    @Override
+    public void accept(RadioEvents events) {
+      this.events = events;
+    }
+
+    @Override
+    public void disconnect() {}
+
+    @Override
+    public void send(Object message) {
+      responses.incrementAndGet();
+    }
+
+    @Override
+    public boolean isClosed() {
+      return false;
+    }
+  }
+
+  static class FeatureSessionEvents implements SessionEvents {
+    private final Session session;
+
+    FeatureSessionEvents(Session session) {
+      this.session = session;
+    }
+
+    @Override
+    public void handleConfirmation(String uniqueId, @Nullable Confirmation confirmation) {}
+
+    @Override
+    public Confirmation handleRequest(Request request) throws UnsupportedFeatureException {
+      Optional<Feature> feature = session.getFeatureRepository().findFeature(request);
+      if (!feature.isPresent()) throw new UnsupportedFeatureException();
+      return feature.get().handleRequest(session.getSessionId(), request);
+    }
+
+    @Override
+    public Confirmation handleRequest(Feature feature, Request request) {
+      return feature.handleRequest(session.getSessionId(), request);
+    }
+
+    @Override
+    public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
+        throws UnsupportedFeatureException, OccurenceConstraintException {
+      return session.completePendingPromise(uniqueId, confirmation);
+    }
+
+    @Override
+    public void handleError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConfirmationError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConnectionClosed() {}
+
+    @Override
+    public void handleConnectionOpened() {}
+  }
+
+  static class HeartbeatHandler implements ServerCoreEventHandler {
+    private final HeartbeatConfirmation heartbeat = new HeartbeatConfirmation(ZonedDateTime.now());
+
+    @Override
+    public AuthorizeConfirmation handleAuthorizeRequest(
+        UUID sessionIndex, AuthorizeRequest request) {
+      return null;
+    }
+
+    @Override
+    public BootNotificationConfirmation handleBootNotificationRequest(
+        UUID sessionIndex, BootNotificationRequest request) {
+      return null;
+    }
+
+    @Override
+    public DataTransferConfirmation handleDataTransferRequest(
+        UUID sessionIndex, DataTransferRequest request) {
+      return null;
+    }
+
+    @Override
+    public HeartbeatConfirmation handleHeartbeatRequest(
+        UUID sessionIndex, HeartbeatRequest request) {
+      return heartbeat;
+    }
+
+    @Override
+    public MeterValuesConfirmation handleMeterValuesRequest(
+        UUID sessionIndex, MeterValuesRequest request) {
+      return null;
+    }
+
+    @Override
+    public StartTransactionConfirmation handleStartTransactionRequest(
+        UUID sessionIndex, StartTransactionRequest request) {
+      return null;
+    }
+
+    @Override
+    public StatusNotificationConfirmation handleStatusNotificationRequest(
+        UUID sessionIndex, StatusNotificationRequest request) {
+      return null;
+    }
+
+    @Override
+    public StopTransactionConfirmation handleStopTransactionRequest(
+        UUID sessionIndex, StopTransactionRequest request) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,271 @@
+package eu.chargetime.ocpp.benchmark;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ClientEvents;
+import eu.chargetime.ocpp.JSONConfiguration;
+import eu.chargetime.ocpp.MultiProtocolJSONClient;
+import eu.chargetime.ocpp.OccurenceConstraintException;
+import eu.chargetime.ocpp.RequestTimeouts;
+import eu.chargetime.ocpp.UnsupportedFeatureException;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+
+/**
+ * One charge point of a simulated fleet.
+ *
+ * <p>Connects without blocking, boots, and then runs its heartbeats and transactions as tasks on a
+ * scheduler shared by the whole fleet. Requests are sent asynchronously, the latency of each is
+ * recorded when its confirmation arrives.
+ */
+final class SimulatedChargePoint implements ClientEvents {
+
+  static final String BOOT_NOTIFICATION = "BootNotification";
+  static final String HEARTBEAT = "Heartbeat";
+  static final String START_TRANSACTION = "StartTransaction";
+  static final String METER_VALUES = "MeterValues";
+  static final String STOP_TRANSACTION = "StopTransaction";
+
+  private final String identity;
+  private final FleetProfile profile;
+  private final FleetMessages messages;
+  private final FleetStatistics statistics;
+  private final ScheduledExecutorService scheduler;
+  private final MultiProtocolJSONClient client;
+  private final List<ScheduledFuture<?>> tasks = new CopyOnWriteArrayList<>();
+  private final AtomicLong meterWh = new AtomicLong();
+  private final AtomicInteger transactionCount = new AtomicInteger();
+
+  private volatile long connectStarted;
+  private volatile boolean opened;
+  private volatile boolean stopped;
+  @Nullable private volatile RunningTransaction transaction;
+
+  SimulatedChargePoint(
+      String identity,
+      FleetProfile profile,
+      FleetMessages messages,
+      FleetStatistics statistics,
+      ScheduledExecutorService scheduler) {
+    this.identity = identity;
+    this.profile = profile;
+    this.messages = messages;
+    this.statistics = statistics;
+    this.scheduler = scheduler;
+
+    JSONConfiguration configuration =
+        JSONConfiguration.get()
+            .setParameter(JSONConfiguration.CONNECT_NON_BLOCKING_PARAMETER, true);
+    if (!profile.getRequestTimeout().isZero()) {
+      configuration.setParameter(
+          JSONConfiguration.REQUEST_TIMEOUTS_PARAMETER,
+          RequestTimeouts.of(profile.getRequestTimeout()));
+    }
+    client =
+        new MultiProtocolJSONClient(
+            Collections.singletonList(profile.getProtocolVersion()), identity, configuration);
+    messages.addClientFeatures(client);
+  }
+
+  /**
+   * Connect and boot after a delay.
+   *
+   * @param url of the central system, the identity is appended.
+   * @param delay until the charge point connects.
+   */
+  void start(String url, Duration delay) {
+    schedule(
+        () -> {
+          connectStarted = System.nanoTime();
+          client.connect(url, this);
+        },
+        delay);
+  }
+
+  /** Cancel all tasks and disconnect. */
+  void stop() {
+    stopped = true;
+    for (ScheduledFuture<?> task : tasks) {
+      task.cancel(false);
+    }
+    if (opened) {
+      client.disconnect();
+    }
+  }
+
+  @Override
+  public void connectionOpened() {
+    opened = true;
+    statistics.opened(System.nanoTime() - connectStarted);
+    send(BOOT_NOTIFICATION, messages.bootNotification(identity), confirmation -> booted());
+  }
+
+  @Override
+  public void connectionClosed() {
+    if (opened) {
+      opened = false;
+      statistics.closed();
+    } else if (!stopped) {
+      statistics.failed(FleetStatistics.CONNECT);
+    }
+  }
+
+  private void booted() {
+    Duration heartbeatInterval = profile.getHeartbeatInterval();
+    if (!heartbeatInterval.isZero()) {
+      scheduleAtRandomPhase(() -> send(HEARTBEAT, messages.heartbeat(), null), heartbeatInterval);
+    }
+    Duration transactionInterval = profile.getTransactionInterval();
+    if (!transactionInterval.isZero()) {
+      scheduleAtRandomPhase(this::startTransaction, transactionInterval);
+    }
+  }
+
+  private void startTransaction() {
+    if (transaction != null) {
+      return;
+    }
+    String requestedId = identity + "-" + transactionCount.incrementAndGet();
+    RunningTransaction started = new RunningTransaction();
+    transaction = started;
+    send(
+        START_TRANSACTION,
+        messages.startTransaction(requestedId, meterWh.get()),
+        confirmation -> {
+          started.id = messages.transactionId(requestedId, confirmation);
+          Duration meterValuesInterval = profile.getMeterValuesInterval();
+          if (!meterValuesInterval.isZero()) {
+            started.meterValues =
+                scheduleAtFixedRate(
+                    () -> sendMeterValues(started), meterValuesInterval, meterValuesInterval);
+          }
+          schedule(() -> stopTransaction(started), profile.getTransactionDuration());
+        },
+        error -> transaction = null);
+  }
+
+  private void sendMeterValues(RunningTransaction running) {
+    send(
+        METER_VALUES,
+        messages.meterValues(
+            running.id,
+            running.seqNo.incrementAndGet(),
+            meterWh.addAndGet(100),
+            profile.getSampledValues()),
+        null);
+  }
+
+  private void stopTransaction(RunningTransaction running) {
+    if (running.meterValues != null) {
+      running.meterValues.cancel(false);
+    }
+    send(
+        STOP_TRANSACTION,
+        messages.stopTransaction(running.id, running.seqNo.incrementAndGet(), meterWh.get()),
+        null);
+    transaction = null;
+  }
+
+  private void send(String action, Request request, @Nullable Consumer<Confirmation> then) {
+    send(action, request, then, null);
+  }
+
+  private void send(
+      String action,
+      Request request,
+      @Nullable Consumer<Confirmation> then,
+      @Nullable Consumer<Throwable> otherwise) {
+    if (stopped) {
+      return;
+    }
+    long started = System.nanoTime();
+    try {
+      client
+          .send(request)
+          .whenComplete(
+              (confirmation, error) -> {
+                if (error == null && confirmation != null) {
+                  statistics.completed(action, System.nanoTime() - started);
+                  if (then != null) {
+                    then.accept(confirmation);
+                  }
+                } else {
+                  statistics.failed(action);
+                  if (otherwise != null) {
+                    otherwise.accept(error);
+                  }
+                }
+              });
+    } catch (OccurenceConstraintException | UnsupportedFeatureException | RuntimeException e) {
+      statistics.failed(action);
+      if (otherwise != null) {
+        otherwise.accept(e);
+      }
+    }
+  }
+
+  private void schedule(Runnable task, Duration delay) {
+    if (!stopped) {
+      tasks.removeIf(ScheduledFuture::isDone);
+      tasks.add(scheduler.schedule(task, delay.toNanos(), TimeUnit.NANOSECONDS));
+    }
+  }
+
+  private void scheduleAtRandomPhase(Runnable task, Duration period) {
+    Duration phase = Duration.ofNanos(ThreadLocalRandom.current().nextLong(period.toNanos()));
+    scheduleAtFixedRate(task, phase, period);
+  }
+
+  @Nullable
+  private ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Duration delay, Duration period) {
+    if (stopped) {
+      return null;
+    }
+    ScheduledFuture<?> future =
+        scheduler.scheduleAtFixedRate(
+            task, delay.toNanos(), period.toNanos(), TimeUnit.NANOSECONDS);
+    tasks.add(future);
+    return future;
+  }
+
+  private static class RunningTransaction {
+    volatile String id;
+    @Nullable volatile ScheduledFuture<?> meterValues;
+    final AtomicInteger seqNo = new AtomicInteger();
+  }
+}
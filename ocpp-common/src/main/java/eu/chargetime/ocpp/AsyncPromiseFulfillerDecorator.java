@@ -28,16 +28,28 @@ package eu.chargetime.ocpp;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class AsyncPromiseFulfillerDecorator implements PromiseFulfiller {
 
+  private static final Logger logger =
+      LoggerFactory.getLogger(AsyncPromiseFulfillerDecorator.class);
+
   private final PromiseFulfiller promiseFulfiller;
+  @Nullable private final Executor sessionExecutor;
 
   private static ExecutorService executor = Executors.newCachedThreadPool();
 
+  public static ExecutorService getExecutor() {
+    return executor;
+  }
+
   public static void setExecutor(ExecutorService newExecutor) {
     executor = newExecutor;
   }
@@ -47,11 +59,59 @@ public class AsyncPromiseFulfillerDecorator implements PromiseFulfiller {
       @Nullable CompletableFuture<Confirmation> promise,
       SessionEvents eventHandler,
       Request request) {
-    executor.submit(() -> promiseFulfiller.fulfill(promise, eventHandler, request));
+    Fulfillment task = new Fulfillment(promise, eventHandler, request);
+    try {
+      if (sessionExecutor != null) {
+        sessionExecutor.execute(task);
+      } else {
+        executor.submit(task);
+      }
+    } catch (RejectedExecutionException ex) {
+      task.reject(ex);
+    }
   }
 
   public AsyncPromiseFulfillerDecorator(PromiseFulfiller promiseFulfiller) {
+    this(promiseFulfiller, null);
+  }
 
+  /**
+   * @param promiseFulfiller the {@link PromiseFulfiller} to run asynchronously.
+   * @param sessionExecutor executor for this session, see {@link
+   *     PromiseFulfillerExecutor#sessionExecutor()}. Null to use the shared default executor.
+   */
+  public AsyncPromiseFulfillerDecorator(
+      PromiseFulfiller promiseFulfiller, @Nullable Executor sessionExecutor) {
     this.promiseFulfiller = promiseFulfiller;
+    this.sessionExecutor = sessionExecutor;
+  }
+
+  /** Fulfills one request, or fails it if the executor rejects it, also after accepting it. */
+  private final class Fulfillment implements Runnable, PromiseFulfillerExecutor.Rejectable {
+    @Nullable private final CompletableFuture<Confirmation> promise;
+    private final SessionEvents eventHandler;
+    private final Request request;
+
+    Fulfillment(
+        @Nullable CompletableFuture<Confirmation> promise,
+        SessionEvents eventHandler,
+        Request request) {
+      this.promise = promise;
+      this.eventHandler = eventHandler;
+      this.request = request;
+    }
+
+    @Override
+    public void run() {
+      promiseFulfiller.fulfill(promise, eventHandler, request);
+    }
+
+    @Override
+    public void reject(RejectedExecutionException ex) {
+      logger.warn("Request {} rejected: {}", request.getOcppMessageId(), ex.getMessage());
+      if (promise != null) {
+        promise.completeExceptionally(ex);
+      }
+    }
   }
 }
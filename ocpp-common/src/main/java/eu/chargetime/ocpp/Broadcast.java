@@ -0,0 +1,183 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.utilities.MoreObjects;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * Progress of one {@link Request} sent to many clients with {@link Server#broadcast}.
+ *
+ * <p>Every session has its own promise, completed like the promise returned by {@link Server#send}:
+ * with the confirmation, exceptionally with a {@link RequestTimeoutException} when no confirmation
+ * arrived in time, or with the error that kept the request from being sent, e.g. a {@link
+ * NotConnectedException} if the client is gone by the time its turn comes.
+ */
+public final class Broadcast {
+
+  private final Map<UUID, CompletableFuture<Confirmation>> promises;
+  private final CompletableFuture<Broadcast> done = new CompletableFuture<>();
+  private final AtomicInteger sent = new AtomicInteger();
+  private final AtomicInteger succeeded = new AtomicInteger();
+  private final AtomicInteger failed = new AtomicInteger();
+  private final AtomicInteger timedOut = new AtomicInteger();
+  private final AtomicInteger pending;
+  private volatile boolean cancelled;
+
+  Broadcast(Collection<UUID> sessionIndexes) {
+    Map<UUID, CompletableFuture<Confirmation>> map = new LinkedHashMap<>();
+    for (UUID sessionIndex : sessionIndexes) {
+      map.computeIfAbsent(sessionIndex, key -> new CompletableFuture<>());
+    }
+    this.promises = Collections.unmodifiableMap(map);
+    this.pending = new AtomicInteger(map.size());
+    for (CompletableFuture<Confirmation> promise : map.values()) {
+      promise.whenComplete(this::count);
+    }
+    if (map.isEmpty()) {
+      done.complete(this);
+    }
+  }
+
+  private void count(Confirmation confirmation, Throwable throwable) {
+    if (throwable == null) {
+      succeeded.incrementAndGet();
+    } else if (unwrap(throwable) instanceof RequestTimeoutException) {
+      timedOut.incrementAndGet();
+    } else {
+      failed.incrementAndGet();
+    }
+    if (pending.decrementAndGet() == 0) {
+      done.complete(this);
+    }
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    return throwable instanceof CompletionException && throwable.getCause() != null
+        ? throwable.getCause()
+        : throwable;
+  }
+
+  /** Called by the writer once the request was handed to the session. */
+  void sent() {
+    sent.incrementAndGet();
+  }
+
+  /**
+   * Promises per session, in the order the requests are sent.
+   *
+   * @return unmodifiable map of session index to promise.
+   */
+  public Map<UUID, CompletableFuture<Confirmation>> getPromises() {
+    return promises;
+  }
+
+  /**
+   * @param sessionIndex session index of the client.
+   * @return the promise of the client, or null if it isn't part of this broadcast.
+   */
+  @Nullable
+  public CompletableFuture<Confirmation> getPromise(UUID sessionIndex) {
+    return promises.get(sessionIndex);
+  }
+
+  /** @return number of clients in this broadcast. */
+  public int size() {
+    return promises.size();
+  }
+
+  /** @return number of requests written so far. */
+  public int getSent() {
+    return sent.get();
+  }
+
+  /** @return number of clients which confirmed the request. */
+  public int getSucceeded() {
+    return succeeded.get();
+  }
+
+  /** @return number of clients which failed, including cancelled and not connected ones. */
+  public int getFailed() {
+    return failed.get();
+  }
+
+  /** @return number of clients which didn't confirm within the request timeout. */
+  public int getTimedOut() {
+    return timedOut.get();
+  }
+
+  /** @return number of clients which have not completed yet. */
+  public int getPending() {
+    return pending.get();
+  }
+
+  /**
+   * Completes once every promise has completed, after the counters are updated.
+   *
+   * @return stage completed with this broadcast.
+   */
+  public CompletionStage<Broadcast> whenDone() {
+    return done.thenApply(broadcast -> broadcast);
+  }
+
+  /**
+   * Stop writing the request and cancel all promises still waiting. Requests already sent are not
+   * recalled, but their confirmations are ignored.
+   */
+  public void cancel() {
+    cancelled = true;
+    for (CompletableFuture<Confirmation> promise : promises.values()) {
+      promise.cancel(false);
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("size", size())
+        .add("sent", getSent())
+        .add("succeeded", getSucceeded())
+        .add("failed", getFailed())
+        .add("timedOut", getTimedOut())
+        .add("pending", getPending())
+        .toString();
+  }
+}
@@ -29,6 +29,7 @@ SOFTWARE.
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.utilities.HashedWheelTimer;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -48,6 +49,8 @@ public class Client {
 
   private final ISession session;
   private final IPromiseRepository promiseRepository;
+  private final HashedWheelTimer timer = HashedWheelTimer.shared();
+  private volatile RequestTimeouts requestTimeouts = RequestTimeouts.NONE;
 
   /**
    * Handle required injections.
@@ -105,6 +108,11 @@ public class Client {
             }
           }
 
+          @Override
+          public Confirmation handleRequest(Feature feature, Request request) {
+            return feature.handleRequest(getSessionId(), request);
+          }
+
           @Override
           public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
               throws UnsupportedFeatureException, OccurenceConstraintException {
@@ -194,6 +202,9 @@ public class Client {
         });
 
     if (featureOptional.get().getConfirmationType() != null) {
+      if (!session.isRetriedUntilConfirmed(request)) {
+        requestTimeouts.schedule(timer, featureOptional.get().getAction(), requestUuid, promise);
+      }
       session.sendRequest(featureOptional.get().getAction(), request, requestUuid);
     } else {
       session.sendMessage(featureOptional.get().getAction(), request, requestUuid);
@@ -209,4 +220,18 @@ public class Client {
       throws UnsupportedFeatureException, OccurenceConstraintException {
     return session.completePendingPromise(uniqueId, confirmation);
   }
+
+  /**
+   * Set how long {@link #send} waits for a confirmation. A request that times out completes
+   * exceptionally with a {@link RequestTimeoutException}, on the executor of the timeouts.
+   *
+   * @param requestTimeouts the timeouts, {@link RequestTimeouts#NONE} to wait forever.
+   */
+  public void setRequestTimeouts(RequestTimeouts requestTimeouts) {
+    this.requestTimeouts = requestTimeouts;
+  }
+
+  public RequestTimeouts getRequestTimeouts() {
+    return requestTimeouts;
+  }
 }
@@ -28,8 +28,10 @@ SOFTWARE.
 */
 
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.*;
-import java.util.ArrayDeque;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,11 +44,14 @@ import org.slf4j.LoggerFactory;
 public abstract class Communicator {
   private static final Logger logger = LoggerFactory.getLogger(Communicator.class);
 
-  private final ArrayDeque<Object> transactionQueue;
-  private RetryRunner retryRunner;
+  private final TransactionQueue transactionQueue;
+  private final TransactionReplayer replayer;
+  // orders transaction-related calls against the queue they may be stored in
+  private final Object transactionLock = new Object();
   protected Radio radio;
   private CommunicatorEvents events;
-  private boolean failedFlag;
+  @Nullable private OcppMetrics metrics;
+  @Nullable private SessionTracer tracer;
 
   /**
    * Convert a formatted string into a {@link Request}/{@link Confirmation}. This is useful for call
@@ -122,6 +127,89 @@ public abstract class Communicator {
    */
   protected abstract Object makeSend(String uniqueId, String action, Object payload);
 
+  /**
+   * Create a call envelope for a {@link Request}. By default the payload is packed with {@link
+   * #packPayload(Object)} and wrapped with {@link #makeCall(String, String, Object)}. Override to
+   * write the payload straight into the envelope.
+   *
+   * @param uniqueId the id the receiver must reply with.
+   * @param action action name of the {@link Feature}.
+   * @param request the outgoing {@link Request}.
+   * @return a fully packed message ready to send.
+   */
+  protected Object packCall(String uniqueId, String action, Request request) {
+    return makeCall(uniqueId, action, packPayload(request));
+  }
+
+  /**
+   * Create a call result envelope for a {@link Confirmation}. By default the payload is packed with
+   * {@link #packPayload(Object)} and wrapped with {@link #makeCallResult(String, String, Object)}.
+   *
+   * @param uniqueId the id the receiver expects.
+   * @param action action name of the {@link Feature}.
+   * @param confirmation the outgoing {@link Confirmation}.
+   * @return a fully packed message ready to send.
+   */
+  protected Object packCallResult(String uniqueId, String action, Confirmation confirmation) {
+    return makeCallResult(uniqueId, action, packPayload(confirmation));
+  }
+
+  /**
+   * Create a send envelope for a {@link Request}. By default the payload is packed with {@link
+   * #packPayload(Object)} and wrapped with {@link #makeSend(String, String, Object)}.
+   *
+   * @param uniqueId the id of the message.
+   * @param action action name of the {@link Feature}.
+   * @param request the outgoing {@link Request}.
+   * @return a fully packed message ready to send.
+   */
+  protected Object packSend(String uniqueId, String action, Request request) {
+    return makeSend(uniqueId, action, packPayload(request));
+  }
+
+  /**
+   * Pack the payload of a {@link Request} once, to be sent to several receivers with {@link
+   * #sendCall(String, String, Request, Object)}. Communicators whose packed payloads are mutable or
+   * bound to one receiver return null, the default.
+   *
+   * @param request the outgoing {@link Request}.
+   * @return the packed payload, or null if it can't be shared.
+   */
+  @Nullable
+  public Object packSharedPayload(Request request) {
+    return null;
+  }
+
+  /**
+   * Called once a message made by this communicator was handed to the radio and isn't needed
+   * anymore. Override to recycle their buffers.
+   *
+   * @param message the message which was sent.
+   */
+  protected void release(Object message) {}
+
+  /**
+   * Turn a packed call into a form the transaction queue can keep until it is retried, e.g. text
+   * instead of a pooled buffer. The default keeps the call as is.
+   *
+   * @param call a call made by this communicator.
+   * @return the call to store, the original call must not be used afterwards.
+   */
+  protected Object toStorable(Object call) {
+    return call;
+  }
+
+  /**
+   * Size of a message as sent or received on the wire, reported to the {@link OcppMetrics}.
+   * Override for formats with a known size.
+   *
+   * @param message a message made by this communicator or received by its radio.
+   * @return the size of the message, -1 if unknown.
+   */
+  protected int sizeOf(Object message) {
+    return -1;
+  }
+
   /**
    * Identify an incoming call and parse it into one of the following: {@link CallMessage} a
    * request. {@link CallResultMessage} a response.
@@ -148,10 +236,82 @@ public abstract class Communicator {
    *     processing
    */
   public Communicator(Radio transmitter, boolean enableTransactionQueue) {
+    this(transmitter, enableTransactionQueue ? new InMemoryTransactionQueue() : null);
+  }
+
+  /**
+   * Handle required injections.
+   *
+   * @param transmitter Injected {@link Transmitter}
+   * @param transactionQueue stores transaction related requests while offline, null disables the
+   *     transaction queue and associated processing
+   */
+  public Communicator(Radio transmitter, @Nullable TransactionQueue transactionQueue) {
     this.radio = transmitter;
-    this.transactionQueue = enableTransactionQueue ? new ArrayDeque<>() : null;
-    this.retryRunner = enableTransactionQueue ? new RetryRunner() : null;
-    this.failedFlag = false;
+    this.transactionQueue = transactionQueue;
+    this.replayer =
+        transactionQueue != null ? new TransactionReplayer(transactionQueue, transmitter) : null;
+  }
+
+  /**
+   * @return true if transaction-related requests are stored while offline and sent once connected.
+   */
+  public boolean hasTransactionQueue() {
+    return transactionQueue != null;
+  }
+
+  /**
+   * Get how the transaction queue is replayed once connected.
+   *
+   * @return the replay settings.
+   */
+  public TransactionReplaySettings getTransactionReplaySettings() {
+    return replayer != null ? replayer.getSettings() : TransactionReplaySettings.DEFAULT;
+  }
+
+  /**
+   * Set how the transaction queue is replayed once connected. Applies from the next replay on.
+   *
+   * @param settings the replay settings.
+   */
+  public void setTransactionReplaySettings(TransactionReplaySettings settings) {
+    if (replayer != null) replayer.setSettings(settings);
+  }
+
+  /** @return the metrics this communicator records to, null if disabled. */
+  @Nullable
+  public OcppMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Record sent and received messages, encoding latencies and the transaction queue depth. Set
+   * before connecting, calls already stored in the transaction queue are added to its gauge.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+    if (replayer != null) replayer.setMetrics(metrics);
+    if (metrics != null && transactionQueue != null) {
+      metrics.adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, transactionQueue.size());
+    }
+  }
+
+  /** @return the tracer of received calls, null if disabled. */
+  @Nullable
+  public SessionTracer getTracer() {
+    return tracer;
+  }
+
+  /**
+   * Trace a sample of the received calls, from the frame being received to the confirmation being
+   * sent. Set before connecting.
+   *
+   * @param tracer the tracer to record to, null disables tracing.
+   */
+  public void setTracer(@Nullable SessionTracer tracer) {
+    this.tracer = tracer;
   }
 
   /**
@@ -178,20 +338,50 @@ public abstract class Communicator {
   /**
    * Send a new {@link Request}. Stores transaction-related {@link Request}s if offline. New
    * transaction-related {@link Request}s will be placed behind the queue of stored {@link
-   * Request}s.
+   * Request}s. Safe to call from several threads, only transaction-related {@link Request}s wait
+   * for each other to keep their order.
    *
    * @param uniqueId the id the receiver should use to reply.
    * @param action action name of the {@link Feature}.
    * @param request the outgoing {@link Request}
    */
-  public synchronized void sendCall(String uniqueId, String action, Request request) {
-    Object call = makeCall(uniqueId, action, packPayload(request));
+  public void sendCall(String uniqueId, String action, Request request) {
+    long start = metrics != null ? System.nanoTime() : 0;
+    Object call = packCall(uniqueId, action, request);
+    if (metrics != null) encoded(action, start);
+    sendPackedCall(uniqueId, action, request, call);
+  }
 
+  /**
+   * Send a new {@link Request} with a payload packed by {@link #packSharedPayload(Request)}, so a
+   * request sent to many receivers is only serialized once. Behaves like {@link #sendCall(String,
+   * String, Request)} otherwise.
+   *
+   * @param uniqueId the id the receiver should use to reply.
+   * @param action action name of the {@link Feature}.
+   * @param request the outgoing {@link Request}
+   * @param sharedPayload the packed payload of the request.
+   */
+  public void sendCall(String uniqueId, String action, Request request, Object sharedPayload) {
+    sendPackedCall(uniqueId, action, request, makeCall(uniqueId, action, sharedPayload));
+  }
+
+  private void sendPackedCall(String uniqueId, String action, Request request, Object call) {
+    if (request.transactionRelated() && transactionQueue != null) {
+      synchronized (transactionLock) {
+        transmitCall(uniqueId, action, request, call);
+      }
+    } else {
+      transmitCall(uniqueId, action, request, call);
+    }
+  }
+
+  private void transmitCall(String uniqueId, String action, Request request, Object call) {
     try {
       if (radio.isClosed()) {
         if (request.transactionRelated() && transactionQueue != null) {
           logger.warn("Not connected: storing request to queue: {}", request);
-          transactionQueue.add(call);
+          storeRetryMessage(uniqueId, call, request);
         } else {
           logger.warn("Not connected: can't send request: {}", request);
           events.onError(
@@ -203,15 +393,17 @@ public abstract class Communicator {
       } else if (request.transactionRelated()
           && transactionQueue != null
           && !transactionQueue.isEmpty()) {
-        transactionQueue.add(call);
+        storeRetryMessage(uniqueId, call, request);
         processTransactionQueue();
       } else {
         radio.send(call);
+        if (metrics != null) sent(action, call);
+        release(call);
       }
     } catch (NotConnectedException ex) {
       logger.warn("sendCall() failed: not connected");
       if (request.transactionRelated() && transactionQueue != null) {
-        transactionQueue.add(call);
+        storeRetryMessage(uniqueId, call, request);
       } else {
         events.onError(
             uniqueId,
@@ -231,7 +423,12 @@ public abstract class Communicator {
    */
   public void sendCallResult(String uniqueId, String action, Confirmation confirmation) {
     try {
-      radio.send(makeCallResult(uniqueId, action, packPayload(confirmation)));
+      long start = metrics != null ? System.nanoTime() : 0;
+      Object result = packCallResult(uniqueId, action, confirmation);
+      if (metrics != null) encoded(action, start);
+      radio.send(result);
+      if (metrics != null) sent(action, result);
+      release(result);
 
       ConfirmationCompletedHandler completedHandler = confirmation.getCompletedHandler();
 
@@ -273,7 +470,10 @@ public abstract class Communicator {
         errorCode,
         errorDescription);
     try {
-      radio.send(makeCallError(uniqueId, action, errorCode, errorDescription));
+      Object error = makeCallError(uniqueId, action, errorCode, errorDescription);
+      radio.send(error);
+      if (metrics != null) sentError(action, errorCode, error);
+      release(error);
     } catch (NotConnectedException ex) {
       logger.warn("sendCallError() failed", ex);
       events.onError(
@@ -302,7 +502,10 @@ public abstract class Communicator {
         errorCode,
         errorDescription);
     try {
-      radio.send(makeCallResultError(uniqueId, action, errorCode, errorDescription));
+      Object error = makeCallResultError(uniqueId, action, errorCode, errorDescription);
+      radio.send(error);
+      if (metrics != null) sentError(action, errorCode, error);
+      release(error);
     } catch (NotConnectedException ex) {
       logger.warn("sendCallResultError() failed", ex);
       events.onError(
@@ -320,8 +523,10 @@ public abstract class Communicator {
    * @param action action name of the {@link Feature}.
    * @param request the outgoing {@link Request}
    */
-  public synchronized void send(String uniqueId, String action, Request request) {
-    Object call = makeSend(uniqueId, action, packPayload(request));
+  public void send(String uniqueId, String action, Request request) {
+    long start = metrics != null ? System.nanoTime() : 0;
+    Object call = packSend(uniqueId, action, request);
+    if (metrics != null) encoded(action, start);
 
     try {
       if (radio.isClosed()) {
@@ -333,6 +538,8 @@ public abstract class Communicator {
             request);
       } else {
         radio.send(call);
+        if (metrics != null) sent(action, call);
+        release(call);
       }
     } catch (NotConnectedException ex) {
       logger.warn("sendCall() failed: not connected");
@@ -349,12 +556,27 @@ public abstract class Communicator {
     radio.disconnect();
   }
 
-  private synchronized void processTransactionQueue() {
-    if (retryRunner != null && !retryRunner.isAlive()) {
-      if (retryRunner.getState() != Thread.State.NEW) {
-        retryRunner = new RetryRunner();
-      }
-      retryRunner.start();
+  private void processTransactionQueue() {
+    if (replayer != null) replayer.start();
+  }
+
+  private void encoded(String action, long start) {
+    metrics.latency(OcppMetrics.Stage.ENCODE, action, System.nanoTime() - start);
+  }
+
+  private void sent(String action, Object message) {
+    metrics.message(OcppMetrics.Direction.OUTBOUND, action, sizeOf(message));
+  }
+
+  private void sentError(String action, String errorCode, Object message) {
+    sent(action, message);
+    metrics.callError(OcppMetrics.Direction.OUTBOUND, errorCode);
+  }
+
+  private void received(Message message, Object input) {
+    metrics.message(OcppMetrics.Direction.INBOUND, message.getAction(), sizeOf(input));
+    if (message instanceof CallErrorMessage) {
+      metrics.callError(OcppMetrics.Direction.INBOUND, ((CallErrorMessage) message).getErrorCode());
     }
   }
 
@@ -373,20 +595,24 @@ public abstract class Communicator {
 
     @Override
     public void receivedMessage(Object input) {
+      long received = tracer != null ? System.nanoTime() : 0;
       Message message = parse(input);
+      if (metrics != null && message != null) received(message, input);
       if (message instanceof CallResultMessage) {
+        if (replayer != null) replayer.confirmed(message.getId());
         events.onCallResult(message.getId(), message.getAction(), message.getPayload());
       } else if (message instanceof CallResultErrorMessage) {
         CallResultErrorMessage call = (CallResultErrorMessage) message;
         events.onCallResultError(
             call.getId(), call.getErrorCode(), call.getErrorDescription(), call.getRawPayload());
       } else if (message instanceof CallErrorMessage) {
-        failedFlag = true;
         CallErrorMessage call = (CallErrorMessage) message;
+        if (replayer != null) replayer.failed(call.getId());
         events.onError(
             call.getId(), call.getErrorCode(), call.getErrorDescription(), call.getRawPayload());
       } else if (message instanceof CallMessage) {
         CallMessage call = (CallMessage) message;
+        if (tracer != null) tracer.begin(call.getId(), call.getAction(), received);
         events.onCall(call.getId(), call.getAction(), call.getPayload());
       } else if (message instanceof SendMessage) {
         SendMessage send = (SendMessage) message;
@@ -396,55 +622,28 @@ public abstract class Communicator {
 
     @Override
     public void disconnected() {
+      if (replayer != null) replayer.disconnected();
       events.onDisconnected();
     }
   }
 
   /**
-   * Get queued transaction related request.
+   * Queue a transaction related request, report an error if the queue is full.
    *
-   * @return request or null if queue is empty.
-   */
-  private Object getRetryMessage() {
-    Object result = null;
-    if (transactionQueue != null && !transactionQueue.isEmpty()) result = transactionQueue.peek();
-    return result;
-  }
-
-  /**
-   * Check if an error message was received.
-   *
-   * @return whether a fail flag has been raised.
+   * @param uniqueId the id of the request.
+   * @param call the packed request.
+   * @param request the outgoing {@link Request}
    */
-  private boolean hasFailed() {
-    return failedFlag;
-  }
-
-  private void popRetryMessage() {
-    if (transactionQueue != null && !transactionQueue.isEmpty()) transactionQueue.pop();
-  }
-
-  /** Will resend transaction related requests. */
-  private class RetryRunner extends Thread {
-    private static final long DELAY_IN_MILLISECONDS = 1000;
-
-    @Override
-    public void run() {
-      Object call;
-      try {
-        while ((call = getRetryMessage()) != null) {
-          failedFlag = false;
-          radio.send(call);
-          Thread.sleep(DELAY_IN_MILLISECONDS);
-          if (!hasFailed()) popRetryMessage();
-        }
-      } catch (InterruptedException ex) {
-        logger.warn("RetryRunner::run() interrupted", ex);
-        // restore thread interrupted state
-        Thread.currentThread().interrupt();
-      } catch (Exception ex) {
-        logger.warn("RetryRunner::run() failed", ex);
-      }
+  private void storeRetryMessage(String uniqueId, Object call, Request request) {
+    if (transactionQueue.offer(uniqueId, toStorable(call))) {
+      if (metrics != null) metrics.adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, 1);
+    } else {
+      logger.warn("Transaction queue is full: dropping request: {}", request);
+      events.onError(
+          uniqueId,
+          "Queue full",
+          "The request can't be stored for a later retry, the transaction queue is full",
+          request);
     }
   }
 }
@@ -27,24 +27,47 @@ package eu.chargetime.ocpp;
 */
 
 import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.tracing.MessageTrace;
+import eu.chargetime.ocpp.tracing.TraceStage;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
 
 class ConfirmationHandler implements BiConsumer<Confirmation, Throwable> {
 
   private String id;
   private String action;
   private Communicator communicator;
+  @Nullable private MessageTrace trace;
 
   public ConfirmationHandler(String id, String action, Communicator communicator) {
+    this(id, action, communicator, null);
+  }
+
+  public ConfirmationHandler(
+      String id, String action, Communicator communicator, @Nullable MessageTrace trace) {
 
     this.id = id;
     this.action = action;
     this.communicator = communicator;
+    this.trace = trace;
   }
 
   @Override
   public void accept(Confirmation confirmation, Throwable throwable) {
-    if (throwable != null) {
+    if (trace != null) trace.mark(TraceStage.HANDLER_COMPLETED);
+    respond(confirmation, throwable);
+    if (trace != null) trace.end();
+  }
+
+  private void respond(Confirmation confirmation, Throwable throwable) {
+    if (throwable instanceof RejectedExecutionException) {
+      communicator.sendCallError(
+          id,
+          action,
+          "InternalError",
+          "The receiver is overloaded and was not able to process the requested Action, retry later");
+    } else if (throwable != null) {
       communicator.sendCallError(
           id,
           action,
@@ -30,6 +30,7 @@ import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.utilities.MoreObjects;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -40,6 +41,11 @@ public class FeatureRepository implements IFeatureRepository {
   private final Map<String, Feature> actionMap = new HashMap<>();
   private final Map<Class<?>, Feature> classMap = new HashMap<>();
 
+  // Immutable lookup tables, rebuilt when features are registered. Lookups on the message path read
+  // a snapshot and return a prebuilt Optional, so they neither lock nor allocate.
+  private volatile Map<String, Optional<Feature>> actionTable = Collections.emptyMap();
+  private volatile Map<Class<?>, Optional<Feature>> classTable = Collections.emptyMap();
+
   public FeatureRepository() {
     this(ProtocolVersion.OCPP1_6);
   }
@@ -59,10 +65,11 @@ public class FeatureRepository implements IFeatureRepository {
    * @param profile supported feature {@link Profile}
    * @see Profile
    */
-  public void addFeatureProfile(Profile profile) {
+  public synchronized void addFeatureProfile(Profile profile) {
     for (Feature feature : profile.getFeatureList()) {
-      addFeature(feature);
+      registerFeature(feature);
     }
+    compileTables();
   }
 
   /**
@@ -70,7 +77,12 @@ public class FeatureRepository implements IFeatureRepository {
    *
    * @param feature supported {@link Feature}.
    */
-  public void addFeature(Feature feature) {
+  public synchronized void addFeature(Feature feature) {
+    registerFeature(feature);
+    compileTables();
+  }
+
+  private void registerFeature(Feature feature) {
     actionMap.put(feature.getAction(), feature);
     classMap.put(feature.getRequestType(), feature);
     if (feature.getConfirmationType() != null) {
@@ -78,6 +90,19 @@ public class FeatureRepository implements IFeatureRepository {
     }
   }
 
+  private void compileTables() {
+    actionTable = toLookupTable(actionMap);
+    classTable = toLookupTable(classMap);
+  }
+
+  private static <K> Map<K, Optional<Feature>> toLookupTable(Map<K, Feature> features) {
+    Map<K, Optional<Feature>> table = new HashMap<>(features.size() * 2);
+    for (Map.Entry<K, Feature> entry : features.entrySet()) {
+      table.put(entry.getKey(), Optional.of(entry.getValue()));
+    }
+    return Collections.unmodifiableMap(table);
+  }
+
   /**
    * Search for supported features added with the addProfile. If no supported feature is found,
    * {@link Optional#empty()} is returned
@@ -92,18 +117,18 @@ public class FeatureRepository implements IFeatureRepository {
   @Override
   public Optional<Feature> findFeature(Object needle) {
     if (needle instanceof String) {
-      return Optional.ofNullable(actionMap.get(needle));
+      return actionTable.getOrDefault(needle, Optional.empty());
     }
 
     if ((needle instanceof Request) || (needle instanceof Confirmation)) {
-      return Optional.ofNullable(classMap.get((needle.getClass())));
+      return classTable.getOrDefault(needle.getClass(), Optional.empty());
     }
 
     return Optional.empty();
   }
 
   @Override
-  public String toString() {
+  public synchronized String toString() {
     return MoreObjects.toStringHelper("FeatureRepository")
         .add("protocolVersion", protocolVersion)
         .add("actionMap", actionMap)
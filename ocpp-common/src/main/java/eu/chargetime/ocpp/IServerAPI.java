@@ -28,6 +28,7 @@ package eu.chargetime.ocpp;
 import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
 
@@ -47,6 +48,22 @@ public interface IServerAPI {
   CompletionStage<Confirmation> send(UUID sessionIndex, Request request)
       throws OccurenceConstraintException, UnsupportedFeatureException, NotConnectedException;
 
+  /**
+   * Send one request to many clients, see {@link Server#broadcast}.
+   *
+   * @param sessionIndexes session indexes of the clients.
+   * @param request the request to send.
+   * @param messagesPerSecond rate the requests are written at.
+   * @return progress of the broadcast.
+   * @throws OccurenceConstraintException Thrown if the request isn't valid.
+   * @throws UnsupportedOperationException if the server doesn't support broadcasts.
+   */
+  default Broadcast broadcast(
+      Collection<UUID> sessionIndexes, Request request, int messagesPerSecond)
+      throws OccurenceConstraintException {
+    throw new UnsupportedOperationException("broadcast");
+  }
+
   boolean asyncCompleteRequest(UUID sessionIndex, String uniqueId, Confirmation confirmation)
       throws NotConnectedException, UnsupportedFeatureException, OccurenceConstraintException;
 }
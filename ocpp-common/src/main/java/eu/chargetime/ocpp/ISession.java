@@ -3,6 +3,7 @@ package eu.chargetime.ocpp;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import java.util.UUID;
+import javax.annotation.Nullable;
 
 /*
    ChargeTime.eu - Java-OCA-OCPP
@@ -44,6 +45,40 @@ public interface ISession {
 
   void sendRequest(String action, Request payload, String uuid);
 
+  /**
+   * Whether a request is stored while offline and retried until it is confirmed, so it must not
+   * time out while it waits.
+   *
+   * @param payload the request.
+   * @return true if the request is retried until confirmed.
+   */
+  default boolean isRetriedUntilConfirmed(Request payload) {
+    return false;
+  }
+
+  /**
+   * Serialize a payload once so it can be sent to many sessions.
+   *
+   * @param payload the request to serialize.
+   * @return the shared payload, or null if the session can't share payloads.
+   */
+  @Nullable
+  default Object packSharedPayload(Request payload) {
+    return null;
+  }
+
+  /**
+   * Send a request whose payload was serialized with {@link #packSharedPayload}.
+   *
+   * @param action the action of the request.
+   * @param payload the request.
+   * @param sharedPayload the serialized payload, ignored by default.
+   * @param uuid the id of the request.
+   */
+  default void sendRequest(String action, Request payload, Object sharedPayload, String uuid) {
+    sendRequest(action, payload, uuid);
+  }
+
   boolean completePendingPromise(String id, Confirmation confirmation)
       throws UnsupportedFeatureException, OccurenceConstraintException;
 
@@ -0,0 +1,60 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/** Unbounded {@link TransactionQueue} on the heap. Stored calls are lost when the process exits. */
+public class InMemoryTransactionQueue implements TransactionQueue {
+
+  private final ArrayDeque<Entry> calls = new ArrayDeque<>();
+
+  @Override
+  public synchronized boolean offer(String uniqueId, Object call) {
+    return calls.offer(new Entry(uniqueId, call));
+  }
+
+  @Override
+  public synchronized List<Entry> peek(int count) {
+    List<Entry> entries = new ArrayList<>(Math.min(count, calls.size()));
+    Iterator<Entry> iterator = calls.iterator();
+    while (entries.size() < count && iterator.hasNext()) entries.add(iterator.next());
+    return entries;
+  }
+
+  @Override
+  public synchronized void remove() {
+    calls.poll();
+  }
+
+  @Override
+  public synchronized int size() {
+    return calls.size();
+  }
+}
@@ -0,0 +1,470 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durable {@link TransactionQueue} which survives a restart of the process. Only text calls, as
+ * packed by the JSON communicator, can be stored.
+ *
+ * <p>Calls are appended to fixed size segment files in a directory, which are memory mapped one at
+ * a time for writing and one at a time for reading. Each record carries a CRC32 of its payload, so
+ * a record torn by a crash is detected and dropped on recovery. Delivered calls are marked in place
+ * and a segment file is deleted once all of its calls are delivered. Changes are forced to disk for
+ * every {@code syncBatchSize} writes and on {@link #flush()} and {@link #close()}, so a crash can
+ * lose the last batch of offered calls or replay the last batch of delivered calls.
+ *
+ * <p>The files on disk are bounded by {@code maxBytes}, {@link #offer(String, Object)} returns
+ * false when a new segment would exceed it.
+ */
+public class MappedFileTransactionQueue implements TransactionQueue, Closeable {
+  private static final Logger logger = LoggerFactory.getLogger(MappedFileTransactionQueue.class);
+
+  public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024;
+  public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+  public static final int DEFAULT_SYNC_BATCH_SIZE = 8;
+
+  private static final String SEGMENT_PREFIX = "txq-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+
+  // Record layout: payload length (4), CRC32 of the payload (4), state (1), payload.
+  // A length of zero marks the end of the records in a segment.
+  private static final int HEADER_SIZE = 9;
+  private static final int CHECKSUM_OFFSET = 4;
+  private static final int STATE_OFFSET = 8;
+  private static final byte STATE_PENDING = 1;
+  private static final byte STATE_DELIVERED = 2;
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long maxBytes;
+  private final int syncBatchSize;
+  private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+  private final CRC32 checksum = new CRC32();
+
+  private long usedBytes;
+  private int readPosition;
+  private int size;
+  private int unsynced;
+  private boolean closed;
+
+  /**
+   * Open or create a queue in a directory with the default limits.
+   *
+   * @param directory the directory holding the segment files, created if missing.
+   * @throws IOException the directory or its segment files can't be opened.
+   */
+  public MappedFileTransactionQueue(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_BYTES, DEFAULT_SYNC_BATCH_SIZE);
+  }
+
+  /**
+   * Open or create a queue in a directory. Pending calls stored by an earlier instance are
+   * recovered.
+   *
+   * @param directory the directory holding the segment files, created if missing.
+   * @param segmentSize size of a segment file in bytes, also the limit for a single call.
+   * @param maxBytes limit for the total size of the segment files.
+   * @param syncBatchSize number of writes between forcing changes to disk, 1 forces every write.
+   * @throws IOException the directory or its segment files can't be opened.
+   */
+  public MappedFileTransactionQueue(
+      Path directory, int segmentSize, long maxBytes, int syncBatchSize) throws IOException {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("segmentSize must be larger than " + HEADER_SIZE);
+    }
+    if (maxBytes < segmentSize) {
+      throw new IllegalArgumentException("maxBytes must hold at least one segment");
+    }
+    if (syncBatchSize < 1) {
+      throw new IllegalArgumentException("syncBatchSize must be positive");
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxBytes = maxBytes;
+    this.syncBatchSize = syncBatchSize;
+
+    Files.createDirectories(directory);
+    recover();
+  }
+
+  @Override
+  public synchronized boolean offer(String uniqueId, Object call) {
+    if (!(call instanceof String)) {
+      throw new IllegalArgumentException(
+          "Only text calls can be stored, got " + (call == null ? null : call.getClass()));
+    }
+    ensureOpen();
+
+    byte[] payload = encode(uniqueId, (String) call);
+    int recordSize = HEADER_SIZE + payload.length;
+    Segment tail = segments.getLast();
+    if (tail.writePosition + recordSize > tail.capacity()) {
+      if (recordSize > segmentSize) {
+        logger.warn(
+            "Call of {} bytes doesn't fit in a segment of {} bytes", recordSize, segmentSize);
+        return false;
+      }
+      if (usedBytes + segmentSize > maxBytes) {
+        logger.warn("Transaction queue is full: {} of {} bytes used", usedBytes, maxBytes);
+        return false;
+      }
+      try {
+        tail = roll(tail);
+      } catch (IOException ex) {
+        logger.warn("Failed to create a new segment in {}", directory, ex);
+        return false;
+      }
+    }
+
+    MappedByteBuffer buffer = tail.buffer;
+    int position = tail.writePosition;
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(position + HEADER_SIZE);
+    slice.put(payload);
+    buffer.putInt(position + CHECKSUM_OFFSET, checksum(payload));
+    buffer.put(position + STATE_OFFSET, STATE_PENDING);
+    buffer.putInt(position, payload.length);
+    tail.writePosition += recordSize;
+    markEnd(tail);
+
+    size++;
+    written();
+    return true;
+  }
+
+  @Override
+  public synchronized List<Entry> peek(int count) {
+    List<Entry> entries = new ArrayList<>(Math.min(count, size));
+    if (closed || !skipDelivered()) return entries;
+
+    Iterator<Segment> iterator = segments.iterator();
+    Segment segment = iterator.next();
+    MappedByteBuffer buffer = segment.buffer;
+    int position = readPosition;
+    while (entries.size() < count) {
+      if (position >= segment.writePosition) {
+        if (!iterator.hasNext()) break;
+        segment = iterator.next();
+        buffer = segment.buffer != null ? segment.buffer : mapForReading(segment);
+        position = 0;
+        continue;
+      }
+      int length = buffer.getInt(position);
+      if (buffer.get(position + STATE_OFFSET) == STATE_PENDING) {
+        entries.add(decode(buffer, position + HEADER_SIZE, length));
+      }
+      position += HEADER_SIZE + length;
+    }
+    return entries;
+  }
+
+  @Override
+  public synchronized void remove() {
+    if (closed || !skipDelivered()) return;
+
+    Segment segment = segments.getFirst();
+    segment.buffer.put(readPosition + STATE_OFFSET, STATE_DELIVERED);
+    readPosition += HEADER_SIZE + segment.buffer.getInt(readPosition);
+    size--;
+
+    if (readPosition < segment.writePosition) {
+      written();
+    } else if (segment != segments.getLast()) {
+      dropHead();
+    } else {
+      // Everything is delivered, start over at the beginning of the segment.
+      segment.writePosition = 0;
+      readPosition = 0;
+      markEnd(segment);
+      written();
+    }
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Total size of the segment files.
+   *
+   * @return the number of bytes used on disk.
+   */
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  /** Force all pending changes to disk. */
+  public synchronized void flush() {
+    if (closed || unsynced == 0) return;
+    segments.getFirst().buffer.force();
+    if (segments.size() > 1) segments.getLast().buffer.force();
+    unsynced = 0;
+  }
+
+  /** Force all pending changes to disk and release the segment files. */
+  @Override
+  public synchronized void close() {
+    flush();
+    closed = true;
+    for (Segment segment : segments) segment.buffer = null;
+  }
+
+  private void recover() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      for (Path file : stream) files.add(file);
+    }
+    Collections.sort(files);
+
+    for (Path file : files) {
+      Segment segment = new Segment(sequenceOf(file), file, map(file, false));
+      int pending = scan(segment);
+      usedBytes += segment.capacity();
+      if (pending == 0 && !file.equals(files.get(files.size() - 1))) {
+        delete(segment);
+        continue;
+      }
+      size += pending;
+      segments.add(segment);
+      if (segments.size() > 1) segments.getLast().buffer = null;
+    }
+    if (segments.size() > 1) {
+      // only the head and the tail stay mapped
+      Segment tail = segments.getLast();
+      tail.buffer = map(tail.path, false);
+    }
+    if (segments.isEmpty()) {
+      Path file = directory.resolve(fileName(0));
+      Segment segment = new Segment(0, file, map(file, true));
+      usedBytes += segment.capacity();
+      segments.add(segment);
+    }
+    if (size > 0) logger.info("Recovered {} pending calls from {}", size, directory);
+  }
+
+  /** Find the valid records of a segment and count the ones still pending. */
+  private int scan(Segment segment) {
+    MappedByteBuffer buffer = segment.buffer;
+    int position = 0;
+    int pending = 0;
+    while (position + HEADER_SIZE <= segment.capacity()) {
+      int length = buffer.getInt(position);
+      if (length < 2 || length > segment.capacity() - position - HEADER_SIZE) break;
+
+      byte state = buffer.get(position + STATE_OFFSET);
+      if (state != STATE_PENDING && state != STATE_DELIVERED) break;
+
+      byte[] payload = new byte[length];
+      ByteBuffer slice = buffer.duplicate();
+      slice.position(position + HEADER_SIZE);
+      slice.get(payload);
+      if (checksum(payload) != buffer.getInt(position + CHECKSUM_OFFSET)) {
+        logger.warn("Dropping torn record at {} in {}", position, segment.path);
+        break;
+      }
+
+      if (state == STATE_PENDING) pending++;
+      position += HEADER_SIZE + length;
+    }
+    segment.writePosition = position;
+    markEnd(segment);
+    return pending;
+  }
+
+  /**
+   * Move the read position to the oldest pending record, deleting delivered segments on the way.
+   *
+   * @return false if there are no pending records.
+   */
+  private boolean skipDelivered() {
+    while (true) {
+      Segment segment = segments.getFirst();
+      MappedByteBuffer buffer = segment.buffer;
+      while (readPosition < segment.writePosition) {
+        if (buffer.get(readPosition + STATE_OFFSET) == STATE_PENDING) return true;
+        readPosition += HEADER_SIZE + buffer.getInt(readPosition);
+      }
+      if (segment == segments.getLast()) return false;
+      dropHead();
+    }
+  }
+
+  /** Map a segment between the head and the tail for a single read ahead. */
+  private MappedByteBuffer mapForReading(Segment segment) {
+    try {
+      return map(segment.path, false);
+    } catch (IOException ex) {
+      throw new IllegalStateException("Failed to open segment " + segment.path, ex);
+    }
+  }
+
+  // Payload layout: id length (2), id, call.
+  private static byte[] encode(String uniqueId, String call) {
+    byte[] id = uniqueId.getBytes(StandardCharsets.UTF_8);
+    byte[] body = call.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(2 + id.length + body.length)
+        .putShort((short) id.length)
+        .put(id)
+        .put(body)
+        .array();
+  }
+
+  private static Entry decode(MappedByteBuffer buffer, int position, int length) {
+    byte[] payload = new byte[length];
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(position);
+    slice.get(payload);
+    int idLength = ((payload[0] & 0xff) << 8) | (payload[1] & 0xff);
+    return new Entry(
+        new String(payload, 2, idLength, StandardCharsets.UTF_8),
+        new String(payload, 2 + idLength, length - 2 - idLength, StandardCharsets.UTF_8));
+  }
+
+  private Segment roll(Segment tail) throws IOException {
+    long sequence = tail.sequence + 1;
+    Path file = directory.resolve(fileName(sequence));
+    Segment segment = new Segment(sequence, file, map(file, true));
+
+    tail.buffer.force();
+    if (tail != segments.getFirst()) tail.buffer = null;
+    segments.add(segment);
+    usedBytes += segment.capacity();
+    unsynced = 0;
+    return segment;
+  }
+
+  /** Delete the fully delivered head segment and move on to the next one. */
+  private void dropHead() {
+    Segment segment = segments.removeFirst();
+    readPosition = 0;
+    if (!delete(segment)) segment.buffer.force();
+    segment.buffer = null;
+
+    Segment next = segments.getFirst();
+    if (next.buffer == null) {
+      try {
+        next.buffer = map(next.path, false);
+      } catch (IOException ex) {
+        throw new IllegalStateException("Failed to open segment " + next.path, ex);
+      }
+    }
+  }
+
+  private boolean delete(Segment segment) {
+    try {
+      Files.delete(segment.path);
+      usedBytes -= segment.capacity();
+      return true;
+    } catch (IOException ex) {
+      logger.warn("Failed to delete delivered segment {}", segment.path, ex);
+      return false;
+    }
+  }
+
+  private void written() {
+    if (++unsynced >= syncBatchSize) flush();
+  }
+
+  private void ensureOpen() {
+    if (closed) throw new IllegalStateException("Transaction queue is closed");
+  }
+
+  private int checksum(byte[] payload) {
+    checksum.reset();
+    checksum.update(payload, 0, payload.length);
+    return (int) checksum.getValue();
+  }
+
+  /** Terminate the records of a segment, so stale bytes behind them are never read back. */
+  private static void markEnd(Segment segment) {
+    if (segment.writePosition + 4 <= segment.capacity()) {
+      segment.buffer.putInt(segment.writePosition, 0);
+    }
+  }
+
+  private MappedByteBuffer map(Path file, boolean create) throws IOException {
+    StandardOpenOption[] options =
+        create
+            ? new StandardOpenOption[] {
+              StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE
+            }
+            : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE};
+    try (FileChannel channel = FileChannel.open(file, options)) {
+      long length = create ? segmentSize : channel.size();
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+  }
+
+  private static String fileName(long sequence) {
+    return String.format("%s%016x%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+  }
+
+  private static long sequenceOf(Path file) {
+    String name = file.getFileName().toString();
+    return Long.parseUnsignedLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), 16);
+  }
+
+  private static class Segment {
+    private final long sequence;
+    private final Path path;
+    private final int capacity;
+    private MappedByteBuffer buffer;
+    private int writePosition;
+
+    private Segment(long sequence, Path path, MappedByteBuffer buffer) {
+      this.sequence = sequence;
+      this.path = path;
+      this.capacity = buffer.capacity();
+      this.buffer = buffer;
+    }
+
+    private int capacity() {
+      return capacity;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates the unique ids of outgoing calls. Ids must be unique within a session and at most 36
+ * characters long.
+ */
+@FunctionalInterface
+public interface MessageIdGenerator {
+
+  int MAX_LENGTH = 36;
+
+  String nextId();
+
+  /**
+   * A counter behind a random tag, e.g. {@code k3x9qa-1f}. All sequential generators of a process
+   * share the tag and the counter, so ids are unique across sessions, and the tag keeps ids from a
+   * restarted process apart from ids stored before the restart.
+   *
+   * @return a sequential generator.
+   */
+  static MessageIdGenerator sequential() {
+    return () ->
+        SequentialMessageIds.TAG
+            + Long.toString(SequentialMessageIds.COUNTER.incrementAndGet(), 36);
+  }
+
+  /**
+   * Random version 4 UUIDs without the {@link java.security.SecureRandom} of {@link
+   * UUID#randomUUID()}.
+   *
+   * @return a random generator.
+   */
+  static MessageIdGenerator random() {
+    return () -> {
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      long mostSigBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+      long leastSigBits = (random.nextLong() & ~(0xC0L << 56)) | (0x80L << 56);
+      return new UUID(mostSigBits, leastSigBits).toString();
+    };
+  }
+
+  /**
+   * {@link UUID#randomUUID()}, as used before generators were pluggable.
+   *
+   * @return a secure random generator.
+   */
+  static MessageIdGenerator secureRandom() {
+    return () -> UUID.randomUUID().toString();
+  }
+}
@@ -0,0 +1,252 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.SerialExecutor;
+import eu.chargetime.ocpp.utilities.VirtualThreads;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded thread pool for the {@link AsyncPromiseFulfillerDecorator}s of one server.
+ *
+ * <p>At most {@code poolSize} requests are handled at the same time and at most {@code
+ * queueCapacity} wait for a thread. Requests beyond that are rejected, and the session answers them
+ * with a CALLERROR. With fair scheduling each session gets its own queue and the pool takes turns
+ * between sessions, so a single charge point can't fill the pool.
+ *
+ * <p>On Java 21 and later {@link #virtualThreads(int, boolean)} runs each request on its own
+ * virtual thread instead, which suits handlers that block on I/O. There is no pool to wait for in
+ * that mode, so {@code queueCapacity} limits the number of requests in flight.
+ */
+public class PromiseFulfillerExecutor {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  private static final AtomicInteger poolNumber = new AtomicInteger();
+
+  private final ExecutorService pool;
+  private final int queueCapacity;
+  private final boolean fair;
+  private final boolean virtual;
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger active = new AtomicInteger();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * @param poolSize maximum number of requests handled at the same time.
+   * @param queueCapacity maximum number of requests waiting for a thread.
+   * @param fair true to take turns between sessions.
+   */
+  public PromiseFulfillerExecutor(int poolSize, int queueCapacity, boolean fair) {
+    this(createPool(poolSize), queueCapacity, fair, false);
+  }
+
+  private PromiseFulfillerExecutor(
+      ExecutorService pool, int queueCapacity, boolean fair, boolean virtual) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+    }
+    this.pool = pool;
+    this.queueCapacity = queueCapacity;
+    this.fair = fair;
+    this.virtual = virtual;
+  }
+
+  /**
+   * Run every request on a new virtual thread. Requires Java 21 or later.
+   *
+   * @param maxInFlight maximum number of requests in flight.
+   * @param fair true to handle the requests of a session one at a time.
+   * @return the executor.
+   * @throws UnsupportedOperationException if the runtime has no virtual threads.
+   * @see VirtualThreads#isAvailable()
+   */
+  public static PromiseFulfillerExecutor virtualThreads(int maxInFlight, boolean fair) {
+    ExecutorService pool =
+        VirtualThreads.newVirtualThreadPerTaskExecutor()
+            .orElseThrow(
+                () ->
+                    new UnsupportedOperationException(
+                        "Virtual threads require Java 21 or later, running "
+                            + System.getProperty("java.version")));
+    return new PromiseFulfillerExecutor(pool, maxInFlight, fair, true);
+  }
+
+  private static ExecutorService createPool(int poolSize) {
+    if (poolSize < 1) {
+      throw new IllegalArgumentException("poolSize must be positive: " + poolSize);
+    }
+    // The queue is bounded by the queued counter, the pool queue only holds accepted tasks.
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            60L,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new FulfillerThreadFactory());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * Create the executor for a new session.
+   *
+   * @return executor to hand to the session's {@link AsyncPromiseFulfillerDecorator}.
+   */
+  public Executor sessionExecutor() {
+    if (!fair) {
+      return task -> execute(pool, task);
+    }
+    SerialExecutor mailbox =
+        new SerialExecutor(pool, 1, (task, ex) -> ((Accepted) task).reject(ex));
+    return task -> execute(mailbox, task);
+  }
+
+  /**
+   * Number of requests waiting for a thread. With virtual threads, the number of requests in
+   * flight.
+   *
+   * @return current queue depth.
+   */
+  public int getQueueDepth() {
+    return queued.get();
+  }
+
+  /**
+   * Number of requests rejected since the executor was created.
+   *
+   * @return rejection count.
+   */
+  public long getRejectedCount() {
+    return rejected.sum();
+  }
+
+  /**
+   * Number of threads currently handling a request.
+   *
+   * @return active thread count.
+   */
+  public int getActiveCount() {
+    return active.get();
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  public boolean isFair() {
+    return fair;
+  }
+
+  public boolean isVirtual() {
+    return virtual;
+  }
+
+  /** Stop accepting requests. Requests already accepted are still handled. */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  public boolean isShutdown() {
+    return pool.isShutdown();
+  }
+
+  private void execute(Executor target, Runnable task) {
+    reserve();
+    try {
+      target.execute(new Accepted(task));
+    } catch (RejectedExecutionException ex) {
+      queued.decrementAndGet();
+      rejected.increment();
+      throw ex;
+    }
+  }
+
+  private void reserve() {
+    int depth;
+    do {
+      depth = queued.get();
+      if (depth >= queueCapacity) {
+        rejected.increment();
+        throw new RejectedExecutionException(
+            "Promise fulfiller queue is full, capacity: " + queueCapacity);
+      }
+    } while (!queued.compareAndSet(depth, depth + 1));
+  }
+
+  /** A task that fails its request if it is rejected after it was accepted. */
+  interface Rejectable {
+    void reject(RejectedExecutionException ex);
+  }
+
+  /** A task holding a queue slot, released when it runs or is rejected. */
+  private final class Accepted implements Runnable {
+    private final Runnable task;
+
+    Accepted(Runnable task) {
+      this.task = task;
+    }
+
+    @Override
+    public void run() {
+      if (!virtual) queued.decrementAndGet();
+      active.incrementAndGet();
+      try {
+        task.run();
+      } finally {
+        active.decrementAndGet();
+        if (virtual) queued.decrementAndGet();
+      }
+    }
+
+    void reject(RejectedExecutionException ex) {
+      queued.decrementAndGet();
+      rejected.increment();
+      if (task instanceof Rejectable) ((Rejectable) task).reject(ex);
+    }
+  }
+
+  private static class FulfillerThreadFactory implements ThreadFactory {
+    private final String prefix = "ocpp-fulfiller-" + poolNumber.incrementAndGet() + "-";
+    private final AtomicInteger threadNumber = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
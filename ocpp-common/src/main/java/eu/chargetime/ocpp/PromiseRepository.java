@@ -25,19 +25,31 @@ package eu.chargetime.ocpp;
    SOFTWARE.
 */
 
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 
 public class PromiseRepository implements IPromiseRepository {
 
   private final Map<String, CompletableFuture<Confirmation>> promises;
+  @Nullable private final OcppMetrics metrics;
 
   public PromiseRepository() {
+    this(null);
+  }
+
+  /**
+   * @param metrics records the number of stored promises to the {@link
+   *     OcppMetrics.Gauge#PENDING_PROMISES} gauge, null disables metrics.
+   */
+  public PromiseRepository(@Nullable OcppMetrics metrics) {
     this.promises = new ConcurrentHashMap<>();
+    this.metrics = metrics;
   }
 
   /**
@@ -48,7 +60,9 @@ public class PromiseRepository implements IPromiseRepository {
    */
   public CompletableFuture<Confirmation> createPromise(String uniqueId) {
     CompletableFuture<Confirmation> promise = new Promise<>();
-    promises.put(uniqueId, promise);
+    if (promises.put(uniqueId, promise) == null && metrics != null) {
+      metrics.adjust(OcppMetrics.Gauge.PENDING_PROMISES, 1);
+    }
     return promise;
   }
 
@@ -68,6 +82,8 @@ public class PromiseRepository implements IPromiseRepository {
    * @param uniqueId identification for the {@link Request}
    */
   public void removePromise(String uniqueId) {
-    promises.remove(uniqueId);
+    if (promises.remove(uniqueId) != null && metrics != null) {
+      metrics.adjust(OcppMetrics.Gauge.PENDING_PROMISES, -1);
+    }
   }
 }
@@ -1,12 +1,12 @@
 package eu.chargetime.ocpp;
 
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.utilities.MoreObjects;
-import eu.chargetime.ocpp.utilities.Stopwatch;
 import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,10 +43,27 @@ public class Queue {
 
   public static final int REQUEST_QUEUE_INITIAL_CAPACITY = 1000;
 
-  private Map<String, Request> requestQueue;
+  private final Map<String, Request> requestQueue;
+  private final MessageIdGenerator idGenerator;
+  @Nullable private OcppMetrics metrics;
 
   public Queue() {
-    requestQueue = new ConcurrentHashMap<>(REQUEST_QUEUE_INITIAL_CAPACITY);
+    this(MessageIdGenerator.sequential());
+  }
+
+  /** @param idGenerator generator for the unique ids of stored requests. */
+  public Queue(MessageIdGenerator idGenerator) {
+    this.requestQueue = new ConcurrentHashMap<>(REQUEST_QUEUE_INITIAL_CAPACITY);
+    this.idGenerator = idGenerator;
+  }
+
+  /**
+   * Record the number of stored requests to the {@link OcppMetrics.Gauge#QUEUED_REQUESTS} gauge.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
   }
 
   /**
@@ -56,13 +73,9 @@ public class Queue {
    * @return a unique identifier used to fetch the request.
    */
   public String store(Request request) {
-    Stopwatch stopwatch = Stopwatch.createStarted();
-
-    String ticket = UUID.randomUUID().toString();
+    String ticket = idGenerator.nextId();
     requestQueue.put(ticket, request);
-
-    logger.debug("Queue size: {}, store time: {}", requestQueue.size(), stopwatch.stop());
-
+    if (metrics != null) metrics.adjust(OcppMetrics.Gauge.QUEUED_REQUESTS, 1);
     return ticket;
   }
 
@@ -74,15 +87,8 @@ public class Queue {
    * @return the optional with stored {@link Request}
    */
   public Optional<Request> restoreRequest(String ticket) {
-    Stopwatch stopwatch = Stopwatch.createStarted();
-
     try {
-      Request request = requestQueue.get(ticket);
-      requestQueue.remove(ticket);
-
-      logger.debug("Queue size: {}, store time: {}", requestQueue.size(), stopwatch.stop());
-
-      return Optional.ofNullable(request);
+      return Optional.ofNullable(removed(requestQueue.remove(ticket)));
     } catch (Exception ex) {
       logger.warn("restoreRequest({}) failed", ticket, ex);
     }
@@ -96,7 +102,12 @@ public class Queue {
    * @param ticket unique identifier returned when {@link Request} was initially stored.
    */
   public void removeRequest(String ticket) {
-    requestQueue.remove(ticket);
+    removed(requestQueue.remove(ticket));
+  }
+
+  private Request removed(@Nullable Request request) {
+    if (request != null && metrics != null) metrics.adjust(OcppMetrics.Gauge.QUEUED_REQUESTS, -1);
+    return request;
   }
 
   @Override
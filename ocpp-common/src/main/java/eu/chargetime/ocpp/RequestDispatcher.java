@@ -25,15 +25,19 @@ package eu.chargetime.ocpp;
    SOFTWARE.
 */
 
+import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 public class RequestDispatcher implements IRequestDispactcher {
 
   private final PromiseFulfiller fulfiller;
   protected SessionEvents eventHandler;
+  private final Map<Feature, SessionEvents> featureEventHandlers = new ConcurrentHashMap<>();
 
   public RequestDispatcher(PromiseFulfiller fulfiller) {
     this.fulfiller = fulfiller;
@@ -43,7 +47,85 @@ public class RequestDispatcher implements IRequestDispactcher {
     fulfiller.fulfill(promise, eventHandler, request);
   }
 
+  /**
+   * Dispatch a request whose {@link Feature} is already known, so the event handler doesn't look it
+   * up again. See {@link SessionEvents#handleRequest(Feature, Request)}.
+   *
+   * @param promise completed with the confirmation, null if none is expected.
+   * @param feature the {@link Feature} of the request.
+   * @param request the {@link Request} to dispatch.
+   */
+  public void handleRequest(
+      @Nullable CompletableFuture<Confirmation> promise, Feature feature, Request request) {
+    SessionEvents events = featureEventHandlers.get(feature);
+    if (events == null) {
+      events =
+          featureEventHandlers.computeIfAbsent(
+              feature, key -> new FeatureSessionEvents(eventHandler, key));
+    }
+    fulfiller.fulfill(promise, events, request);
+  }
+
   public void setEventHandler(SessionEvents eventHandler) {
     this.eventHandler = eventHandler;
+    featureEventHandlers.clear();
+  }
+
+  /** Hands requests of one {@link Feature} to the event handler together with the feature. */
+  private static final class FeatureSessionEvents implements SessionEvents {
+
+    private final SessionEvents events;
+    private final Feature feature;
+
+    FeatureSessionEvents(SessionEvents events, Feature feature) {
+      this.events = events;
+      this.feature = feature;
+    }
+
+    @Override
+    public void handleConfirmation(String uniqueId, @Nullable Confirmation confirmation) {
+      events.handleConfirmation(uniqueId, confirmation);
+    }
+
+    @Nullable
+    @Override
+    public Confirmation handleRequest(Request request) throws UnsupportedFeatureException {
+      return events.handleRequest(feature, request);
+    }
+
+    @Nullable
+    @Override
+    public Confirmation handleRequest(Feature feature, Request request)
+        throws UnsupportedFeatureException {
+      return events.handleRequest(feature, request);
+    }
+
+    @Override
+    public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
+        throws UnsupportedFeatureException, OccurenceConstraintException {
+      return events.asyncCompleteRequest(uniqueId, confirmation);
+    }
+
+    @Override
+    public void handleError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {
+      events.handleError(uniqueId, errorCode, errorDescription, payload);
+    }
+
+    @Override
+    public void handleConfirmationError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {
+      events.handleConfirmationError(uniqueId, errorCode, errorDescription, payload);
+    }
+
+    @Override
+    public void handleConnectionClosed() {
+      events.handleConnectionClosed();
+    }
+
+    @Override
+    public void handleConnectionOpened() {
+      events.handleConnectionOpened();
+    }
   }
 }
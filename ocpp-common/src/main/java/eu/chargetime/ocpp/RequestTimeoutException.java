@@ -0,0 +1,57 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/** No confirmation to a sent request arrived within its {@link RequestTimeouts timeout}. */
+public class RequestTimeoutException extends TimeoutException {
+  private static final long serialVersionUID = 4383925427301374856L;
+
+  private final String action;
+  private final String uniqueId;
+  private final Duration timeout;
+
+  public RequestTimeoutException(String action, String uniqueId, Duration timeout) {
+    super(String.format("No confirmation to %s (%s) within %s", action, uniqueId, timeout));
+    this.action = action;
+    this.uniqueId = uniqueId;
+    this.timeout = timeout;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  public String getUniqueId() {
+    return uniqueId;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+}
@@ -0,0 +1,149 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.utilities.HashedWheelTimer;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * How long {@link Server#send} and {@link Client#send} wait for a confirmation, by default and per
+ * action. A request that times out completes exceptionally with a {@link RequestTimeoutException}.
+ * Transaction-related requests that a transaction queue stores while offline don't time out, the
+ * queue retries them until they are confirmed.
+ *
+ * <p>Instances are immutable, e.g. {@code
+ * RequestTimeouts.of(Duration.ofSeconds(30)).withAction("RemoteStartTransaction",
+ * Duration.ofSeconds(60))}.
+ *
+ * <p>Timed out promises are completed on an executor, the {@link ForkJoinPool#commonPool()} by
+ * default, so their callbacks don't hold up the timer thread shared by all clients and servers.
+ */
+public final class RequestTimeouts {
+
+  /** Wait forever, unless an action is configured. */
+  public static final RequestTimeouts NONE =
+      new RequestTimeouts(null, Collections.emptyMap(), ForkJoinPool.commonPool());
+
+  @Nullable private final Duration defaultTimeout;
+  private final Map<String, Duration> actionTimeouts;
+  private final Executor executor;
+
+  private RequestTimeouts(
+      @Nullable Duration defaultTimeout, Map<String, Duration> actionTimeouts, Executor executor) {
+    this.defaultTimeout = defaultTimeout;
+    this.actionTimeouts = actionTimeouts;
+    this.executor = executor;
+  }
+
+  /**
+   * @param defaultTimeout timeout for all actions.
+   * @return timeouts with the given default.
+   */
+  public static RequestTimeouts of(Duration defaultTimeout) {
+    return NONE.withDefault(defaultTimeout);
+  }
+
+  /**
+   * @param defaultTimeout timeout for actions without their own timeout, null to wait forever.
+   * @return a copy with the given default.
+   */
+  public RequestTimeouts withDefault(@Nullable Duration defaultTimeout) {
+    return new RequestTimeouts(requirePositive(defaultTimeout), actionTimeouts, executor);
+  }
+
+  /**
+   * @param action action name of the feature.
+   * @param timeout timeout for that action.
+   * @return a copy with the given action timeout.
+   */
+  public RequestTimeouts withAction(String action, Duration timeout) {
+    Map<String, Duration> copy = new HashMap<>(actionTimeouts);
+    copy.put(action, requirePositive(timeout));
+    return new RequestTimeouts(defaultTimeout, Collections.unmodifiableMap(copy), executor);
+  }
+
+  /**
+   * @param executor executor that completes timed out promises and runs their callbacks.
+   * @return a copy with the given executor.
+   */
+  public RequestTimeouts withExecutor(Executor executor) {
+    return new RequestTimeouts(defaultTimeout, actionTimeouts, executor);
+  }
+
+  /**
+   * @param action action name of the feature.
+   * @return the timeout for the action, or null to wait forever.
+   */
+  @Nullable
+  public Duration get(String action) {
+    return actionTimeouts.getOrDefault(action, defaultTimeout);
+  }
+
+  /**
+   * Fail the promise when no confirmation arrives in time. The timeout is cancelled when the
+   * promise completes.
+   */
+  void schedule(
+      HashedWheelTimer timer,
+      String action,
+      String uniqueId,
+      CompletableFuture<Confirmation> promise) {
+    Duration timeout = get(action);
+    if (timeout == null) return;
+
+    HashedWheelTimer.Timeout handle =
+        timer.newTimeout(
+            () -> expire(promise, new RequestTimeoutException(action, uniqueId, timeout)),
+            timeout.toNanos(),
+            TimeUnit.NANOSECONDS);
+    promise.whenComplete((confirmation, throwable) -> handle.cancel());
+  }
+
+  private void expire(CompletableFuture<Confirmation> promise, RequestTimeoutException timeout) {
+    try {
+      executor.execute(() -> promise.completeExceptionally(timeout));
+    } catch (RejectedExecutionException ex) {
+      promise.completeExceptionally(timeout);
+    }
+  }
+
+  private static Duration requirePositive(@Nullable Duration timeout) {
+    if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+      throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+    }
+    return timeout;
+  }
+}
@@ -0,0 +1,81 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.SerialExecutor;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands {@link CommunicatorEvents} over to a shared {@link Executor}. Events of one session are
+ * delivered one at a time and in the order they were received, events of different sessions are
+ * handled in parallel.
+ */
+class SerialCommunicatorEventsDecorator implements CommunicatorEvents {
+
+  private final CommunicatorEvents events;
+  private final SerialExecutor mailbox;
+
+  SerialCommunicatorEventsDecorator(CommunicatorEvents events, Executor executor) {
+    this.events = events;
+    this.mailbox = new SerialExecutor(executor);
+  }
+
+  @Override
+  public void onCallResult(String id, String action, Object payload) {
+    mailbox.execute(() -> events.onCallResult(id, action, payload));
+  }
+
+  @Override
+  public void onCall(String id, String action, Object payload) {
+    mailbox.execute(() -> events.onCall(id, action, payload));
+  }
+
+  @Override
+  public void onError(String id, String errorCode, String errorDescription, Object payload) {
+    mailbox.execute(() -> events.onError(id, errorCode, errorDescription, payload));
+  }
+
+  @Override
+  public void onCallResultError(
+      String id, String errorCode, String errorDescription, Object payload) {
+    mailbox.execute(() -> events.onCallResultError(id, errorCode, errorDescription, payload));
+  }
+
+  @Override
+  public void onSend(String id, String action, Object payload) {
+    mailbox.execute(() -> events.onSend(id, action, payload));
+  }
+
+  @Override
+  public void onDisconnected() {
+    mailbox.execute(events::onDisconnected);
+  }
+
+  @Override
+  public void onConnected() {
+    mailbox.execute(events::onConnected);
+  }
+}
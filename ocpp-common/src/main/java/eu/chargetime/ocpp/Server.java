@@ -26,15 +26,25 @@ package eu.chargetime.ocpp;
 */
 
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.SessionInformation;
+import eu.chargetime.ocpp.utilities.HashedWheelTimer;
+import eu.chargetime.ocpp.utilities.TimeoutTimer;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +62,11 @@ public class Server {
   private final Map<UUID, ISession> sessions;
   private final Listener listener;
   private final IPromiseRepository promiseRepository;
+  private final HashedWheelTimer timer = HashedWheelTimer.shared();
+  private volatile RequestTimeouts requestTimeouts = RequestTimeouts.NONE;
+  @Nullable private volatile OcppMetrics metrics;
+  private final Set<Broadcast> broadcasts = ConcurrentHashMap.newKeySet();
+  @Nullable private ScheduledExecutorService broadcastScheduler;
 
   /**
    * Constructor. Handles the required injections.
@@ -120,23 +135,26 @@ public class Server {
                     Optional<Feature> featureOptional =
                         session.getFeatureRepository().findFeature(request);
                     if (featureOptional.isPresent()) {
-                      Optional<UUID> sessionIdOptional = getSessionID(session);
-                      if (sessionIdOptional.isPresent()) {
-                        return featureOptional
-                            .get()
-                            .handleRequest(sessionIdOptional.get(), request);
-                      } else {
-                        logger.error(
-                            "Unable to handle request ({}), the active session was not found for {}.",
-                            request,
-                            session.getSessionId());
-                        throw new IllegalStateException("Active session not found");
-                      }
+                      return handleRequest(featureOptional.get(), request);
                     } else {
                       throw new UnsupportedFeatureException();
                     }
                   }
 
+                  @Override
+                  public Confirmation handleRequest(Feature feature, Request request) {
+                    Optional<UUID> sessionIdOptional = getSessionID(session);
+                    if (sessionIdOptional.isPresent()) {
+                      return feature.handleRequest(sessionIdOptional.get(), request);
+                    } else {
+                      logger.error(
+                          "Unable to handle request ({}), the active session was not found for {}.",
+                          request,
+                          session.getSessionId());
+                      throw new IllegalStateException("Active session not found");
+                    }
+                  }
+
                   @Override
                   public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
                       throws UnsupportedFeatureException, OccurenceConstraintException {
@@ -181,7 +199,9 @@ public class Server {
                     Optional<UUID> sessionIdOptional = getSessionID(session);
                     if (sessionIdOptional.isPresent()) {
                       serverEvents.lostSession(sessionIdOptional.get());
-                      sessions.remove(sessionIdOptional.get());
+                      if (sessions.remove(sessionIdOptional.get()) != null) {
+                        sessionClosed(session);
+                      }
                     } else {
                       logger.warn("Active session not found for {}", session.getSessionId());
                     }
@@ -192,6 +212,7 @@ public class Server {
                 });
 
             sessions.put(session.getSessionId(), session);
+            sessionOpened(session);
 
             Optional<UUID> sessionIdOptional = getSessionID(session);
             if (sessionIdOptional.isPresent()) {
@@ -204,6 +225,20 @@ public class Server {
         });
   }
 
+  private void sessionOpened(ISession session) {
+    OcppMetrics current = metrics;
+    if (current != null) {
+      current.sessionOpened(session.getFeatureRepository().getProtocolVersion());
+    }
+  }
+
+  private void sessionClosed(ISession session) {
+    OcppMetrics current = metrics;
+    if (current != null) {
+      current.sessionClosed(session.getFeatureRepository().getProtocolVersion());
+    }
+  }
+
   private Optional<UUID> getSessionID(ISession session) {
     if (!sessions.containsKey(session.getSessionId())) {
       return Optional.empty();
@@ -212,9 +247,18 @@ public class Server {
     return Optional.of(session.getSessionId());
   }
 
-  /** Close all connections and stop listening for clients. */
+  /** Close all connections and stop listening for clients. Cancels unfinished broadcasts. */
   public void close() {
     listener.close();
+    synchronized (broadcasts) {
+      if (broadcastScheduler != null) {
+        broadcastScheduler.shutdownNow();
+        broadcastScheduler = null;
+      }
+    }
+    for (Broadcast broadcast : broadcasts) {
+      broadcast.cancel();
+    }
   }
 
   /**
@@ -249,6 +293,11 @@ public class Server {
       throw new OccurenceConstraintException();
     }
 
+    return dispatch(session, featureOptional.get(), request, null);
+  }
+
+  private CompletableFuture<Confirmation> dispatch(
+      ISession session, Feature feature, Request request, @Nullable Object sharedPayload) {
     String requestUuid = session.storeRequest(request);
     CompletableFuture<Confirmation> promise = promiseRepository.createPromise(requestUuid);
 
@@ -260,14 +309,175 @@ public class Server {
           promiseRepository.removePromise(requestUuid);
         });
 
-    if (featureOptional.get().getConfirmationType() != null) {
-      session.sendRequest(featureOptional.get().getAction(), request, requestUuid);
+    if (feature.getConfirmationType() == null) {
+      session.sendMessage(feature.getAction(), request, requestUuid);
     } else {
-      session.sendMessage(featureOptional.get().getAction(), request, requestUuid);
+      if (!session.isRetriedUntilConfirmed(request)) {
+        requestTimeouts.schedule(timer, feature.getAction(), requestUuid, promise);
+      }
+      if (sharedPayload != null) {
+        session.sendRequest(feature.getAction(), request, sharedPayload, requestUuid);
+      } else {
+        session.sendRequest(feature.getAction(), request, requestUuid);
+      }
     }
     return promise;
   }
 
+  /**
+   * Send the same request to many clients, e.g. a configuration change to a whole fleet.
+   *
+   * <p>The request is validated once up front, and its feature is looked up and its payload packed
+   * once per feature repository instead of once per client. The server's broadcast thread writes
+   * the requests at no more than the given rate, so the sockets and the clients aren't flooded.
+   * Concurrent broadcasts take turns on that thread, and {@link #close} cancels those not done.
+   * Clients that disconnect before their turn fail with a {@link NotConnectedException}, clients
+   * that don't support the feature with an {@link UnsupportedFeatureException}. Confirmations time
+   * out like those of {@link #send}.
+   *
+   * @param sessionIndexes Session indexes of the clients, duplicates are sent to once.
+   * @param request Request for the clients.
+   * @param messagesPerSecond the maximum number of requests written per second, 0 for no limit.
+   * @return the broadcast, to follow the promise of every client and the overall progress.
+   * @throws OccurenceConstraintException Thrown if the request isn't valid.
+   */
+  public Broadcast broadcast(
+      Collection<UUID> sessionIndexes, Request request, int messagesPerSecond)
+      throws OccurenceConstraintException {
+    if (messagesPerSecond < 0) {
+      throw new IllegalArgumentException("messagesPerSecond must not be negative");
+    }
+    if (!request.validate()) {
+      throw new OccurenceConstraintException();
+    }
+
+    Broadcast broadcast = new Broadcast(sessionIndexes);
+    long intervalNanos =
+        messagesPerSecond == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / messagesPerSecond;
+    broadcasts.add(broadcast);
+    broadcast.whenDone().thenRun(() -> broadcasts.remove(broadcast));
+    new BroadcastWriter(broadcast, request, intervalNanos).schedule(0);
+    return broadcast;
+  }
+
+  private ScheduledExecutorService broadcastScheduler() {
+    synchronized (broadcasts) {
+      if (broadcastScheduler == null) {
+        broadcastScheduler = TimeoutTimer.createScheduler("ocpp-broadcast");
+      }
+      return broadcastScheduler;
+    }
+  }
+
+  /** Writes one request per turn, then reschedules itself for the next client. */
+  private final class BroadcastWriter implements Runnable {
+    private final Broadcast broadcast;
+    private final Request request;
+    private final long intervalNanos;
+    private final Iterator<Map.Entry<UUID, CompletableFuture<Confirmation>>> remaining;
+    private final Map<IFeatureRepository, PreparedRequest> prepared = new IdentityHashMap<>();
+    private long next = System.nanoTime();
+
+    private BroadcastWriter(Broadcast broadcast, Request request, long intervalNanos) {
+      this.broadcast = broadcast;
+      this.request = request;
+      this.intervalNanos = intervalNanos;
+      this.remaining = broadcast.getPromises().entrySet().iterator();
+    }
+
+    private void schedule(long delayNanos) {
+      try {
+        broadcastScheduler().schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+      } catch (RejectedExecutionException ex) {
+        // The server was closed.
+        broadcast.cancel();
+      }
+    }
+
+    @Override
+    public void run() {
+      do {
+        if (broadcast.isCancelled() || !remaining.hasNext()) {
+          return;
+        }
+        Map.Entry<UUID, CompletableFuture<Confirmation>> entry = remaining.next();
+        writeBroadcast(broadcast, entry.getKey(), entry.getValue(), request, prepared);
+      } while (intervalNanos == 0);
+
+      if (remaining.hasNext()) {
+        long now = System.nanoTime();
+        // Don't make up for a stall with a burst of more than one request.
+        next = Math.max(next, now - intervalNanos) + intervalNanos;
+        schedule(next - now);
+      }
+    }
+  }
+
+  private void writeBroadcast(
+      Broadcast broadcast,
+      UUID sessionIndex,
+      CompletableFuture<Confirmation> result,
+      Request request,
+      Map<IFeatureRepository, PreparedRequest> prepared) {
+    ISession session = sessions.get(sessionIndex);
+    if (session == null) {
+      logger.debug("Session not found by index: {}", sessionIndex);
+      result.completeExceptionally(new NotConnectedException());
+      return;
+    }
+
+    try {
+      PreparedRequest preparedRequest =
+          prepared.computeIfAbsent(
+              session.getFeatureRepository(),
+              repository -> PreparedRequest.of(repository, session, request));
+      if (preparedRequest.feature == null) {
+        result.completeExceptionally(new UnsupportedFeatureException());
+        return;
+      }
+
+      CompletableFuture<Confirmation> promise =
+          dispatch(session, preparedRequest.feature, request, preparedRequest.sharedPayload);
+      broadcast.sent();
+      promise.whenComplete(
+          (confirmation, throwable) -> {
+            if (throwable != null) {
+              result.completeExceptionally(throwable);
+            } else {
+              result.complete(confirmation);
+            }
+          });
+      // Stop waiting for the confirmation once the broadcast gave up on this client.
+      result.whenComplete((confirmation, throwable) -> promise.cancel(false));
+    } catch (RuntimeException ex) {
+      logger.warn("broadcast() failed for session {}", sessionIndex, ex);
+      result.completeExceptionally(ex);
+    }
+  }
+
+  /** The feature and the shared payload of a broadcast request, per feature repository. */
+  private static final class PreparedRequest {
+    @Nullable private final Feature feature;
+    @Nullable private final Object sharedPayload;
+
+    private PreparedRequest(@Nullable Feature feature, @Nullable Object sharedPayload) {
+      this.feature = feature;
+      this.sharedPayload = sharedPayload;
+    }
+
+    static PreparedRequest of(IFeatureRepository repository, ISession session, Request request) {
+      Optional<Feature> featureOptional = repository.findFeature(request);
+      if (!featureOptional.isPresent()) {
+        return new PreparedRequest(null, null);
+      }
+      Object sharedPayload =
+          featureOptional.get().getConfirmationType() != null
+              ? session.packSharedPayload(request)
+              : null;
+      return new PreparedRequest(featureOptional.get(), sharedPayload);
+    }
+  }
+
   /**
    * Indicate completion of a pending request.
    *
@@ -309,4 +519,32 @@ public class Server {
       session.close();
     }
   }
+
+  /**
+   * Set how long {@link #send} waits for a confirmation. A request that times out completes
+   * exceptionally with a {@link RequestTimeoutException}, on the executor of the timeouts.
+   *
+   * @param requestTimeouts the timeouts, {@link RequestTimeouts#NONE} to wait forever.
+   */
+  public void setRequestTimeouts(RequestTimeouts requestTimeouts) {
+    this.requestTimeouts = requestTimeouts;
+  }
+
+  public RequestTimeouts getRequestTimeouts() {
+    return requestTimeouts;
+  }
+
+  /**
+   * Record the open sessions per {@link ProtocolVersion}. Set before opening the server.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Nullable
+  public OcppMetrics getMetrics() {
+    return metrics;
+  }
 }
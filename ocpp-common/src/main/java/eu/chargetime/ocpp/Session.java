@@ -30,8 +30,14 @@ import static eu.chargetime.ocpp.ProtocolVersion.OCPP1_6;
 import static eu.chargetime.ocpp.ProtocolVersion.OCPP2_0_1;
 
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.model.Validatable;
+import eu.chargetime.ocpp.tracing.MessageTrace;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import eu.chargetime.ocpp.tracing.TraceStage;
 import eu.chargetime.ocpp.utilities.MoreObjects;
 import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.Map;
@@ -39,6 +45,8 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,9 +63,12 @@ public class Session implements ISession {
   private final Queue queue;
   private final RequestDispatcher dispatcher;
   private final IFeatureRepository featureRepository;
+  @Nullable private final Executor dispatchExecutor;
   private final Map<String, SimpleImmutableEntry<String, CompletableFuture<Confirmation>>>
       pendingPromises = new ConcurrentHashMap<>();
   private SessionEvents events;
+  @Nullable private OcppMetrics metrics;
+  @Nullable private SessionTracer tracer;
 
   /**
    * Handles required injections.
@@ -72,10 +83,34 @@ public class Session implements ISession {
       Queue queue,
       PromiseFulfiller fulfiller,
       IFeatureRepository featureRepository) {
+    this(communicator, queue, fulfiller, featureRepository, null);
+  }
+
+  /**
+   * Handles required injections.
+   *
+   * <p>With a dispatch executor, incoming messages are handled on that executor instead of the
+   * network thread. Messages of this session are still handled one at a time and in order, while
+   * sessions sharing the executor are handled in parallel.
+   *
+   * @param communicator send and receive messages.
+   * @param queue store and restore requests based on unique ids.
+   * @param fulfiller the {@link PromiseFulfiller} to use
+   * @param featureRepository the {@link IFeatureRepository} to use
+   * @param dispatchExecutor shared executor for incoming messages, null to handle them on the
+   *     calling thread.
+   */
+  public Session(
+      Communicator communicator,
+      Queue queue,
+      PromiseFulfiller fulfiller,
+      IFeatureRepository featureRepository,
+      @Nullable Executor dispatchExecutor) {
     this.communicator = communicator;
     this.queue = queue;
     this.dispatcher = new RequestDispatcher(fulfiller);
     this.featureRepository = featureRepository;
+    this.dispatchExecutor = dispatchExecutor;
   }
 
   /**
@@ -88,6 +123,29 @@ public class Session implements ISession {
     return featureRepository;
   }
 
+  /**
+   * Record the latencies of incoming messages and the sizes of the queue of this session, and the
+   * messages of its {@link Communicator}. Set before opening or accepting the session.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+    queue.setMetrics(metrics);
+    communicator.setMetrics(metrics);
+  }
+
+  /**
+   * Trace a sample of the calls received on this session through the stages of {@link TraceStage}.
+   * Set before opening or accepting the session.
+   *
+   * @param tracing the tracing to record to, null disables tracing.
+   */
+  public void setTracing(@Nullable MessageTracing tracing) {
+    this.tracer = tracing != null ? tracing.newSessionTracer(sessionId.toString()) : null;
+    communicator.setTracer(tracer);
+  }
+
   /**
    * Get a unique session {@link UUID} identifier.
    *
@@ -108,6 +166,31 @@ public class Session implements ISession {
     communicator.sendCall(uuid, action, payload);
   }
 
+  /**
+   * Pack the payload of a {@link Request} once, to send it to many sessions.
+   *
+   * @param payload the {@link Request} payload to send
+   * @return the packed payload, or null if the communicator can't share packed payloads.
+   */
+  @Nullable
+  @Override
+  public Object packSharedPayload(Request payload) {
+    return communicator.packSharedPayload(payload);
+  }
+
+  /**
+   * Send a {@link Request} with a payload packed by {@link #packSharedPayload(Request)}.
+   *
+   * @param action action name to identify the feature.
+   * @param payload the {@link Request} payload to send
+   * @param sharedPayload the packed payload.
+   * @param uuid unique identification to identify the request
+   */
+  @Override
+  public void sendRequest(String action, Request payload, Object sharedPayload, String uuid) {
+    communicator.sendCall(uuid, action, payload, sharedPayload);
+  }
+
   /**
    * Send a {@link Request} which has no confirmation.
    *
@@ -148,6 +231,11 @@ public class Session implements ISession {
     queue.removeRequest(ticket);
   }
 
+  @Override
+  public boolean isRetriedUntilConfirmed(Request payload) {
+    return payload.transactionRelated() && communicator.hasTransactionQueue();
+  }
+
   /**
    * Send a {@link Confirmation} to a {@link Request}
    *
@@ -159,14 +247,13 @@ public class Session implements ISession {
     communicator.sendCallResult(uniqueId, action, confirmation);
   }
 
-  private Optional<Class<? extends Confirmation>> getConfirmationType(String uniqueId)
-      throws UnsupportedFeatureException {
+  private Optional<Feature> getRequestFeature(String uniqueId) throws UnsupportedFeatureException {
     Optional<Request> requestOptional = queue.restoreRequest(uniqueId);
 
     if (requestOptional.isPresent()) {
       Optional<Feature> featureOptional = featureRepository.findFeature(requestOptional.get());
       if (featureOptional.isPresent()) {
-        return Optional.ofNullable(featureOptional.get().getConfirmationType());
+        return featureOptional;
       } else {
         logger.debug("Feature for request with id: {} not found in session: {}", uniqueId, this);
         throw new UnsupportedFeatureException(
@@ -187,8 +274,8 @@ public class Session implements ISession {
    */
   public void open(String uri, SessionEvents eventHandler) {
     this.events = eventHandler;
-    dispatcher.setEventHandler(eventHandler);
-    communicator.connect(uri, new CommunicatorEventHandler());
+    dispatcher.setEventHandler(dispatchedEvents(eventHandler));
+    communicator.connect(uri, createCommunicatorEvents());
   }
 
   /** Close down the connection. */
@@ -198,8 +285,19 @@ public class Session implements ISession {
 
   public void accept(SessionEvents eventHandler) {
     this.events = eventHandler;
-    dispatcher.setEventHandler(eventHandler);
-    communicator.accept(new CommunicatorEventHandler());
+    dispatcher.setEventHandler(dispatchedEvents(eventHandler));
+    communicator.accept(createCommunicatorEvents());
+  }
+
+  private SessionEvents dispatchedEvents(SessionEvents eventHandler) {
+    return tracer == null ? eventHandler : new TracingSessionEventsDecorator(eventHandler, tracer);
+  }
+
+  private CommunicatorEvents createCommunicatorEvents() {
+    CommunicatorEvents handler = new CommunicatorEventHandler();
+    return dispatchExecutor == null
+        ? handler
+        : new SerialCommunicatorEventsDecorator(handler, dispatchExecutor);
   }
 
   private class CommunicatorEventHandler implements CommunicatorEvents {
@@ -214,12 +312,13 @@ public class Session implements ISession {
     @Override
     public void onCallResult(String id, String action, Object payload) {
       try {
-        Optional<Class<? extends Confirmation>> confirmationTypeOptional = getConfirmationType(id);
+        Optional<Feature> featureOptional = getRequestFeature(id);
 
-        if (confirmationTypeOptional.isPresent()) {
+        if (featureOptional.isPresent() && featureOptional.get().getConfirmationType() != null) {
+          Feature feature = featureOptional.get();
           Confirmation confirmation =
-              communicator.unpackPayload(payload, confirmationTypeOptional.get());
-          if (confirmation.validate()) {
+              decode(feature.getAction(), payload, feature.getConfirmationType());
+          if (validate(feature.getAction(), confirmation)) {
             events.handleConfirmation(id, confirmation);
           } else {
             logger.warn(PROPERTY_CONSTRAINT_VIOLATION);
@@ -266,21 +365,31 @@ public class Session implements ISession {
     }
 
     @Override
-    public synchronized void onCall(String id, String action, Object payload) {
+    public void onCall(String id, String action, Object payload) {
+      MessageTrace trace = tracer != null ? tracer.find(id) : null;
+      if (trace != null) trace.mark(TraceStage.DISPATCHED);
+      if (!dispatchCall(id, action, payload, trace) && trace != null) trace.end();
+    }
+
+    /** @return true if the call was handed to its handler, false if an error was sent. */
+    private boolean dispatchCall(
+        String id, String action, Object payload, @Nullable MessageTrace trace) {
       Optional<Feature> featureOptional = featureRepository.findFeature(action);
       if (!featureOptional.isPresent() || featureOptional.get().getConfirmationType() == null) {
         communicator.sendCallError(
             id, action, "NotImplemented", "Requested Action is not known by receiver");
       } else {
         try {
-          Request request =
-              communicator.unpackPayload(payload, featureOptional.get().getRequestType());
+          Request request = decode(action, payload, featureOptional.get().getRequestType());
           request.setOcppMessageId(id);
-          if (request.validate()) {
+          if (validate(action, request)) {
+            if (trace != null) trace.mark(TraceStage.DECODED);
             CompletableFuture<Confirmation> promise = new CompletableFuture<>();
-            promise.whenComplete(new ConfirmationHandler(id, action, communicator));
+            promise.whenComplete(new ConfirmationHandler(id, action, communicator, trace));
+            if (metrics != null) timeHandler(action, promise);
             addPendingPromise(id, action, promise);
-            dispatcher.handleRequest(promise, request);
+            dispatcher.handleRequest(promise, featureOptional.get(), request);
+            return true;
           } else {
             communicator.sendCallError(
                 id,
@@ -303,6 +412,7 @@ public class Session implements ISession {
               UNABLE_TO_PROCESS);
         }
       }
+      return false;
     }
 
     @Override
@@ -335,11 +445,10 @@ public class Session implements ISession {
         logger.warn("Requested Action {} is not known by receiver", action);
       } else {
         try {
-          Request request =
-              communicator.unpackPayload(payload, featureOptional.get().getRequestType());
+          Request request = decode(action, payload, featureOptional.get().getRequestType());
           request.setOcppMessageId(id);
-          if (request.validate()) {
-            dispatcher.handleRequest(null, request);
+          if (validate(action, request)) {
+            dispatcher.handleRequest(null, featureOptional.get(), request);
           } else {
             logger.warn("Received SEND message with id {} is invalid: {}", id, request);
           }
@@ -353,11 +462,13 @@ public class Session implements ISession {
 
     @Override
     public void onDisconnected() {
+      if (tracer != null) tracer.disconnected();
       events.handleConnectionClosed();
     }
 
     @Override
     public void onConnected() {
+      if (tracer != null) tracer.connected();
       events.handleConnectionOpened();
     }
 
@@ -381,6 +492,31 @@ public class Session implements ISession {
         && !protocolVersion.equals(OCPP2_0_1);
   }
 
+  private <T> T decode(String action, Object payload, Class<T> type) throws Exception {
+    if (metrics == null) return communicator.unpackPayload(payload, type);
+    long start = System.nanoTime();
+    T model = communicator.unpackPayload(payload, type);
+    metrics.latency(OcppMetrics.Stage.DECODE, action, System.nanoTime() - start);
+    return model;
+  }
+
+  private boolean validate(String action, Validatable model) {
+    if (metrics == null) return model.validate();
+    long start = System.nanoTime();
+    boolean valid = model.validate();
+    metrics.latency(OcppMetrics.Stage.VALIDATE, action, System.nanoTime() - start);
+    return valid;
+  }
+
+  /** Time the handler until its confirmation is ready. */
+  private void timeHandler(String action, CompletableFuture<Confirmation> promise) {
+    OcppMetrics current = metrics;
+    long start = System.nanoTime();
+    promise.whenComplete(
+        (confirmation, throwable) ->
+            current.latency(OcppMetrics.Stage.HANDLER, action, System.nanoTime() - start));
+  }
+
   private void addPendingPromise(
       String id, String action, CompletableFuture<Confirmation> promise) {
     pendingPromises.put(id, new SimpleImmutableEntry<>(action, promise));
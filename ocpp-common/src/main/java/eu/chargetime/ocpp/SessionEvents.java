@@ -1,5 +1,6 @@
 package eu.chargetime.ocpp;
 
+import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import javax.annotation.Nullable;
@@ -53,6 +54,22 @@ public interface SessionEvents {
   @Nullable
   Confirmation handleRequest(Request request) throws UnsupportedFeatureException;
 
+  /**
+   * Handle an incoming {@link Request} whose {@link Feature} the {@link Session} already looked up.
+   * By default the feature is looked up again by {@link #handleRequest(Request)}.
+   *
+   * @param feature the {@link Feature} of the request.
+   * @param request the {@link Request}.
+   * @return a {@link Confirmation} to send as a response or {@code null} if none to send.
+   * @throws UnsupportedFeatureException Thrown if the feature isn't among the list of supported
+   *     features.
+   */
+  @Nullable
+  default Confirmation handleRequest(Feature feature, Request request)
+      throws UnsupportedFeatureException {
+    return handleRequest(request);
+  }
+
   /**
    * Completes a pending request {@link Request}.
    *
@@ -25,19 +25,95 @@ package eu.chargetime.ocpp;
    SOFTWARE.
 */
 
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
 public class SessionFactory implements ISessionFactory {
 
   private final IFeatureRepository featureRepository;
+  @Nullable private final Executor dispatchExecutor;
+  @Nullable private final PromiseFulfillerExecutor fulfillerExecutor;
+  @Nullable private OcppMetrics metrics;
+  @Nullable private MessageTracing tracing;
+  @Nullable private MessageIdGenerator messageIdGenerator;
 
   public SessionFactory(IFeatureRepository featureRepository) {
+    this(featureRepository, null);
+  }
+
+  /**
+   * @param featureRepository the feature repository to use.
+   * @param dispatchExecutor shared executor for incoming messages, see {@link Session}. Null to
+   *     handle them on the network thread.
+   */
+  public SessionFactory(IFeatureRepository featureRepository, @Nullable Executor dispatchExecutor) {
+    this(featureRepository, dispatchExecutor, null);
+  }
 
+  /**
+   * @param featureRepository the feature repository to use.
+   * @param dispatchExecutor shared executor for incoming messages, see {@link Session}. Null to
+   *     handle them on the network thread.
+   * @param fulfillerExecutor bounded executor for incoming requests. Null to use the shared default
+   *     of {@link AsyncPromiseFulfillerDecorator}.
+   */
+  public SessionFactory(
+      IFeatureRepository featureRepository,
+      @Nullable Executor dispatchExecutor,
+      @Nullable PromiseFulfillerExecutor fulfillerExecutor) {
     this.featureRepository = featureRepository;
+    this.dispatchExecutor = dispatchExecutor;
+    this.fulfillerExecutor = fulfillerExecutor;
+  }
+
+  /**
+   * Record the messages of the sessions created from now on, see {@link
+   * Session#setMetrics(OcppMetrics)}.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Trace a sample of the calls received on the sessions created from now on, see {@link
+   * Session#setTracing(MessageTracing)}.
+   *
+   * @param tracing the tracing to record to, null disables tracing.
+   */
+  public void setTracing(@Nullable MessageTracing tracing) {
+    this.tracing = tracing;
+  }
+
+  /**
+   * Generate the ids of outgoing calls of the sessions created from now on, see {@link
+   * Queue#Queue(MessageIdGenerator)}.
+   *
+   * @param messageIdGenerator generator shared by the sessions, null gives every session its own
+   *     {@link MessageIdGenerator#sequential()} generator.
+   */
+  public void setMessageIdGenerator(@Nullable MessageIdGenerator messageIdGenerator) {
+    this.messageIdGenerator = messageIdGenerator;
   }
 
   @Override
   public ISession createSession(Communicator communicator) {
     AsyncPromiseFulfillerDecorator promiseFulfiler =
-        new AsyncPromiseFulfillerDecorator(new SimplePromiseFulfiller());
-    return new Session(communicator, new Queue(), promiseFulfiler, this.featureRepository);
+        new AsyncPromiseFulfillerDecorator(
+            new SimplePromiseFulfiller(),
+            fulfillerExecutor != null ? fulfillerExecutor.sessionExecutor() : null);
+    Session session =
+        new Session(
+            communicator, createQueue(), promiseFulfiler, this.featureRepository, dispatchExecutor);
+    if (metrics != null) session.setMetrics(metrics);
+    if (tracing != null) session.setTracing(tracing);
+    return session;
+  }
+
+  private Queue createQueue() {
+    return messageIdGenerator != null ? new Queue(messageIdGenerator) : new Queue();
   }
 }
@@ -0,0 +1,99 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.tracing.MessageTrace;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import eu.chargetime.ocpp.tracing.TraceStage;
+import javax.annotation.Nullable;
+
+/**
+ * Marks {@link TraceStage#HANDLER_STARTED} of traced calls when the {@link PromiseFulfiller} hands
+ * them to the handler, which may be after waiting in the queue of its executor.
+ */
+class TracingSessionEventsDecorator implements SessionEvents {
+
+  private final SessionEvents events;
+  private final SessionTracer tracer;
+
+  TracingSessionEventsDecorator(SessionEvents events, SessionTracer tracer) {
+    this.events = events;
+    this.tracer = tracer;
+  }
+
+  @Override
+  public void handleConfirmation(String uniqueId, @Nullable Confirmation confirmation) {
+    events.handleConfirmation(uniqueId, confirmation);
+  }
+
+  @Nullable
+  @Override
+  public Confirmation handleRequest(Request request) throws UnsupportedFeatureException {
+    MessageTrace trace = tracer.find(request.getOcppMessageId());
+    if (trace != null) trace.mark(TraceStage.HANDLER_STARTED);
+    return events.handleRequest(request);
+  }
+
+  @Nullable
+  @Override
+  public Confirmation handleRequest(Feature feature, Request request)
+      throws UnsupportedFeatureException {
+    MessageTrace trace = tracer.find(request.getOcppMessageId());
+    if (trace != null) trace.mark(TraceStage.HANDLER_STARTED);
+    return events.handleRequest(feature, request);
+  }
+
+  @Override
+  public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
+      throws UnsupportedFeatureException, OccurenceConstraintException {
+    return events.asyncCompleteRequest(uniqueId, confirmation);
+  }
+
+  @Override
+  public void handleError(
+      String uniqueId, String errorCode, String errorDescription, Object payload) {
+    events.handleError(uniqueId, errorCode, errorDescription, payload);
+  }
+
+  @Override
+  public void handleConfirmationError(
+      String uniqueId, String errorCode, String errorDescription, Object payload) {
+    events.handleConfirmationError(uniqueId, errorCode, errorDescription, payload);
+  }
+
+  @Override
+  public void handleConnectionClosed() {
+    events.handleConnectionClosed();
+  }
+
+  @Override
+  public void handleConnectionOpened() {
+    events.handleConnectionOpened();
+  }
+}
@@ -0,0 +1,98 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.List;
+
+/**
+ * Holds transaction-related calls, already packed by the {@link Communicator}, while they can't be
+ * delivered. Calls are replayed in the order they were offered and are only removed once the
+ * receiver has accepted them.
+ *
+ * <p>Implementations must be thread safe, calls are offered and replayed from different threads.
+ */
+public interface TransactionQueue {
+
+  /**
+   * Append a packed call to the end of the queue.
+   *
+   * @param uniqueId the id the receiver will reply with.
+   * @param call the packed call.
+   * @return false if the queue is full and the call wasn't stored.
+   */
+  boolean offer(String uniqueId, Object call);
+
+  /**
+   * Get the oldest calls without removing them.
+   *
+   * @param count maximum number of calls to return.
+   * @return up to {@code count} calls, oldest first.
+   */
+  List<Entry> peek(int count);
+
+  /**
+   * Get the oldest call without removing it.
+   *
+   * @return the oldest call or null if the queue is empty.
+   */
+  default Entry peek() {
+    List<Entry> entries = peek(1);
+    return entries.isEmpty() ? null : entries.get(0);
+  }
+
+  /** Remove the oldest call, once it has been delivered. Does nothing if the queue is empty. */
+  void remove();
+
+  /**
+   * Number of calls waiting to be delivered.
+   *
+   * @return the number of stored calls.
+   */
+  int size();
+
+  default boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /** A stored call and the id the receiver will reply with. */
+  final class Entry {
+    private final String uniqueId;
+    private final Object call;
+
+    public Entry(String uniqueId, Object call) {
+      this.uniqueId = uniqueId;
+      this.call = call;
+    }
+
+    public String getUniqueId() {
+      return uniqueId;
+    }
+
+    public Object getCall() {
+      return call;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+/**
+ * How the {@link Communicator} replays its {@link TransactionQueue} once connected.
+ *
+ * <p>Up to {@code window} queued calls are sent before their confirmations arrive. Calls are always
+ * sent and removed in queue order. A call that is answered with a CALLERROR or isn't answered
+ * within the response timeout is sent again, after a backoff which doubles from the initial to the
+ * maximum backoff with each failure in a row. Each failure also halves the effective window, each
+ * confirmation grows it by one again.
+ *
+ * <p>The default window of 1 follows OCPP-J, which only allows one outstanding call at a time.
+ * Instances are immutable, e.g. {@code TransactionReplaySettings.DEFAULT.withWindow(16)}.
+ */
+public final class TransactionReplaySettings {
+
+  public static final TransactionReplaySettings DEFAULT =
+      new TransactionReplaySettings(
+          1, Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofSeconds(30), null);
+
+  private final int window;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration responseTimeout;
+  @Nullable private final TransactionReplayListener listener;
+
+  private TransactionReplaySettings(
+      int window,
+      Duration initialBackoff,
+      Duration maxBackoff,
+      Duration responseTimeout,
+      @Nullable TransactionReplayListener listener) {
+    this.window = window;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.responseTimeout = responseTimeout;
+    this.listener = listener;
+  }
+
+  /**
+   * @param window maximum number of queued calls in flight.
+   * @return a copy with the given window.
+   */
+  public TransactionReplaySettings withWindow(int window) {
+    if (window < 1) throw new IllegalArgumentException("window must be positive");
+    return new TransactionReplaySettings(
+        window, initialBackoff, maxBackoff, responseTimeout, listener);
+  }
+
+  /**
+   * @param initialBackoff delay after the first failure.
+   * @param maxBackoff upper bound for the delay after repeated failures.
+   * @return a copy with the given backoff.
+   */
+  public TransactionReplaySettings withBackoff(Duration initialBackoff, Duration maxBackoff) {
+    if (initialBackoff.isNegative() || maxBackoff.compareTo(initialBackoff) < 0) {
+      throw new IllegalArgumentException("backoff must be 0 <= initial <= max");
+    }
+    return new TransactionReplaySettings(
+        window, initialBackoff, maxBackoff, responseTimeout, listener);
+  }
+
+  /**
+   * @param responseTimeout time to wait for the confirmation of a call before sending it again.
+   * @return a copy with the given response timeout.
+   */
+  public TransactionReplaySettings withResponseTimeout(Duration responseTimeout) {
+    if (responseTimeout.isNegative() || responseTimeout.isZero()) {
+      throw new IllegalArgumentException("responseTimeout must be positive");
+    }
+    return new TransactionReplaySettings(
+        window, initialBackoff, maxBackoff, responseTimeout, listener);
+  }
+
+  /**
+   * @param listener notified of the replay progress, null for none.
+   * @return a copy with the given listener.
+   */
+  public TransactionReplaySettings withListener(@Nullable TransactionReplayListener listener) {
+    return new TransactionReplaySettings(
+        window, initialBackoff, maxBackoff, responseTimeout, listener);
+  }
+
+  public int getWindow() {
+    return window;
+  }
+
+  public Duration getInitialBackoff() {
+    return initialBackoff;
+  }
+
+  public Duration getMaxBackoff() {
+    return maxBackoff;
+  }
+
+  public Duration getResponseTimeout() {
+    return responseTimeout;
+  }
+
+  @Nullable
+  public TransactionReplayListener getListener() {
+    return listener;
+  }
+}
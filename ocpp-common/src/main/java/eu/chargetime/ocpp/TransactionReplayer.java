@@ -0,0 +1,247 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a {@link TransactionQueue} over a {@link Radio} as described by {@link
+ * TransactionReplaySettings}. Confirmations and errors are matched to the replayed calls by their
+ * unique id. Runs on its own thread while connected and until the queue is drained.
+ */
+class TransactionReplayer {
+  private static final Logger logger = LoggerFactory.getLogger(TransactionReplayer.class);
+
+  private enum State {
+    SENT,
+    DELIVERED,
+    FAILED
+  }
+
+  private final TransactionQueue queue;
+  private final Radio radio;
+  // The oldest calls of the queue, in queue order, which have been sent at least once.
+  private final ArrayDeque<InFlight> inFlight = new ArrayDeque<>();
+
+  private volatile TransactionReplaySettings settings = TransactionReplaySettings.DEFAULT;
+  @Nullable private volatile OcppMetrics metrics;
+  private boolean running;
+  private int window;
+  private long backoffNanos;
+  private long resumeAt;
+  private int delivered;
+
+  TransactionReplayer(TransactionQueue queue, Radio radio) {
+    this.queue = queue;
+    this.radio = radio;
+  }
+
+  TransactionReplaySettings getSettings() {
+    return settings;
+  }
+
+  void setSettings(TransactionReplaySettings settings) {
+    this.settings = settings;
+  }
+
+  void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /** Start the replay, or wake up a running replay to pick up newly queued calls. */
+  synchronized void start() {
+    if (running) {
+      notifyAll();
+      return;
+    }
+    running = true;
+    window = settings.getWindow();
+    backoffNanos = 0;
+    resumeAt = System.nanoTime();
+    delivered = 0;
+    new Thread(this::run, "ocpp-transaction-replay").start();
+  }
+
+  /**
+   * A confirmation was received.
+   *
+   * @param uniqueId the id of the confirmed call.
+   * @return whether the id belonged to a replayed call.
+   */
+  synchronized boolean confirmed(String uniqueId) {
+    InFlight call = find(uniqueId);
+    if (call == null) return false;
+
+    call.state = State.DELIVERED;
+    backoffNanos = 0;
+    if (window < settings.getWindow()) window++;
+    notifyAll();
+    return true;
+  }
+
+  /**
+   * An error was received.
+   *
+   * @param uniqueId the id of the rejected call.
+   * @return whether the id belonged to a replayed call.
+   */
+  synchronized boolean failed(String uniqueId) {
+    InFlight call = find(uniqueId);
+    if (call == null) return false;
+    if (call.state != State.SENT) return true;
+
+    logger.warn("Replayed call {} was answered with an error, sending it again", uniqueId);
+    fail(call, System.nanoTime());
+    notifyAll();
+    return true;
+  }
+
+  /** The connection was lost, calls in flight must be sent again on the next connection. */
+  synchronized void disconnected() {
+    for (InFlight call : inFlight) {
+      if (call.state == State.SENT) call.state = State.FAILED;
+    }
+    notifyAll();
+  }
+
+  private synchronized void run() {
+    try {
+      while (!radio.isClosed()) {
+        long now = System.nanoTime();
+        expire(now);
+        removeDelivered();
+        if (inFlight.isEmpty() && queue.isEmpty()) break;
+
+        long waitNanos = now - resumeAt < 0 ? resumeAt - now : transmit(now);
+        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+      }
+    } catch (NotConnectedException ex) {
+      logger.warn("Transaction replay stopped: not connected");
+    } catch (InterruptedException ex) {
+      logger.warn("Transaction replay interrupted", ex);
+      // restore thread interrupted state
+      Thread.currentThread().interrupt();
+    } catch (Exception ex) {
+      logger.warn("Transaction replay failed", ex);
+    } finally {
+      // Unconfirmed calls are sent again on the next replay.
+      inFlight.clear();
+      running = false;
+    }
+  }
+
+  /**
+   * Send failed calls again and new calls up to the window.
+   *
+   * @return nanoseconds until the next response timeout.
+   */
+  private long transmit(long now) throws NotConnectedException {
+    for (InFlight call : inFlight) {
+      if (call.state == State.FAILED) send(call, now);
+    }
+
+    int sent = inFlight.size();
+    if (sent < window) {
+      List<TransactionQueue.Entry> entries = queue.peek(window);
+      for (int i = sent; i < entries.size(); i++) {
+        InFlight call = new InFlight(entries.get(i));
+        inFlight.add(call);
+        send(call, now);
+      }
+    }
+
+    long next = settings.getResponseTimeout().toNanos();
+    for (InFlight call : inFlight) {
+      if (call.state == State.SENT) next = Math.min(next, call.deadline - now);
+    }
+    return Math.max(next, 1);
+  }
+
+  private void send(InFlight call, long now) throws NotConnectedException {
+    call.state = State.SENT;
+    call.deadline = now + settings.getResponseTimeout().toNanos();
+    radio.send(call.entry.getCall());
+  }
+
+  private void expire(long now) {
+    for (InFlight call : inFlight) {
+      if (call.state == State.SENT && call.deadline - now <= 0) {
+        logger.warn(
+            "Replayed call {} wasn't confirmed within {}, sending it again",
+            call.entry.getUniqueId(),
+            settings.getResponseTimeout());
+        fail(call, now);
+      }
+    }
+  }
+
+  private void fail(InFlight call, long now) {
+    call.state = State.FAILED;
+    window = Math.max(1, window / 2);
+    TransactionReplaySettings current = settings;
+    backoffNanos =
+        backoffNanos == 0
+            ? current.getInitialBackoff().toNanos()
+            : Math.min(current.getMaxBackoff().toNanos(), backoffNanos * 2);
+    resumeAt = now + backoffNanos;
+  }
+
+  private void removeDelivered() {
+    while (!inFlight.isEmpty() && inFlight.peek().state == State.DELIVERED) {
+      inFlight.poll();
+      queue.remove();
+      delivered++;
+      OcppMetrics current = metrics;
+      if (current != null) current.adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, -1);
+      TransactionReplayListener listener = settings.getListener();
+      if (listener != null) listener.onReplayProgress(delivered, queue.size());
+    }
+  }
+
+  /** Find an unconfirmed call, a late confirmation still counts once the call is due again. */
+  private InFlight find(String uniqueId) {
+    for (InFlight call : inFlight) {
+      if (call.state != State.DELIVERED && call.entry.getUniqueId().equals(uniqueId)) return call;
+    }
+    return null;
+  }
+
+  private static class InFlight {
+    private final TransactionQueue.Entry entry;
+    private State state;
+    private long deadline;
+
+    private InFlight(TransactionQueue.Entry entry) {
+      this.entry = entry;
+    }
+  }
+}
@@ -33,6 +33,7 @@ import java.util.UUID;
 public abstract class ProfileFeature implements Feature {
 
   private Profile profile;
+  private volatile RequestHandler requestHandler;
 
   /**
    * Creates link back to the {@link Profile}.
@@ -51,6 +52,14 @@ public abstract class ProfileFeature implements Feature {
    * @return the {@link Confirmation} to be send back.
    */
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    return profile.handleRequest(sessionIndex, request);
+    RequestHandler handler = requestHandler;
+    if (handler == null) {
+      handler = profile.getRequestHandler(getRequestType());
+      if (handler == null) {
+        handler = profile::handleRequest;
+      }
+      requestHandler = handler;
+    }
+    return handler.handleRequest(sessionIndex, request);
   }
 }
@@ -0,0 +1,102 @@
+package eu.chargetime.ocpp.feature;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * The {@link RequestHandler}s of a profile or function, one per {@link Request} type. Both its
+ * {@code handleRequest} and its {@code getRequestHandler} dispatch from this table.
+ */
+public final class RequestHandlers {
+
+  private final Map<Class<? extends Request>, RequestHandler> handlers = new HashMap<>();
+  private final boolean direct;
+
+  /**
+   * @param owner the profile or function.
+   * @param type the class that implements the owner's {@code handleRequest}. If a subclass
+   *     overrides it, {@link #get} returns the fallback so the override still sees every request.
+   */
+  public RequestHandlers(Object owner, Class<?> type) {
+    this.direct = declaresHandleRequest(owner.getClass(), type);
+  }
+
+  private static boolean declaresHandleRequest(Class<?> ownerType, Class<?> type) {
+    try {
+      return ownerType.getMethod("handleRequest", UUID.class, Request.class).getDeclaringClass()
+          == type;
+    } catch (NoSuchMethodException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * @param requestType the {@link Request} type to handle.
+   * @param handler the handler of the type.
+   */
+  public void put(Class<? extends Request> requestType, RequestHandler handler) {
+    handlers.put(requestType, handler);
+  }
+
+  /**
+   * Handle a request with the handler of its type, or of the closest super type.
+   *
+   * @param sessionIndex source of the request.
+   * @param request the {@link Request} to be handled.
+   * @return the {@link Confirmation} to be sent, or null if no handler handles the request.
+   */
+  @Nullable
+  public Confirmation handle(UUID sessionIndex, Request request) {
+    RequestHandler handler = find(request.getClass());
+    return handler != null ? handler.handleRequest(sessionIndex, request) : null;
+  }
+
+  /**
+   * @param requestType the {@link Request} type to handle.
+   * @param fallback handler to use if the type has none, or the owner's {@code handleRequest} is
+   *     overridden.
+   * @return the {@link RequestHandler} for the type.
+   */
+  public RequestHandler get(Class<? extends Request> requestType, RequestHandler fallback) {
+    RequestHandler handler = direct ? find(requestType) : null;
+    return handler != null ? handler : fallback;
+  }
+
+  @Nullable
+  private RequestHandler find(Class<?> requestType) {
+    for (Class<?> type = requestType; type != null; type = type.getSuperclass()) {
+      RequestHandler handler = handlers.get(type);
+      if (handler != null) return handler;
+    }
+    return null;
+  }
+}
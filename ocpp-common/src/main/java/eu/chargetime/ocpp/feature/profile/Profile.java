@@ -28,6 +28,7 @@ SOFTWARE.
 
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import java.util.UUID;
@@ -50,4 +51,16 @@ public interface Profile {
    * @return the {@link Confirmation} to be send.
    */
   Confirmation handleRequest(UUID sessionIndex, Request request);
+
+  /**
+   * Get a handler for one type of {@link Request}. It's resolved once per {@link ProfileFeature},
+   * so a profile can return a handler that calls its event handler directly instead of checking the
+   * request type on every call. By default {@link #handleRequest(UUID, Request)} is used.
+   *
+   * @param requestType the {@link Request} type to handle.
+   * @return the {@link RequestHandler} for the type.
+   */
+  default RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return this::handleRequest;
+  }
 }
@@ -0,0 +1,122 @@
+package eu.chargetime.ocpp.metrics;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import javax.annotation.Nullable;
+
+/**
+ * Receives the measurements of the OCPP stack: messages and their sizes, the time spent in each
+ * stage of handling a message, pending work and open sessions.
+ *
+ * <p>All methods do nothing by default, so an implementation only overrides what it records.
+ * Metrics are disabled unless an implementation is set, e.g. with {@code
+ * JSONConfiguration.METRICS_PARAMETER}; a disabled stack doesn't call into this interface nor reads
+ * the clock for it.
+ *
+ * <p>Methods are called from network, dispatch and application threads at the same time and are on
+ * the path of every message, implementations must be thread safe and shouldn't block.
+ */
+public interface OcppMetrics {
+
+  /** Whether a message was received or sent. */
+  enum Direction {
+    INBOUND,
+    OUTBOUND
+  }
+
+  /** The stages a message passes through. */
+  enum Stage {
+    /** Unpacking a received payload into its model. */
+    DECODE,
+    /** Validating a received request or confirmation. */
+    VALIDATE,
+    /** Handling a received request, until its confirmation is ready. */
+    HANDLER,
+    /** Packing an outgoing message, ready to send. */
+    ENCODE
+  }
+
+  /** Work waiting to be completed, summed over all sessions. */
+  enum Gauge {
+    /** Sent requests waiting for their confirmation. */
+    PENDING_PROMISES,
+    /** Sent requests stored in the {@link eu.chargetime.ocpp.Queue} of a session. */
+    QUEUED_REQUESTS,
+    /** Transaction related requests waiting to be delivered. */
+    TRANSACTION_QUEUE
+  }
+
+  /**
+   * A message was received or sent.
+   *
+   * @param direction whether the message was received or sent.
+   * @param action action name of the message, null for a received call result or error, which
+   *     doesn't name its action.
+   * @param size size of the message in bytes, or in characters for text frames which weren't
+   *     encoded by the communicator, -1 if unknown.
+   */
+  default void message(Direction direction, @Nullable String action, int size) {}
+
+  /**
+   * A message passed through a stage.
+   *
+   * @param stage the stage.
+   * @param action action name of the message.
+   * @param nanos time spent in the stage, in nanoseconds.
+   */
+  default void latency(Stage stage, String action, long nanos) {}
+
+  /**
+   * A call error or call result error was received or sent.
+   *
+   * @param direction whether the error was received or sent.
+   * @param errorCode the OCPP error code.
+   */
+  default void callError(Direction direction, String errorCode) {}
+
+  /**
+   * Work was added to or completed on a gauge.
+   *
+   * @param gauge the gauge.
+   * @param delta the change, positive when work was added.
+   */
+  default void adjust(Gauge gauge, int delta) {}
+
+  /**
+   * A client connected to the server.
+   *
+   * @param protocolVersion the negotiated protocol version, null if unknown.
+   */
+  default void sessionOpened(@Nullable ProtocolVersion protocolVersion) {}
+
+  /**
+   * A client disconnected from the server.
+   *
+   * @param protocolVersion the negotiated protocol version, null if unknown.
+   */
+  default void sessionClosed(@Nullable ProtocolVersion protocolVersion) {}
+}
@@ -0,0 +1,113 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A slot of the ring buffer of a {@link SessionTracer}, holding the timestamps of one sampled call.
+ * Slots are reused, so a trace must not be used after {@link #end()}.
+ */
+public final class MessageTrace {
+  static final int FREE = 0;
+  static final int ACTIVE = 1;
+  static final int DONE = 2;
+  // The low bits of the state hold the phase, the rest count how often the slot was claimed.
+  private static final int PHASE = 3;
+  private static final int GENERATION = 4;
+
+  private static final TraceStage[] STAGES = TraceStage.values();
+  private static final AtomicIntegerFieldUpdater<MessageTrace> STATE =
+      AtomicIntegerFieldUpdater.newUpdater(MessageTrace.class, "state");
+
+  private final SessionTracer tracer;
+  private final long[] stamps = new long[STAGES.length];
+  private String messageId;
+  private String action;
+  private volatile int state = FREE;
+
+  MessageTrace(SessionTracer tracer) {
+    this.tracer = tracer;
+  }
+
+  /**
+   * Timestamp a stage of the call.
+   *
+   * @param stage the stage the call reached.
+   */
+  public void mark(TraceStage stage) {
+    stamps[stage.ordinal()] = System.nanoTime();
+  }
+
+  /** Timestamp {@link TraceStage#SENT} and hand the trace over for export. */
+  public void end() {
+    mark(TraceStage.SENT);
+    tracer.ended(this);
+    state = (state & ~PHASE) | DONE;
+  }
+
+  String getMessageId() {
+    return messageId;
+  }
+
+  /** Take the slot unless it's in use, an unexported trace in it is overwritten. */
+  boolean claim() {
+    int current = state;
+    return (current & PHASE) != ACTIVE
+        && STATE.compareAndSet(this, current, ((current & ~PHASE) + GENERATION) | ACTIVE);
+  }
+
+  void start(String messageId, String action, long receivedNanos) {
+    this.messageId = messageId;
+    this.action = action;
+    Arrays.fill(stamps, 0);
+    stamps[TraceStage.RECEIVED.ordinal()] = receivedNanos;
+    mark(TraceStage.PARSED);
+  }
+
+  /**
+   * Copy a completed trace and free the slot.
+   *
+   * @param sessionId id of the session the call was received on.
+   * @param epochOffsetNanos offset from {@link System#nanoTime()} to epoch nanoseconds.
+   * @return the completed trace, null if the slot holds none.
+   */
+  TraceRecord export(String sessionId, long epochOffsetNanos) {
+    int exported = state;
+    if ((exported & PHASE) != DONE) return null;
+    long[] epochNanos = new long[stamps.length];
+    for (int i = 0; i < stamps.length; i++) {
+      epochNanos[i] = stamps[i] != 0 ? stamps[i] + epochOffsetNanos : 0;
+    }
+    String exportedId = messageId;
+    String exportedAction = action;
+    // The slot may have been taken again while copying, the copy is torn then. The generation in
+    // the state makes the swap fail, so a trace that reused the slot stays for the next export.
+    if (!STATE.compareAndSet(this, exported, (exported & ~PHASE) | FREE)) return null;
+    return new TraceRecord(sessionId, exportedId, exportedAction, epochNanos);
+  }
+}
@@ -0,0 +1,160 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.TimeoutTimer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples received calls and timestamps the stages they go through, from the frame being read to
+ * the confirmation being sent, so queueing delay can be told apart from handler time. Each session
+ * records into its own preallocated ring buffer, completed traces are exported periodically from a
+ * daemon thread.
+ *
+ * <p>Set it with the {@code TRACING} parameter of {@code JSONConfiguration} and close it when the
+ * server or client is stopped.
+ */
+public class MessageTracing implements AutoCloseable {
+  private static final Logger logger = LoggerFactory.getLogger(MessageTracing.class);
+
+  public static final int DEFAULT_CAPACITY = 64;
+  public static final Duration DEFAULT_EXPORT_INTERVAL = Duration.ofSeconds(5);
+
+  private final double sampleRatio;
+  private final int capacity;
+  private final TraceExporter exporter;
+  private final long epochOffsetNanos;
+  private final Set<SessionTracer> tracers = ConcurrentHashMap.newKeySet();
+  private final Set<SessionTracer> disconnected = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Trace with the default ring capacity and export interval.
+   *
+   * @param sampleRatio share of received calls to trace, from 0 to 1.
+   * @param exporter writes the completed traces, closed with this.
+   */
+  public MessageTracing(double sampleRatio, TraceExporter exporter) {
+    this(sampleRatio, DEFAULT_CAPACITY, DEFAULT_EXPORT_INTERVAL, exporter);
+  }
+
+  /**
+   * @param sampleRatio share of received calls to trace, from 0 to 1.
+   * @param capacity traces kept per session, should cover the calls sampled per export interval.
+   * @param exportInterval time between exports.
+   * @param exporter writes the completed traces, closed with this.
+   */
+  public MessageTracing(
+      double sampleRatio, int capacity, Duration exportInterval, TraceExporter exporter) {
+    if (sampleRatio < 0 || sampleRatio > 1)
+      throw new IllegalArgumentException("sampleRatio must be between 0 and 1");
+    if (capacity < 1) throw new IllegalArgumentException("capacity must be positive");
+    this.sampleRatio = sampleRatio;
+    this.capacity = capacity;
+    this.exporter = exporter;
+    this.epochOffsetNanos =
+        TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+    long interval = exportInterval.toNanos();
+    this.scheduler = TimeoutTimer.createScheduler("ocpp-trace-export");
+    scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Trace a sample of the calls into an {@link OtlpJsonFileExporter}.
+   *
+   * @param sampleRatio share of received calls to trace, from 0 to 1.
+   * @param file the file to append the traces to.
+   * @param serviceName reported as the service.name resource attribute.
+   * @return a new tracing, close it when done.
+   * @throws IOException if the file can't be opened.
+   */
+  public static MessageTracing toFile(double sampleRatio, Path file, String serviceName)
+      throws IOException {
+    return new MessageTracing(sampleRatio, new OtlpJsonFileExporter(file, serviceName));
+  }
+
+  /**
+   * @param sessionId id of the session to trace.
+   * @return a tracer for the session, exporting once it's connected.
+   */
+  public SessionTracer newSessionTracer(String sessionId) {
+    return new SessionTracer(this, sessionId, capacity);
+  }
+
+  /** Export the traces completed so far. */
+  public synchronized void flush() {
+    List<TraceRecord> records = new ArrayList<>();
+    for (SessionTracer tracer : tracers) {
+      tracer.drain(epochOffsetNanos, records);
+    }
+    for (SessionTracer tracer : disconnected) {
+      disconnected.remove(tracer);
+      tracer.drain(epochOffsetNanos, records);
+    }
+    if (records.isEmpty()) return;
+    try {
+      exporter.export(records);
+    } catch (IOException | RuntimeException ex) {
+      logger.warn("Failed to export {} traces", records.size(), ex);
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdown();
+    flush();
+    try {
+      exporter.close();
+    } catch (IOException ex) {
+      logger.warn("Failed to close trace exporter", ex);
+    }
+  }
+
+  boolean sample() {
+    return sampleRatio >= 1
+        || (sampleRatio > 0 && ThreadLocalRandom.current().nextDouble() < sampleRatio);
+  }
+
+  void register(SessionTracer tracer) {
+    disconnected.remove(tracer);
+    tracers.add(tracer);
+  }
+
+  void unregister(SessionTracer tracer) {
+    if (tracers.remove(tracer)) disconnected.add(tracer);
+  }
+}
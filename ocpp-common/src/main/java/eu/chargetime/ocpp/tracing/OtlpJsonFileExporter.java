@@ -0,0 +1,177 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+/**
+ * Appends traces to a file as OTLP/JSON, one {@code ExportTraceServiceRequest} per line, which the
+ * OpenTelemetry Collector reads with its otlpjsonfile receiver.
+ *
+ * <p>A call becomes a server span named after its action from {@link TraceStage#RECEIVED} to {@link
+ * TraceStage#SENT}, with an internal child span for each stage it reached, covering the time since
+ * the stage before.
+ */
+public class OtlpJsonFileExporter implements TraceExporter {
+  private static final String SCOPE = "eu.chargetime.ocpp";
+  private static final int KIND_INTERNAL = 1;
+  private static final int KIND_SERVER = 2;
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Writer writer;
+  private final String serviceName;
+
+  /**
+   * @param file the file to append to, created if missing.
+   * @param serviceName reported as the service.name resource attribute.
+   * @throws IOException if the file can't be opened.
+   */
+  public OtlpJsonFileExporter(Path file, String serviceName) throws IOException {
+    this.writer =
+        Files.newBufferedWriter(
+            file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    this.serviceName = serviceName;
+  }
+
+  @Override
+  public void export(List<TraceRecord> traces) throws IOException {
+    StringBuilder json = new StringBuilder(512 * traces.size());
+    json.append("{\"resourceSpans\":[{\"resource\":{\"attributes\":[");
+    attribute(json, "service.name", serviceName);
+    json.append("]},\"scopeSpans\":[{\"scope\":{\"name\":\"")
+        .append(SCOPE)
+        .append("\"},\"spans\":[");
+    boolean first = true;
+    for (TraceRecord trace : traces) {
+      if (!first) json.append(',');
+      first = false;
+      appendSpans(json, trace);
+    }
+    json.append("]}]}]}\n");
+    writer.write(json.toString());
+    writer.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writer.close();
+  }
+
+  private static void appendSpans(StringBuilder json, TraceRecord trace) {
+    String traceId = randomHex(16);
+    String rootId = randomHex(8);
+    span(
+        json,
+        traceId,
+        rootId,
+        null,
+        trace.getAction(),
+        KIND_SERVER,
+        trace.getEpochNanos(TraceStage.RECEIVED),
+        trace.getEpochNanos(TraceStage.SENT));
+    json.append(",\"attributes\":[");
+    attribute(json, "ocpp.action", trace.getAction());
+    json.append(',');
+    attribute(json, "ocpp.message_id", trace.getMessageId());
+    json.append(',');
+    attribute(json, "ocpp.session_id", trace.getSessionId());
+    json.append("]}");
+
+    for (TraceStage stage : TraceStage.values()) {
+      String name = stage.getSpanName();
+      TraceStage previous = trace.previous(stage);
+      if (name == null || previous == null || trace.getEpochNanos(stage) == 0) continue;
+      json.append(',');
+      span(
+          json,
+          traceId,
+          randomHex(8),
+          rootId,
+          name,
+          KIND_INTERNAL,
+          trace.getEpochNanos(previous),
+          trace.getEpochNanos(stage));
+      json.append('}');
+    }
+  }
+
+  /** Appends an unterminated span object, so attributes can follow. */
+  private static void span(
+      StringBuilder json,
+      String traceId,
+      String spanId,
+      @Nullable String parentSpanId,
+      String name,
+      int kind,
+      long start,
+      long end) {
+    json.append("{\"traceId\":\"").append(traceId).append("\",\"spanId\":\"").append(spanId);
+    if (parentSpanId != null) json.append("\",\"parentSpanId\":\"").append(parentSpanId);
+    json.append("\",\"name\":");
+    string(json, name);
+    json.append(",\"kind\":").append(kind);
+    json.append(",\"startTimeUnixNano\":\"").append(start);
+    json.append("\",\"endTimeUnixNano\":\"").append(end).append('"');
+  }
+
+  private static void attribute(StringBuilder json, String key, String value) {
+    json.append("{\"key\":\"").append(key).append("\",\"value\":{\"stringValue\":");
+    string(json, value);
+    json.append("}}");
+  }
+
+  private static void string(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  private static String randomHex(int bytes) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    char[] hex = new char[bytes * 2];
+    for (int i = 0; i < hex.length; i++) {
+      hex[i] = HEX[random.nextInt(16)];
+    }
+    return new String(hex);
+  }
+}
@@ -0,0 +1,122 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Traces the calls received on one session into a preallocated ring of {@link MessageTrace} slots.
+ * A sampled call is dropped when its slot is still in use by an unfinished call, and overwrites a
+ * completed trace that wasn't exported yet.
+ */
+public final class SessionTracer {
+  private final MessageTracing tracing;
+  private final String sessionId;
+  private final MessageTrace[] ring;
+  private final Map<String, MessageTrace> active = new ConcurrentHashMap<>();
+  private final AtomicLong dropped = new AtomicLong();
+  private int next;
+
+  SessionTracer(MessageTracing tracing, String sessionId, int capacity) {
+    this.tracing = tracing;
+    this.sessionId = sessionId;
+    this.ring = new MessageTrace[capacity];
+    for (int i = 0; i < capacity; i++) {
+      ring[i] = new MessageTrace(this);
+    }
+  }
+
+  /**
+   * Start tracing a received call, if it's sampled.
+   *
+   * @param messageId unique id of the call.
+   * @param action action of the call.
+   * @param receivedNanos {@link System#nanoTime()} when the call was received.
+   * @return the trace, null if the call isn't traced.
+   */
+  @Nullable
+  public MessageTrace begin(String messageId, String action, long receivedNanos) {
+    if (!tracing.sample()) return null;
+    MessageTrace trace = claim();
+    if (trace == null) {
+      dropped.incrementAndGet();
+      return null;
+    }
+    trace.start(messageId, action, receivedNanos);
+    active.put(messageId, trace);
+    return trace;
+  }
+
+  /**
+   * @param messageId unique id of a received call.
+   * @return the trace of the call, null if it isn't traced or already ended.
+   */
+  @Nullable
+  public MessageTrace find(String messageId) {
+    return active.get(messageId);
+  }
+
+  /** @return number of sampled calls dropped because the ring was full. */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  /** Export traces of this session from now on. */
+  public void connected() {
+    tracing.register(this);
+  }
+
+  /** Stop exporting traces of this session, after the ones already completed. */
+  public void disconnected() {
+    tracing.unregister(this);
+  }
+
+  void ended(MessageTrace trace) {
+    active.remove(trace.getMessageId(), trace);
+  }
+
+  void drain(long epochOffsetNanos, List<TraceRecord> records) {
+    for (MessageTrace trace : ring) {
+      TraceRecord record = trace.export(sessionId, epochOffsetNanos);
+      if (record != null) records.add(record);
+    }
+  }
+
+  private synchronized MessageTrace claim() {
+    MessageTrace trace = ring[next];
+    // Move on either way, so a call that never completes only holds up its own slot.
+    next = (next + 1) % ring.length;
+    return trace.claim() ? trace : null;
+  }
+}
@@ -0,0 +1,88 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.MoreObjects;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/** A completed trace of a received call, with the epoch timestamps of the stages it reached. */
+public final class TraceRecord {
+  private final String sessionId;
+  private final String messageId;
+  private final String action;
+  private final long[] epochNanos;
+
+  TraceRecord(String sessionId, String messageId, String action, long[] epochNanos) {
+    this.sessionId = sessionId;
+    this.messageId = messageId;
+    this.action = action;
+    this.epochNanos = epochNanos;
+  }
+
+  public String getSessionId() {
+    return sessionId;
+  }
+
+  public String getMessageId() {
+    return messageId;
+  }
+
+  public String getAction() {
+    return action;
+  }
+
+  /**
+   * @param stage a stage of the call.
+   * @return when the call reached the stage in nanoseconds since the epoch, 0 if it didn't.
+   */
+  public long getEpochNanos(TraceStage stage) {
+    return epochNanos[stage.ordinal()];
+  }
+
+  /**
+   * @param stage a stage of the call.
+   * @return the latest stage before the given one that the call reached, null if none.
+   */
+  @Nullable
+  public TraceStage previous(TraceStage stage) {
+    TraceStage[] stages = TraceStage.values();
+    for (int i = stage.ordinal() - 1; i >= 0; i--) {
+      if (epochNanos[i] != 0) return stages[i];
+    }
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("sessionId", sessionId)
+        .add("messageId", messageId)
+        .add("action", action)
+        .add("epochNanos", Arrays.toString(epochNanos))
+        .toString();
+  }
+}
@@ -0,0 +1,62 @@
+package eu.chargetime.ocpp.tracing;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import javax.annotation.Nullable;
+
+/**
+ * The stages of a received call, in the order it passes through them. Each stage is timestamped
+ * when the call reaches it, the time between two stages is exported as a span named after the later
+ * stage.
+ */
+public enum TraceStage {
+  /** The frame was handed to the communicator by the network thread. */
+  RECEIVED(null),
+  /** The frame was parsed into a call. */
+  PARSED("parse"),
+  /** The session picked up the call, after the dispatch executor queue if there is one. */
+  DISPATCHED("dispatch.queue"),
+  /** The payload was decoded and validated and the call queued for its handler. */
+  DECODED("decode"),
+  /** The handler started on the promise fulfiller executor. */
+  HANDLER_STARTED("handler.queue"),
+  /** The handler completed the call with a confirmation or an error. */
+  HANDLER_COMPLETED("handler"),
+  /** The confirmation or error was sent. */
+  SENT("send");
+
+  @Nullable private final String spanName;
+
+  TraceStage(@Nullable String spanName) {
+    this.spanName = spanName;
+  }
+
+  /** @return name of the span ending at this stage, null for the first stage. */
+  @Nullable
+  public String getSpanName() {
+    return spanName;
+  }
+}
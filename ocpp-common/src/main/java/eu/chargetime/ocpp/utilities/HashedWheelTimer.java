@@ -0,0 +1,283 @@
+package eu.chargetime.ocpp.utilities;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs many short delayed tasks on one thread.
+ *
+ * <p>Timeouts are hashed into the buckets of a wheel that advances one bucket per tick, so adding
+ * and cancelling a timeout is O(1) and costs one small object, instead of a scheduled future per
+ * call. A timeout fires up to one tick late. Tasks run on the timer thread and must be short.
+ */
+public class HashedWheelTimer {
+
+  private static final Logger logger = LoggerFactory.getLogger(HashedWheelTimer.class);
+
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final Thread worker;
+  private final long startTime = System.nanoTime();
+  private volatile boolean stopped;
+  private long tick;
+
+  /**
+   * @param name name of the timer thread.
+   * @param tickDuration resolution of the timer.
+   * @param unit unit of tickDuration.
+   * @param wheelSize number of buckets, rounded up to a power of two.
+   */
+  public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+    }
+    if (wheelSize < 1 || wheelSize > (1 << 30)) {
+      throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+    }
+    int size = Integer.highestOneBit(wheelSize - 1) << 1;
+    this.wheel = new Bucket[Math.max(size, 1)];
+    for (int i = 0; i < wheel.length; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = wheel.length - 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.worker = new Thread(this::run, name);
+    this.worker.setDaemon(true);
+  }
+
+  /**
+   * The timer shared by all clients and servers in the JVM. Ticks every 100 ms.
+   *
+   * @return the shared timer.
+   */
+  public static HashedWheelTimer shared() {
+    return SharedHolder.INSTANCE;
+  }
+
+  /**
+   * Run a task once after a delay.
+   *
+   * @param task the task.
+   * @param delay the delay.
+   * @param unit unit of the delay.
+   * @return handle to cancel the task.
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    if (stopped) {
+      throw new IllegalStateException("Timer is stopped");
+    }
+    start();
+    long deadline = System.nanoTime() - startTime + unit.toNanos(delay);
+    Timeout timeout = new Timeout(this, task, deadline);
+    pending.incrementAndGet();
+    added.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Number of timeouts that have neither fired nor been cancelled.
+   *
+   * @return pending timeout count.
+   */
+  public int pendingTimeouts() {
+    return pending.get();
+  }
+
+  /** Stop the timer thread. Pending timeouts never fire. */
+  public void stop() {
+    stopped = true;
+    worker.interrupt();
+  }
+
+  private void start() {
+    if (started.compareAndSet(false, true)) {
+      worker.start();
+    }
+  }
+
+  private void run() {
+    while (!stopped) {
+      if (!waitForNextTick()) break;
+      removeCancelled();
+      transferAdded();
+      wheel[(int) (tick & mask)].expire();
+      tick++;
+    }
+  }
+
+  private boolean waitForNextTick() {
+    long deadline = tickNanos * (tick + 1);
+    while (true) {
+      long now = System.nanoTime() - startTime;
+      long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - now + 999_999);
+      if (sleepMillis <= 0) return true;
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException ex) {
+        if (stopped) return false;
+      }
+    }
+  }
+
+  private void transferAdded() {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = added.poll();
+      if (timeout == null) break;
+      if (timeout.isCancelled()) continue;
+
+      long expiryTick = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+      // Deadlines already passed go into the current bucket.
+      wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+    }
+  }
+
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket != null) timeout.bucket.remove(timeout);
+    }
+  }
+
+  /** Handle of a scheduled task. */
+  public static final class Timeout {
+    private static final int INIT = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    private final long deadline;
+    private volatile int state = INIT;
+
+    // Owned by the timer thread.
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout next;
+    private Timeout prev;
+
+    private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    /**
+     * Cancel the task if it hasn't run yet.
+     *
+     * @return true if the task will not run.
+     */
+    public boolean cancel() {
+      if (!STATE.compareAndSet(this, INIT, CANCELLED)) return false;
+      timer.pending.decrementAndGet();
+      timer.cancelled.add(this);
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return state == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state == EXPIRED;
+    }
+
+    private void expire() {
+      if (!STATE.compareAndSet(this, INIT, EXPIRED)) return;
+      timer.pending.decrementAndGet();
+      try {
+        task.run();
+      } catch (RuntimeException ex) {
+        logger.warn("Timer task failed", ex);
+      }
+    }
+  }
+
+  /** Doubly linked list of timeouts, only used by the timer thread. */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    void expire() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0) {
+          remove(timeout);
+          timeout.expire();
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.bucket != this) return;
+      if (timeout.prev != null) timeout.prev.next = timeout.next;
+      if (timeout.next != null) timeout.next.prev = timeout.prev;
+      if (timeout == head) head = timeout.next;
+      if (timeout == tail) tail = timeout.prev;
+      timeout.prev = timeout.next = null;
+      timeout.bucket = null;
+    }
+  }
+
+  private static final class SharedHolder {
+    private static final HashedWheelTimer INSTANCE =
+        new HashedWheelTimer("ocpp-timer", 100, TimeUnit.MILLISECONDS, 512);
+  }
+}
@@ -0,0 +1,156 @@
+package eu.chargetime.ocpp.utilities;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs submitted tasks one at a time and in submission order on a shared {@link Executor}.
+ *
+ * <p>Many serial executors can share one underlying pool: tasks of a single instance never run
+ * concurrently, while tasks of different instances run in parallel. Submitting is lock-free. A
+ * drain runs at most {@code batchSize} tasks before yielding the pool thread, so one busy instance
+ * can't starve the others.
+ *
+ * <p>If the pool rejects a drain, the tasks still waiting are handed to the rejected task handler,
+ * which logs and drops them by default.
+ */
+public class SerialExecutor implements Executor {
+
+  private static final Logger logger = LoggerFactory.getLogger(SerialExecutor.class);
+
+  public static final int DEFAULT_BATCH_SIZE = 32;
+
+  private final Executor executor;
+  private final int batchSize;
+  private final BiConsumer<Runnable, RejectedExecutionException> rejectedTaskHandler;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  private final Runnable drainTask = this::drain;
+
+  public SerialExecutor(Executor executor) {
+    this(executor, DEFAULT_BATCH_SIZE);
+  }
+
+  public SerialExecutor(Executor executor, int batchSize) {
+    this(
+        executor,
+        batchSize,
+        (task, ex) -> logger.warn("Dropping serial task, the executor rejected it", ex));
+  }
+
+  /**
+   * @param executor the shared pool.
+   * @param batchSize maximum number of tasks run before yielding the pool thread.
+   * @param rejectedTaskHandler called with every waiting task when the pool rejects a drain.
+   */
+  public SerialExecutor(
+      Executor executor,
+      int batchSize,
+      BiConsumer<Runnable, RejectedExecutionException> rejectedTaskHandler) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+    }
+    this.executor = Objects.requireNonNull(executor, "executor");
+    this.batchSize = batchSize;
+    this.rejectedTaskHandler = Objects.requireNonNull(rejectedTaskHandler, "rejectedTaskHandler");
+  }
+
+  /**
+   * @throws RejectedExecutionException if the pool rejects the drain of the task, which then never
+   *     runs. Other waiting tasks go to the rejected task handler.
+   */
+  @Override
+  public void execute(Runnable task) {
+    tasks.add(Objects.requireNonNull(task, "task"));
+    try {
+      schedule();
+    } catch (RejectedExecutionException ex) {
+      boolean pending = tasks.remove(task);
+      rejectPending(ex);
+      if (pending) throw ex;
+    }
+  }
+
+  /**
+   * Whether tasks are waiting or running.
+   *
+   * @return true if the queue is not drained yet.
+   */
+  public boolean isBusy() {
+    return scheduled.get() || !tasks.isEmpty();
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(drainTask);
+      } catch (RejectedExecutionException ex) {
+        scheduled.set(false);
+        throw ex;
+      }
+    }
+  }
+
+  private void drain() {
+    try {
+      for (int i = 0; i < batchSize; i++) {
+        Runnable task = tasks.poll();
+        if (task == null) break;
+        try {
+          task.run();
+        } catch (RuntimeException ex) {
+          logger.warn("Serial task failed", ex);
+        }
+      }
+    } finally {
+      scheduled.set(false);
+      // A task may have been added after the last poll, but before the flag was cleared.
+      if (!tasks.isEmpty()) {
+        try {
+          schedule();
+        } catch (RejectedExecutionException ex) {
+          rejectPending(ex);
+        }
+      }
+    }
+  }
+
+  private void rejectPending(RejectedExecutionException ex) {
+    Runnable task;
+    while ((task = tasks.poll()) != null) {
+      rejectedTaskHandler.accept(task, ex);
+    }
+  }
+}
@@ -25,41 +25,123 @@ package eu.chargetime.ocpp.utilities;
    SOFTWARE.
 */
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
-public class TimeoutTimer extends Timer {
+/**
+ * Calls the {@link TimeoutHandler} when the timeout elapses without a {@link #reset()}.
+ *
+ * <p>Timers don't own a thread, they schedule on a {@link ScheduledExecutorService}. Unless one is
+ * given, a single daemon thread shared by all timers is used. A reset only records the time of the
+ * activity, without locking or rescheduling. When the scheduled check finds recent activity it
+ * schedules itself again for the remaining time.
+ */
+public class TimeoutTimer {
 
-  private TimerTask timerTask;
-  private long timeout;
-  private TimeoutHandler handler;
+  private final ScheduledExecutorService scheduler;
+  private final TimeoutHandler handler;
+  private volatile long timeout;
+  private volatile long lastActivity;
+  private volatile boolean running;
+  private ScheduledFuture<?> task;
 
   public TimeoutTimer(long timeout, TimeoutHandler handler) {
+    this(timeout, handler, SharedScheduler.INSTANCE);
+  }
+
+  /**
+   * @param timeout in milliseconds.
+   * @param handler called on the scheduler thread when the timeout elapses.
+   * @param scheduler runs the timeouts, see {@link #createScheduler(String)}.
+   */
+  public TimeoutTimer(long timeout, TimeoutHandler handler, ScheduledExecutorService scheduler) {
     this.timeout = timeout;
     this.handler = handler;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * A single daemon thread scheduler that drops cancelled timeouts right away, so they don't pile
+   * up in its queue.
+   *
+   * @param threadName name of the scheduler thread.
+   * @return a new scheduler, shut it down when done.
+   */
+  public static ScheduledExecutorService createScheduler(String threadName) {
+    ScheduledThreadPoolExecutor scheduler =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, threadName);
+              thread.setDaemon(true);
+              return thread;
+            });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
   }
 
-  public void setTimeout(long timeout) {
+  /**
+   * Change the timeout, a running timer counts it from the last activity.
+   *
+   * @param timeout in milliseconds.
+   */
+  public synchronized void setTimeout(long timeout) {
     this.timeout = timeout;
+    if (running) {
+      task.cancel(false);
+      scheduleCheck();
+    }
   }
 
-  public void begin() {
-    timerTask =
-        new TimerTask() {
-          @Override
-          public void run() {
-            handler.timeout();
-          }
-        };
-    this.schedule(timerTask, timeout);
+  public synchronized void begin() {
+    end();
+    lastActivity = System.nanoTime();
+    running = true;
+    scheduleCheck();
   }
 
-  public void end() {
-    timerTask.cancel();
+  public synchronized void end() {
+    running = false;
+    if (task != null) {
+      task.cancel(false);
+      task = null;
+    }
   }
 
+  /** Postpone the timeout, or start the timer if it isn't running. */
   public void reset() {
-    end();
-    begin();
+    if (running) {
+      lastActivity = System.nanoTime();
+    } else {
+      begin();
+    }
+  }
+
+  private long idleMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivity);
+  }
+
+  private void scheduleCheck() {
+    task =
+        scheduler.schedule(this::check, Math.max(0, timeout - idleMillis()), TimeUnit.MILLISECONDS);
+  }
+
+  private void check() {
+    synchronized (this) {
+      if (!running) return;
+      if (idleMillis() < timeout) {
+        scheduleCheck();
+        return;
+      }
+      running = false;
+      task = null;
+    }
+    handler.timeout();
+  }
+
+  private static class SharedScheduler {
+    private static final ScheduledExecutorService INSTANCE = createScheduler("ocpp-timeout");
   }
 }
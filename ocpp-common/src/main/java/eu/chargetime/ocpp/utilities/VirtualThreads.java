@@ -0,0 +1,90 @@
+package eu.chargetime.ocpp.utilities;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads while compiling for Java 8. The executor is looked up at runtime, so
+ * this library runs unchanged on older JVMs and gets virtual threads on Java 21 and later.
+ */
+public final class VirtualThreads {
+
+  private VirtualThreads() {}
+
+  /**
+   * Whether the running JVM supports virtual threads.
+   *
+   * @return true on Java 21 and later.
+   */
+  public static boolean isAvailable() {
+    return Factory.METHOD != null;
+  }
+
+  /**
+   * Create an executor that starts a new virtual thread for every task.
+   *
+   * @return the executor, or empty if the running JVM has no virtual threads.
+   */
+  public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+    if (Factory.METHOD == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(invoke(Factory.METHOD));
+  }
+
+  private static ExecutorService invoke(Method factory) {
+    try {
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+      // Preview releases (Java 19 and 20) refuse unless started with --enable-preview.
+      return null;
+    }
+  }
+
+  /** Looks up the factory once, and keeps it only if the running JVM lets it be called. */
+  private static final class Factory {
+    static final Method METHOD = find();
+
+    private static Method find() {
+      Method factory;
+      try {
+        factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      } catch (NoSuchMethodException ex) {
+        return null;
+      }
+      ExecutorService probe = invoke(factory);
+      if (probe == null) {
+        return null;
+      }
+      probe.shutdown();
+      return factory;
+    }
+  }
+}
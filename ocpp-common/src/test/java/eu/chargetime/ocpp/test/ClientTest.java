@@ -34,17 +34,22 @@ import static org.mockito.Mockito.any;
 
 import eu.chargetime.ocpp.*;
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.model.CallResultMessage;
 import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Message;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.TestConfirmation;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -240,4 +245,93 @@ public class ClientTest {
     verify(session, times(1)).removeRequest(any());
     verify(promiseRepository, times(1)).removePromise(any());
   }
+
+  @Test
+  public void send_transactionRequestQueuedWhileOffline_isConfirmedAfterTimeoutElapsed()
+      throws Exception {
+    // Given
+    Transmitter transmitter = mock(Transmitter.class);
+    RadioEvents[] radioEvents = new RadioEvents[1];
+    doAnswer(invocation -> radioEvents[0] = invocation.getArgument(1, RadioEvents.class))
+        .when(transmitter)
+        .connect(any(), any());
+    when(transmitter.isClosed()).thenReturn(true);
+    when(request.transactionRelated()).thenReturn(true);
+    when(feature.getAction()).thenReturn("StartTransaction");
+    Session offline =
+        new Session(
+            new EchoCommunicator(transmitter),
+            new Queue(),
+            new SimplePromiseFulfiller(),
+            featureRepository);
+    client = new Client(offline, new PromiseRepository());
+    client.setRequestTimeouts(RequestTimeouts.of(Duration.ofMillis(50)));
+    client.connect("localhost", events);
+    CompletableFuture<Confirmation> promise = client.send(request);
+    Thread.sleep(200);
+
+    // When
+    when(transmitter.isClosed()).thenReturn(false);
+    radioEvents[0].connected();
+    ArgumentCaptor<Object> call = ArgumentCaptor.forClass(Object.class);
+    verify(transmitter, timeout(1000)).send(call.capture());
+    TestConfirmation confirmation = new TestConfirmation();
+    CallResultMessage result = new CallResultMessage();
+    result.setId((String) call.getValue());
+    result.setPayload(confirmation);
+    radioEvents[0].receivedMessage(result);
+
+    // Then
+    assertThat(promise.get(1, TimeUnit.SECONDS), is(confirmation));
+  }
+
+  /** Sends the unique id as the call and receives messages as they are. */
+  private static class EchoCommunicator extends Communicator {
+    EchoCommunicator(Radio radio) {
+      super(radio);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unpackPayload(Object payload, Class<T> type) {
+      return (T) payload;
+    }
+
+    @Override
+    public Object packPayload(Object payload) {
+      return payload;
+    }
+
+    @Override
+    protected Object makeCallResult(String uniqueId, String action, Object payload) {
+      return uniqueId;
+    }
+
+    @Override
+    protected Object makeCall(String uniqueId, String action, Object payload) {
+      return uniqueId;
+    }
+
+    @Override
+    protected Object makeCallError(
+        String uniqueId, String action, String errorCode, String errorDescription) {
+      return uniqueId;
+    }
+
+    @Override
+    protected Object makeCallResultError(
+        String uniqueId, String action, String errorCode, String errorDescription) {
+      return uniqueId;
+    }
+
+    @Override
+    protected Object makeSend(String uniqueId, String action, Object payload) {
+      return uniqueId;
+    }
+
+    @Override
+    protected Message parse(Object message) {
+      return (Message) message;
+    }
+  }
 }
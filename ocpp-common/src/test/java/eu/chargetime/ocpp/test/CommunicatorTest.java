@@ -1,13 +1,25 @@
 package eu.chargetime.ocpp.test;
 
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 import eu.chargetime.ocpp.*;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import eu.chargetime.ocpp.model.CallErrorMessage;
+import eu.chargetime.ocpp.model.CallMessage;
+import eu.chargetime.ocpp.model.CallResultMessage;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.ConfirmationCompletedHandler;
 import eu.chargetime.ocpp.model.Message;
 import eu.chargetime.ocpp.model.Request;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -51,6 +63,7 @@ public class CommunicatorTest {
   @Mock private Request transactionRelatedRequest;
   @Mock private Request normalRequest;
   @Mock private CommunicatorEvents events;
+  @Mock private OcppMetrics metrics;
 
   @Before
   public void setup() throws Exception {
@@ -64,8 +77,12 @@ public class CommunicatorTest {
   }
 
   private void setupCommunicator(boolean enableTransactionQueue) throws Exception {
+    setupCommunicator(enableTransactionQueue ? new InMemoryTransactionQueue() : null);
+  }
+
+  private void setupCommunicator(TransactionQueue transactionQueue) throws Exception {
     communicator =
-        new Communicator(receiver, enableTransactionQueue) {
+        new Communicator(receiver, transactionQueue) {
           @Override
           public <T> T unpackPayload(Object payload, Class<T> type) throws Exception {
             return null;
@@ -105,7 +122,7 @@ public class CommunicatorTest {
 
           @Override
           protected Message parse(Object message) {
-            return null;
+            return message instanceof Message ? (Message) message : null;
           }
         };
     communicator.accept(events);
@@ -171,11 +188,12 @@ public class CommunicatorTest {
 
     // When
     communicator.sendCall(secondId, action, transactionRelatedRequest);
-    Thread.sleep(1100);
+    verify(receiver, timeout(1000).times(2)).send(eq(firstId));
+    verify(receiver, times(0)).send(eq(secondId));
+    eventHandler.receivedMessage(callResult(firstId));
 
     // Then
-    verify(receiver, times(2)).send(eq(firstId));
-    verify(receiver, times(1)).send(eq(secondId));
+    verify(receiver, timeout(1000).times(1)).send(eq(secondId));
   }
 
   @Test
@@ -271,4 +289,192 @@ public class CommunicatorTest {
 
     verifyNoMoreInteractions(receiver);
   }
+
+  @Test
+  public void sendCall_transactionQueueFull_onErrorIsCalled() throws Exception {
+    // Given
+    TransactionQueue transactionQueue = mock(TransactionQueue.class);
+    when(transactionQueue.offer(any(), any())).thenReturn(false);
+    setupCommunicator(transactionQueue);
+    when(receiver.isClosed()).thenReturn(true);
+    String uniqueId = "some id";
+
+    // When
+    communicator.sendCall(uniqueId, "some action", transactionRelatedRequest);
+
+    // Then
+    verify(transactionQueue).offer(uniqueId, uniqueId);
+    verify(events, times(1)).onError(eq(uniqueId), eq("Queue full"), any(), any());
+  }
+
+  @Test
+  public void sendCall_transactionCallBlockedOnRadio_normalCallIsNotBlocked() throws Exception {
+    // Given
+    CountDownLatch sending = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              sending.countDown();
+              release.await(5, TimeUnit.SECONDS);
+              return null;
+            })
+        .when(receiver)
+        .send("transaction id");
+    Thread blocked =
+        new Thread(
+            () -> communicator.sendCall("transaction id", "action", transactionRelatedRequest));
+    blocked.start();
+    sending.await(5, TimeUnit.SECONDS);
+
+    // When
+    CompletableFuture<Void> normal =
+        CompletableFuture.runAsync(
+            () -> communicator.sendCall("normal id", "action", normalRequest));
+
+    // Then
+    normal.get(1, TimeUnit.SECONDS);
+    verify(receiver, times(1)).send("normal id");
+    release.countDown();
+    blocked.join();
+  }
+
+  @Test
+  public void connected_replayWindow_queuedCallsArePipelined() throws Exception {
+    // Given
+    communicator.setTransactionReplaySettings(TransactionReplaySettings.DEFAULT.withWindow(3));
+    when(receiver.isClosed()).thenReturn(true);
+    for (int i = 0; i < 4; i++)
+      communicator.sendCall("id " + i, "action", transactionRelatedRequest);
+    when(receiver.isClosed()).thenReturn(false);
+
+    // When
+    eventHandler.connected();
+
+    // Then
+    verify(receiver, timeout(1000)).send(eq("id 2"));
+    verify(receiver, times(0)).send(eq("id 3"));
+    eventHandler.receivedMessage(callResult("id 0"));
+    verify(receiver, timeout(1000)).send(eq("id 3"));
+  }
+
+  @Test
+  public void connected_replayedCallAnsweredWithError_callIsSentAgainAndProgressReported()
+      throws Exception {
+    // Given
+    TransactionReplayListener listener = mock(TransactionReplayListener.class);
+    communicator.setTransactionReplaySettings(
+        TransactionReplaySettings.DEFAULT
+            .withBackoff(Duration.ofMillis(10), Duration.ofMillis(10))
+            .withListener(listener));
+    when(receiver.isClosed()).thenReturn(true);
+    String uniqueId = "some id";
+    communicator.sendCall(uniqueId, "some action", transactionRelatedRequest);
+    when(receiver.isClosed()).thenReturn(false);
+    eventHandler.connected();
+    verify(receiver, timeout(1000).times(1)).send(eq(uniqueId));
+
+    // When
+    eventHandler.receivedMessage(callError(uniqueId));
+
+    // Then
+    verify(receiver, timeout(1000).times(2)).send(eq(uniqueId));
+    eventHandler.receivedMessage(callResult(uniqueId));
+    verify(listener, timeout(1000)).onReplayProgress(1, 0);
+  }
+
+  @Test
+  public void sendCall_withMetrics_encodingAndMessageAreRecorded() throws Exception {
+    // Given
+    communicator.setMetrics(metrics);
+
+    // When
+    communicator.sendCall("some id", "some action", normalRequest);
+
+    // Then
+    verify(metrics).latency(eq(OcppMetrics.Stage.ENCODE), eq("some action"), anyLong());
+    verify(metrics).message(OcppMetrics.Direction.OUTBOUND, "some action", -1);
+  }
+
+  @Test
+  public void receivedMessage_callErrorWithMetrics_errorCodeIsRecorded() throws Exception {
+    // Given
+    communicator.setMetrics(metrics);
+
+    // When
+    eventHandler.receivedMessage(callError("some id"));
+
+    // Then
+    verify(metrics).message(OcppMetrics.Direction.INBOUND, null, -1);
+    verify(metrics).callError(OcppMetrics.Direction.INBOUND, "InternalError");
+  }
+
+  @Test
+  public void sendCallError_withMetrics_errorCodeIsRecorded() throws Exception {
+    // Given
+    communicator.setMetrics(metrics);
+
+    // When
+    communicator.sendCallError("some id", "some action", "NotImplemented", "description");
+
+    // Then
+    verify(metrics).message(OcppMetrics.Direction.OUTBOUND, "some action", -1);
+    verify(metrics).callError(OcppMetrics.Direction.OUTBOUND, "NotImplemented");
+  }
+
+  @Test
+  public void connected_withMetrics_transactionQueueDepthIsRecorded() throws Exception {
+    // Given
+    communicator.setMetrics(metrics);
+    when(receiver.isClosed()).thenReturn(true);
+    String uniqueId = "some id";
+    communicator.sendCall(uniqueId, "some action", transactionRelatedRequest);
+    verify(metrics).adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, 1);
+    when(receiver.isClosed()).thenReturn(false);
+    eventHandler.connected();
+    verify(receiver, timeout(1000)).send(eq(uniqueId));
+
+    // When
+    eventHandler.receivedMessage(callResult(uniqueId));
+
+    // Then
+    verify(metrics, timeout(1000)).adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, -1);
+  }
+
+  @Test
+  public void receivedMessage_callWithTracing_traceIsStartedBeforeDispatch() throws Exception {
+    // Given
+    MessageTracing tracing = new MessageTracing(1, traces -> {});
+    SessionTracer tracer = tracing.newSessionTracer("session");
+    communicator.setTracer(tracer);
+    Message call = new CallMessage();
+    call.setId("some id");
+    call.setAction("some action");
+    doAnswer(
+            invocation -> {
+              assertThat(tracer.find("some id"), is(notNullValue()));
+              return null;
+            })
+        .when(events)
+        .onCall(any(), any(), any());
+
+    // When
+    eventHandler.receivedMessage(call);
+
+    // Then
+    verify(events).onCall("some id", "some action", null);
+    tracing.close();
+  }
+
+  private static Message callResult(String uniqueId) {
+    Message message = new CallResultMessage();
+    message.setId(uniqueId);
+    return message;
+  }
+
+  private static Message callError(String uniqueId) {
+    CallErrorMessage message = new CallErrorMessage();
+    message.setId(uniqueId);
+    message.setErrorCode("InternalError");
+    return message;
+  }
 }
@@ -32,6 +32,18 @@ public class FeatureRepositoryTest {
     assertWhenFound(f.findFeature(new TestConfirmation()));
   }
 
+  @Test
+  public void testFindAfterLaterRegistration() {
+    FeatureRepository f = new FeatureRepository();
+
+    assertFalse(f.findFeature(ACTION_NAME).isPresent());
+
+    f.addFeature(feature);
+
+    assertWhenFound(f.findFeature(ACTION_NAME));
+    assertWhenFound(f.findFeature(new TestRequest()));
+  }
+
   private void assertWhenFound(Optional<Feature> dummyFeature) {
     assertTrue(dummyFeature.isPresent());
     assertEquals(dummyFeature.get(), feature);
@@ -0,0 +1,181 @@
+package eu.chargetime.ocpp.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.MappedFileTransactionQueue;
+import eu.chargetime.ocpp.TransactionQueue;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+ChargeTime.eu - Java-OCA-OCPP
+Copyright (C) 2015-2016 Thomas Volden <tv@chargetime.eu>
+
+MIT License
+
+Copyright (C) 2016-2018 Thomas Volden
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+public class MappedFileTransactionQueueTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void offer_callsAreReturnedInOrder() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory);
+
+    // When
+    queue.offer("first", "first");
+    queue.offer("second", "second");
+
+    // Then
+    assertThat(queue.size(), is(2));
+    assertThat(queue.peek().getCall(), equalTo("first"));
+    queue.remove();
+    assertThat(queue.peek().getCall(), equalTo("second"));
+    queue.remove();
+    assertThat(queue.peek(), is(nullValue()));
+    assertThat(queue.isEmpty(), is(true));
+    queue.close();
+  }
+
+  @Test
+  public void reopen_onlyUndeliveredCallsAreRecovered() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory, 64, 1024, 1);
+    for (int i = 0; i < 10; i++) queue.offer("id " + i, "call " + i);
+    for (int i = 0; i < 4; i++) queue.remove();
+    queue.close();
+
+    // When
+    MappedFileTransactionQueue reopened = new MappedFileTransactionQueue(directory, 64, 1024, 1);
+
+    // Then
+    assertThat(reopened.size(), is(6));
+    for (int i = 4; i < 10; i++) {
+      assertThat(reopened.peek().getCall(), equalTo("call " + i));
+      reopened.remove();
+    }
+    assertThat(reopened.peek(), is(nullValue()));
+    reopened.close();
+  }
+
+  @Test
+  public void reopen_tornRecord_isDropped() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory);
+    queue.offer("complete", "complete");
+    queue.offer("torn", "torn");
+    queue.close();
+    try (RandomAccessFile file = new RandomAccessFile(segments(directory)[0].toFile(), "rw")) {
+      // flip the last byte of the second record, a record holds a header of 9 bytes, the length of
+      // the id in 2 bytes, the id and the call
+      long position = (9 + 2 + 2 * "complete".length()) + (9 + 2 + 2 * "torn".length()) - 1;
+      file.seek(position);
+      file.write('x');
+    }
+
+    // When
+    MappedFileTransactionQueue reopened = new MappedFileTransactionQueue(directory);
+    reopened.offer("next", "next");
+
+    // Then
+    assertThat(reopened.size(), is(2));
+    assertThat(reopened.peek().getCall(), equalTo("complete"));
+    reopened.remove();
+    assertThat(reopened.peek().getCall(), equalTo("next"));
+    reopened.close();
+  }
+
+  @Test
+  public void offer_maxBytesReached_returnsFalse() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory, 64, 128, 8);
+    int stored = 0;
+
+    // When
+    while (queue.offer("call", "call")) stored++;
+
+    // Then
+    assertThat(stored, is(6));
+    assertThat(queue.size(), is(6));
+    assertThat(queue.getUsedBytes(), is(128L));
+    queue.close();
+  }
+
+  @Test
+  public void remove_deliveredSegments_areDeleted() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory, 64, 1024, 8);
+    for (int i = 0; i < 12; i++) queue.offer("id " + i, "call " + i);
+    int before = segments(directory).length;
+
+    // When
+    while (!queue.isEmpty()) queue.remove();
+
+    // Then
+    assertThat(before, is(5));
+    assertThat(segments(directory).length, is(1));
+    assertThat(queue.getUsedBytes(), is(64L));
+    assertThat(queue.offer("after", "after"), is(true));
+    assertThat(queue.peek().getCall(), equalTo("after"));
+    queue.close();
+  }
+
+  @Test
+  public void peek_count_readsAheadAcrossSegments() throws Exception {
+    // Given
+    Path directory = folder.getRoot().toPath();
+    MappedFileTransactionQueue queue = new MappedFileTransactionQueue(directory, 64, 1024, 8);
+    for (int i = 0; i < 12; i++) queue.offer("id " + i, "call " + i);
+    queue.remove();
+
+    // When
+    List<TransactionQueue.Entry> entries = queue.peek(10);
+
+    // Then
+    assertThat(entries.size(), is(10));
+    for (int i = 0; i < 10; i++) {
+      assertThat(entries.get(i).getUniqueId(), equalTo("id " + (i + 1)));
+      assertThat(entries.get(i).getCall(), equalTo("call " + (i + 1)));
+    }
+    queue.close();
+  }
+
+  private static Path[] segments(Path directory) throws Exception {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.sorted().toArray(Path[]::new);
+    }
+  }
+}
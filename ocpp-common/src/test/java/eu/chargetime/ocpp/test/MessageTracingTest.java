@@ -0,0 +1,171 @@
+package eu.chargetime.ocpp.test;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.tracing.MessageTrace;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import eu.chargetime.ocpp.tracing.TraceRecord;
+import eu.chargetime.ocpp.tracing.TraceStage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+public class MessageTracingTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<TraceRecord> exported = new ArrayList<>();
+  private MessageTracing tracing;
+
+  @After
+  public void tearDown() {
+    if (tracing != null) tracing.close();
+  }
+
+  @Test
+  public void begin_notSampled_callIsNotTraced() {
+    // Given
+    tracing = new MessageTracing(0, exported::addAll);
+    SessionTracer tracer = tracing.newSessionTracer("session");
+
+    // When
+    MessageTrace trace = tracer.begin("id", "Heartbeat", System.nanoTime());
+
+    // Then
+    assertThat(trace, is(nullValue()));
+    assertThat(tracer.find("id"), is(nullValue()));
+  }
+
+  @Test
+  public void begin_ringIsFull_callIsDropped() {
+    // Given
+    tracing = new MessageTracing(1, 1, Duration.ofHours(1), exported::addAll);
+    SessionTracer tracer = tracing.newSessionTracer("session");
+    MessageTrace first = tracer.begin("first", "Heartbeat", System.nanoTime());
+
+    // When
+    MessageTrace second = tracer.begin("second", "Heartbeat", System.nanoTime());
+
+    // Then
+    assertThat(first, is(notNullValue()));
+    assertThat(second, is(nullValue()));
+    assertThat(tracer.getDropped(), is(1L));
+    assertThat(tracer.find("first"), is(sameInstance(first)));
+  }
+
+  @Test
+  public void flush_traceEnded_stagesAreExportedOnce() {
+    // Given
+    tracing = new MessageTracing(1, 2, Duration.ofHours(1), exported::addAll);
+    SessionTracer tracer = tracing.newSessionTracer("session");
+    tracer.connected();
+    MessageTrace trace = tracer.begin("id", "Heartbeat", System.nanoTime());
+    trace.mark(TraceStage.DISPATCHED);
+    trace.mark(TraceStage.HANDLER_COMPLETED);
+    trace.end();
+
+    // When
+    tracing.flush();
+    tracing.flush();
+
+    // Then
+    assertThat(exported.size(), is(1));
+    TraceRecord record = exported.get(0);
+    assertThat(record.getSessionId(), equalTo("session"));
+    assertThat(record.getMessageId(), equalTo("id"));
+    assertThat(record.getAction(), equalTo("Heartbeat"));
+    assertThat(record.getEpochNanos(TraceStage.DECODED), is(0L));
+    assertThat(
+        record.getEpochNanos(TraceStage.SENT) >= record.getEpochNanos(TraceStage.RECEIVED),
+        is(true));
+    assertThat(record.previous(TraceStage.HANDLER_COMPLETED), is(TraceStage.DISPATCHED));
+    assertThat(tracer.find("id"), is(nullValue()));
+  }
+
+  @Test
+  public void flush_sessionDisconnected_completedTracesAreExported() {
+    // Given
+    tracing = new MessageTracing(1, 2, Duration.ofHours(1), exported::addAll);
+    SessionTracer tracer = tracing.newSessionTracer("session");
+    tracer.connected();
+    tracer.begin("id", "Heartbeat", System.nanoTime()).end();
+    tracer.disconnected();
+
+    // When
+    tracing.flush();
+    tracer.begin("other", "Heartbeat", System.nanoTime()).end();
+    tracing.flush();
+
+    // Then
+    assertThat(exported.size(), is(1));
+    assertThat(exported.get(0).getMessageId(), equalTo("id"));
+  }
+
+  @Test
+  public void close_otlpJsonFileExporter_spansAreWrittenAsOneLine() throws Exception {
+    // Given
+    Path file = folder.getRoot().toPath().resolve("traces.jsonl");
+    tracing = MessageTracing.toFile(1, file, "csms");
+    SessionTracer tracer = tracing.newSessionTracer("session");
+    tracer.connected();
+    MessageTrace trace = tracer.begin("id \"1\"", "StartTransaction", System.nanoTime());
+    trace.mark(TraceStage.DISPATCHED);
+    trace.mark(TraceStage.DECODED);
+    trace.mark(TraceStage.HANDLER_STARTED);
+    trace.mark(TraceStage.HANDLER_COMPLETED);
+    trace.end();
+
+    // When
+    tracing.close();
+
+    // Then
+    List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+    assertThat(lines.size(), is(1));
+    String json = lines.get(0);
+    assertThat(json, startsWith("{\"resourceSpans\":[{\"resource\":{\"attributes\":"));
+    assertThat(
+        json, containsString("{\"key\":\"service.name\",\"value\":{\"stringValue\":\"csms\"}}"));
+    assertThat(json, containsString("\"scope\":{\"name\":\"eu.chargetime.ocpp\"}"));
+    assertThat(json, containsString("\"name\":\"StartTransaction\",\"kind\":2"));
+    assertThat(json, containsString("\"stringValue\":\"id \\\"1\\\"\""));
+    for (String span :
+        new String[] {"parse", "dispatch.queue", "decode", "handler.queue", "handler", "send"}) {
+      assertThat(json, containsString("\"name\":\"" + span + "\",\"kind\":1"));
+    }
+  }
+}
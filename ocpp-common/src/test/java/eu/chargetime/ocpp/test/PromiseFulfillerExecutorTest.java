@@ -0,0 +1,221 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import eu.chargetime.ocpp.AsyncPromiseFulfillerDecorator;
+import eu.chargetime.ocpp.PromiseFulfiller;
+import eu.chargetime.ocpp.PromiseFulfillerExecutor;
+import eu.chargetime.ocpp.SessionEvents;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.TestRequest;
+import eu.chargetime.ocpp.utilities.VirtualThreads;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Test;
+
+public class PromiseFulfillerExecutorTest {
+
+  private PromiseFulfillerExecutor sut;
+
+  @After
+  public void tearDown() {
+    if (sut != null) sut.shutdown();
+  }
+
+  @Test
+  public void sessionExecutor_queueFull_rejectsAndCounts() throws Exception {
+    // Given
+    sut = new PromiseFulfillerExecutor(1, 1, false);
+    Executor executor = sut.sessionExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> block(started, release));
+    started.await(5, TimeUnit.SECONDS);
+    executor.execute(() -> {});
+
+    // When
+    RejectedExecutionException rejection = null;
+    try {
+      executor.execute(() -> {});
+    } catch (RejectedExecutionException ex) {
+      rejection = ex;
+    }
+
+    // Then
+    release.countDown();
+    assertThat(rejection != null, is(true));
+    assertThat(sut.getRejectedCount(), is(1L));
+    assertThat(sut.getQueueDepth() <= 1, is(true));
+  }
+
+  @Test
+  public void sessionExecutor_fair_takesTurnsBetweenSessions() throws Exception {
+    // Given
+    sut = new PromiseFulfillerExecutor(1, 10, true);
+    Executor sessionA = sut.sessionExecutor();
+    Executor sessionB = sut.sessionExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(4);
+    List<String> order = new CopyOnWriteArrayList<>();
+    sut.sessionExecutor().execute(() -> block(started, release));
+    started.await(5, TimeUnit.SECONDS);
+
+    // When
+    for (String task : Arrays.asList("a1", "a2", "a3")) {
+      sessionA.execute(() -> record(order, task, done));
+    }
+    sessionB.execute(() -> record(order, "b1", done));
+    assertThat(sut.getQueueDepth(), is(4));
+    release.countDown();
+
+    // Then
+    assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(order, is(Arrays.asList("a1", "b1", "a2", "a3")));
+  }
+
+  @Test
+  public void sessionExecutor_fairDrainRejected_failsPendingRequestsAndReleasesSlots()
+      throws Exception {
+    // Given
+    sut = new PromiseFulfillerExecutor(1, 10, true);
+    Executor session = sut.sessionExecutor();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    session.execute(() -> block(started, release));
+    started.await(5, TimeUnit.SECONDS);
+    AsyncPromiseFulfillerDecorator decorator =
+        new AsyncPromiseFulfillerDecorator(mock(PromiseFulfiller.class), session);
+    CompletableFuture<Confirmation> promise = new CompletableFuture<>();
+    decorator.fulfill(promise, mock(SessionEvents.class), new TestRequest());
+
+    // When
+    sut.shutdown();
+    release.countDown();
+
+    // Then
+    try {
+      promise.get(5, TimeUnit.SECONDS);
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+    assertThat(promise.isCompletedExceptionally(), is(true));
+    assertThat(sut.getQueueDepth(), is(0));
+    assertThat(sut.getRejectedCount(), is(1L));
+  }
+
+  @Test
+  public void fulfill_executorRejects_completesPromiseWithRejection() throws Exception {
+    // Given
+    AsyncPromiseFulfillerDecorator decorator =
+        new AsyncPromiseFulfillerDecorator(
+            mock(PromiseFulfiller.class),
+            task -> {
+              throw new RejectedExecutionException("full");
+            });
+    CompletableFuture<Confirmation> promise = new CompletableFuture<>();
+
+    // When
+    decorator.fulfill(promise, mock(SessionEvents.class), new TestRequest());
+
+    // Then
+    assertThat(promise.isCompletedExceptionally(), is(true));
+    try {
+      promise.get();
+    } catch (ExecutionException ex) {
+      assertThat(ex.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+  }
+
+  @Test
+  public void virtualThreads_isAvailable_matchesJavaVersion() {
+    assertThat(VirtualThreads.isAvailable(), is(javaVersion() >= 21));
+  }
+
+  @Test
+  public void virtualThreads_newExecutor_presentWhenAvailable() {
+    Optional<ExecutorService> executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+    executor.ifPresent(ExecutorService::shutdown);
+    assertThat(executor.isPresent(), is(VirtualThreads.isAvailable()));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void virtualThreads_beforeJava21_throws() {
+    Assume.assumeTrue(javaVersion() < 21);
+
+    PromiseFulfillerExecutor.virtualThreads(10, false);
+  }
+
+  @Test
+  public void virtualThreads_onJava21_runsTasks() throws Exception {
+    Assume.assumeTrue(javaVersion() >= 21);
+    // Given
+    sut = PromiseFulfillerExecutor.virtualThreads(10, false);
+    CountDownLatch done = new CountDownLatch(1);
+
+    // When
+    sut.sessionExecutor().execute(done::countDown);
+
+    // Then
+    assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(sut.isVirtual(), is(true));
+  }
+
+  private static int javaVersion() {
+    String version = System.getProperty("java.specification.version");
+    return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+  }
+
+  private static void block(CountDownLatch started, CountDownLatch release) {
+    started.countDown();
+    try {
+      release.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void record(List<String> order, String task, CountDownLatch done) {
+    order.add(task);
+    done.countDown();
+  }
+}
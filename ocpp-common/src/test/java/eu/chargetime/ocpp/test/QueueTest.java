@@ -3,10 +3,17 @@ package eu.chargetime.ocpp.test;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+import eu.chargetime.ocpp.MessageIdGenerator;
 import eu.chargetime.ocpp.Queue;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Request;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -108,4 +115,61 @@ public class QueueTest {
     // Then
     assertThat(result, is(Optional.empty()));
   }
+
+  @Test
+  public void store_customIdGenerator_ticketFromGenerator() {
+    // Given
+    queue = new Queue(() -> "custom id");
+
+    // When
+    String ticket = queue.store(mock(Request.class));
+
+    // Then
+    assertThat(ticket, is("custom id"));
+  }
+
+  @Test
+  public void sequentialIdGenerator_manyIds_uniqueAndShort() {
+    // Given
+    MessageIdGenerator generator = MessageIdGenerator.sequential();
+    Set<String> ids = new HashSet<>();
+
+    // When
+    for (int i = 0; i < 10000; i++) {
+      ids.add(generator.nextId());
+    }
+
+    // Then
+    assertThat(ids.size(), is(10000));
+    assertThat(ids.stream().allMatch(id -> id.length() <= MessageIdGenerator.MAX_LENGTH), is(true));
+  }
+
+  @Test
+  public void randomIdGenerator_nextId_isVersion4Uuid() {
+    // When
+    String id = MessageIdGenerator.random().nextId();
+
+    // Then
+    UUID uuid = UUID.fromString(id);
+    assertThat(id.length(), is(MessageIdGenerator.MAX_LENGTH));
+    assertThat(uuid.version(), is(4));
+    assertThat(uuid.variant(), is(2));
+  }
+
+  @Test
+  public void storeAndRestore_withMetrics_queuedRequestsAreCounted() {
+    // Given
+    OcppMetrics metrics = mock(OcppMetrics.class);
+    queue.setMetrics(metrics);
+    String ticket = queue.store(mock(Request.class));
+
+    // When
+    queue.restoreRequest(ticket);
+    queue.restoreRequest(ticket);
+    queue.removeRequest(ticket);
+
+    // Then
+    verify(metrics).adjust(OcppMetrics.Gauge.QUEUED_REQUESTS, 1);
+    verify(metrics, times(1)).adjust(OcppMetrics.Gauge.QUEUED_REQUESTS, -1);
+  }
 }
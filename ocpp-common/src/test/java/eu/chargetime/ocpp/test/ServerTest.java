@@ -8,14 +8,23 @@ import static org.mockito.Mockito.*;
 
 import eu.chargetime.ocpp.*;
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.SessionInformation;
 import eu.chargetime.ocpp.model.TestConfirmation;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import org.junit.Before;
 import org.junit.Test;
@@ -117,6 +126,24 @@ public class ServerTest {
     verify(serverEvents, times(1)).newSession(any(UUID.class), eq(information));
   }
 
+  @Test
+  public void newSessionAndConnectionClosed_withMetrics_sessionsPerProtocolAreCounted() {
+    // Given
+    OcppMetrics metrics = mock(OcppMetrics.class);
+    when(featureRepository.getProtocolVersion()).thenReturn(ProtocolVersion.OCPP2_0_1);
+    server.setMetrics(metrics);
+    server.open(LOCALHOST, PORT, serverEvents);
+    listenerEvents.newSession(session, information);
+
+    // When
+    sessionEvents.handleConnectionClosed();
+    sessionEvents.handleConnectionClosed();
+
+    // Then
+    verify(metrics).sessionOpened(ProtocolVersion.OCPP2_0_1);
+    verify(metrics, times(1)).sessionClosed(ProtocolVersion.OCPP2_0_1);
+  }
+
   @Test
   public void send_aMessage_isCommunicated() throws Exception {
     // Given
@@ -132,6 +159,51 @@ public class ServerTest {
         .sendRequest(nullable(String.class), eq(request), nullable(String.class));
   }
 
+  @Test
+  public void send_noConfirmationInTime_completesWithRequestTimeoutAndCleansUp() throws Exception {
+    // Given
+    when(feature.getAction()).thenReturn("RemoteStartTransaction");
+    server.setRequestTimeouts(
+        RequestTimeouts.of(Duration.ofHours(1))
+            .withAction("RemoteStartTransaction", Duration.ofMillis(50)));
+    server.open(LOCALHOST, PORT, serverEvents);
+    listenerEvents.newSession(session, information);
+
+    // When
+    CompletableFuture<Confirmation> promise = server.send(sessionIndex, request);
+
+    // Then
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> promise.get(5, TimeUnit.SECONDS));
+    assertThat(exception.getCause() instanceof RequestTimeoutException, is(true));
+    // cleanup runs on the timeouts' executor after the promise completes
+    verify(session, timeout(1000).times(1)).removeRequest(anyString());
+    verify(promiseRepository, timeout(1000).times(1)).removePromise(anyString());
+  }
+
+  @Test
+  public void send_noConfirmationInTime_completesOnTimeoutsExecutor() throws Exception {
+    // Given
+    ExecutorService executor =
+        Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "test-timeouts"));
+    when(feature.getAction()).thenReturn("RemoteStartTransaction");
+    server.setRequestTimeouts(RequestTimeouts.of(Duration.ofMillis(50)).withExecutor(executor));
+    server.open(LOCALHOST, PORT, serverEvents);
+    listenerEvents.newSession(session, information);
+
+    // When
+    CompletableFuture<Confirmation> promise = server.send(sessionIndex, request);
+    CompletableFuture<String> completedOn =
+        promise.handle((confirmation, throwable) -> Thread.currentThread().getName());
+
+    // Then
+    try {
+      assertThat(completedOn.get(5, TimeUnit.SECONDS), is("test-timeouts"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   @Test
   public void handleRequest_callsFeatureHandleRequest() throws UnsupportedFeatureException {
     // Given
@@ -145,6 +217,20 @@ public class ServerTest {
     verify(feature, times(1)).handleRequest(any(UUID.class), eq(request));
   }
 
+  @Test
+  public void handleRequest_withResolvedFeature_skipsFeatureLookup() throws Exception {
+    // Given
+    server.open(LOCALHOST, PORT, serverEvents);
+    listenerEvents.newSession(session, information);
+
+    // When
+    sessionEvents.handleRequest(feature, request);
+
+    // Then
+    verify(feature, times(1)).handleRequest(any(UUID.class), eq(request));
+    verify(featureRepository, never()).findFeature(any());
+  }
+
   @Test
   public void send_aMessage_validatesMessage() throws Exception {
     // Given
@@ -229,4 +315,136 @@ public class ServerTest {
     verify(session, times(1)).removeRequest(any());
     verify(promiseRepository, times(1)).removePromise(any());
   }
+
+  @Test
+  public void broadcast_manySessions_validatesAndPacksOnce() throws Exception {
+    // Given
+    server.open(LOCALHOST, PORT, serverEvents);
+    Session first = connectSession("{\"key\":\"value\"}");
+    Session second = connectSession("{\"key\":\"value\"}");
+    List<UUID> sessionIndexes = Arrays.asList(first.getSessionId(), second.getSessionId());
+
+    // When
+    Broadcast broadcast = server.broadcast(sessionIndexes, request, 0);
+
+    // Then
+    verify(first, timeout(1000))
+        .sendRequest(nullable(String.class), eq(request), eq("{\"key\":\"value\"}"), anyString());
+    verify(second, timeout(1000))
+        .sendRequest(nullable(String.class), eq(request), eq("{\"key\":\"value\"}"), anyString());
+    verify(request, times(1)).validate();
+    verify(featureRepository, times(1)).findFeature(request);
+    verify(first, times(1)).packSharedPayload(request);
+    verify(second, never()).packSharedPayload(any());
+    assertThat(broadcast.size(), is(2));
+  }
+
+  @Test
+  public void broadcast_confirmedTimedOutAndDisconnected_areCounted() throws Exception {
+    // Given
+    when(feature.getAction()).thenReturn("ChangeConfiguration");
+    server.setRequestTimeouts(RequestTimeouts.of(Duration.ofMillis(50)));
+    server.open(LOCALHOST, PORT, serverEvents);
+    CompletableFuture<Confirmation> confirmed = new CompletableFuture<>();
+    when(promiseRepository.createPromise(any()))
+        .thenReturn(confirmed)
+        .thenReturn(new CompletableFuture<>());
+    Session answering = connectSession(null);
+    Session silent = connectSession(null);
+    UUID disconnected = UUID.randomUUID();
+    TestConfirmation confirmation = new TestConfirmation();
+    confirmed.complete(confirmation);
+
+    // When
+    Broadcast broadcast =
+        server.broadcast(
+            Arrays.asList(answering.getSessionId(), silent.getSessionId(), disconnected),
+            request,
+            0);
+    broadcast.whenDone().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+    // Then
+    assertThat(broadcast.getSent(), is(2));
+    assertThat(broadcast.getSucceeded(), is(1));
+    assertThat(broadcast.getTimedOut(), is(1));
+    assertThat(broadcast.getFailed(), is(1));
+    assertThat(broadcast.getPending(), is(0));
+    assertThat(broadcast.getPromise(answering.getSessionId()).get(), is(confirmation));
+    ExecutionException exception =
+        assertThrows(ExecutionException.class, () -> broadcast.getPromise(disconnected).get());
+    assertThat(exception.getCause() instanceof NotConnectedException, is(true));
+    // without a shared payload the request is packed per session
+    verify(answering, times(1)).sendRequest(nullable(String.class), eq(request), anyString());
+  }
+
+  @Test
+  public void broadcast_withRateLimit_spreadsRequestsOverTime() throws Exception {
+    // Given
+    server.open(LOCALHOST, PORT, serverEvents);
+    List<UUID> sessionIndexes = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      sessionIndexes.add(connectSession(null).getSessionId());
+    }
+    long start = System.nanoTime();
+
+    // When
+    Broadcast broadcast = server.broadcast(sessionIndexes, request, 20);
+    while (broadcast.getSent() < sessionIndexes.size()) {
+      assertThat(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), is(true));
+      Thread.sleep(5);
+    }
+
+    // Then
+    assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190), is(true));
+  }
+
+  @Test
+  public void close_broadcastInProgress_cancelsRemainingRequests() throws Exception {
+    // Given
+    server.open(LOCALHOST, PORT, serverEvents);
+    Session first = connectSession(null);
+    Session second = connectSession(null);
+    Broadcast broadcast =
+        server.broadcast(Arrays.asList(first.getSessionId(), second.getSessionId()), request, 1);
+    verify(first, timeout(1000)).sendRequest(nullable(String.class), eq(request), anyString());
+
+    // When
+    server.close();
+
+    // Then
+    broadcast.whenDone().toCompletableFuture().get(1, TimeUnit.SECONDS);
+    assertThat(broadcast.isCancelled(), is(true));
+    assertThat(broadcast.getSent(), is(1));
+    assertThat(broadcast.getPromise(second.getSessionId()).isCancelled(), is(true));
+    Thread.sleep(1100);
+    verify(second, never()).sendRequest(nullable(String.class), any(), anyString());
+  }
+
+  @Test
+  public void broadcast_invalidRequest_throwsBeforeSending() {
+    // Given
+    when(request.validate()).thenReturn(false);
+    server.open(LOCALHOST, PORT, serverEvents);
+    listenerEvents.newSession(session, information);
+
+    // When
+    assertThrows(
+        OccurenceConstraintException.class,
+        () -> server.broadcast(Collections.singleton(sessionIndex), request, 0));
+
+    // Then
+    verify(session, never()).storeRequest(any());
+  }
+
+  private Session connectSession(Object sharedPayload) {
+    Session other = mock(Session.class);
+    when(other.getSessionId()).thenReturn(UUID.randomUUID());
+    when(other.getFeatureRepository()).thenReturn(featureRepository);
+    lenient()
+        .when(other.storeRequest(any()))
+        .thenAnswer(invocation -> UUID.randomUUID().toString());
+    lenient().when(other.packSharedPayload(any())).thenReturn(sharedPayload);
+    listenerEvents.newSession(other, information);
+    return other;
+  }
 }
@@ -0,0 +1,74 @@
+package eu.chargetime.ocpp.test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import eu.chargetime.ocpp.Communicator;
+import eu.chargetime.ocpp.IFeatureRepository;
+import eu.chargetime.ocpp.ISession;
+import eu.chargetime.ocpp.SessionFactory;
+import eu.chargetime.ocpp.model.Request;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Test;
+
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+public class SessionFactoryTest {
+
+  @Test
+  public void createSession_withMessageIdGenerator_sessionUsesGenerator() {
+    // Given
+    SessionFactory factory = new SessionFactory(mock(IFeatureRepository.class));
+    factory.setMessageIdGenerator(() -> "fixed-id");
+
+    // When
+    ISession session = factory.createSession(mock(Communicator.class));
+
+    // Then
+    assertThat(session.storeRequest(mock(Request.class)), is("fixed-id"));
+  }
+
+  @Test
+  public void createSession_manySessionsWithDefaultGenerator_idsNeverCollide() {
+    // Given
+    SessionFactory factory = new SessionFactory(mock(IFeatureRepository.class));
+    Communicator communicator = mock(Communicator.class);
+    Request request = mock(Request.class);
+    Set<String> ids = new HashSet<>();
+
+    // When
+    for (int i = 0; i < 20000; i++) {
+      ISession session = factory.createSession(communicator);
+      ids.add(session.storeRequest(request));
+      ids.add(session.storeRequest(request));
+    }
+
+    // Then
+    assertThat(ids.size(), is(40000));
+  }
+}
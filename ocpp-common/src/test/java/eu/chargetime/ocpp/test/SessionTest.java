@@ -6,15 +6,27 @@ import static org.mockito.Mockito.*;
 
 import eu.chargetime.ocpp.*;
 import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.RequestWithId;
+import eu.chargetime.ocpp.model.TestConfirmation;
 import eu.chargetime.ocpp.model.TestRequest;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import eu.chargetime.ocpp.tracing.SessionTracer;
+import eu.chargetime.ocpp.tracing.TraceRecord;
+import eu.chargetime.ocpp.tracing.TraceStage;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -209,6 +221,101 @@ public class SessionTest {
         .sendCallResult(anyString(), nullable(String.class), eq(aConfirmation));
   }
 
+  @Test
+  public void onCall_handlerGetsFeatureWithoutSecondLookup() throws Exception {
+    // Given
+    TestRequest request = new TestRequest();
+    doAnswer(invocation -> invocation.getArgument(1, SessionEvents.class).handleRequest(request))
+        .when(fulfiller)
+        .fulfill(any(), any(), any());
+    when(communicator.unpackPayload(any(), any())).thenReturn(request);
+
+    // When
+    eventHandler.onCall("Some id", "Heartbeat", null);
+
+    // Then
+    verify(sessionEvents).handleRequest(feature, request);
+    verify(sessionEvents, never()).handleRequest(any());
+    verify(featureRepository, times(1)).findFeature(any());
+  }
+
+  @Test
+  public void onCall_withMetrics_stagesAreRecorded() throws Exception {
+    // Given
+    OcppMetrics metrics = mock(OcppMetrics.class);
+    session.setMetrics(metrics);
+    doAnswer(
+            invocation -> {
+              CompletableFuture<Confirmation> promise = invocation.getArgument(0);
+              return promise.complete(new TestConfirmation());
+            })
+        .when(fulfiller)
+        .fulfill(any(), any(), any());
+    when(communicator.unpackPayload(any(), any())).thenReturn(new TestRequest());
+
+    // When
+    eventHandler.onCall("Some id", "Heartbeat", null);
+
+    // Then
+    verify(queue).setMetrics(metrics);
+    verify(communicator).setMetrics(metrics);
+    verify(metrics).latency(eq(OcppMetrics.Stage.DECODE), eq("Heartbeat"), anyLong());
+    verify(metrics).latency(eq(OcppMetrics.Stage.VALIDATE), eq("Heartbeat"), anyLong());
+    verify(metrics).latency(eq(OcppMetrics.Stage.HANDLER), eq("Heartbeat"), anyLong());
+  }
+
+  @Test
+  public void onCall_withTracing_stagesAreTimestamped() throws Exception {
+    // Given
+    List<TraceRecord> exported = new ArrayList<>();
+    MessageTracing tracing = new MessageTracing(1, exported::addAll);
+    session.setTracing(tracing);
+    ArgumentCaptor<SessionTracer> tracer = ArgumentCaptor.forClass(SessionTracer.class);
+    verify(communicator).setTracer(tracer.capture());
+    session.open(null, sessionEvents);
+    eventHandler.onConnected();
+    doAnswer(
+            invocation -> {
+              Request request = invocation.getArgument(2, Request.class);
+              invocation.getArgument(1, SessionEvents.class).handleRequest(request);
+              CompletableFuture<Confirmation> promise = invocation.getArgument(0);
+              return promise.complete(new TestConfirmation());
+            })
+        .when(fulfiller)
+        .fulfill(any(), any(), any());
+    when(communicator.unpackPayload(any(), any())).thenReturn(new TestRequest());
+    tracer.getValue().begin("Some id", "Heartbeat", System.nanoTime());
+
+    // When
+    eventHandler.onCall("Some id", "Heartbeat", null);
+    tracing.close();
+
+    // Then
+    assertThat(exported.size(), equalTo(1));
+    for (TraceStage stage : TraceStage.values()) {
+      assertThat(stage.name(), exported.get(0).getEpochNanos(stage) > 0, equalTo(true));
+    }
+    verify(sessionEvents).handleRequest(eq(feature), any());
+  }
+
+  @Test
+  public void onCallResult_withMetrics_stagesAreRecordedForActionOfRequest() throws Exception {
+    // Given
+    OcppMetrics metrics = mock(OcppMetrics.class);
+    session.setMetrics(metrics);
+    when(queue.restoreRequest("Some id")).thenReturn(Optional.of(new TestRequest()));
+    when(feature.getAction()).thenReturn("Heartbeat");
+    when(communicator.unpackPayload(any(), any())).thenReturn(new TestConfirmation());
+
+    // When
+    eventHandler.onCallResult("Some id", null, null);
+
+    // Then
+    verify(metrics).latency(eq(OcppMetrics.Stage.DECODE), eq("Heartbeat"), anyLong());
+    verify(metrics).latency(eq(OcppMetrics.Stage.VALIDATE), eq("Heartbeat"), anyLong());
+    verify(sessionEvents).handleConfirmation(eq("Some id"), any());
+  }
+
   @Test
   public void onCall_callbackThrowsException_callSendCallResult() throws Exception {
     // Given
@@ -231,6 +338,28 @@ public class SessionTest {
         .sendCallError(eq(someId), nullable(String.class), anyString(), anyString());
   }
 
+  @Test
+  public void onCall_fulfillerRejects_callSendCallErrorWithInternalError() throws Exception {
+    // Given
+    String someId = "Some id";
+    doAnswer(
+            invocation ->
+                invocation
+                    .getArgument(0, CompletableFuture.class)
+                    .completeExceptionally(new RejectedExecutionException()))
+        .when(fulfiller)
+        .fulfill(any(), any(), any());
+    when(communicator.unpackPayload(any(), any())).thenReturn(new TestRequest());
+
+    // When
+    eventHandler.onCall(someId, null, null);
+
+    // Then
+    verify(communicator, times(1))
+        .sendCallError(
+            eq(someId), nullable(String.class), eq("InternalError"), contains("overloaded"));
+  }
+
   @Test
   public void close_disconnects() {
     // When
@@ -254,4 +383,29 @@ public class SessionTest {
     verify(communicator, times(1))
         .sendCallError(eq(someId), nullable(String.class), anyString(), anyString());
   }
+
+  @Test
+  public void onCall_dispatchExecutor_handledOnExecutorInOrder() {
+    // Given
+    ArrayDeque<Runnable> scheduled = new ArrayDeque<>();
+    Session dispatchingSession =
+        new Session(communicator, queue, fulfiller, featureRepository, scheduled::add);
+    dispatchingSession.open(null, sessionEvents);
+    when(featureRepository.findFeature(any())).thenReturn(Optional.empty());
+
+    // When
+    eventHandler.onCall("first", null, null);
+    eventHandler.onCall("second", null, null);
+
+    // Then
+    verify(communicator, never()).sendCallError(any(), any(), any(), any());
+    scheduled.forEach(Runnable::run);
+    InOrder inOrder = inOrder(communicator);
+    inOrder
+        .verify(communicator)
+        .sendCallError(eq("first"), nullable(String.class), anyString(), anyString());
+    inOrder
+        .verify(communicator)
+        .sendCallError(eq("second"), nullable(String.class), anyString(), anyString());
+  }
 }
@@ -0,0 +1,132 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.utilities.TimeoutTimer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimeoutTimerTest {
+
+  private ScheduledThreadPoolExecutor scheduler;
+
+  @Before
+  public void setup() {
+    scheduler = (ScheduledThreadPoolExecutor) TimeoutTimer.createScheduler("test-timeout");
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void begin_timeoutElapses_callsHandler() throws Exception {
+    // Given
+    CountDownLatch timedOut = new CountDownLatch(1);
+    TimeoutTimer timer = new TimeoutTimer(10, timedOut::countDown, scheduler);
+
+    // When
+    timer.begin();
+
+    // Then
+    assertThat(timedOut.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void end_beforeTimeout_handlerNotCalled() throws Exception {
+    // Given
+    AtomicInteger timeouts = new AtomicInteger();
+    TimeoutTimer timer = new TimeoutTimer(50, timeouts::incrementAndGet, scheduler);
+    timer.begin();
+
+    // When
+    timer.end();
+    Thread.sleep(150);
+
+    // Then
+    assertThat(timeouts.get(), is(0));
+  }
+
+  @Test
+  public void reset_withinTimeout_postponesTimeout() throws Exception {
+    // Given
+    CountDownLatch timedOut = new CountDownLatch(1);
+    TimeoutTimer timer = new TimeoutTimer(200, timedOut::countDown, scheduler);
+    timer.begin();
+
+    // When
+    for (int i = 0; i < 6; i++) {
+      Thread.sleep(50);
+      timer.reset();
+    }
+
+    // Then
+    assertThat(timedOut.getCount(), is(1L));
+    assertThat(timedOut.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void setTimeout_shorterWhileRunning_timesOutSooner() throws Exception {
+    // Given
+    CountDownLatch timedOut = new CountDownLatch(1);
+    TimeoutTimer timer = new TimeoutTimer(60_000, timedOut::countDown, scheduler);
+    timer.begin();
+
+    // When
+    timer.setTimeout(10);
+
+    // Then
+    assertThat(timedOut.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void reset_manyTimers_shareOneThreadAndScheduleOnceEach() {
+    // Given
+    TimeoutTimer[] timers = new TimeoutTimer[1000];
+    for (int i = 0; i < timers.length; i++) {
+      timers[i] = new TimeoutTimer(60_000, () -> {}, scheduler);
+      timers[i].begin();
+    }
+
+    // When
+    for (int round = 0; round < 10; round++) {
+      for (TimeoutTimer timer : timers) timer.reset();
+    }
+
+    // Then
+    assertThat(scheduler.getQueue().size(), is(timers.length));
+    assertThat(scheduler.getPoolSize(), is(1));
+  }
+}
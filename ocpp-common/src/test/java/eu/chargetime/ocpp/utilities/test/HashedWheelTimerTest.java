@@ -0,0 +1,94 @@
+package eu.chargetime.ocpp.utilities.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.utilities.HashedWheelTimer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class HashedWheelTimerTest {
+
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 8);
+
+  @After
+  public void tearDown() {
+    timer.stop();
+  }
+
+  @Test
+  public void newTimeout_afterDelay_runsTask() throws Exception {
+    // Given
+    CountDownLatch fired = new CountDownLatch(1);
+    long start = System.nanoTime();
+
+    // When
+    HashedWheelTimer.Timeout timeout =
+        timer.newTimeout(fired::countDown, 50, TimeUnit.MILLISECONDS);
+
+    // Then
+    assertThat(fired.await(5, TimeUnit.SECONDS), is(true));
+    assertThat(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50), is(true));
+    assertThat(timeout.isExpired(), is(true));
+    assertThat(timer.pendingTimeouts(), is(0));
+  }
+
+  @Test
+  public void newTimeout_delayLongerThanOneRound_runsTask() throws Exception {
+    // Given
+    CountDownLatch fired = new CountDownLatch(1);
+
+    // When
+    timer.newTimeout(fired::countDown, 250, TimeUnit.MILLISECONDS);
+
+    // Then
+    assertThat(fired.await(100, TimeUnit.MILLISECONDS), is(false));
+    assertThat(fired.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void cancel_beforeDelay_taskNeverRuns() throws Exception {
+    // Given
+    AtomicInteger runs = new AtomicInteger();
+    HashedWheelTimer.Timeout timeout =
+        timer.newTimeout(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+
+    // When
+    boolean cancelled = timeout.cancel();
+
+    // Then
+    Thread.sleep(100);
+    assertThat(cancelled, is(true));
+    assertThat(runs.get(), is(0));
+    assertThat(timer.pendingTimeouts(), is(0));
+  }
+}
@@ -0,0 +1,169 @@
+package eu.chargetime.ocpp.utilities.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.utilities.SerialExecutor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+  @Test
+  public void execute_tasks_runInSubmissionOrder() {
+    // Given
+    ArrayDeque<Runnable> pool = new ArrayDeque<>();
+    SerialExecutor executor = new SerialExecutor(pool::add);
+    List<Integer> result = new ArrayList<>();
+
+    // When
+    executor.execute(() -> result.add(1));
+    executor.execute(() -> result.add(2));
+    executor.execute(() -> result.add(3));
+
+    // Then
+    assertThat(pool.size(), is(1));
+    pool.poll().run();
+    assertThat(result, is(Arrays.asList(1, 2, 3)));
+    assertThat(executor.isBusy(), is(false));
+  }
+
+  @Test
+  public void execute_moreTasksThanBatchSize_yieldsAndReschedules() {
+    // Given
+    ArrayDeque<Runnable> pool = new ArrayDeque<>();
+    SerialExecutor executor = new SerialExecutor(pool::add, 2);
+    AtomicInteger counter = new AtomicInteger();
+    for (int i = 0; i < 3; i++) executor.execute(counter::incrementAndGet);
+
+    // When
+    pool.poll().run();
+
+    // Then
+    assertThat(counter.get(), is(2));
+    assertThat(pool.size(), is(1));
+    pool.poll().run();
+    assertThat(counter.get(), is(3));
+  }
+
+  @Test
+  public void execute_rescheduleRejected_handsWaitingTasksToHandler() {
+    // Given
+    ArrayDeque<Runnable> pool = new ArrayDeque<>();
+    AtomicBoolean shutdown = new AtomicBoolean();
+    List<Runnable> rejected = new ArrayList<>();
+    SerialExecutor executor =
+        new SerialExecutor(
+            task -> {
+              if (shutdown.get()) throw new RejectedExecutionException("shut down");
+              pool.add(task);
+            },
+            1,
+            (task, ex) -> rejected.add(task));
+    Runnable first = () -> {};
+    Runnable second = () -> {};
+    executor.execute(first);
+    executor.execute(second);
+
+    // When
+    shutdown.set(true);
+    pool.poll().run();
+
+    // Then
+    assertThat(rejected, is(Collections.singletonList(second)));
+    assertThat(executor.isBusy(), is(false));
+  }
+
+  @Test
+  public void execute_taskThrows_laterTasksStillRun() {
+    // Given
+    ArrayDeque<Runnable> pool = new ArrayDeque<>();
+    SerialExecutor executor = new SerialExecutor(pool::add);
+    AtomicInteger counter = new AtomicInteger();
+
+    // When
+    executor.execute(
+        () -> {
+          throw new IllegalStateException();
+        });
+    executor.execute(counter::incrementAndGet);
+    pool.poll().run();
+
+    // Then
+    assertThat(counter.get(), is(1));
+  }
+
+  @Test
+  public void execute_concurrentProducers_neverRunsTasksConcurrently() throws Exception {
+    // Given
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    SerialExecutor executor = new SerialExecutor(pool);
+    AtomicInteger running = new AtomicInteger();
+    List<Integer> overlaps = Collections.synchronizedList(new ArrayList<>());
+    int producers = 4;
+    int tasksPerProducer = 1000;
+    CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+
+    // When
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      threads[p] =
+          new Thread(
+              () -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                  executor.execute(
+                      () -> {
+                        if (running.incrementAndGet() > 1) overlaps.add(1);
+                        running.decrementAndGet();
+                        done.countDown();
+                      });
+                }
+              });
+      threads[p].start();
+    }
+
+    // Then
+    try {
+      assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+      assertThat(overlaps.isEmpty(), is(true));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
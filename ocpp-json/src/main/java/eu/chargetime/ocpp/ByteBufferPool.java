@@ -0,0 +1,74 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded free list of equally sized direct buffers, so frames can be encoded off heap without
+ * paying for a direct allocation per frame. Frames which don't fit a buffer are not pooled.
+ */
+final class ByteBufferPool {
+
+  static final int BUFFER_SIZE = 8 * 1024;
+  static final int DEFAULT_CAPACITY = 256;
+
+  private static final ByteBufferPool SHARED = new ByteBufferPool(BUFFER_SIZE, DEFAULT_CAPACITY);
+
+  private final int bufferSize;
+  private final BlockingQueue<ByteBuffer> buffers;
+
+  ByteBufferPool(int bufferSize, int capacity) {
+    this.bufferSize = bufferSize;
+    buffers = new ArrayBlockingQueue<>(capacity);
+  }
+
+  static ByteBufferPool shared() {
+    return SHARED;
+  }
+
+  int getBufferSize() {
+    return bufferSize;
+  }
+
+  /** @return a cleared buffer of {@link #getBufferSize()} bytes. */
+  ByteBuffer take() {
+    ByteBuffer buffer = buffers.poll();
+    return buffer != null ? buffer : ByteBuffer.allocateDirect(bufferSize);
+  }
+
+  /** Hand back a buffer from {@link #take()}, it is dropped when the pool is full. */
+  void release(ByteBuffer buffer) {
+    buffer.clear();
+    buffers.offer(buffer);
+  }
+
+  int idle() {
+    return buffers.size();
+  }
+}
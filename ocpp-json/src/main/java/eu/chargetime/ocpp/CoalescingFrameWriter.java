@@ -0,0 +1,237 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.TextFrame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gathers the frames sent on one WebSocket connection within a short window and hands them to the
+ * socket as one buffer. A busy connection with {@link JSONConfiguration#TCP_NO_DELAY_PARAMETER} on
+ * then writes a few full TCP segments instead of one small segment per message.
+ *
+ * <p>Frames are encoded, and compressed if negotiated, as they are sent, so the caller may recycle
+ * its buffers right away and frames keep their send order. The encoded frames wait in a bounded
+ * queue until the window ends. A sender that fills the queue, in frames or bytes, flushes it on its
+ * own thread, so the writer never holds more than the cap and the fastest producer pays for the
+ * write. Control frames of the WebSocket library, such as pings, bypass the queue.
+ *
+ * <p>This is batching, not backpressure. A flushed batch joins the out queue of the WebSocket
+ * library, which is unbounded as it is for messages sent without coalescing, so a producer that is
+ * faster than the socket still grows memory there.
+ */
+public final class CoalescingFrameWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(CoalescingFrameWriter.class);
+
+  public static final int DEFAULT_MAX_BYTES = 64 * 1024;
+  private static final int MAX_FRAMES = 64;
+
+  private final WebSocketImpl webSocket;
+  private final long windowNanos;
+  private final int maxBytes;
+  @Nullable private final WriteCoalescingStatistics statistics;
+  private final ScheduledExecutorService scheduler;
+  private final ByteBuffer[] queue = new ByteBuffer[MAX_FRAMES];
+  private int queuedFrames;
+  private int queuedBytes;
+  private boolean flushScheduled;
+
+  private CoalescingFrameWriter(
+      WebSocketImpl webSocket,
+      long windowNanos,
+      int maxBytes,
+      @Nullable WriteCoalescingStatistics statistics,
+      ScheduledExecutorService scheduler) {
+    this.webSocket = webSocket;
+    this.windowNanos = windowNanos;
+    this.maxBytes = maxBytes;
+    this.statistics = statistics;
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Create a writer as configured with {@link JSONConfiguration#WRITE_COALESCING_WINDOW_IN_MICROS},
+   * {@link JSONConfiguration#WRITE_COALESCING_MAX_BYTES} and {@link
+   * JSONConfiguration#WRITE_COALESCING_STATISTICS}.
+   *
+   * @param webSocket the connection to write to.
+   * @param configuration the configuration.
+   * @return the writer, or null if coalescing is off or not supported by the connection.
+   */
+  @Nullable
+  public static CoalescingFrameWriter fromConfiguration(
+      WebSocket webSocket, JSONConfiguration configuration) {
+    int windowMicros =
+        configuration.getParameter(JSONConfiguration.WRITE_COALESCING_WINDOW_IN_MICROS, 0);
+    if (windowMicros <= 0) {
+      return null;
+    }
+    if (!(webSocket instanceof WebSocketImpl)) {
+      logger.warn("Write coalescing is not supported by {}", webSocket.getClass());
+      return null;
+    }
+    int maxBytes =
+        configuration.getParameter(JSONConfiguration.WRITE_COALESCING_MAX_BYTES, DEFAULT_MAX_BYTES);
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException(
+          "Write coalescing max bytes must be positive: " + maxBytes);
+    }
+    return new CoalescingFrameWriter(
+        (WebSocketImpl) webSocket,
+        TimeUnit.MICROSECONDS.toNanos(windowMicros),
+        maxBytes,
+        configuration.getParameter(JSONConfiguration.WRITE_COALESCING_STATISTICS),
+        SchedulerHolder.INSTANCE);
+  }
+
+  /**
+   * Queue a text message.
+   *
+   * @param message the message.
+   * @throws WebsocketNotConnectedException if the connection isn't open.
+   */
+  public void send(String message) {
+    TextFrame frame = new TextFrame();
+    frame.setPayload(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    frame.setFin(true);
+    send(frame);
+  }
+
+  /**
+   * Queue a frame. It is encoded before this method returns.
+   *
+   * @param frame the frame.
+   * @throws WebsocketNotConnectedException if the connection isn't open.
+   */
+  public synchronized void send(Framedata frame) {
+    if (!webSocket.isOpen()) {
+      throw new WebsocketNotConnectedException();
+    }
+
+    ByteBuffer encoded = webSocket.getDraft().createBinaryFrame(frame);
+    int length = encoded.remaining();
+    if (queuedFrames == MAX_FRAMES || (queuedFrames > 0 && queuedBytes + length > maxBytes)) {
+      flushQueue();
+    }
+    queue[queuedFrames++] = encoded;
+    queuedBytes += length;
+    if (statistics != null) {
+      statistics.enqueued(queuedFrames, length);
+    }
+
+    if (queuedBytes >= maxBytes) {
+      flushQueue();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      scheduler.schedule(this::scheduledFlush, windowNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Hand all queued frames to the socket now, e.g. before closing the connection. */
+  public synchronized void flush() {
+    flushQueue();
+  }
+
+  /** @return number of frames waiting for the flush. */
+  public synchronized int getQueuedFrames() {
+    return queuedFrames;
+  }
+
+  /** @return number of encoded bytes waiting for the flush. */
+  public synchronized int getQueuedBytes() {
+    return queuedBytes;
+  }
+
+  private synchronized void scheduledFlush() {
+    flushScheduled = false;
+    flushQueue();
+  }
+
+  private void flushQueue() {
+    if (queuedFrames == 0) {
+      return;
+    }
+
+    int frames = queuedFrames;
+    int bytes = queuedBytes;
+    ByteBuffer batch;
+    if (frames == 1) {
+      batch = queue[0];
+    } else {
+      batch = ByteBuffer.allocate(bytes);
+      for (int i = 0; i < frames; i++) {
+        batch.put(queue[i]);
+      }
+      batch.flip();
+    }
+    Arrays.fill(queue, 0, frames, null);
+    queuedFrames = 0;
+    queuedBytes = 0;
+
+    if (!webSocket.isOpen()) {
+      logger.debug("Connection closed, dropping {} queued frames", frames);
+      if (statistics != null) {
+        statistics.dropped(frames, bytes);
+      }
+      return;
+    }
+
+    // The library writes every buffer of the queue with its own system call. One buffer holding
+    // the whole batch is what turns the frames into one write.
+    webSocket.outQueue.add(batch);
+    webSocket.getWebSocketListener().onWriteDemand(webSocket);
+    if (statistics != null) {
+      statistics.flushed(frames, bytes);
+    }
+  }
+
+  private static final class SchedulerHolder {
+    private static final ScheduledExecutorService INSTANCE = createScheduler();
+
+    private static ScheduledExecutorService createScheduler() {
+      return new ScheduledThreadPoolExecutor(
+          1,
+          runnable -> {
+            Thread thread = new Thread(runnable, "ocpp-write-coalescing");
+            thread.setDaemon(true);
+            return thread;
+          });
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+import org.java_websocket.framing.TextFrame;
+
+/**
+ * An OCPP-J frame already encoded to UTF-8, usually in a pooled direct buffer.
+ *
+ * <p>Radios which know this type send the bytes as a text frame as they are, all others send {@link
+ * #toString()}. The buffer goes back to its pool once every holder called {@link #release()}, the
+ * creator holds the first reference. To send one message on several connections, {@link #retain()}
+ * it per connection or release it after the last one. A message which is never released is simply
+ * collected.
+ */
+public final class EncodedMessage {
+
+  private final ByteBuffer buffer;
+  @Nullable private final ByteBufferPool pool;
+  private final AtomicInteger references = new AtomicInteger(1);
+
+  /**
+   * @param buffer the encoded frame between position and limit.
+   * @param pool where the buffer goes once released, null if it is not pooled.
+   */
+  EncodedMessage(ByteBuffer buffer, @Nullable ByteBufferPool pool) {
+    this.buffer = buffer;
+    this.pool = pool;
+  }
+
+  /**
+   * Wrap an already encoded frame.
+   *
+   * @param utf8 the frame, not copied.
+   * @return the message.
+   */
+  public static EncodedMessage wrap(byte[] utf8) {
+    return new EncodedMessage(ByteBuffer.wrap(utf8), null);
+  }
+
+  /** @return a read-only view of the encoded frame with its own position. */
+  public ByteBuffer payload() {
+    return buffer.asReadOnlyBuffer();
+  }
+
+  /** @return the size of the encoded frame in bytes. */
+  public int length() {
+    return buffer.remaining();
+  }
+
+  /** @return a text frame with the encoded bytes as its payload, ready to send. */
+  public TextFrame toFrame() {
+    TextFrame frame = new TextFrame();
+    frame.setPayload(payload());
+    frame.setFin(true);
+    return frame;
+  }
+
+  /**
+   * Take another reference for one more holder.
+   *
+   * @return this message.
+   */
+  public EncodedMessage retain() {
+    if (references.getAndIncrement() <= 0) {
+      references.decrementAndGet();
+      throw new IllegalStateException("Message has already been released");
+    }
+    return this;
+  }
+
+  /** Give up a reference, the last one hands the buffer back to its pool. */
+  public void release() {
+    int remaining = references.decrementAndGet();
+    if (remaining == 0 && pool != null) {
+      pool.release(buffer);
+    } else if (remaining < 0) {
+      references.incrementAndGet();
+      throw new IllegalStateException("Message has already been released");
+    }
+  }
+
+  /** @return the frame decoded from UTF-8. */
+  @Override
+  public String toString() {
+    return StandardCharsets.UTF_8.decode(payload()).toString();
+  }
+}
@@ -0,0 +1,46 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+/** Selects how a {@link JSONCommunicator} decodes incoming frames. */
+public enum JSONCodec {
+  /**
+   * Parse the whole frame into a tree, and keep the payload as a string which is parsed again when
+   * it's unpacked.
+   */
+  TREE,
+
+  /**
+   * Read the frame header with a streaming reader, and bind the payload directly into the target
+   * type when it's unpacked. The payload of a received message can only be unpacked once.
+   *
+   * <p>Only the frame header is checked when a frame is received. A payload that isn't valid JSON,
+   * or a frame with anything after its payload, fails when the payload is unpacked and is answered
+   * with a FormationViolation (FormatViolation in OCPP 2.x) instead of the RpcFrameworkError
+   * {@link #TREE} sends.
+   */
+  STREAMING
+}
@@ -1,18 +1,25 @@
 package eu.chargetime.ocpp;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import eu.chargetime.ocpp.model.CallErrorMessage;
 import eu.chargetime.ocpp.model.CallMessage;
 import eu.chargetime.ocpp.model.CallResultErrorMessage;
 import eu.chargetime.ocpp.model.CallResultMessage;
+import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Exclude;
 import eu.chargetime.ocpp.model.Message;
+import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.SendMessage;
+import java.io.IOException;
+import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.ResolverStyle;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,11 +90,9 @@ public class JSONCommunicator extends Communicator {
   private static final int INDEX_SEND_PAYLOAD = 3;
 
   private static final int INDEX_UNIQUEID = 1;
-  private static final String CALL_FORMAT = "[2,\"%s\",\"%s\",%s]";
-  private static final String CALLRESULT_FORMAT = "[3,\"%s\",%s]";
-  private static final String CALLERROR_FORMAT = "[4,\"%s\",\"%s\",\"%s\",%s]";
-  private static final String CALLRESULTERROR_FORMAT = "[5,\"%s\",\"%s\",\"%s\",%s]";
-  private static final String SEND_FORMAT = "[6,\"%s\",\"%s\",%s]";
+
+  private final JSONCodec codec;
+  private final JSONFrameWriter frameWriter;
 
   /**
    * Handle required injections.
@@ -95,7 +100,7 @@ public class JSONCommunicator extends Communicator {
    * @param radio instance of the {@link Radio}.
    */
   public JSONCommunicator(Radio radio) {
-    super(radio);
+    this(radio, true);
   }
 
   /**
@@ -105,7 +110,60 @@ public class JSONCommunicator extends Communicator {
    * @param enableTransactionQueue true if transaction queue should be enabled.
    */
   public JSONCommunicator(Radio radio, boolean enableTransactionQueue) {
-    super(radio, enableTransactionQueue);
+    this(radio, enableTransactionQueue, JSONCodec.TREE);
+  }
+
+  /**
+   * Handle required injections.
+   *
+   * @param radio instance of the {@link Radio}.
+   * @param enableTransactionQueue true if transaction queue should be enabled.
+   * @param codec the {@link JSONCodec} used to decode incoming frames.
+   */
+  public JSONCommunicator(Radio radio, boolean enableTransactionQueue, JSONCodec codec) {
+    this(radio, enableTransactionQueue ? new InMemoryTransactionQueue() : null, codec);
+  }
+
+  /**
+   * Handle required injections.
+   *
+   * @param radio instance of the {@link Radio}.
+   * @param transactionQueue stores transaction related requests while offline, null disables the
+   *     transaction queue.
+   * @param codec the {@link JSONCodec} used to decode incoming frames.
+   */
+  public JSONCommunicator(
+      Radio radio, @Nullable TransactionQueue transactionQueue, JSONCodec codec) {
+    this(radio, transactionQueue, codec, false);
+  }
+
+  /**
+   * Handle required injections.
+   *
+   * @param radio instance of the {@link Radio}.
+   * @param transactionQueue stores transaction related requests while offline, null disables the
+   *     transaction queue.
+   * @param codec the {@link JSONCodec} used to decode incoming frames.
+   * @param encodeFrames true to encode outgoing frames to UTF-8 once, into pooled direct buffers,
+   *     and hand them to the radio as {@link EncodedMessage}.
+   */
+  public JSONCommunicator(
+      Radio radio,
+      @Nullable TransactionQueue transactionQueue,
+      JSONCodec codec,
+      boolean encodeFrames) {
+    super(radio, transactionQueue);
+    this.codec = codec;
+    frameWriter = new JSONFrameWriter(gson, encodeFrames ? ByteBufferPool.shared() : null);
+  }
+
+  /**
+   * Get the {@link JSONCodec} used to decode incoming frames.
+   *
+   * @return the selected {@link JSONCodec}.
+   */
+  public JSONCodec getCodec() {
+    return codec;
   }
 
   private static class ZonedDateTimeSerializer
@@ -148,6 +206,9 @@ public class JSONCommunicator extends Communicator {
 
   @Override
   public <T> T unpackPayload(Object payload, Class<T> type) {
+    if (payload instanceof StreamingPayload) {
+      return ((StreamingPayload) payload).bind(type);
+    }
     return gson.fromJson(payload.toString(), type);
   }
 
@@ -156,14 +217,20 @@ public class JSONCommunicator extends Communicator {
     return gson.toJson(payload);
   }
 
+  @Override
+  public Object packSharedPayload(Request request) {
+    // An immutable JSON string, the frame writer copies it into every call.
+    return packPayload(request);
+  }
+
   @Override
   protected Object makeCallResult(String uniqueId, String action, Object payload) {
-    return String.format(CALLRESULT_FORMAT, uniqueId, payload);
+    return frameWriter.callResult(uniqueId, payload);
   }
 
   @Override
   protected Object makeCall(String uniqueId, String action, Object payload) {
-    String message = String.format(CALL_FORMAT, uniqueId, action, payload);
+    Object message = frameWriter.call(uniqueId, action, payload);
     logger.trace("Send a request: {}", message);
     return message;
   }
@@ -171,24 +238,69 @@ public class JSONCommunicator extends Communicator {
   @Override
   protected Object makeCallError(
       String uniqueId, String action, String errorCode, String errorDescription) {
-    return String.format(CALLERROR_FORMAT, uniqueId, errorCode, errorDescription, "{}");
+    return frameWriter.callError(uniqueId, errorCode, errorDescription);
   }
 
   @Override
   protected Object makeCallResultError(
       String uniqueId, String action, String errorCode, String errorDescription) {
-    return String.format(CALLRESULTERROR_FORMAT, uniqueId, errorCode, errorDescription, "{}");
+    return frameWriter.callResultError(uniqueId, errorCode, errorDescription);
   }
 
   @Override
   protected Object makeSend(String uniqueId, String action, Object payload) {
-    String message = String.format(SEND_FORMAT, uniqueId, action, payload);
+    Object message = frameWriter.send(uniqueId, action, payload);
     logger.trace("Send a message: {}", message);
     return message;
   }
 
+  @Override
+  protected void release(Object message) {
+    if (message instanceof EncodedMessage) {
+      ((EncodedMessage) message).release();
+    }
+  }
+
+  @Override
+  protected Object toStorable(Object call) {
+    if (call instanceof EncodedMessage) {
+      EncodedMessage message = (EncodedMessage) call;
+      String text = message.toString();
+      message.release();
+      return text;
+    }
+    return call;
+  }
+
+  @Override
+  protected int sizeOf(Object message) {
+    if (message instanceof EncodedMessage) {
+      return ((EncodedMessage) message).length();
+    }
+    return message instanceof CharSequence ? ((CharSequence) message).length() : -1;
+  }
+
+  @Override
+  protected Object packCall(String uniqueId, String action, Request request) {
+    return makeCall(uniqueId, action, request);
+  }
+
+  @Override
+  protected Object packCallResult(String uniqueId, String action, Confirmation confirmation) {
+    return makeCallResult(uniqueId, action, confirmation);
+  }
+
+  @Override
+  protected Object packSend(String uniqueId, String action, Request request) {
+    return makeSend(uniqueId, action, request);
+  }
+
   @Override
   protected Message parse(Object json) {
+    if (codec == JSONCodec.STREAMING) {
+      return parseStreaming(json);
+    }
+
     Message message;
     JsonArray array = JsonParser.parseString(json.toString()).getAsJsonArray();
     String messageId = "-1";
@@ -240,4 +352,132 @@ public class JSONCommunicator extends Communicator {
     logger.trace("Receive a message: {}", message);
     return message;
   }
+
+  private Message parseStreaming(Object json) {
+    Message message;
+    JsonReader reader = new JsonReader(new StringReader(json.toString()));
+    String messageId = "-1";
+
+    try {
+      reader.beginArray();
+      int messageType = reader.nextInt();
+      messageId = reader.nextString();
+      switch (messageType) {
+        case TYPENUMBER_CALL:
+          message = new CallMessage();
+          message.setAction(reader.nextString());
+          message.setPayload(StreamingPayload.of(reader));
+          break;
+        case TYPENUMBER_CALLRESULT:
+          message = new CallResultMessage();
+          message.setPayload(StreamingPayload.of(reader));
+          break;
+        case TYPENUMBER_CALLERROR:
+          CallErrorMessage error = new CallErrorMessage();
+          error.setErrorCode(reader.nextString());
+          error.setErrorDescription(reader.nextString());
+          error.setRawPayload(JsonParser.parseReader(reader).toString());
+          StreamingPayload.endFrame(reader);
+          message = error;
+          break;
+        case TYPENUMBER_CALLRESULTERROR:
+          CallResultErrorMessage resultError = new CallResultErrorMessage();
+          resultError.setErrorCode(reader.nextString());
+          resultError.setErrorDescription(reader.nextString());
+          resultError.setRawPayload(JsonParser.parseReader(reader).toString());
+          StreamingPayload.endFrame(reader);
+          message = resultError;
+          break;
+        case TYPENUMBER_SEND:
+          message = new SendMessage();
+          message.setAction(reader.nextString());
+          message.setPayload(StreamingPayload.of(reader));
+          break;
+        default:
+          logger.error("Unknown message type of message: {}", json);
+          return null;
+      }
+    } catch (Exception e) {
+      logger.error("Exception while parsing message: {}", json);
+      sendCallError(messageId, null, "RpcFrameworkError", e.getMessage());
+      return null;
+    }
+
+    message.setId(messageId);
+
+    logger.trace("Receive a message: {}", message);
+    return message;
+  }
+
+  /**
+   * Payload of a frame decoded with {@link JSONCodec#STREAMING}. Holds the reader positioned at the
+   * start of the payload, so it is only tokenized when it's bound to its type. The rest of the
+   * frame is checked once the payload is read: a frame with anything after the payload is rejected.
+   * Syntax errors in the payload surface from {@link #bind} or {@link #getTree}, not from parse.
+   */
+  private static class StreamingPayload {
+    private final JsonReader reader;
+    private JsonElement tree;
+    private boolean consumed;
+
+    private StreamingPayload(JsonReader reader) {
+      this.reader = reader;
+    }
+
+    static StreamingPayload of(JsonReader reader) throws IOException {
+      if (!reader.hasNext()) {
+        throw new JsonSyntaxException("Message has no payload");
+      }
+      return new StreamingPayload(reader);
+    }
+
+    static void endFrame(JsonReader reader) throws IOException {
+      reader.endArray();
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonSyntaxException("Unexpected content after the message");
+      }
+    }
+
+    synchronized <T> T bind(Class<T> type) {
+      if (tree != null) {
+        return gson.fromJson(tree, type);
+      }
+      if (consumed) {
+        throw new IllegalStateException("Payload has already been unpacked");
+      }
+      consumed = true;
+      T payload = gson.fromJson(reader, type);
+      end();
+      return payload;
+    }
+
+    private void end() {
+      try {
+        endFrame(reader);
+      } catch (IOException | IllegalStateException ex) {
+        throw new JsonSyntaxException(ex.getMessage(), ex);
+      }
+    }
+
+    synchronized JsonElement getTree() {
+      if (tree == null) {
+        if (consumed) {
+          throw new IllegalStateException("Payload has already been unpacked");
+        }
+        consumed = true;
+        tree = JsonParser.parseReader(reader);
+        end();
+      }
+      return tree;
+    }
+
+    @Override
+    public String toString() {
+      try {
+        return getTree().toString();
+      } catch (RuntimeException ex) {
+        return "<" + ex.getMessage() + ">";
+      }
+    }
+  }
 }
@@ -39,13 +39,37 @@ public class JSONConfiguration {
   public static final String CONNECT_NON_BLOCKING_PARAMETER = "CONNECT_NON_BLOCKING";
   public static final String CONNECT_TIMEOUT_IN_MS_PARAMETER = "CONNECT_TIMEOUT_IN_MS";
   public static final String WEBSOCKET_COMPRESSION_SUPPORT = "WEBSOCKET_COMPRESSION_SUPPORT";
+  public static final String WEBSOCKET_COMPRESSION_LEVEL = "WEBSOCKET_COMPRESSION_LEVEL";
+  public static final String WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER =
+      "WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER";
+  public static final String WEBSOCKET_COMPRESSION_CLIENT_MAX_WINDOW_BITS =
+      "WEBSOCKET_COMPRESSION_CLIENT_MAX_WINDOW_BITS";
+  public static final String WEBSOCKET_COMPRESSION_POLICY = "WEBSOCKET_COMPRESSION_POLICY";
+  public static final String WEBSOCKET_COMPRESSION_STATISTICS = "WEBSOCKET_COMPRESSION_STATISTICS";
   public static final String WEBSOCKET_MAX_FRAME_SIZE = "WEBSOCKET_MAX_FRAME_SIZE";
   public static final String WEBSOCKET_WORKER_COUNT = "WEBSOCKET_WORKER_COUNT";
+  public static final String WRITE_COALESCING_WINDOW_IN_MICROS =
+      "WRITE_COALESCING_WINDOW_IN_MICROS";
+  public static final String WRITE_COALESCING_MAX_BYTES = "WRITE_COALESCING_MAX_BYTES";
+  public static final String WRITE_COALESCING_STATISTICS = "WRITE_COALESCING_STATISTICS";
   public static final String HTTP_HEALTH_CHECK_ENABLED = "HTTP_HEALTH_CHECK_ENABLED";
   public static final String OCPPJ_CP_MIN_PASSWORD_LENGTH = "OCPPJ_CP_MIN_PASSWORD_LENGTH";
   public static final String OCPPJ_CP_MAX_PASSWORD_LENGTH = "OCPPJ_CP_MAX_PASSWORD_LENGTH";
   public static final String OCPP2J_CP_MIN_PASSWORD_LENGTH = "OCPP2J_CP_MIN_PASSWORD_LENGTH";
   public static final String OCPP2J_CP_MAX_PASSWORD_LENGTH = "OCPP2J_CP_MAX_PASSWORD_LENGTH";
+  public static final String JSON_CODEC_PARAMETER = "JSON_CODEC";
+  public static final String ENCODE_FRAMES_PARAMETER = "ENCODE_FRAMES";
+  public static final String DISPATCH_EXECUTOR_PARAMETER = "DISPATCH_EXECUTOR";
+  public static final String FULFILLER_POOL_SIZE_PARAMETER = "FULFILLER_POOL_SIZE";
+  public static final String FULFILLER_QUEUE_CAPACITY_PARAMETER = "FULFILLER_QUEUE_CAPACITY";
+  public static final String FULFILLER_FAIR_PARAMETER = "FULFILLER_FAIR";
+  public static final String FULFILLER_VIRTUAL_THREADS_PARAMETER = "FULFILLER_VIRTUAL_THREADS";
+  public static final String REQUEST_TIMEOUTS_PARAMETER = "REQUEST_TIMEOUTS";
+  public static final String TRANSACTION_QUEUE_PARAMETER = "TRANSACTION_QUEUE";
+  public static final String TRANSACTION_REPLAY_PARAMETER = "TRANSACTION_REPLAY";
+  public static final String METRICS_PARAMETER = "METRICS";
+  public static final String TRACING_PARAMETER = "TRACING";
+  public static final String MESSAGE_ID_GENERATOR_PARAMETER = "MESSAGE_ID_GENERATOR";
 
   private final HashMap<String, Object> parameters = new HashMap<>();
 
@@ -0,0 +1,248 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import com.google.gson.Gson;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Writes OCPP-J frames into a reusable buffer. The envelope is written field by field, string
+ * fields are escaped, and model payloads are serialized by Gson straight into the same buffer.
+ *
+ * <p>One writer is held per {@link JSONCommunicator}, so frames sent on the same connection share
+ * one buffer. Writes are serialized on the writer.
+ *
+ * <p>With a {@link ByteBufferPool} the frames are encoded to UTF-8 straight from that buffer into a
+ * pooled direct buffer and returned as {@link EncodedMessage}, otherwise they are returned as
+ * {@link String}.
+ */
+class JSONFrameWriter {
+
+  private static final int INITIAL_CAPACITY = 512;
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private static final int TYPENUMBER_CALL = 2;
+  private static final int TYPENUMBER_CALLRESULT = 3;
+  private static final int TYPENUMBER_CALLERROR = 4;
+  private static final int TYPENUMBER_CALLRESULTERROR = 5;
+  private static final int TYPENUMBER_SEND = 6;
+  private static final String EMPTY_ERROR_DETAILS = "{}";
+
+  private final Gson gson;
+  @Nullable private final ByteBufferPool pool;
+  @Nullable private final CharsetEncoder encoder;
+  private StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+  JSONFrameWriter(Gson gson) {
+    this(gson, null);
+  }
+
+  JSONFrameWriter(Gson gson, @Nullable ByteBufferPool pool) {
+    this.gson = gson;
+    this.pool = pool;
+    encoder =
+        pool == null
+            ? null
+            : StandardCharsets.UTF_8
+                .newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Write a CALL frame.
+   *
+   * @param uniqueId the id the receiver must reply with.
+   * @param action action name of the feature.
+   * @param payload a model to serialize, or an already packed JSON {@link String}.
+   * @return the frame, a {@link String} or an {@link EncodedMessage}.
+   */
+  synchronized Object call(String uniqueId, String action, Object payload) {
+    return actionFrame(TYPENUMBER_CALL, uniqueId, action, payload);
+  }
+
+  /**
+   * Write a CALLRESULT frame.
+   *
+   * @param uniqueId the id the receiver expects.
+   * @param payload a model to serialize, or an already packed JSON {@link String}.
+   * @return the frame, a {@link String} or an {@link EncodedMessage}.
+   */
+  synchronized Object callResult(String uniqueId, Object payload) {
+    begin(TYPENUMBER_CALLRESULT, uniqueId);
+    buffer.append(',');
+    appendPayload(payload);
+    return end();
+  }
+
+  /**
+   * Write a CALLERROR frame with empty error details.
+   *
+   * @param uniqueId the id the receiver expects.
+   * @param errorCode an OCPP error code.
+   * @param errorDescription an associated error description.
+   * @return the frame, a {@link String} or an {@link EncodedMessage}.
+   */
+  synchronized Object callError(String uniqueId, String errorCode, String errorDescription) {
+    return errorFrame(TYPENUMBER_CALLERROR, uniqueId, errorCode, errorDescription);
+  }
+
+  /**
+   * Write a CALLRESULTERROR frame with empty error details.
+   *
+   * @param uniqueId the id the receiver expects.
+   * @param errorCode an OCPP error code.
+   * @param errorDescription an associated error description.
+   * @return the frame, a {@link String} or an {@link EncodedMessage}.
+   */
+  synchronized Object callResultError(String uniqueId, String errorCode, String errorDescription) {
+    return errorFrame(TYPENUMBER_CALLRESULTERROR, uniqueId, errorCode, errorDescription);
+  }
+
+  /**
+   * Write a SEND frame.
+   *
+   * @param uniqueId the id of the message.
+   * @param action action name of the feature.
+   * @param payload a model to serialize, or an already packed JSON {@link String}.
+   * @return the frame, a {@link String} or an {@link EncodedMessage}.
+   */
+  synchronized Object send(String uniqueId, String action, Object payload) {
+    return actionFrame(TYPENUMBER_SEND, uniqueId, action, payload);
+  }
+
+  private Object actionFrame(int messageType, String uniqueId, String action, Object payload) {
+    begin(messageType, uniqueId);
+    buffer.append(',');
+    appendString(action);
+    buffer.append(',');
+    appendPayload(payload);
+    return end();
+  }
+
+  private Object errorFrame(
+      int messageType, String uniqueId, String errorCode, String errorDescription) {
+    begin(messageType, uniqueId);
+    buffer.append(',');
+    appendString(errorCode);
+    buffer.append(',');
+    appendString(errorDescription);
+    buffer.append(',').append(EMPTY_ERROR_DETAILS);
+    return end();
+  }
+
+  private void begin(int messageType, String uniqueId) {
+    buffer.setLength(0);
+    buffer.append('[').append(messageType).append(',');
+    appendString(uniqueId);
+  }
+
+  private Object end() {
+    buffer.append(']');
+    Object frame = pool != null ? encode(pool) : buffer.toString();
+    if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+      // don't hold on to the memory of an exceptionally large frame
+      buffer = new StringBuilder(INITIAL_CAPACITY);
+    }
+    return frame;
+  }
+
+  private EncodedMessage encode(ByteBufferPool pool) {
+    ByteBuffer pooled = pool.take();
+    encoder.reset();
+    CoderResult result = encoder.encode(CharBuffer.wrap(buffer), pooled, true);
+    if (!result.isOverflow()) {
+      result = encoder.flush(pooled);
+    }
+    if (!result.isOverflow()) {
+      pooled.flip();
+      return new EncodedMessage(pooled, pool);
+    }
+    // too large for a pooled buffer, encode it once more into a heap buffer of its own
+    pool.release(pooled);
+    ByteBuffer heap =
+        ByteBuffer.allocate((int) Math.ceil(buffer.length() * (double) encoder.maxBytesPerChar()));
+    encoder.reset();
+    encoder.encode(CharBuffer.wrap(buffer), heap, true);
+    encoder.flush(heap);
+    heap.flip();
+    return new EncodedMessage(heap, null);
+  }
+
+  private void appendPayload(Object payload) {
+    if (payload instanceof String) {
+      buffer.append((String) payload);
+    } else {
+      gson.toJson(payload, buffer);
+    }
+  }
+
+  private void appendString(String value) {
+    buffer.append('"');
+    if (value != null) {
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        switch (c) {
+          case '"':
+            buffer.append("\\\"");
+            break;
+          case '\\':
+            buffer.append("\\\\");
+            break;
+          case '\n':
+            buffer.append("\\n");
+            break;
+          case '\r':
+            buffer.append("\\r");
+            break;
+          case '\t':
+            buffer.append("\\t");
+            break;
+          case '\b':
+            buffer.append("\\b");
+            break;
+          case '\f':
+            buffer.append("\\f");
+            break;
+          default:
+            if (c < 0x20) {
+              buffer.append("\\u00").append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+            } else {
+              buffer.append(c);
+            }
+        }
+      }
+    }
+    buffer.append('"');
+  }
+}
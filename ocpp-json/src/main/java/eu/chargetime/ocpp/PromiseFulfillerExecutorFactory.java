@@ -0,0 +1,72 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.VirtualThreads;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Creates the {@link PromiseFulfillerExecutor} described by a {@link JSONConfiguration}. */
+public final class PromiseFulfillerExecutorFactory {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(PromiseFulfillerExecutorFactory.class);
+
+  private PromiseFulfillerExecutorFactory() {}
+
+  /**
+   * Create the executor for incoming requests of a server.
+   *
+   * <p>{@link JSONConfiguration#FULFILLER_VIRTUAL_THREADS_PARAMETER} selects virtual threads when
+   * the JVM supports them, otherwise {@link JSONConfiguration#FULFILLER_POOL_SIZE_PARAMETER}
+   * selects a bounded pool.
+   *
+   * @param configuration the server configuration.
+   * @return the executor, or null to use the shared default of {@link
+   *     AsyncPromiseFulfillerDecorator}.
+   */
+  @Nullable
+  public static PromiseFulfillerExecutor create(JSONConfiguration configuration) {
+    int queueCapacity =
+        configuration.getParameter(
+            JSONConfiguration.FULFILLER_QUEUE_CAPACITY_PARAMETER,
+            PromiseFulfillerExecutor.DEFAULT_QUEUE_CAPACITY);
+    boolean fair = configuration.getParameter(JSONConfiguration.FULFILLER_FAIR_PARAMETER, false);
+
+    if (configuration.getParameter(JSONConfiguration.FULFILLER_VIRTUAL_THREADS_PARAMETER, false)) {
+      if (VirtualThreads.isAvailable()) {
+        return PromiseFulfillerExecutor.virtualThreads(queueCapacity, fair);
+      }
+      logger.warn(
+          "Virtual threads are not available on Java {}, falling back to a thread pool",
+          System.getProperty("java.version"));
+    }
+
+    int poolSize = configuration.getParameter(JSONConfiguration.FULFILLER_POOL_SIZE_PARAMETER, 0);
+    return poolSize > 0 ? new PromiseFulfillerExecutor(poolSize, queueCapacity, fair) : null;
+  }
+}
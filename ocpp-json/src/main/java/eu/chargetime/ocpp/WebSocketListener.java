@@ -96,6 +96,8 @@ public class WebSocketListener implements Listener {
                 "On connection open (resource descriptor: {})",
                 clientHandshake.getResourceDescriptor());
 
+            CoalescingFrameWriter writer =
+                CoalescingFrameWriter.fromConfiguration(webSocket, configuration);
             WebSocketReceiver receiver =
                 new WebSocketReceiver(
                     new WebSocketReceiverEvents() {
@@ -106,12 +108,28 @@ public class WebSocketListener implements Listener {
 
                       @Override
                       public void close() {
+                        if (writer != null) {
+                          writer.flush();
+                        }
                         webSocket.close();
                       }
 
                       @Override
                       public void relay(String message) {
-                        webSocket.send(message);
+                        if (writer != null) {
+                          writer.send(message);
+                        } else {
+                          webSocket.send(message);
+                        }
+                      }
+
+                      @Override
+                      public void relay(EncodedMessage message) {
+                        if (writer != null) {
+                          writer.send(message.toFrame());
+                        } else {
+                          webSocket.sendFrame(message.toFrame());
+                        }
                       }
                     });
 
@@ -132,7 +150,7 @@ public class WebSocketListener implements Listener {
                     .build();
 
             handler.newSession(
-                sessionFactory.createSession(new JSONCommunicator(receiver)), information);
+                sessionFactory.createSession(createCommunicator(receiver)), information);
           }
 
           @Override
@@ -252,6 +270,14 @@ public class WebSocketListener implements Listener {
         configuration.getParameter(JSONConfiguration.PING_INTERVAL_PARAMETER, 60));
   }
 
+  private JSONCommunicator createCommunicator(WebSocketReceiver receiver) {
+    return new JSONCommunicator(
+        receiver,
+        new InMemoryTransactionQueue(),
+        configuration.getParameter(JSONConfiguration.JSON_CODEC_PARAMETER, JSONCodec.TREE),
+        configuration.getParameter(JSONConfiguration.ENCODE_FRAMES_PARAMETER, false));
+  }
+
   void enableWSS(WssFactoryBuilder wssFactoryBuilder) {
     if (server != null) {
       throw new IllegalStateException("Cannot enable WSS on already running server");
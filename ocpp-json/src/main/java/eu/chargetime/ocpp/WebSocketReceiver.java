@@ -46,7 +46,11 @@ public class WebSocketReceiver implements Receiver {
 
   @Override
   public void send(Object message) {
-    receiverEvents.relay(message.toString());
+    if (message instanceof EncodedMessage) {
+      receiverEvents.relay((EncodedMessage) message);
+    } else {
+      receiverEvents.relay(message.toString());
+    }
   }
 
   @Override
@@ -37,4 +37,13 @@ public interface WebSocketReceiverEvents {
    * @param message message to send
    */
   void relay(String message);
+
+  /**
+   * Send a message which is already encoded, as a text frame.
+   *
+   * @param message message to send
+   */
+  default void relay(EncodedMessage message) {
+    relay(message.toString());
+  }
 }
@@ -37,6 +37,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.net.SocketFactory;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.drafts.Draft;
@@ -55,6 +56,7 @@ public class WebSocketTransmitter implements Transmitter {
   private final JSONConfiguration configuration;
   private volatile boolean closed = true;
   private volatile WebSocketClient client;
+  @Nullable private volatile CoalescingFrameWriter writer;
   private WssSocketBuilder wssSocketBuilder;
 
   public WebSocketTransmitter(JSONConfiguration configuration, Draft draft) {
@@ -157,6 +159,7 @@ public class WebSocketTransmitter implements Transmitter {
     }
 
     configure();
+    writer = CoalescingFrameWriter.fromConfiguration(client.getConnection(), configuration);
 
     boolean isNonBlocking = isNonBlockingParameterSet();
 
@@ -211,6 +214,11 @@ public class WebSocketTransmitter implements Transmitter {
       return;
     }
 
+    CoalescingFrameWriter coalescingWriter = writer;
+    if (coalescingWriter != null) {
+      coalescingWriter.flush();
+    }
+
     boolean isNonBlocking = isNonBlockingParameterSet();
 
     logger.debug("Disconnecting{}", isNonBlocking ? "" : " [blocking]");
@@ -247,8 +255,19 @@ public class WebSocketTransmitter implements Transmitter {
       throw new NotConnectedException();
     }
 
+    CoalescingFrameWriter coalescingWriter = writer;
     try {
-      client.send(request.toString());
+      if (coalescingWriter != null) {
+        if (request instanceof EncodedMessage) {
+          coalescingWriter.send(((EncodedMessage) request).toFrame());
+        } else {
+          coalescingWriter.send(request.toString());
+        }
+      } else if (request instanceof EncodedMessage) {
+        client.sendFrame(((EncodedMessage) request).toFrame());
+      } else {
+        client.send(request.toString());
+      }
     } catch (WebsocketNotConnectedException ex) {
       throw new NotConnectedException();
     }
@@ -0,0 +1,123 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.MoreObjects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the {@link CoalescingFrameWriter}s sharing this instance, usually all connections of
+ * a server. Thread safe.
+ */
+public final class WriteCoalescingStatistics {
+
+  private final LongAdder flushes = new LongAdder();
+  private final LongAdder flushedFrames = new LongAdder();
+  private final LongAdder flushedBytes = new LongAdder();
+  private final LongAdder droppedFrames = new LongAdder();
+  private final AtomicInteger queuedFrames = new AtomicInteger();
+  private final AtomicLong queuedBytes = new AtomicLong();
+  private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+  void enqueued(int queueDepth, int bytes) {
+    queuedFrames.incrementAndGet();
+    queuedBytes.addAndGet(bytes);
+    maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+  }
+
+  void flushed(int frames, int bytes) {
+    flushes.increment();
+    flushedFrames.add(frames);
+    flushedBytes.add(bytes);
+    dequeued(frames, bytes);
+  }
+
+  void dropped(int frames, int bytes) {
+    droppedFrames.add(frames);
+    dequeued(frames, bytes);
+  }
+
+  private void dequeued(int frames, int bytes) {
+    queuedFrames.addAndGet(-frames);
+    queuedBytes.addAndGet(-bytes);
+  }
+
+  /** @return number of batches handed to the sockets. */
+  public long getFlushes() {
+    return flushes.sum();
+  }
+
+  /** @return number of frames handed to the sockets. */
+  public long getFlushedFrames() {
+    return flushedFrames.sum();
+  }
+
+  /** @return number of encoded bytes handed to the sockets. */
+  public long getFlushedBytes() {
+    return flushedBytes.sum();
+  }
+
+  /** @return number of frames dropped because the connection closed before the flush. */
+  public long getDroppedFrames() {
+    return droppedFrames.sum();
+  }
+
+  /** @return number of frames waiting for a flush right now, over all connections. */
+  public int getQueuedFrames() {
+    return queuedFrames.get();
+  }
+
+  /** @return number of encoded bytes waiting for a flush right now, over all connections. */
+  public long getQueuedBytes() {
+    return queuedBytes.get();
+  }
+
+  /** @return the most frames one connection had waiting at once. */
+  public int getMaxQueueDepth() {
+    return maxQueueDepth.get();
+  }
+
+  /** @return frames per flush on average, 0 before the first flush. */
+  public double getAverageBatchSize() {
+    long count = getFlushes();
+    return count == 0 ? 0 : (double) getFlushedFrames() / count;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("flushes", getFlushes())
+        .add("flushedFrames", getFlushedFrames())
+        .add("flushedBytes", getFlushedBytes())
+        .add("droppedFrames", getDroppedFrames())
+        .add("queuedFrames", getQueuedFrames())
+        .add("queuedBytes", getQueuedBytes())
+        .add("maxQueueDepth", getMaxQueueDepth())
+        .toString();
+  }
+}
@@ -0,0 +1,165 @@
+package eu.chargetime.ocpp.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.*;
+
+import eu.chargetime.ocpp.CoalescingFrameWriter;
+import eu.chargetime.ocpp.JSONConfiguration;
+import eu.chargetime.ocpp.WriteCoalescingStatistics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.java_websocket.WebSocketImpl;
+import org.java_websocket.WebSocketListener;
+import org.java_websocket.drafts.Draft_6455;
+import org.java_websocket.exceptions.WebsocketNotConnectedException;
+import org.java_websocket.framing.Framedata;
+import org.junit.Before;
+import org.junit.Test;
+
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+public class CoalescingFrameWriterTest {
+
+  private WebSocketListener listener;
+  private WebSocketImpl webSocket;
+  private WriteCoalescingStatistics statistics;
+
+  @Before
+  public void setup() {
+    listener = mock(WebSocketListener.class);
+    webSocket = spy(new WebSocketImpl(listener, new Draft_6455()));
+    doReturn(true).when(webSocket).isOpen();
+    statistics = new WriteCoalescingStatistics();
+  }
+
+  @Test
+  public void send_framesWithinWindow_areFlushedAsOneBufferInOrder() throws Exception {
+    // Given
+    CoalescingFrameWriter writer = createWriter(50_000, 64 * 1024);
+
+    // When
+    writer.send("first");
+    writer.send("second");
+    writer.send("third");
+
+    // Then
+    assertThat(webSocket.outQueue.isEmpty(), is(true));
+    verify(listener, timeout(1000)).onWriteDemand(webSocket);
+    assertThat(webSocket.outQueue.size(), is(1));
+    assertThat(decode(webSocket.outQueue.poll()), equalTo(texts("first", "second", "third")));
+    assertThat(statistics.getFlushes(), is(1L));
+    assertThat(statistics.getFlushedFrames(), is(3L));
+    assertThat(statistics.getMaxQueueDepth(), is(3));
+    assertThat(statistics.getQueuedFrames(), is(0));
+    assertThat(writer.getQueuedFrames(), is(0));
+  }
+
+  @Test
+  public void send_byteCapReached_flushesOnSendersThread() throws Exception {
+    // Given
+    CoalescingFrameWriter writer = createWriter(10_000_000, 1);
+
+    // When
+    writer.send("first");
+    writer.send("second");
+
+    // Then
+    assertThat(webSocket.outQueue.size(), is(2));
+    assertThat(decode(webSocket.outQueue.poll()), equalTo(texts("first")));
+    assertThat(decode(webSocket.outQueue.poll()), equalTo(texts("second")));
+    verify(listener, times(2)).onWriteDemand(webSocket);
+    assertThat(statistics.getQueuedBytes(), is(0L));
+  }
+
+  @Test
+  public void flush_queuedFrames_areWrittenBeforeWindowEnds() throws Exception {
+    // Given
+    CoalescingFrameWriter writer = createWriter(10_000_000, 64 * 1024);
+    writer.send("first");
+
+    // When
+    writer.flush();
+
+    // Then
+    assertThat(decode(webSocket.outQueue.poll()), equalTo(texts("first")));
+    assertThat(writer.getQueuedBytes(), is(0));
+  }
+
+  @Test
+  public void send_connectionClosed_throwsNotConnected() {
+    // Given
+    CoalescingFrameWriter writer = createWriter(50_000, 64 * 1024);
+    doReturn(false).when(webSocket).isOpen();
+
+    // When
+    assertThrows(WebsocketNotConnectedException.class, () -> writer.send("first"));
+
+    // Then
+    assertThat(webSocket.outQueue.isEmpty(), is(true));
+  }
+
+  @Test
+  public void fromConfiguration_noWindow_returnsNull() {
+    // When
+    CoalescingFrameWriter writer =
+        CoalescingFrameWriter.fromConfiguration(webSocket, JSONConfiguration.get());
+
+    // Then
+    assertThat(writer, is(nullValue()));
+  }
+
+  private CoalescingFrameWriter createWriter(int windowInMicros, int maxBytes) {
+    return CoalescingFrameWriter.fromConfiguration(
+        webSocket,
+        JSONConfiguration.get()
+            .setParameter(JSONConfiguration.WRITE_COALESCING_WINDOW_IN_MICROS, windowInMicros)
+            .setParameter(JSONConfiguration.WRITE_COALESCING_MAX_BYTES, maxBytes)
+            .setParameter(JSONConfiguration.WRITE_COALESCING_STATISTICS, statistics));
+  }
+
+  private static List<String> decode(ByteBuffer batch) throws Exception {
+    List<String> texts = new ArrayList<>();
+    for (Framedata frame : new Draft_6455().translateFrame(batch)) {
+      texts.add(StandardCharsets.UTF_8.decode(frame.getPayloadData()).toString());
+    }
+    return texts;
+  }
+
+  private static List<String> texts(String... texts) {
+    List<String> list = new ArrayList<>();
+    for (String text : texts) {
+      list.add(text);
+    }
+    return list;
+  }
+}
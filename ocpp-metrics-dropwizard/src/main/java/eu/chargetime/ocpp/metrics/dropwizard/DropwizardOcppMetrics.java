@@ -0,0 +1,160 @@
+package eu.chargetime.ocpp.metrics.dropwizard;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Records the {@link OcppMetrics} to a Dropwizard {@link MetricRegistry}:
+ *
+ * <ul>
+ *   <li>{@code ocpp.messages.<direction>.<action>}, meter of the messages.
+ *   <li>{@code ocpp.message-size.<direction>.<action>}, histogram of their sizes in bytes.
+ *   <li>{@code ocpp.latency.<stage>.<action>}, timer.
+ *   <li>{@code ocpp.call-errors.<direction>.<code>}, counter.
+ *   <li>{@code ocpp.pending.<type>}, gauge.
+ *   <li>{@code ocpp.sessions.<protocol>}, gauge.
+ * </ul>
+ *
+ * Received call results don't name their action, they are recorded as action {@code unknown}.
+ */
+public class DropwizardOcppMetrics implements OcppMetrics {
+  static final String PREFIX = "ocpp";
+  static final String UNKNOWN_ACTION = "unknown";
+
+  private final MetricRegistry registry;
+  private final Map<Direction, ConcurrentMap<String, MessageMetrics>> messages =
+      new EnumMap<>(Direction.class);
+  private final Map<Stage, ConcurrentMap<String, Timer>> latencies = new EnumMap<>(Stage.class);
+  private final Map<Direction, ConcurrentMap<String, Counter>> callErrors =
+      new EnumMap<>(Direction.class);
+  private final Map<Gauge, AtomicLong> pending = new EnumMap<>(Gauge.class);
+  private final Map<ProtocolVersion, AtomicLong> sessions = new EnumMap<>(ProtocolVersion.class);
+
+  /**
+   * @param registry the registry to register the metrics to, once per registry.
+   * @throws IllegalArgumentException if the registry already has OCPP metrics.
+   */
+  public DropwizardOcppMetrics(MetricRegistry registry) {
+    this.registry = registry;
+    for (Direction direction : Direction.values()) {
+      messages.put(direction, new ConcurrentHashMap<>());
+      callErrors.put(direction, new ConcurrentHashMap<>());
+    }
+    for (Stage stage : Stage.values()) {
+      latencies.put(stage, new ConcurrentHashMap<>());
+    }
+    for (Gauge gauge : Gauge.values()) {
+      pending.put(gauge, registerGauge(name(PREFIX, "pending", lowerCase(gauge))));
+    }
+    for (ProtocolVersion protocolVersion : ProtocolVersion.values()) {
+      sessions.put(
+          protocolVersion,
+          registerGauge(name(PREFIX, "sessions", protocolVersion.getSubProtocolName())));
+    }
+  }
+
+  @Override
+  public void message(Direction direction, @Nullable String action, int size) {
+    String key = action != null ? action : UNKNOWN_ACTION;
+    MessageMetrics metrics =
+        messages
+            .get(direction)
+            .computeIfAbsent(key, ignored -> new MessageMetrics(lowerCase(direction), key));
+    metrics.count.mark();
+    if (size >= 0) metrics.size.update(size);
+  }
+
+  @Override
+  public void latency(Stage stage, String action, long nanos) {
+    latencies
+        .get(stage)
+        .computeIfAbsent(
+            action, key -> registry.timer(name(PREFIX, "latency", lowerCase(stage), key)))
+        .update(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void callError(Direction direction, String errorCode) {
+    callErrors
+        .get(direction)
+        .computeIfAbsent(
+            errorCode,
+            key -> registry.counter(name(PREFIX, "call-errors", lowerCase(direction), key)))
+        .inc();
+  }
+
+  @Override
+  public void adjust(Gauge gauge, int delta) {
+    pending.get(gauge).addAndGet(delta);
+  }
+
+  @Override
+  public void sessionOpened(@Nullable ProtocolVersion protocolVersion) {
+    if (protocolVersion != null) sessions.get(protocolVersion).incrementAndGet();
+  }
+
+  @Override
+  public void sessionClosed(@Nullable ProtocolVersion protocolVersion) {
+    if (protocolVersion != null) sessions.get(protocolVersion).decrementAndGet();
+  }
+
+  private AtomicLong registerGauge(String name) {
+    AtomicLong value = new AtomicLong();
+    registry.register(name, (com.codahale.metrics.Gauge<Long>) value::get);
+    return value;
+  }
+
+  private static String lowerCase(Enum<?> value) {
+    return value.name().toLowerCase(Locale.ROOT);
+  }
+
+  private class MessageMetrics {
+    private final Meter count;
+    private final Histogram size;
+
+    private MessageMetrics(String direction, String action) {
+      count = registry.meter(name(PREFIX, "messages", direction, action));
+      size = registry.histogram(name(PREFIX, "message-size", direction, action));
+    }
+  }
+}
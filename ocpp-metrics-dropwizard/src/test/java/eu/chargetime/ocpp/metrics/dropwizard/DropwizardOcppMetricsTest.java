@@ -0,0 +1,84 @@
+package eu.chargetime.ocpp.metrics.dropwizard;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.codahale.metrics.MetricRegistry;
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DropwizardOcppMetricsTest {
+
+  private MetricRegistry registry;
+  private DropwizardOcppMetrics metrics;
+
+  @Before
+  public void setup() {
+    registry = new MetricRegistry();
+    metrics = new DropwizardOcppMetrics(registry);
+  }
+
+  @Test
+  public void message_countsAndSizesPerAction() {
+    // When
+    metrics.message(OcppMetrics.Direction.OUTBOUND, "Heartbeat", 20);
+    metrics.message(OcppMetrics.Direction.OUTBOUND, "Heartbeat", -1);
+
+    // Then
+    assertThat(registry.meter("ocpp.messages.outbound.Heartbeat").getCount(), is(2L));
+    assertThat(registry.histogram("ocpp.message-size.outbound.Heartbeat").getCount(), is(1L));
+  }
+
+  @Test
+  public void latency_recordsTimerPerStage() {
+    // When
+    metrics.latency(OcppMetrics.Stage.DECODE, "Heartbeat", TimeUnit.MICROSECONDS.toNanos(50));
+
+    // Then
+    assertThat(registry.timer("ocpp.latency.decode.Heartbeat").getCount(), is(1L));
+  }
+
+  @Test
+  public void adjustAndSessions_gaugesFollowDeltas() {
+    // When
+    metrics.adjust(OcppMetrics.Gauge.TRANSACTION_QUEUE, 2);
+    metrics.sessionOpened(ProtocolVersion.OCPP1_6);
+    metrics.sessionOpened(ProtocolVersion.OCPP1_6);
+    metrics.sessionClosed(ProtocolVersion.OCPP1_6);
+    metrics.callError(OcppMetrics.Direction.INBOUND, "InternalError");
+
+    // Then
+    assertThat(
+        (Long) registry.getGauges().get("ocpp.pending.transaction_queue").getValue(), is(2L));
+    assertThat((Long) registry.getGauges().get("ocpp.sessions.ocpp1.6").getValue(), is(1L));
+    assertThat(registry.counter("ocpp.call-errors.inbound.InternalError").getCount(), is(1L));
+  }
+}
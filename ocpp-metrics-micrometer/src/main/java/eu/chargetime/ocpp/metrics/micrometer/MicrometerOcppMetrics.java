@@ -0,0 +1,164 @@
+package eu.chargetime.ocpp.metrics.micrometer;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+/**
+ * Records the {@link OcppMetrics} to a Micrometer {@link MeterRegistry}:
+ *
+ * <ul>
+ *   <li>{@code ocpp.messages}, counter tagged with {@code direction} and {@code action}.
+ *   <li>{@code ocpp.message.size}, distribution summary in bytes with the same tags.
+ *   <li>{@code ocpp.latency}, timer tagged with {@code stage} and {@code action}.
+ *   <li>{@code ocpp.call.errors}, counter tagged with {@code direction} and {@code code}.
+ *   <li>{@code ocpp.pending}, gauge tagged with {@code type}.
+ *   <li>{@code ocpp.sessions}, gauge tagged with {@code protocol}.
+ * </ul>
+ *
+ * Received call results don't name their action, they are tagged with {@code action=unknown}.
+ */
+public class MicrometerOcppMetrics implements OcppMetrics {
+  static final String UNKNOWN_ACTION = "unknown";
+
+  private final MeterRegistry registry;
+  private final Map<Direction, ConcurrentMap<String, MessageMeters>> messages =
+      new EnumMap<>(Direction.class);
+  private final Map<Stage, ConcurrentMap<String, Timer>> latencies = new EnumMap<>(Stage.class);
+  private final Map<Direction, ConcurrentMap<String, Counter>> callErrors =
+      new EnumMap<>(Direction.class);
+  private final Map<Gauge, AtomicLong> pending = new EnumMap<>(Gauge.class);
+  private final Map<ProtocolVersion, AtomicLong> sessions = new EnumMap<>(ProtocolVersion.class);
+
+  /** @param registry the registry to register the meters to. */
+  public MicrometerOcppMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    for (Direction direction : Direction.values()) {
+      messages.put(direction, new ConcurrentHashMap<>());
+      callErrors.put(direction, new ConcurrentHashMap<>());
+    }
+    for (Stage stage : Stage.values()) {
+      latencies.put(stage, new ConcurrentHashMap<>());
+    }
+    for (Gauge gauge : Gauge.values()) {
+      pending.put(
+          gauge,
+          registry.gauge(
+              "ocpp.pending", Tags.of("type", tagValue(gauge.name())), new AtomicLong()));
+    }
+    for (ProtocolVersion protocolVersion : ProtocolVersion.values()) {
+      sessions.put(
+          protocolVersion,
+          registry.gauge(
+              "ocpp.sessions",
+              Tags.of("protocol", protocolVersion.getSubProtocolName()),
+              new AtomicLong()));
+    }
+  }
+
+  @Override
+  public void message(Direction direction, @Nullable String action, int size) {
+    String name = action != null ? action : UNKNOWN_ACTION;
+    MessageMeters meters =
+        messages.get(direction).computeIfAbsent(name, key -> new MessageMeters(direction, key));
+    meters.count.increment();
+    if (size >= 0) meters.size.record(size);
+  }
+
+  @Override
+  public void latency(Stage stage, String action, long nanos) {
+    latencies
+        .get(stage)
+        .computeIfAbsent(
+            action,
+            key ->
+                Timer.builder("ocpp.latency")
+                    .tags("stage", tagValue(stage.name()), "action", key)
+                    .register(registry))
+        .record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public void callError(Direction direction, String errorCode) {
+    callErrors
+        .get(direction)
+        .computeIfAbsent(
+            errorCode,
+            key ->
+                Counter.builder("ocpp.call.errors")
+                    .tags("direction", tagValue(direction.name()), "code", key)
+                    .register(registry))
+        .increment();
+  }
+
+  @Override
+  public void adjust(Gauge gauge, int delta) {
+    pending.get(gauge).addAndGet(delta);
+  }
+
+  @Override
+  public void sessionOpened(@Nullable ProtocolVersion protocolVersion) {
+    if (protocolVersion != null) sessions.get(protocolVersion).incrementAndGet();
+  }
+
+  @Override
+  public void sessionClosed(@Nullable ProtocolVersion protocolVersion) {
+    if (protocolVersion != null) sessions.get(protocolVersion).decrementAndGet();
+  }
+
+  private static String tagValue(String name) {
+    return name.toLowerCase(Locale.ROOT);
+  }
+
+  private class MessageMeters {
+    private final Counter count;
+    private final DistributionSummary size;
+
+    private MessageMeters(Direction direction, String action) {
+      Tags tags = Tags.of("direction", tagValue(direction.name()), "action", action);
+      count = Counter.builder("ocpp.messages").tags(tags).register(registry);
+      size =
+          DistributionSummary.builder("ocpp.message.size")
+              .baseUnit("bytes")
+              .tags(tags)
+              .register(registry);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package eu.chargetime.ocpp.metrics.micrometer;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MicrometerOcppMetricsTest {
+
+  private SimpleMeterRegistry registry;
+  private MicrometerOcppMetrics metrics;
+
+  @Before
+  public void setup() {
+    registry = new SimpleMeterRegistry();
+    metrics = new MicrometerOcppMetrics(registry);
+  }
+
+  @Test
+  public void message_countsAndSizesPerAction() {
+    // When
+    metrics.message(OcppMetrics.Direction.INBOUND, "Heartbeat", 20);
+    metrics.message(OcppMetrics.Direction.INBOUND, "Heartbeat", 40);
+    metrics.message(OcppMetrics.Direction.INBOUND, null, -1);
+
+    // Then
+    assertThat(
+        registry.get("ocpp.messages").tags("action", "Heartbeat").counter().count(), is(2.0));
+    assertThat(
+        registry.get("ocpp.message.size").tags("action", "Heartbeat").summary().totalAmount(),
+        is(60.0));
+    assertThat(
+        registry
+            .get("ocpp.messages")
+            .tags("action", MicrometerOcppMetrics.UNKNOWN_ACTION)
+            .counter()
+            .count(),
+        is(1.0));
+  }
+
+  @Test
+  public void latency_recordsTimerPerStage() {
+    // When
+    metrics.latency(OcppMetrics.Stage.HANDLER, "Heartbeat", TimeUnit.MILLISECONDS.toNanos(5));
+
+    // Then
+    assertThat(
+        registry
+            .get("ocpp.latency")
+            .tags("stage", "handler", "action", "Heartbeat")
+            .timer()
+            .totalTime(TimeUnit.MILLISECONDS),
+        is(5.0));
+  }
+
+  @Test
+  public void adjustAndSessions_gaugesFollowDeltas() {
+    // When
+    metrics.adjust(OcppMetrics.Gauge.PENDING_PROMISES, 3);
+    metrics.adjust(OcppMetrics.Gauge.PENDING_PROMISES, -1);
+    metrics.sessionOpened(ProtocolVersion.OCPP2_0_1);
+    metrics.callError(OcppMetrics.Direction.OUTBOUND, "NotImplemented");
+
+    // Then
+    assertThat(
+        registry.get("ocpp.pending").tags("type", "pending_promises").gauge().value(), is(2.0));
+    assertThat(
+        registry.get("ocpp.sessions").tags("protocol", "ocpp2.0.1").gauge().value(), is(1.0));
+    assertThat(
+        registry.get("ocpp.call.errors").tags("code", "NotImplemented").counter().count(), is(1.0));
+  }
+}
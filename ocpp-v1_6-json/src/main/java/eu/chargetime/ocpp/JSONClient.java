@@ -2,6 +2,7 @@ package eu.chargetime.ocpp;
 
 import eu.chargetime.ocpp.feature.profile.ClientCoreProfile;
 import eu.chargetime.ocpp.feature.profile.Profile;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.wss.BaseWssSocketBuilder;
@@ -72,10 +73,31 @@ public class JSONClient implements IClientAPI {
     draftOcppOnly =
         new Draft_6455(Collections.emptyList(), Collections.singletonList(new Protocol("ocpp1.6")));
     transmitter = new WebSocketTransmitter(configuration, draftOcppOnly);
-    JSONCommunicator communicator = new JSONCommunicator(transmitter);
+    JSONCommunicator communicator =
+        new JSONCommunicator(
+            transmitter,
+            configuration.<TransactionQueue>getParameter(
+                JSONConfiguration.TRANSACTION_QUEUE_PARAMETER, new InMemoryTransactionQueue()),
+            configuration.getParameter(JSONConfiguration.JSON_CODEC_PARAMETER, JSONCodec.TREE),
+            configuration.getParameter(JSONConfiguration.ENCODE_FRAMES_PARAMETER, false));
+    communicator.setTransactionReplaySettings(
+        configuration.getParameter(
+            JSONConfiguration.TRANSACTION_REPLAY_PARAMETER, TransactionReplaySettings.DEFAULT));
     featureRepository = new FeatureRepository();
-    ISession session = new SessionFactory(featureRepository).createSession(communicator);
-    client = new Client(session, new PromiseRepository());
+    OcppMetrics metrics = configuration.getParameter(JSONConfiguration.METRICS_PARAMETER);
+    SessionFactory sessionFactory =
+        new SessionFactory(
+            featureRepository,
+            configuration.getParameter(JSONConfiguration.DISPATCH_EXECUTOR_PARAMETER));
+    sessionFactory.setMetrics(metrics);
+    sessionFactory.setTracing(configuration.getParameter(JSONConfiguration.TRACING_PARAMETER));
+    sessionFactory.setMessageIdGenerator(
+        configuration.getParameter(JSONConfiguration.MESSAGE_ID_GENERATOR_PARAMETER));
+    ISession session = sessionFactory.createSession(communicator);
+    client = new Client(session, new PromiseRepository(metrics));
+    client.setRequestTimeouts(
+        configuration.getParameter(
+            JSONConfiguration.REQUEST_TIMEOUTS_PARAMETER, RequestTimeouts.NONE));
     featureRepository.addFeatureProfile(coreProfile);
   }
 
@@ -27,15 +27,18 @@ package eu.chargetime.ocpp;
 
 import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.wss.BaseWssFactoryBuilder;
 import eu.chargetime.ocpp.wss.WssFactoryBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import org.java_websocket.drafts.Draft;
 import org.java_websocket.drafts.Draft_6455;
@@ -53,6 +56,7 @@ public class JSONServer implements IServerAPI {
   private final Server server;
   private final FeatureRepository featureRepository;
   private JSONConfiguration jsonConfiguration;
+  @Nullable private final PromiseFulfillerExecutor fulfillerExecutor;
 
   /**
    * The core feature profile is required as a minimum. The constructor creates WS-ready server.
@@ -62,7 +66,17 @@ public class JSONServer implements IServerAPI {
    */
   public JSONServer(ServerCoreProfile coreProfile, JSONConfiguration configuration) {
     featureRepository = new FeatureRepository();
-    SessionFactory sessionFactory = new SessionFactory(featureRepository);
+    fulfillerExecutor = PromiseFulfillerExecutorFactory.create(configuration);
+    SessionFactory sessionFactory =
+        new SessionFactory(
+            featureRepository,
+            configuration.getParameter(JSONConfiguration.DISPATCH_EXECUTOR_PARAMETER),
+            fulfillerExecutor);
+    OcppMetrics metrics = configuration.getParameter(JSONConfiguration.METRICS_PARAMETER);
+    sessionFactory.setMetrics(metrics);
+    sessionFactory.setTracing(configuration.getParameter(JSONConfiguration.TRACING_PARAMETER));
+    sessionFactory.setMessageIdGenerator(
+        configuration.getParameter(JSONConfiguration.MESSAGE_ID_GENERATOR_PARAMETER));
 
     ArrayList<IProtocol> protocols = new ArrayList<>();
     protocols.add(new Protocol("ocpp1.6"));
@@ -77,7 +91,11 @@ public class JSONServer implements IServerAPI {
     } else {
       this.listener = new WebSocketListener(sessionFactory, configuration, draftOcppOnly);
     }
-    server = new Server(this.listener, new PromiseRepository());
+    server = new Server(this.listener, new PromiseRepository(metrics));
+    server.setMetrics(metrics);
+    server.setRequestTimeouts(
+        configuration.getParameter(
+            JSONConfiguration.REQUEST_TIMEOUTS_PARAMETER, RequestTimeouts.NONE));
     featureRepository.addFeatureProfile(coreProfile);
   }
 
@@ -154,6 +172,19 @@ public class JSONServer implements IServerAPI {
     server.closeSession(session);
   }
 
+  /**
+   * The executor for incoming requests, configured with {@link
+   * JSONConfiguration#FULFILLER_POOL_SIZE_PARAMETER} or {@link
+   * JSONConfiguration#FULFILLER_VIRTUAL_THREADS_PARAMETER}. Use it to monitor queue depth and
+   * rejections.
+   *
+   * @return the executor, or null if requests use the shared default executor.
+   */
+  @Nullable
+  public PromiseFulfillerExecutor getPromiseFulfillerExecutor() {
+    return fulfillerExecutor;
+  }
+
   @Override
   public void open(String host, int port, ServerEvents serverEvents) {
     logger.info("Feature repository: {}", featureRepository);
@@ -163,6 +194,9 @@ public class JSONServer implements IServerAPI {
   @Override
   public void close() {
     server.close();
+    if (fulfillerExecutor != null) {
+      fulfillerExecutor.shutdown();
+    }
   }
 
   @Override
@@ -176,6 +210,13 @@ public class JSONServer implements IServerAPI {
     return server.send(session, request);
   }
 
+  @Override
+  public Broadcast broadcast(
+      Collection<UUID> sessionIndexes, Request request, int messagesPerSecond)
+      throws OccurenceConstraintException {
+    return server.broadcast(sessionIndexes, request, messagesPerSecond);
+  }
+
   @Override
   public boolean asyncCompleteRequest(UUID sessionIndex, String uniqueId, Confirmation confirmation)
       throws NotConnectedException, UnsupportedFeatureException, OccurenceConstraintException {
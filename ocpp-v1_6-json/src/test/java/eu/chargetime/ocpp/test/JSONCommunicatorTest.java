@@ -3,21 +3,38 @@ package eu.chargetime.ocpp.test;
 import static eu.chargetime.ocpp.utilities.TestUtilities.join;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
+import com.google.gson.JsonSyntaxException;
+import eu.chargetime.ocpp.CommunicatorEvents;
+import eu.chargetime.ocpp.EncodedMessage;
+import eu.chargetime.ocpp.JSONCodec;
 import eu.chargetime.ocpp.JSONCommunicator;
+import eu.chargetime.ocpp.MappedFileTransactionQueue;
+import eu.chargetime.ocpp.NotConnectedException;
+import eu.chargetime.ocpp.RadioEvents;
+import eu.chargetime.ocpp.TransactionQueue;
 import eu.chargetime.ocpp.Transmitter;
 import eu.chargetime.ocpp.model.TestModel;
 import eu.chargetime.ocpp.model.core.BootNotificationConfirmation;
 import eu.chargetime.ocpp.model.core.BootNotificationRequest;
 import eu.chargetime.ocpp.model.core.RegistrationStatus;
+import eu.chargetime.ocpp.model.core.StartTransactionRequest;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
@@ -51,9 +68,12 @@ SOFTWARE.
 */
 @RunWith(MockitoJUnitRunner.class)
 public class JSONCommunicatorTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   private JSONCommunicator communicator;
 
   @Mock private Transmitter transmitter;
+  @Mock private CommunicatorEvents events;
 
   @Before
   public void setup() {
@@ -369,6 +389,307 @@ public class JSONCommunicatorTest {
     verify(transmitter, times(1)).send(anyString());
   }
 
+  @Test
+  public void sendCall_bootNotificationRequest_transmitsCallFrame() throws Exception {
+    // Given
+    BootNotificationRequest request = new BootNotificationRequest("VendorX", "SingleSocketCharger");
+
+    // When
+    communicator.sendCall("abc-123", "BootNotification", request);
+
+    // Then
+    verify(transmitter, times(1))
+        .send(
+            "[2,\"abc-123\",\"BootNotification\","
+                + "{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"SingleSocketCharger\"}]");
+  }
+
+  @Test
+  public void sendCallResult_bootNotificationConfirmation_transmitsCallResultFrame()
+      throws Exception {
+    // Given
+    BootNotificationConfirmation confirmation =
+        new BootNotificationConfirmation(
+            createDateTimeInMillis(1461825673720L), 300, RegistrationStatus.Accepted);
+
+    // When
+    communicator.sendCallResult("abc-123", "BootNotification", confirmation);
+
+    // Then
+    verify(transmitter, times(1))
+        .send(
+            "[3,\"abc-123\",{\"currentTime\":\"2016-04-28T06:41:13.720Z\",\"interval\":300,"
+                + "\"status\":\"Accepted\"}]");
+  }
+
+  @Test
+  public void sendCallError_descriptionWithSpecialCharacters_escapesDescription() throws Exception {
+    // Given
+    String errorDescription = "Field \"idTag\" is invalid\n\tC:\\path";
+
+    // When
+    communicator.sendCallError("abc\"123", null, "FormatViolation", errorDescription);
+
+    // Then
+    verify(transmitter, times(1))
+        .send(
+            "[4,\"abc\\\"123\",\"FormatViolation\","
+                + "\"Field \\\"idTag\\\" is invalid\\n\\tC:\\\\path\",{}]");
+  }
+
+  @Test
+  public void sendCall_encodeFrames_transmitsEncodedCallFrame() throws Exception {
+    // Given
+    communicator = new JSONCommunicator(transmitter, null, JSONCodec.TREE, true);
+    List<String> sent = captureSentFrames();
+    BootNotificationRequest request = new BootNotificationRequest("VendorX", "SingleSocketCharger");
+
+    // When
+    communicator.sendCall("abc-123", "BootNotification", request);
+
+    // Then
+    verify(transmitter).send(ArgumentMatchers.any(EncodedMessage.class));
+    assertThat(
+        sent.get(0),
+        equalTo(
+            "[2,\"abc-123\",\"BootNotification\","
+                + "{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"SingleSocketCharger\"}]"));
+  }
+
+  @Test
+  public void sendCall_encodeFramesWhileOffline_storesCallAsTextInDurableQueue() throws Exception {
+    // Given
+    String call =
+        "[2,\"abc-123\",\"StartTransaction\",{\"connectorId\":1,\"idTag\":\"tag\","
+            + "\"meterStart\":0,\"timestamp\":\"2016-04-28T06:41:13.720Z\"}]";
+    TransactionQueue queue = new MappedFileTransactionQueue(folder.newFolder().toPath());
+    communicator = new JSONCommunicator(transmitter, queue, JSONCodec.TREE, true);
+    communicator.accept(events);
+    doThrow(new NotConnectedException()).when(transmitter).send(any());
+    StartTransactionRequest request =
+        new StartTransactionRequest(1, "tag", 0, createDateTimeInMillis(1461825673720L));
+
+    // When
+    communicator.sendCall("abc-123", "StartTransaction", request);
+
+    // Then
+    assertThat(queue.size(), is(1));
+    assertThat(queue.peek(1).get(0).getCall(), equalTo(call));
+    verify(events, never()).onError(any(), any(), any(), any());
+  }
+
+  @Test
+  public void sendCall_sharedPayload_isWrittenIntoEveryCallFrame() throws Exception {
+    // Given
+    communicator = new JSONCommunicator(transmitter, null, JSONCodec.TREE, true);
+    List<String> sent = captureSentFrames();
+    BootNotificationRequest request = new BootNotificationRequest("VendorX", "SingleSocketCharger");
+    Object sharedPayload = communicator.packSharedPayload(request);
+
+    // When
+    communicator.sendCall("abc-1", "BootNotification", request, sharedPayload);
+    communicator.sendCall("abc-2", "BootNotification", request, sharedPayload);
+
+    // Then
+    String payload =
+        "{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"SingleSocketCharger\"}";
+    assertThat(sent.get(0), equalTo("[2,\"abc-1\",\"BootNotification\"," + payload + "]"));
+    assertThat(sent.get(1), equalTo("[2,\"abc-2\",\"BootNotification\"," + payload + "]"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void sendCallResult_encodeFrames_releasesFrameOnceSent() throws Exception {
+    // Given
+    communicator = new JSONCommunicator(transmitter, null, JSONCodec.TREE, true);
+    ArgumentCaptor<Object> frameCaptor = ArgumentCaptor.forClass(Object.class);
+    BootNotificationConfirmation confirmation =
+        new BootNotificationConfirmation(
+            createDateTimeInMillis(1461825673720L), 300, RegistrationStatus.Accepted);
+
+    // When
+    communicator.sendCallResult("abc-123", "BootNotification", confirmation);
+
+    // Then
+    verify(transmitter).send(frameCaptor.capture());
+    ((EncodedMessage) frameCaptor.getValue()).retain();
+  }
+
+  @Test
+  public void sendCallError_encodeFramesLargeMultiByteFrame_encodesWholeFrame() throws Exception {
+    // Given
+    communicator = new JSONCommunicator(transmitter, null, JSONCodec.TREE, true);
+    List<String> sent = captureSentFrames();
+    StringBuilder description = new StringBuilder();
+    while (description.length() < 20_000) {
+      description.append("Ladesäule ⚡ ");
+    }
+
+    // When
+    communicator.sendCallError("abc-123", null, "InternalError", description.toString());
+
+    // Then
+    assertThat(
+        sent.get(0), equalTo("[4,\"abc-123\",\"InternalError\",\"" + description + "\",{}]"));
+  }
+
+  private List<String> captureSentFrames() throws Exception {
+    List<String> sent = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              EncodedMessage message = invocation.getArgument(0);
+              sent.add(StandardCharsets.UTF_8.decode(message.payload()).toString());
+              return null;
+            })
+        .when(transmitter)
+        .send(any());
+    return sent;
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCall_bindsPayloadToRequestType() throws Exception {
+    // Given
+    String message =
+        "[2,\"abc-123\",\"BootNotification\","
+            + "{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"SingleSocketCharger\"}]";
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+    ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+
+    // When
+    radioEvents.receivedMessage(message);
+
+    // Then
+    verify(events).onCall(eq("abc-123"), eq("BootNotification"), payloadCaptor.capture());
+    BootNotificationRequest request =
+        communicator.unpackPayload(payloadCaptor.getValue(), BootNotificationRequest.class);
+    assertThat(request.getChargePointVendor(), equalTo("VendorX"));
+    assertThat(request.getChargePointModel(), equalTo("SingleSocketCharger"));
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCallResult_bindsPayloadToConfirmationType()
+      throws Exception {
+    // Given
+    String message =
+        "[3,\"abc-123\",{\"currentTime\":\"2016-04-28T07:16:11.988Z\",\"interval\":300,"
+            + "\"status\":\"Accepted\"}]";
+    JSONCommunicator streamingCommunicator =
+        new JSONCommunicator(transmitter, true, JSONCodec.STREAMING);
+    RadioEvents radioEvents = connect(streamingCommunicator);
+    ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+
+    // When
+    radioEvents.receivedMessage(message);
+
+    // Then
+    verify(events).onCallResult(eq("abc-123"), isNull(), payloadCaptor.capture());
+    BootNotificationConfirmation confirmation =
+        streamingCommunicator.unpackPayload(
+            payloadCaptor.getValue(), BootNotificationConfirmation.class);
+    assertThat(confirmation.getInterval(), is(300));
+    assertThat(confirmation.getStatus(), is(RegistrationStatus.Accepted));
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCallError_relaysErrorDetails() throws Exception {
+    // Given
+    String message = "[4,\"abc-123\",\"NotImplemented\",\"Unknown action\",{\"detail\":1}]";
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+
+    // When
+    radioEvents.receivedMessage(message);
+
+    // Then
+    verify(events).onError("abc-123", "NotImplemented", "Unknown action", "{\"detail\":1}");
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecMalformedFrame_sendsRpcFrameworkError()
+      throws Exception {
+    // Given
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+
+    // When
+    radioEvents.receivedMessage("[2,\"abc-123\"]");
+
+    // Then
+    verify(transmitter).send(ArgumentMatchers.startsWith("[4,\"abc-123\",\"RpcFrameworkError\""));
+    verifyNoInteractions(events);
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCallWithoutPayload_sendsRpcFrameworkError()
+      throws Exception {
+    // Given
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+
+    // When
+    radioEvents.receivedMessage("[2,\"abc-123\",\"BootNotification\"]");
+
+    // Then
+    verify(transmitter).send(ArgumentMatchers.startsWith("[4,\"abc-123\",\"RpcFrameworkError\""));
+    verifyNoInteractions(events);
+  }
+
+  @Test(expected = JsonSyntaxException.class)
+  public void unpackPayload_streamingCodecCallWithTrailingContent_throwsException()
+      throws Exception {
+    // Given
+    String message =
+        "[2,\"abc-123\",\"BootNotification\","
+            + "{\"chargePointVendor\":\"VendorX\",\"chargePointModel\":\"SingleSocketCharger\"},"
+            + "\"junk\"]";
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+    ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+    radioEvents.receivedMessage(message);
+    verify(events).onCall(eq("abc-123"), eq("BootNotification"), payloadCaptor.capture());
+
+    // When
+    communicator.unpackPayload(payloadCaptor.getValue(), BootNotificationRequest.class);
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCallWithBrokenPayload_failsWhenUnpacked()
+      throws Exception {
+    // Given
+    String message = "[2,\"abc-123\",\"BootNotification\",{\"chargePointVendor\":}]";
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+    ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+
+    // When
+    radioEvents.receivedMessage(message);
+
+    // Then
+    verify(events).onCall(eq("abc-123"), eq("BootNotification"), payloadCaptor.capture());
+    verify(transmitter, never()).send(any());
+    try {
+      communicator.unpackPayload(payloadCaptor.getValue(), BootNotificationRequest.class);
+      fail("Expected the broken payload to be rejected");
+    } catch (JsonSyntaxException expected) {
+      // The session answers this with a FormationViolation
+    }
+  }
+
+  @Test
+  public void receivedMessage_streamingCodecCallErrorWithTrailingContent_sendsRpcFrameworkError()
+      throws Exception {
+    // Given
+    RadioEvents radioEvents = connect(new JSONCommunicator(transmitter, true, JSONCodec.STREAMING));
+
+    // When
+    radioEvents.receivedMessage("[4,\"abc-123\",\"NotImplemented\",\"Unknown action\",{},{}]");
+
+    // Then
+    verify(transmitter).send(ArgumentMatchers.startsWith("[4,\"abc-123\",\"RpcFrameworkError\""));
+    verifyNoInteractions(events);
+  }
+
+  private RadioEvents connect(JSONCommunicator communicator) {
+    ArgumentCaptor<RadioEvents> radioEventsCaptor = ArgumentCaptor.forClass(RadioEvents.class);
+    communicator.connect("ws://localhost", events);
+    verify(transmitter).connect(anyString(), radioEventsCaptor.capture());
+    return radioEventsCaptor.getValue();
+  }
+
   private ZonedDateTime createDateTimeInMillis(long dateInMillis) {
     return Instant.ofEpochMilli(dateInMillis).atOffset(ZoneOffset.UTC).toZonedDateTime();
   }
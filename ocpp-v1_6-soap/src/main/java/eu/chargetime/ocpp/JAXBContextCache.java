@@ -0,0 +1,87 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * One {@link JAXBContext} per payload type, created on first use and shared by all communicators.
+ * Marshallers and unmarshallers aren't thread safe, so each thread gets its own, reused for every
+ * message of that type.
+ */
+final class JAXBContextCache {
+
+  private static final ConcurrentMap<Class<?>, Binding> bindings = new ConcurrentHashMap<>();
+
+  private JAXBContextCache() {}
+
+  static Marshaller marshaller(Class<?> type) throws JAXBException {
+    Binding binding = binding(type);
+    Marshaller marshaller = binding.marshallers.get();
+    if (marshaller == null) {
+      marshaller = binding.context.createMarshaller();
+      binding.marshallers.set(marshaller);
+    }
+    return marshaller;
+  }
+
+  static Unmarshaller unmarshaller(Class<?> type) throws JAXBException {
+    Binding binding = binding(type);
+    Unmarshaller unmarshaller = binding.unmarshallers.get();
+    if (unmarshaller == null) {
+      unmarshaller = binding.context.createUnmarshaller();
+      binding.unmarshallers.set(unmarshaller);
+    }
+    return unmarshaller;
+  }
+
+  private static Binding binding(Class<?> type) throws JAXBException {
+    Binding binding = bindings.get(type);
+    if (binding == null) {
+      // Creating a context is expensive, but racing threads only waste the work, the first one
+      // stored wins.
+      Binding created = new Binding(JAXBContext.newInstance(type));
+      binding = bindings.putIfAbsent(type, created);
+      if (binding == null) binding = created;
+    }
+    return binding;
+  }
+
+  private static class Binding {
+    private final JAXBContext context;
+    private final ThreadLocal<Marshaller> marshallers = new ThreadLocal<>();
+    private final ThreadLocal<Unmarshaller> unmarshallers = new ThreadLocal<>();
+
+    private Binding(JAXBContext context) {
+      this.context = context;
+    }
+  }
+}
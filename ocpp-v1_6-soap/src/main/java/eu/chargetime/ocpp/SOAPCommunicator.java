@@ -27,30 +27,28 @@ package eu.chargetime.ocpp;
 */
 
 import eu.chargetime.ocpp.model.*;
-import eu.chargetime.ocpp.utilities.SugarUtil;
+import javax.xml.XMLConstants;
 import javax.xml.bind.*;
 import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.soap.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 public class SOAPCommunicator extends Communicator {
   private static final Logger logger = LoggerFactory.getLogger(SOAPCommunicator.class);
 
-  private static final String HEADER_ACTION = "Action";
-  private static final String HEADER_MESSAGEID = "MessageID";
-  private static final String HEADER_RELATESTO = "RelatesTo";
-  private static final String HEADER_FROM = "From";
-  private static final String HEADER_REPLYTO = "ReplyTo";
-  private static final String HEADER_REPLYTO_ADDRESS = "Address";
-  private static final String HEADER_TO = "To";
-  private static final String HEADER_CHARGEBOXIDENTITY = "chargeBoxIdentity";
+  // Namespace of the JAXB bindings of the OCPP 1.6 model.
+  private static final String MODEL_NAMESPACE = "urn://Ocpp/Cs/2015/10/";
+
+  private static final ThreadLocal<DocumentBuilder> documentBuilders =
+      ThreadLocal.withInitial(SOAPCommunicator::createDocumentBuilder);
 
   private final SOAPHostInfo hostInfo;
   private String toUrl;
@@ -65,8 +63,8 @@ public class SOAPCommunicator extends Communicator {
     T output = null;
     try {
       Document input = (Document) payload;
-      setNamespace(input, "urn://Ocpp/Cs/2015/10/");
-      Unmarshaller unmarshaller = JAXBContext.newInstance(type).createUnmarshaller();
+      setNamespace(input, MODEL_NAMESPACE);
+      Unmarshaller unmarshaller = JAXBContextCache.unmarshaller(type);
       JAXBElement<T> jaxbElement = unmarshaller.unmarshal(input, type);
       output = jaxbElement.getValue();
     } catch (JAXBException e) {
@@ -79,66 +77,83 @@ public class SOAPCommunicator extends Communicator {
   public Object packPayload(Object payload) {
     Document document = null;
     try {
-      Marshaller marshaller = JAXBContext.newInstance(payload.getClass()).createMarshaller();
-      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-      factory.setNamespaceAware(false);
-      document = factory.newDocumentBuilder().newDocument();
+      Marshaller marshaller = JAXBContextCache.marshaller(payload.getClass());
+      document = documentBuilders.get().newDocument();
       marshaller.marshal(payload, document);
       setNamespace(document, hostInfo.getNamespace());
-    } catch (JAXBException | ParserConfigurationException e) {
+    } catch (JAXBException e) {
       logger.warn("packPayload() failed", e);
     }
     return document;
   }
 
-  private void setNamespace(Document document, String namespace) {
-    Element orgElement = document.getDocumentElement();
-    Element newElement = document.createElementNS(namespace, orgElement.getNodeName());
-
-    NodeList childNodes = orgElement.getChildNodes();
-    for (int i = 0; i < childNodes.getLength(); i++) {
-      appendChildNS(document, newElement, childNodes.item(i), namespace);
+  private static DocumentBuilder createDocumentBuilder() {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      return factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException("No namespace aware DocumentBuilder available", e);
     }
+  }
 
-    document.replaceChild(newElement, orgElement);
+  /** Move all elements into the namespace, renaming them in place. */
+  private static void setNamespace(Document document, String namespace) {
+    setNamespace(document, document.getDocumentElement(), namespace);
   }
 
-  private void appendChildNS(Document doc, Node destination, Node child, String namespace) {
-    Node newChild;
-    if (child.getNodeType() == Node.ELEMENT_NODE) {
-      newChild = doc.createElementNS(namespace, child.getNodeName());
+  private static void setNamespace(Document document, Element element, String namespace) {
+    String name = element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+    Element renamed = element;
+    if (!namespace.equals(element.getNamespaceURI()) || element.getPrefix() != null) {
+      renamed = (Element) document.renameNode(element, namespace, name);
+    }
 
-      NodeList childNodes = child.getChildNodes();
-      for (int i = 0; i < childNodes.getLength(); i++) {
-        appendChildNS(doc, newChild, childNodes.item(i), namespace);
+    // Drop declarations of the namespaces the elements were moved out of.
+    NamedNodeMap attributes = renamed.getAttributes();
+    for (int i = attributes.getLength() - 1; i >= 0; i--) {
+      Node attribute = attributes.item(i);
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attribute.getNamespaceURI())) {
+        renamed.removeAttributeNode((Attr) attribute);
       }
-    } else {
-      newChild = child;
     }
 
-    destination.appendChild(newChild);
+    for (Node child = renamed.getFirstChild(); child != null; child = child.getNextSibling()) {
+      if (child.getNodeType() == Node.ELEMENT_NODE) {
+        setNamespace(document, (Element) child, namespace);
+      }
+    }
   }
 
   @Override
   protected Object makeCallResult(String uniqueId, String action, Object payload) {
-    return createMessage(uniqueId, String.format("%sResponse", action), (Document) payload, true);
+    SOAPEnvelope envelope = createEnvelope(uniqueId, String.format("%sResponse", action), true);
+    Document document = (Document) payload;
+    setNamespace(
+        document,
+        hostInfo.isClient()
+            ? SOAPHostInfo.NAMESPACE_CHARGEBOX
+            : SOAPHostInfo.NAMESPACE_CENTRALSYSTEM);
+    envelope.setPayload(document);
+    return envelope;
   }
 
   @Override
   protected Object makeCall(String uniqueId, String action, Object payload) {
-    SOAPMessage message = createMessage(uniqueId, action, (Document) payload, false);
-    if (message != null) {
-      logger.trace("Send a message: {}", SugarUtil.soapMessageToString(message));
+    SOAPEnvelope envelope = createEnvelope(uniqueId, action, false);
+    envelope.setPayload((Document) payload);
+    if (logger.isTraceEnabled()) {
+      logger.trace("Send a message: {}", SOAPEnvelopeCodec.toString(envelope));
     }
-    return message;
+    return envelope;
   }
 
   private QName blameSomeone(String errorCode) {
-    QName result = SOAPConstants.SOAP_RECEIVER_FAULT;
+    QName result = SOAPEnvelopeCodec.RECEIVER_FAULT;
     if ("SecurityError".equals(errorCode)
         || "IdentityMismatch".equals(errorCode)
         || "ProtocolError".equals(errorCode)) {
-      return SOAPConstants.SOAP_SENDER_FAULT;
+      return SOAPEnvelopeCodec.SENDER_FAULT;
     }
 
     return result;
@@ -147,23 +162,10 @@ public class SOAPCommunicator extends Communicator {
   @Override
   protected Object makeCallError(
       String uniqueId, String action, String errorCode, String errorDescription) {
-    SOAPMessage message = null;
-    try {
-      MessageFactory messageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
-      message = messageFactory.createMessage();
-      message.setProperty(SOAPMessage.WRITE_XML_DECLARATION, "true");
-      createMessageHeader(uniqueId, String.format("%sResponse", action), true, message);
-
-      SOAPFault soapFault = message.getSOAPBody().addFault();
-      soapFault.setFaultCode(blameSomeone(errorCode));
-      soapFault.setFaultString(errorDescription);
-
-      soapFault.appendFaultSubcode(new QName(hostInfo.getNamespace(), errorCode));
-
-    } catch (SOAPException e) {
-      logger.warn("makeCallError() failed", e);
-    }
-    return message;
+    SOAPEnvelope envelope = createEnvelope(uniqueId, String.format("%sResponse", action), true);
+    envelope.setFault(
+        blameSomeone(errorCode), new QName(hostInfo.getNamespace(), errorCode), errorDescription);
+    return envelope;
   }
 
   @Override
@@ -177,204 +179,72 @@ public class SOAPCommunicator extends Communicator {
     throw new UnsupportedOperationException("SEND is not specified for SOAP");
   }
 
-  private SOAPMessage createMessage(
-      String uniqueId, String action, Document payload, boolean isResponse) {
-    SOAPMessage message = null;
-
-    try {
-      MessageFactory messageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
-
-      message = messageFactory.createMessage();
-      message.setProperty(SOAPMessage.WRITE_XML_DECLARATION, "true");
-
-      createMessageHeader(uniqueId, action, isResponse, message);
-
-      if (isResponse) {
-        setNamespace(
-            payload,
-            hostInfo.isClient()
-                ? SOAPHostInfo.NAMESPACE_CHARGEBOX
-                : SOAPHostInfo.NAMESPACE_CENTRALSYSTEM);
-      }
-
-      message.getSOAPBody().addDocument(payload);
-    } catch (Exception e) {
-      logger.warn("createMessage() failed", e);
-    }
-
-    return message;
-  }
-
-  private void createMessageHeader(
-      String uniqueId, String action, boolean isResponse, SOAPMessage message)
-      throws SOAPException {
-    SOAPFactory soapFactory = SOAPFactory.newInstance();
-    SOAPHeader soapHeader = message.getSOAPHeader();
-
-    String prefix = "wsa";
-    String namespace = "http://schemas.xmlsoap.org/ws/2004/08/addressing";
-
-    // Set chargeBoxIdentity
-    SOAPHeaderElement chargeBoxIdentityHeader =
-        soapHeader.addHeaderElement(
-            soapFactory.createName(HEADER_CHARGEBOXIDENTITY, "cs", hostInfo.getNamespace()));
-    chargeBoxIdentityHeader.setMustUnderstand(true);
-    chargeBoxIdentityHeader.setValue(hostInfo.getChargeBoxIdentity());
-
-    // Set Action
-    SOAPHeaderElement actionHeader =
-        soapHeader.addHeaderElement(soapFactory.createName(HEADER_ACTION, prefix, namespace));
-    actionHeader.setMustUnderstand(true);
-    actionHeader.setValue(String.format("/%s", action));
-
-    // Set MessageID
-    SOAPHeaderElement messageIDHeader =
-        soapHeader.addHeaderElement(soapFactory.createName(HEADER_MESSAGEID, prefix, namespace));
-    messageIDHeader.setMustUnderstand(true);
-    messageIDHeader.setValue(uniqueId);
-
-    // Set RelatesTo
-    if (isResponse) {
-      SOAPHeaderElement relatesToHeader =
-          soapHeader.addHeaderElement(soapFactory.createName(HEADER_RELATESTO, prefix, namespace));
-      relatesToHeader.setValue(uniqueId);
-    }
-
-    // Set From
-    SOAPHeaderElement fromHeader =
-        soapHeader.addHeaderElement(soapFactory.createName(HEADER_FROM, prefix, namespace));
-    fromHeader.setValue(hostInfo.getFromUrl());
-
-    // Set ReplyTo
-    SOAPHeaderElement replyToHeader =
-        soapHeader.addHeaderElement(soapFactory.createName(HEADER_REPLYTO, prefix, namespace));
-    replyToHeader.setMustUnderstand(true);
-    SOAPElement addressElement =
-        replyToHeader.addChildElement(
-            soapFactory.createName(HEADER_REPLYTO_ADDRESS, prefix, namespace));
-    addressElement.setValue("http://www.w3.org/2005/08/addressing/anonymous");
-
-    // Set To
-    SOAPHeaderElement toHeader =
-        soapHeader.addHeaderElement(soapFactory.createName(HEADER_TO, prefix, namespace));
-    toHeader.setMustUnderstand(true);
-    toHeader.setValue(toUrl);
+  private SOAPEnvelope createEnvelope(String uniqueId, String action, boolean isResponse) {
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setNamespace(hostInfo.getNamespace());
+    envelope.setChargeBoxIdentity(hostInfo.getChargeBoxIdentity());
+    envelope.setAction(String.format("/%s", action));
+    envelope.setMessageId(uniqueId);
+    if (isResponse) envelope.setRelatesTo(uniqueId);
+    envelope.setFrom(hostInfo.getFromUrl());
+    envelope.setReplyTo(SOAPEnvelopeCodec.ANONYMOUS_ADDRESS);
+    envelope.setTo(toUrl);
+    return envelope;
   }
 
   @Override
   protected Message parse(Object message) {
-    Message output = null;
-    SOAPParser soapParser = new SOAPParser((SOAPMessage) message);
-
-    if (soapParser.isAddressedToMe()) output = soapParser.parseMessage();
-
-    if (output != null) {
-      Object payload = output.getPayload();
-      if (payload instanceof Document) {
-        logger.trace("Receive a message: {}", SugarUtil.docToString((Document) payload));
-      } else {
-        logger.trace("Receive a message: {}", message);
-      }
-    }
-
-    return output;
-  }
-
-  private class SOAPParser {
-
-    private SOAPHeader soapHeader;
-    private SOAPMessage soapMessage;
-
-    public SOAPParser(SOAPMessage message) {
-      try {
-        soapMessage = message;
-        soapHeader = message.getSOAPPart().getEnvelope().getHeader();
-      } catch (SOAPException e) {
-        logger.error("SOAPParser() failed", e);
-      }
-    }
-
-    public Message parseMessage() {
-      Message output = null;
-      try {
-
-        String relatesTo = getElementValue(HEADER_RELATESTO);
-        String action = getElementValue(HEADER_ACTION);
-
-        if (relatesTo != null
-            && !relatesTo.isEmpty()
-            && action != null
-            && action.endsWith("Response")) {
-          if (soapMessage.getSOAPBody().hasFault()) output = parseError();
-          else output = parseResult();
-        } else {
-          output = parseCall();
-        }
-
-        if (action != null && !action.isEmpty()) output.setAction(action.substring(1));
-
-        if (!soapMessage.getSOAPBody().hasFault())
-          output.setPayload(soapMessage.getSOAPBody().extractContentAsDocument());
-
-      } catch (SOAPException e) {
-        logger.warn("parseMessage() failed", e);
-      }
-      return output;
-    }
-
-    public boolean isAddressedToMe() {
-      String to = getElementValue(HEADER_TO);
-      String cbIdentity = getElementValue(HEADER_CHARGEBOXIDENTITY);
-      return hostInfo.getFromUrl().equals(to) && hostInfo.getChargeBoxIdentity().equals(cbIdentity);
-    }
-
-    private CallErrorMessage parseError() {
-      CallErrorMessage message = new CallErrorMessage();
-
-      String id = getElementValue(HEADER_RELATESTO);
-      message.setId(id);
-
-      try {
-        SOAPFault fault = soapMessage.getSOAPBody().getFault();
-
-        if (fault.getFaultSubcodes().hasNext())
-          message.setErrorCode(((QName) fault.getFaultSubcodes().next()).getLocalPart());
-        if (fault.getFaultReasonTexts().hasNext())
-          message.setErrorDescription(fault.getFaultReasonTexts().next().toString());
-
-      } catch (SOAPException e) {
-        logger.error("Parse error", e);
-      }
-
-      return message;
+    SOAPEnvelope envelope = (SOAPEnvelope) message;
+    if (!isAddressedToMe(envelope)) return null;
+
+    Message output;
+    String relatesTo = envelope.getRelatesTo();
+    String action = envelope.getAction();
+    if (relatesTo != null
+        && !relatesTo.isEmpty()
+        && action != null
+        && action.endsWith("Response")) {
+      if (envelope.hasFault()) output = parseError(envelope);
+      else output = parseResult(envelope);
+    } else {
+      output = parseCall(envelope);
     }
 
-    private CallResultMessage parseResult() {
-      CallResultMessage message = new CallResultMessage();
+    if (action != null && !action.isEmpty()) output.setAction(action.substring(1));
 
-      String id = getElementValue(HEADER_RELATESTO);
-      message.setId(id);
+    if (!envelope.hasFault()) output.setPayload(envelope.getPayload());
 
-      return message;
+    if (logger.isTraceEnabled()) {
+      logger.trace("Receive a message: {}", SOAPEnvelopeCodec.toString(envelope));
     }
 
-    private CallMessage parseCall() {
-      CallMessage message = new CallMessage();
-
-      String id = getElementValue(HEADER_MESSAGEID);
-      message.setId(id);
+    return output;
+  }
 
-      return message;
-    }
+  private boolean isAddressedToMe(SOAPEnvelope envelope) {
+    return hostInfo.getFromUrl().equals(envelope.getTo())
+        && hostInfo.getChargeBoxIdentity().equals(envelope.getChargeBoxIdentity());
+  }
 
-    private String getElementValue(String tagName) {
-      String value = null;
-      NodeList elements = soapHeader.getElementsByTagNameNS("*", tagName);
+  private CallErrorMessage parseError(SOAPEnvelope envelope) {
+    CallErrorMessage message = new CallErrorMessage();
+    message.setId(envelope.getRelatesTo());
+    if (envelope.getFaultSubcode() != null)
+      message.setErrorCode(envelope.getFaultSubcode().getLocalPart());
+    message.setErrorDescription(envelope.getFaultReason());
+    return message;
+  }
 
-      if (elements.getLength() > 0) value = elements.item(0).getChildNodes().item(0).getNodeValue();
+  private CallResultMessage parseResult(SOAPEnvelope envelope) {
+    CallResultMessage message = new CallResultMessage();
+    message.setId(envelope.getRelatesTo());
+    return message;
+  }
 
-      return value;
-    }
+  private CallMessage parseCall(SOAPEnvelope envelope) {
+    CallMessage message = new CallMessage();
+    message.setId(envelope.getMessageId());
+    return message;
   }
 
   public String getToUrl() {
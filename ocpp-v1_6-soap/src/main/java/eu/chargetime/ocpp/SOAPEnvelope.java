@@ -0,0 +1,188 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.utilities.MoreObjects;
+import javax.xml.namespace.QName;
+import org.w3c.dom.Document;
+
+/**
+ * An OCPP 1.6 SOAP 1.2 envelope: the WS-Addressing and chargeBoxIdentity headers plus either a
+ * payload document or a fault.
+ *
+ * <p>Read and written by {@link SOAPEnvelopeCodec}.
+ */
+public class SOAPEnvelope {
+  private String namespace;
+  private String chargeBoxIdentity;
+  private String action;
+  private String messageId;
+  private String relatesTo;
+  private String from;
+  private String replyTo;
+  private String to;
+  private Document payload;
+  private QName faultCode;
+  private QName faultSubcode;
+  private String faultReason;
+
+  /**
+   * OCPP namespace of the sender, used for the chargeBoxIdentity header and fault subcodes.
+   *
+   * @return namespace URI.
+   */
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public void setNamespace(String namespace) {
+    this.namespace = namespace;
+  }
+
+  public String getChargeBoxIdentity() {
+    return chargeBoxIdentity;
+  }
+
+  public void setChargeBoxIdentity(String chargeBoxIdentity) {
+    this.chargeBoxIdentity = chargeBoxIdentity;
+  }
+
+  /**
+   * WS-Addressing action, ex. "/BootNotification".
+   *
+   * @return action header value.
+   */
+  public String getAction() {
+    return action;
+  }
+
+  public void setAction(String action) {
+    this.action = action;
+  }
+
+  public String getMessageId() {
+    return messageId;
+  }
+
+  public void setMessageId(String messageId) {
+    this.messageId = messageId;
+  }
+
+  public String getRelatesTo() {
+    return relatesTo;
+  }
+
+  public void setRelatesTo(String relatesTo) {
+    this.relatesTo = relatesTo;
+  }
+
+  public String getFrom() {
+    return from;
+  }
+
+  public void setFrom(String from) {
+    this.from = from;
+  }
+
+  /**
+   * Address of the ReplyTo endpoint reference.
+   *
+   * @return reply address.
+   */
+  public String getReplyTo() {
+    return replyTo;
+  }
+
+  public void setReplyTo(String replyTo) {
+    this.replyTo = replyTo;
+  }
+
+  public String getTo() {
+    return to;
+  }
+
+  public void setTo(String to) {
+    this.to = to;
+  }
+
+  /**
+   * Content of the body, null when the envelope holds a fault.
+   *
+   * @return document with the payload as root element.
+   */
+  public Document getPayload() {
+    return payload;
+  }
+
+  public void setPayload(Document payload) {
+    this.payload = payload;
+  }
+
+  public boolean hasFault() {
+    return faultCode != null;
+  }
+
+  public QName getFaultCode() {
+    return faultCode;
+  }
+
+  public QName getFaultSubcode() {
+    return faultSubcode;
+  }
+
+  public String getFaultReason() {
+    return faultReason;
+  }
+
+  /**
+   * Replace the payload with a fault.
+   *
+   * @param code {@link SOAPEnvelopeCodec#SENDER_FAULT} or {@link SOAPEnvelopeCodec#RECEIVER_FAULT}.
+   * @param subcode application specific code, may be null.
+   * @param reason human readable description.
+   */
+  public void setFault(QName code, QName subcode, String reason) {
+    this.payload = null;
+    this.faultCode = code;
+    this.faultSubcode = subcode;
+    this.faultReason = reason;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("chargeBoxIdentity", chargeBoxIdentity)
+        .add("action", action)
+        .add("messageId", messageId)
+        .add("relatesTo", relatesTo)
+        .add("from", from)
+        .add("to", to)
+        .add("faultCode", faultCode)
+        .add("faultSubcode", faultSubcode)
+        .add("faultReason", faultReason)
+        .toString();
+  }
+}
@@ -0,0 +1,503 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Streaming reader and writer of OCPP 1.6 SOAP 1.2 envelopes.
+ *
+ * <p>All headers are collected in a single StAX pass and only the body payload is turned into a
+ * DOM, which is what JAXB unmarshals from. Envelopes are written straight to the output stream.
+ */
+public final class SOAPEnvelopeCodec {
+  public static final String SOAP_NAMESPACE = "http://www.w3.org/2003/05/soap-envelope";
+  public static final String WSA_NAMESPACE = "http://schemas.xmlsoap.org/ws/2004/08/addressing";
+  public static final String ANONYMOUS_ADDRESS = "http://www.w3.org/2005/08/addressing/anonymous";
+  public static final String CONTENT_TYPE = "application/soap+xml; charset=utf-8";
+
+  public static final QName SENDER_FAULT = new QName(SOAP_NAMESPACE, "Sender", "env");
+  public static final QName RECEIVER_FAULT = new QName(SOAP_NAMESPACE, "Receiver", "env");
+
+  private static final String SOAP_PREFIX = "env";
+  private static final String WSA_PREFIX = "wsa";
+  private static final String OCPP_PREFIX = "cs";
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+  private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+  private static final ThreadLocal<DocumentBuilder> documentBuilders =
+      ThreadLocal.withInitial(SOAPEnvelopeCodec::createDocumentBuilder);
+
+  private SOAPEnvelopeCodec() {}
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    // disable DTDs and external entities to prevent XXE attacks
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+    return factory;
+  }
+
+  private static DocumentBuilder createDocumentBuilder() {
+    try {
+      DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+      factory.setNamespaceAware(true);
+      return factory.newDocumentBuilder();
+    } catch (ParserConfigurationException e) {
+      throw new IllegalStateException("No namespace aware DocumentBuilder available", e);
+    }
+  }
+
+  /**
+   * Read an envelope. The stream is left open.
+   *
+   * @param in XML of a SOAP 1.2 envelope.
+   * @return the headers and payload or fault.
+   * @throws XMLStreamException if the stream isn't a well formed SOAP 1.2 envelope.
+   */
+  public static SOAPEnvelope read(InputStream in) throws XMLStreamException {
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+    try {
+      reader.nextTag();
+      if (!isSOAPElement(reader, "Envelope")) {
+        throw new XMLStreamException(
+            String.format("Expected a SOAP 1.2 Envelope, got %s", reader.getName()),
+            reader.getLocation());
+      }
+
+      SOAPEnvelope envelope = new SOAPEnvelope();
+      while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+        if (isSOAPElement(reader, "Header")) {
+          readHeaders(reader, envelope);
+        } else if (isSOAPElement(reader, "Body")) {
+          readBody(reader, envelope);
+        } else {
+          skipElement(reader);
+        }
+      }
+      return envelope;
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static boolean isSOAPElement(XMLStreamReader reader, String localName) {
+    return localName.equals(reader.getLocalName())
+        && SOAP_NAMESPACE.equals(reader.getNamespaceURI());
+  }
+
+  private static void readHeaders(XMLStreamReader reader, SOAPEnvelope envelope)
+      throws XMLStreamException {
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      switch (reader.getLocalName()) {
+        case "chargeBoxIdentity":
+          envelope.setNamespace(reader.getNamespaceURI());
+          envelope.setChargeBoxIdentity(readAddress(reader));
+          break;
+        case "Action":
+          envelope.setAction(readAddress(reader));
+          break;
+        case "MessageID":
+          envelope.setMessageId(readAddress(reader));
+          break;
+        case "RelatesTo":
+          envelope.setRelatesTo(readAddress(reader));
+          break;
+        case "From":
+          envelope.setFrom(readAddress(reader));
+          break;
+        case "ReplyTo":
+          envelope.setReplyTo(readAddress(reader));
+          break;
+        case "To":
+          envelope.setTo(readAddress(reader));
+          break;
+        default:
+          skipElement(reader);
+      }
+    }
+  }
+
+  /**
+   * Text of a header, or of its Address child if it is an endpoint reference. Leaves the reader on
+   * the end tag of the header.
+   */
+  private static String readAddress(XMLStreamReader reader) throws XMLStreamException {
+    StringBuilder text = new StringBuilder();
+    String address = null;
+    while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+      switch (reader.getEventType()) {
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          text.append(reader.getText());
+          break;
+        case XMLStreamConstants.START_ELEMENT:
+          if ("Address".equals(reader.getLocalName()) && address == null) {
+            address = reader.getElementText().trim();
+          } else {
+            skipElement(reader);
+          }
+          break;
+        default:
+      }
+    }
+    return address != null ? address : text.toString().trim();
+  }
+
+  private static void readBody(XMLStreamReader reader, SOAPEnvelope envelope)
+      throws XMLStreamException {
+    boolean first = true;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (!first) {
+        skipElement(reader);
+      } else if (isSOAPElement(reader, "Fault")) {
+        readFault(reader, envelope);
+      } else {
+        Document document = documentBuilders.get().newDocument();
+        readElement(reader, document);
+        envelope.setPayload(document);
+      }
+      first = false;
+    }
+  }
+
+  private static void readFault(XMLStreamReader reader, SOAPEnvelope envelope)
+      throws XMLStreamException {
+    QName code = null;
+    QName subcode = null;
+    String reason = null;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (isSOAPElement(reader, "Code")) {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          if (isSOAPElement(reader, "Value")) {
+            code = readQName(reader);
+          } else if (isSOAPElement(reader, "Subcode")) {
+            subcode = readSubcode(reader);
+          } else {
+            skipElement(reader);
+          }
+        }
+      } else if (isSOAPElement(reader, "Reason")) {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+          if (isSOAPElement(reader, "Text") && reason == null) {
+            reason = reader.getElementText();
+          } else {
+            skipElement(reader);
+          }
+        }
+      } else {
+        skipElement(reader);
+      }
+    }
+    envelope.setFault(code != null ? code : RECEIVER_FAULT, subcode, reason);
+  }
+
+  /** First level subcode only, nested subcodes are skipped. */
+  private static QName readSubcode(XMLStreamReader reader) throws XMLStreamException {
+    QName subcode = null;
+    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+      if (isSOAPElement(reader, "Value")) {
+        subcode = readQName(reader);
+      } else {
+        skipElement(reader);
+      }
+    }
+    return subcode;
+  }
+
+  private static QName readQName(XMLStreamReader reader) throws XMLStreamException {
+    String text = reader.getElementText().trim();
+    int colon = text.indexOf(':');
+    String prefix = colon > 0 ? text.substring(0, colon) : XMLConstants.DEFAULT_NS_PREFIX;
+    String namespace = reader.getNamespaceContext().getNamespaceURI(prefix);
+    return new QName(namespace, text.substring(colon + 1), prefix);
+  }
+
+  /** Copy the element the reader is on into the document, leaving the reader on its end tag. */
+  private static void readElement(XMLStreamReader reader, Document document)
+      throws XMLStreamException {
+    Node current = document;
+    int depth = 0;
+    do {
+      switch (reader.getEventType()) {
+        case XMLStreamConstants.START_ELEMENT:
+          Element element =
+              document.createElementNS(
+                  emptyToNull(reader.getNamespaceURI()),
+                  qualifiedName(reader.getPrefix(), reader.getLocalName()));
+          for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            element.setAttributeNS(
+                XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                prefix == null || prefix.isEmpty()
+                    ? XMLConstants.XMLNS_ATTRIBUTE
+                    : XMLConstants.XMLNS_ATTRIBUTE + ":" + prefix,
+                reader.getNamespaceURI(i));
+          }
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            element.setAttributeNS(
+                emptyToNull(reader.getAttributeNamespace(i)),
+                qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                reader.getAttributeValue(i));
+          }
+          current.appendChild(element);
+          current = element;
+          depth++;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          current.appendChild(document.createTextNode(reader.getText()));
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          current = current.getParentNode();
+          depth--;
+          break;
+        default:
+      }
+      if (depth > 0) reader.next();
+    } while (depth > 0);
+  }
+
+  private static String qualifiedName(String prefix, String localName) {
+    if (prefix == null || prefix.isEmpty()) return localName;
+    return prefix + ":" + localName;
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+
+  private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) depth++;
+      else if (event == XMLStreamConstants.END_ELEMENT) depth--;
+    }
+  }
+
+  /**
+   * Write an envelope as UTF-8. The stream is flushed but left open.
+   *
+   * @param envelope headers and payload or fault to write.
+   * @param out destination, ex. the body of a http response.
+   * @throws XMLStreamException if writing fails.
+   */
+  public static void write(SOAPEnvelope envelope, OutputStream out) throws XMLStreamException {
+    XMLStreamWriter writer =
+        outputFactory.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+    writer.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+    writer.writeStartElement(SOAP_PREFIX, "Envelope", SOAP_NAMESPACE);
+    writer.writeNamespace(SOAP_PREFIX, SOAP_NAMESPACE);
+    writer.writeNamespace(WSA_PREFIX, WSA_NAMESPACE);
+
+    writer.writeStartElement(SOAP_PREFIX, "Header", SOAP_NAMESPACE);
+    if (envelope.getChargeBoxIdentity() != null) {
+      writer.writeStartElement(OCPP_PREFIX, "chargeBoxIdentity", envelope.getNamespace());
+      writer.writeNamespace(OCPP_PREFIX, envelope.getNamespace());
+      writeMustUnderstand(writer);
+      writer.writeCharacters(envelope.getChargeBoxIdentity());
+      writer.writeEndElement();
+    }
+    writeHeader(writer, "Action", envelope.getAction(), true);
+    writeHeader(writer, "MessageID", envelope.getMessageId(), true);
+    writeHeader(writer, "RelatesTo", envelope.getRelatesTo(), false);
+    writeHeader(writer, "From", envelope.getFrom(), false);
+    if (envelope.getReplyTo() != null) {
+      writer.writeStartElement(WSA_PREFIX, "ReplyTo", WSA_NAMESPACE);
+      writeMustUnderstand(writer);
+      writeHeader(writer, "Address", envelope.getReplyTo(), false);
+      writer.writeEndElement();
+    }
+    writeHeader(writer, "To", envelope.getTo(), true);
+    writer.writeEndElement();
+
+    writer.writeStartElement(SOAP_PREFIX, "Body", SOAP_NAMESPACE);
+    if (envelope.hasFault()) {
+      writeFault(writer, envelope);
+    } else if (envelope.getPayload() != null) {
+      writeElement(writer, envelope.getPayload().getDocumentElement(), Collections.emptyMap());
+    }
+    writer.writeEndElement();
+
+    writer.writeEndElement();
+    writer.writeEndDocument();
+    writer.flush();
+    writer.close();
+  }
+
+  private static void writeMustUnderstand(XMLStreamWriter writer) throws XMLStreamException {
+    writer.writeAttribute(SOAP_PREFIX, SOAP_NAMESPACE, "mustUnderstand", "true");
+  }
+
+  private static void writeHeader(
+      XMLStreamWriter writer, String localName, String value, boolean mustUnderstand)
+      throws XMLStreamException {
+    if (value == null) return;
+    writer.writeStartElement(WSA_PREFIX, localName, WSA_NAMESPACE);
+    if (mustUnderstand) writeMustUnderstand(writer);
+    writer.writeCharacters(value);
+    writer.writeEndElement();
+  }
+
+  private static void writeFault(XMLStreamWriter writer, SOAPEnvelope envelope)
+      throws XMLStreamException {
+    writer.writeStartElement(SOAP_PREFIX, "Fault", SOAP_NAMESPACE);
+
+    writer.writeStartElement(SOAP_PREFIX, "Code", SOAP_NAMESPACE);
+    writeQName(writer, envelope.getFaultCode());
+    if (envelope.getFaultSubcode() != null) {
+      writer.writeStartElement(SOAP_PREFIX, "Subcode", SOAP_NAMESPACE);
+      writeQName(writer, envelope.getFaultSubcode());
+      writer.writeEndElement();
+    }
+    writer.writeEndElement();
+
+    writer.writeStartElement(SOAP_PREFIX, "Reason", SOAP_NAMESPACE);
+    writer.writeStartElement(SOAP_PREFIX, "Text", SOAP_NAMESPACE);
+    writer.writeAttribute("xml", XMLConstants.XML_NS_URI, "lang", "en");
+    writer.writeCharacters(envelope.getFaultReason() != null ? envelope.getFaultReason() : "");
+    writer.writeEndElement();
+    writer.writeEndElement();
+
+    writer.writeEndElement();
+  }
+
+  private static void writeQName(XMLStreamWriter writer, QName value) throws XMLStreamException {
+    writer.writeStartElement(SOAP_PREFIX, "Value", SOAP_NAMESPACE);
+    String prefix = value.getPrefix();
+    if (SOAP_NAMESPACE.equals(value.getNamespaceURI())) {
+      prefix = SOAP_PREFIX;
+    } else if (!value.getNamespaceURI().isEmpty()) {
+      if (prefix.isEmpty()) prefix = OCPP_PREFIX;
+      writer.writeNamespace(prefix, value.getNamespaceURI());
+    }
+    writer.writeCharacters(qualifiedName(prefix, value.getLocalPart()));
+    writer.writeEndElement();
+  }
+
+  /**
+   * Write the element and its content. The writer doesn't track namespace declarations when not
+   * repairing, so the bindings in scope are passed down and copied when an element adds one.
+   */
+  private static void writeElement(
+      XMLStreamWriter writer, Element element, Map<String, String> inScope)
+      throws XMLStreamException {
+    String namespace = element.getNamespaceURI() != null ? element.getNamespaceURI() : "";
+    String prefix = element.getPrefix() != null ? element.getPrefix() : "";
+    String localName =
+        element.getLocalName() != null ? element.getLocalName() : element.getNodeName();
+
+    writer.writeStartElement(prefix, localName, namespace);
+    Map<String, String> scope = declareNamespace(writer, inScope, prefix, namespace);
+
+    NamedNodeMap attributes = element.getAttributes();
+    for (int i = 0; i < attributes.getLength(); i++) {
+      Attr attribute = (Attr) attributes.item(i);
+      String attributeNamespace = attribute.getNamespaceURI();
+      if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attributeNamespace)) continue;
+
+      String attributeLocalName =
+          attribute.getLocalName() != null ? attribute.getLocalName() : attribute.getName();
+      if (attributeNamespace == null) {
+        writer.writeAttribute(attributeLocalName, attribute.getValue());
+      } else {
+        String attributePrefix = attribute.getPrefix() != null ? attribute.getPrefix() : "ns";
+        scope = declareNamespace(writer, scope, attributePrefix, attributeNamespace);
+        writer.writeAttribute(
+            attributePrefix, attributeNamespace, attributeLocalName, attribute.getValue());
+      }
+    }
+
+    for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+      switch (child.getNodeType()) {
+        case Node.ELEMENT_NODE:
+          writeElement(writer, (Element) child, scope);
+          break;
+        case Node.TEXT_NODE:
+        case Node.CDATA_SECTION_NODE:
+          writer.writeCharacters(child.getNodeValue());
+          break;
+        default:
+      }
+    }
+    writer.writeEndElement();
+  }
+
+  private static Map<String, String> declareNamespace(
+      XMLStreamWriter writer, Map<String, String> inScope, String prefix, String namespace)
+      throws XMLStreamException {
+    if (namespace.equals(inScope.getOrDefault(prefix, ""))) return inScope;
+
+    if (prefix.isEmpty()) writer.writeDefaultNamespace(namespace);
+    else writer.writeNamespace(prefix, namespace);
+
+    Map<String, String> scope = new HashMap<>(inScope);
+    scope.put(prefix, namespace);
+    return scope;
+  }
+
+  /**
+   * Render an envelope for logging.
+   *
+   * @param envelope envelope to render.
+   * @return the XML, or an empty string if it can't be written.
+   */
+  public static String toString(SOAPEnvelope envelope) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      write(envelope, out);
+    } catch (XMLStreamException e) {
+      return "";
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
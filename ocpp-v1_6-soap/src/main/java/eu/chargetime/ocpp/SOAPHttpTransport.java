@@ -0,0 +1,179 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Sends SOAP envelopes over http on a bounded pool of worker threads.
+ *
+ * <p>Connections are kept alive and reused per host and port by the JDK http client, as long as
+ * every response is read to the end and closed, which this class does. {@code http.maxConnections}
+ * sets how many idle connections are kept per destination.
+ */
+public class SOAPHttpTransport implements AutoCloseable {
+  public static final int DEFAULT_MAX_THREADS = 16;
+  public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+  public static final int DEFAULT_CONNECT_TIMEOUT = 10_000;
+  public static final int DEFAULT_READ_TIMEOUT = 30_000;
+
+  private static final AtomicInteger poolCount = new AtomicInteger();
+
+  private final ThreadPoolExecutor workers;
+  private final int connectTimeout;
+  private final int readTimeout;
+
+  public SOAPHttpTransport() {
+    this(
+        DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY, DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT);
+  }
+
+  /**
+   * @param maxThreads maximum number of calls in progress.
+   * @param queueCapacity maximum number of calls waiting for a thread, beyond that they fail with a
+   *     {@link RejectedExecutionException}.
+   * @param connectTimeout in milliseconds.
+   * @param readTimeout in milliseconds, the time allowed for the other end to respond.
+   */
+  public SOAPHttpTransport(int maxThreads, int queueCapacity, int connectTimeout, int readTimeout) {
+    if (maxThreads < 1) throw new IllegalArgumentException("maxThreads must be at least 1");
+    if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be at least 1");
+    this.connectTimeout = connectTimeout;
+    this.readTimeout = readTimeout;
+
+    String prefix = "ocpp-soap-transport-" + poolCount.incrementAndGet() + "-";
+    AtomicInteger threadCount = new AtomicInteger();
+    workers =
+        new ThreadPoolExecutor(
+            maxThreads,
+            maxThreads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+              Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    workers.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Shared by the radios that aren't given a transport of their own.
+   *
+   * @return the default transport, never closed.
+   */
+  public static SOAPHttpTransport getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Post an envelope and read the envelope sent back.
+   *
+   * @param url endpoint of the other end.
+   * @param request envelope to post.
+   * @return completes with the response, or exceptionally with an {@link IOException}, {@link
+   *     XMLStreamException} or {@link RejectedExecutionException}.
+   */
+  public CompletableFuture<SOAPEnvelope> call(String url, SOAPEnvelope request) {
+    CompletableFuture<SOAPEnvelope> response = new CompletableFuture<>();
+    try {
+      workers.execute(
+          () -> {
+            try {
+              response.complete(post(url, request));
+            } catch (Exception e) {
+              response.completeExceptionally(e);
+            }
+          });
+    } catch (RejectedExecutionException e) {
+      response.completeExceptionally(e);
+    }
+    return response;
+  }
+
+  private SOAPEnvelope post(String url, SOAPEnvelope request)
+      throws IOException, XMLStreamException {
+    HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+    connection.setConnectTimeout(connectTimeout);
+    connection.setReadTimeout(readTimeout);
+    connection.setDoOutput(true);
+    connection.setRequestMethod("POST");
+    connection.setRequestProperty("Content-Type", SOAPEnvelopeCodec.CONTENT_TYPE);
+    // Unknown length, the envelope is streamed as it is written.
+    connection.setChunkedStreamingMode(0);
+
+    try (OutputStream out = connection.getOutputStream()) {
+      SOAPEnvelopeCodec.write(request, out);
+    }
+
+    int status = connection.getResponseCode();
+    // SOAP 1.2 faults come with a 4xx or 5xx status.
+    InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    if (body == null) {
+      throw new IOException(String.format("No response from %s, http status %d", url, status));
+    }
+    try (InputStream in = body) {
+      SOAPEnvelope response = SOAPEnvelopeCodec.read(in);
+      drain(in);
+      return response;
+    } catch (XMLStreamException e) {
+      if (status >= 400) {
+        throw new IOException(String.format("Call to %s failed, http status %d", url, status), e);
+      }
+      throw e;
+    }
+  }
+
+  /** Read what's left of the body, the connection is only reused when the body was consumed. */
+  private static void drain(InputStream in) throws IOException {
+    byte[] buffer = new byte[512];
+    while (in.read(buffer) != -1) {
+      // discard
+    }
+  }
+
+  /** Stop accepting calls, those in progress are finished. */
+  @Override
+  public void close() {
+    workers.shutdown();
+  }
+
+  private static class DefaultHolder {
+    private static final SOAPHttpTransport INSTANCE = new SOAPHttpTransport();
+  }
+}
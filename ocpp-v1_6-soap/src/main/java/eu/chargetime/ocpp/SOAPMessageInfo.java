@@ -1,14 +1,13 @@
 package eu.chargetime.ocpp;
 
 import java.net.InetSocketAddress;
-import javax.xml.soap.SOAPMessage;
 
 /** Created by emil on 21.05.2017. */
 public class SOAPMessageInfo {
   private final InetSocketAddress address;
-  private final SOAPMessage message;
+  private final SOAPEnvelope message;
 
-  public SOAPMessageInfo(InetSocketAddress address, SOAPMessage message) {
+  public SOAPMessageInfo(InetSocketAddress address, SOAPEnvelope message) {
     this.address = address;
     this.message = message;
   }
@@ -17,7 +16,7 @@ public class SOAPMessageInfo {
     return address;
   }
 
-  public SOAPMessage getMessage() {
+  public SOAPEnvelope getMessage() {
     return message;
   }
 }
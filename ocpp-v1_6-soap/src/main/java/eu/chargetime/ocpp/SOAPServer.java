@@ -29,6 +29,7 @@ import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
 
@@ -39,10 +40,21 @@ public class SOAPServer implements IServerAPI {
   private final WebServiceListener listener;
 
   public SOAPServer(ServerCoreProfile coreProfile) {
+    this(
+        coreProfile,
+        WebServiceListener.DEFAULT_MAX_THREADS,
+        WebServiceListener.DEFAULT_QUEUE_CAPACITY);
+  }
 
+  /**
+   * @param coreProfile implementation of the core feature profile.
+   * @param maxThreads maximum number of threads handling http requests.
+   * @param queueCapacity maximum number of http requests waiting for a thread.
+   */
+  public SOAPServer(ServerCoreProfile coreProfile, int maxThreads, int queueCapacity) {
     featureRepository = new FeatureRepository();
     SessionFactory sessionFactory = new SessionFactory(featureRepository);
-    this.listener = new WebServiceListener(sessionFactory);
+    this.listener = new WebServiceListener(sessionFactory, maxThreads, queueCapacity);
     server = new Server(this.listener, new PromiseRepository());
     featureRepository.addFeatureProfile(coreProfile);
   }
@@ -88,6 +100,13 @@ public class SOAPServer implements IServerAPI {
     return server.send(session, request);
   }
 
+  @Override
+  public Broadcast broadcast(
+      Collection<UUID> sessionIndexes, Request request, int messagesPerSecond)
+      throws OccurenceConstraintException {
+    return server.broadcast(sessionIndexes, request, messagesPerSecond);
+  }
+
   @Override
   public boolean asyncCompleteRequest(UUID sessionIndex, String uniqueId, Confirmation confirmation)
       throws NotConnectedException, UnsupportedFeatureException, OccurenceConstraintException {
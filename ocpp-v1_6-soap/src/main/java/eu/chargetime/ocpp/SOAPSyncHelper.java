@@ -24,62 +24,95 @@ package eu.chargetime.ocpp; /*
                                SOFTWARE.
                             */
 
-import java.util.HashMap;
 import java.util.concurrent.CompletableFuture;
-import javax.xml.soap.SOAPException;
-import javax.xml.soap.SOAPHeader;
-import javax.xml.soap.SOAPMessage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.w3c.dom.NodeList;
 
 public abstract class SOAPSyncHelper {
   private static final Logger logger = LoggerFactory.getLogger(SOAPSyncHelper.class);
 
-  private HashMap<String, CompletableFuture<SOAPMessage>> promises;
-
-  public SOAPSyncHelper() {
-    promises = new HashMap<>();
-  }
-
-  public static String getHeaderValue(SOAPMessage message, String tagName) {
-    String value = null;
-    try {
-      SOAPHeader header = message.getSOAPPart().getEnvelope().getHeader();
-      NodeList elements = header.getElementsByTagNameNS("*", tagName);
-      if (elements.getLength() > 0) {
-        value = elements.item(0).getChildNodes().item(0).getTextContent();
-      }
-    } catch (SOAPException e) {
-      logger.warn("getHeaderValue() failed", e);
-    }
-    return value;
-  }
-
-  abstract void forwardMessage(SOAPMessage message);
-
-  public CompletableFuture<SOAPMessage> relay(SOAPMessage message) {
-    CompletableFuture<SOAPMessage> promise = null;
-    String uniqueID = getHeaderValue(message, "MessageID");
+  private final ConcurrentMap<String, CompletableFuture<SOAPEnvelope>> promises =
+      new ConcurrentHashMap<>();
+
+  abstract void forwardMessage(SOAPEnvelope message);
+
+  /**
+   * Forward an incoming request and wait for the response to send back.
+   *
+   * @param message incoming request.
+   * @return completes with the response. Its entry is removed once completed, also when the caller
+   *     completes or cancels it.
+   */
+  public CompletableFuture<SOAPEnvelope> relay(SOAPEnvelope message) {
+    CompletableFuture<SOAPEnvelope> promise = null;
+    String uniqueID = message.getMessageId();
     if (uniqueID != null) {
-      promise = new CompletableFuture<>();
-      promises.put(uniqueID, promise);
+      CompletableFuture<SOAPEnvelope> created = new CompletableFuture<>();
+      promise = created;
+      promises.put(uniqueID, created);
+      created.whenComplete((result, error) -> promises.remove(uniqueID, created));
     }
 
     forwardMessage(message);
     return promise;
   }
 
-  abstract void sendRequest(SOAPMessage message) throws NotConnectedException;
+  abstract void sendRequest(SOAPEnvelope message) throws NotConnectedException;
 
   public void send(Object message) throws NotConnectedException {
-    SOAPMessage soapMessage = (SOAPMessage) message;
+    SOAPEnvelope envelope = (SOAPEnvelope) message;
+
+    String relatesTo = envelope.getRelatesTo();
+    CompletableFuture<SOAPEnvelope> promise = relatesTo != null ? promises.get(relatesTo) : null;
+    if (promise != null) {
+      promise.complete(envelope);
+    } else {
+      sendRequest(envelope);
+    }
+  }
+
+  /**
+   * Number of relayed requests still waiting for a response.
+   *
+   * @return pending responses.
+   */
+  public int getPendingCount() {
+    return promises.size();
+  }
+
+  /**
+   * Make a call through a {@link SOAPHttpTransport} and hand its response to the events.
+   *
+   * @throws NotConnectedException if the transport is saturated and rejects the call, so the
+   *     request fails right away instead of never being answered.
+   */
+  void call(
+      SOAPHttpTransport transport,
+      String url,
+      SOAPEnvelope message,
+      RadioEvents events,
+      Runnable disconnect)
+      throws NotConnectedException {
+    CompletableFuture<SOAPEnvelope> response = transport.call(url, message);
+    // the transport rejects a call before returning, a failed call completes later
+    if (response.isCompletedExceptionally()
+        && response.handle((result, error) -> error instanceof RejectedExecutionException).join()) {
+      logger.warn("sendRequest() rejected, the transport is saturated");
+      throw new NotConnectedException();
+    }
+    response.whenComplete((result, error) -> handleResponse(events, result, error, disconnect));
+  }
 
-    String relatesTo = getHeaderValue(soapMessage, "RelatesTo");
-    if (relatesTo != null && promises.containsKey(relatesTo)) {
-      promises.get(relatesTo).complete(soapMessage);
+  private void handleResponse(
+      RadioEvents events, SOAPEnvelope response, Throwable error, Runnable disconnect) {
+    if (error == null) {
+      events.receivedMessage(response);
     } else {
-      sendRequest(soapMessage);
+      logger.warn("sendRequest() failed", error);
+      disconnect.run();
     }
   }
 }
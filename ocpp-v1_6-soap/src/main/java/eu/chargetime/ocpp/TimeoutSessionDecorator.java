@@ -25,6 +25,7 @@ package eu.chargetime.ocpp;
    SOFTWARE.
 */
 
+import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.core.BootNotificationConfirmation;
@@ -98,6 +99,17 @@ public class TimeoutSessionDecorator implements ISession {
     this.session.sendRequest(action, payload, uuid);
   }
 
+  @Nullable
+  @Override
+  public Object packSharedPayload(Request payload) {
+    return this.session.packSharedPayload(payload);
+  }
+
+  @Override
+  public void sendRequest(String action, Request payload, Object sharedPayload, String uuid) {
+    this.session.sendRequest(action, payload, sharedPayload, uuid);
+  }
+
   @Override
   public void removeRequest(String ticket) {
     this.session.removeRequest(ticket);
@@ -128,11 +140,19 @@ public class TimeoutSessionDecorator implements ISession {
       }
 
       @Override
-      public synchronized Confirmation handleRequest(Request request)
+      public Confirmation handleRequest(Request request) throws UnsupportedFeatureException {
+        resetTimer();
+        return applyBootNotification(eventHandler.handleRequest(request));
+      }
+
+      @Override
+      public Confirmation handleRequest(Feature feature, Request request)
           throws UnsupportedFeatureException {
         resetTimer();
-        Confirmation confirmation = eventHandler.handleRequest(request);
+        return applyBootNotification(eventHandler.handleRequest(feature, request));
+      }
 
+      private Confirmation applyBootNotification(Confirmation confirmation) {
         if (confirmation instanceof BootNotificationConfirmation) {
           BootNotificationConfirmation bootNotification =
               (BootNotificationConfirmation) confirmation;
@@ -30,7 +30,10 @@ import com.sun.net.httpserver.HttpHandler;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import javax.xml.soap.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,44 +42,77 @@ public class WSHttpHandler implements HttpHandler {
 
   private String wsdlResourceName;
   private WSHttpHandlerEvents events;
+  @Nullable private final Executor responseExecutor;
 
   public WSHttpHandler(String wsdlResourceName, WSHttpHandlerEvents events) {
+    this(wsdlResourceName, events, null);
+  }
+
+  /**
+   * @param wsdlResourceName the WSDL served for {@code ?wsdl}.
+   * @param events handles the incoming requests.
+   * @param responseExecutor executor that writes the responses, e.g. the pool of the HTTP server.
+   *     Null to write them on the thread that completes the confirmation.
+   */
+  public WSHttpHandler(
+      String wsdlResourceName, WSHttpHandlerEvents events, @Nullable Executor responseExecutor) {
     this.wsdlResourceName = wsdlResourceName;
     this.events = events;
+    this.responseExecutor = responseExecutor;
   }
 
   @Override
   public void handle(HttpExchange httpExchange) throws IOException {
     if ("wsdl".equals(httpExchange.getRequestURI().getQuery())) {
       sendWSDL(httpExchange);
+      return;
+    }
+
+    SOAPEnvelope request;
+    try (InputStream requestStream = httpExchange.getRequestBody()) {
+      request = SOAPEnvelopeCodec.read(requestStream);
+    } catch (XMLStreamException e) {
+      logger.warn("handle() failed to parse request", e);
+      httpExchange.sendResponseHeaders(400, -1);
+      httpExchange.close();
+      return;
+    }
+
+    // The exchange is completed by whichever thread produces the confirmation.
+    CompletableFuture<SOAPEnvelope> confirmation =
+        events.incomingRequest(new SOAPMessageInfo(httpExchange.getRemoteAddress(), request));
+    if (confirmation == null) {
+      respond(httpExchange, null, null);
+    } else if (responseExecutor == null) {
+      confirmation.whenComplete((envelope, error) -> respond(httpExchange, envelope, error));
     } else {
-      SOAPMessage request = parse(httpExchange.getRequestBody());
-      SOAPMessage confirmation =
-          events.incomingRequest(new SOAPMessageInfo(httpExchange.getRemoteAddress(), request));
-      OutputStream responseStream = httpExchange.getResponseBody();
-      try {
-        httpExchange
-            .getResponseHeaders()
-            .add("Content-Type", "application/soap+xml; charset=utf-8");
-        httpExchange.sendResponseHeaders(200, 0);
-        confirmation.writeTo(responseStream);
-      } catch (SOAPException e) {
-        httpExchange.sendResponseHeaders(500, 0);
-        logger.warn("handle() confirmation.writeTo failed", e);
-      }
-      responseStream.close();
+      confirmation.whenCompleteAsync(
+          (envelope, error) -> respond(httpExchange, envelope, error), responseExecutor);
     }
   }
 
-  private SOAPMessage parse(InputStream request) throws IOException {
-    SOAPMessage message = null;
+  private static void respond(
+      HttpExchange httpExchange, SOAPEnvelope confirmation, Throwable error) {
     try {
-      MessageFactory messageFactory = MessageFactory.newInstance(SOAPConstants.SOAP_1_2_PROTOCOL);
-      message = messageFactory.createMessage(new MimeHeaders(), request);
-    } catch (SOAPException e) {
-      logger.warn("parse() failed", e);
+      if (confirmation == null) {
+        if (error != null) logger.warn("handle() no confirmation", error);
+        httpExchange.sendResponseHeaders(500, -1);
+        return;
+      }
+
+      httpExchange.getResponseHeaders().add("Content-Type", SOAPEnvelopeCodec.CONTENT_TYPE);
+      httpExchange.sendResponseHeaders(200, 0);
+      try (OutputStream responseStream = httpExchange.getResponseBody()) {
+        SOAPEnvelopeCodec.write(confirmation, responseStream);
+      } catch (XMLStreamException e) {
+        // The status line is already sent, the truncated body is all the client gets.
+        logger.warn("handle() failed to write confirmation", e);
+      }
+    } catch (IOException e) {
+      logger.warn("handle() failed to send confirmation", e);
+    } finally {
+      httpExchange.close();
     }
-    return message;
   }
 
   private void sendWSDL(HttpExchange httpExchange) throws IOException {
@@ -24,8 +24,14 @@ package eu.chargetime.ocpp; /*
                                SOFTWARE.
                             */
 
-import javax.xml.soap.SOAPMessage;
+import java.util.concurrent.CompletableFuture;
 
 public interface WSHttpHandlerEvents {
-  SOAPMessage incomingRequest(SOAPMessageInfo messageInfo);
+  /**
+   * Handle a request received over http.
+   *
+   * @param messageInfo the request and its origin.
+   * @return completes with the response to send back, null or failing to send an error status.
+   */
+  CompletableFuture<SOAPEnvelope> incomingRequest(SOAPMessageInfo messageInfo);
 }
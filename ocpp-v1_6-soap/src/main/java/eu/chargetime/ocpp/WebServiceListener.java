@@ -28,13 +28,19 @@ package eu.chargetime.ocpp;
 import com.sun.net.httpserver.HttpServer;
 import eu.chargetime.ocpp.model.SOAPHostInfo;
 import eu.chargetime.ocpp.model.SessionInformation;
-import eu.chargetime.ocpp.utilities.TimeoutHandler;
 import eu.chargetime.ocpp.utilities.TimeoutTimer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.util.HashMap;
-import java.util.concurrent.ExecutionException;
-import javax.xml.soap.SOAPMessage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,16 +48,42 @@ public class WebServiceListener implements Listener {
   private static final Logger logger = LoggerFactory.getLogger(WebServiceListener.class);
   private static final String WSDL_CENTRAL_SYSTEM =
       "eu/chargetime/ocpp/OCPP_CentralSystemService_1.6.wsdl";
+
+  public static final int DEFAULT_MAX_THREADS = 64;
+  public static final int DEFAULT_QUEUE_CAPACITY = 512;
+
   private final ISessionFactory sessionFactory;
+  private final int maxThreads;
+  private final int queueCapacity;
 
   private ListenerEvents events;
   private String fromUrl = null;
   private HttpServer server;
+  private ThreadPoolExecutor executor;
+  private ScheduledExecutorService scheduler;
+  private SOAPHttpTransport transport;
   private boolean handleRequestAsync;
   private volatile boolean closed = true;
 
   public WebServiceListener(ISessionFactory sessionFactory) {
+    this(sessionFactory, DEFAULT_MAX_THREADS, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Requests are handled by a bounded pool. When all threads are busy and the queue is full, the
+   * http server thread handles the request itself and stops accepting connections meanwhile.
+   * Requests sent to the chargeboxes use a {@link SOAPHttpTransport} with the same bounds.
+   *
+   * @param sessionFactory creates the sessions of new chargeboxes.
+   * @param maxThreads maximum number of threads handling requests.
+   * @param queueCapacity maximum number of requests waiting for a thread.
+   */
+  public WebServiceListener(ISessionFactory sessionFactory, int maxThreads, int queueCapacity) {
+    if (maxThreads < 1) throw new IllegalArgumentException("maxThreads must be at least 1");
+    if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity must be at least 1");
     this.sessionFactory = sessionFactory;
+    this.maxThreads = maxThreads;
+    this.queueCapacity = queueCapacity;
   }
 
   @Override
@@ -60,9 +92,18 @@ public class WebServiceListener implements Listener {
     fromUrl = String.format("http://%s:%d", hostname, port);
     try {
       server = HttpServer.create(new InetSocketAddress(hostname, port), 0);
-      server.createContext("/", new WSHttpHandler(WSDL_CENTRAL_SYSTEM, new WSHttpEventHandler()));
-
-      server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+      scheduler = TimeoutTimer.createScheduler("ocpp-soap-timeout");
+      executor = createExecutor();
+      // Timed out confirmations are answered on the HTTP pool, not on the timeout thread.
+      server.createContext(
+          "/", new WSHttpHandler(WSDL_CENTRAL_SYSTEM, new WSHttpEventHandler(), executor));
+      transport =
+          new SOAPHttpTransport(
+              maxThreads,
+              queueCapacity,
+              SOAPHttpTransport.DEFAULT_CONNECT_TIMEOUT,
+              SOAPHttpTransport.DEFAULT_READ_TIMEOUT);
+      server.setExecutor(executor);
       server.start();
 
       closed = false;
@@ -71,9 +112,27 @@ public class WebServiceListener implements Listener {
     }
   }
 
+  private ThreadPoolExecutor createExecutor() {
+    AtomicInteger count = new AtomicInteger();
+    ThreadPoolExecutor pool =
+        new ThreadPoolExecutor(
+            maxThreads,
+            maxThreads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> new Thread(runnable, "ocpp-soap-http-" + count.incrementAndGet()),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
   @Override
   public void close() {
     if (server != null) server.stop(1);
+    if (executor != null) executor.shutdown();
+    if (scheduler != null) scheduler.shutdownNow();
+    if (transport != null) transport.close();
     closed = true;
   }
 
@@ -89,72 +148,72 @@ public class WebServiceListener implements Listener {
 
   private class WSHttpEventHandler implements WSHttpHandlerEvents {
     private static final long INITIAL_TIMEOUT = 1000 * 60 * 5;
-    HashMap<String, WebServiceReceiver> chargeBoxes;
-
-    public WSHttpEventHandler() {
-      chargeBoxes = new HashMap<>();
-    }
-
-    private void removeChargebox(String identity) {
-      if (chargeBoxes.containsKey(identity)) chargeBoxes.remove(identity);
-    }
+    private static final long CONFIRMATION_TIMEOUT = 1000 * 30;
+    private final ConcurrentMap<String, WebServiceReceiver> chargeBoxes = new ConcurrentHashMap<>();
 
     @Override
-    public SOAPMessage incomingRequest(SOAPMessageInfo messageInfo) {
-      SOAPMessage message = messageInfo.getMessage();
-      String identity = SOAPSyncHelper.getHeaderValue(message, "chargeBoxIdentity");
-      if (!chargeBoxes.containsKey(identity)) {
-        String toUrl = SOAPSyncHelper.getHeaderValue(message, "From");
-        WebServiceReceiver webServiceReceiver =
-            new WebServiceReceiver(toUrl, () -> removeChargebox(identity));
-
-        SOAPHostInfo hostInfo =
-            new SOAPHostInfo.Builder()
-                .isClient(false)
-                .chargeBoxIdentity(identity)
-                .fromUrl(fromUrl)
-                .namespace(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM)
-                .build();
-        SOAPCommunicator communicator = new SOAPCommunicator(hostInfo, webServiceReceiver);
-        communicator.setToUrl(toUrl);
-
-        ISession session = sessionFactory.createSession(communicator);
-        TimeoutTimer timeoutTimer =
-            new TimeoutTimer(
-                INITIAL_TIMEOUT,
-                new TimeoutHandler() {
-                  @Override
-                  public void timeout() {
-                    session.close();
-                    chargeBoxes.remove(identity);
-                  }
-                });
-
-        // TODO: Decorator created but not used
-        ISession sessionDecorator = new TimeoutSessionDecorator(timeoutTimer, session);
-
-        SessionInformation information =
-            new SessionInformation.Builder()
-                .Identifier(identity)
-                .InternetAddress(messageInfo.getAddress())
-                .SOAPtoURL(toUrl)
-                .build();
-        events.newSession(session, information);
-        chargeBoxes.put(identity, webServiceReceiver);
+    public CompletableFuture<SOAPEnvelope> incomingRequest(SOAPMessageInfo messageInfo) {
+      SOAPEnvelope message = messageInfo.getMessage();
+      String identity = message.getChargeBoxIdentity();
+      if (identity == null) {
+        logger.warn(
+            "incomingRequest() without chargeBoxIdentity from {}", messageInfo.getAddress());
+        return null;
       }
 
-      SOAPMessage confirmation = null;
-      try {
-        confirmation = chargeBoxes.get(identity).relay(message).get();
-      } catch (InterruptedException e) {
-        logger.warn("incomingRequest() chargeBoxes.relay interrupted", e);
-        // restore thread interrupted state
-        Thread.currentThread().interrupt();
-      } catch (ExecutionException e) {
-        logger.warn("incomingRequest() chargeBoxes.relay failed", e);
+      WebServiceReceiver receiver = chargeBoxes.get(identity);
+      if (receiver == null) receiver = register(identity, messageInfo);
+
+      CompletableFuture<SOAPEnvelope> confirmation = receiver.relay(message);
+      if (confirmation != null && !confirmation.isDone()) {
+        ScheduledFuture<?> timeout =
+            scheduler.schedule(
+                () ->
+                    confirmation.completeExceptionally(
+                        new TimeoutException("No confirmation for " + message.getAction())),
+                CONFIRMATION_TIMEOUT,
+                TimeUnit.MILLISECONDS);
+        confirmation.whenComplete((result, error) -> timeout.cancel(false));
       }
-
       return confirmation;
     }
+
+    /**
+     * Create the session of a new chargebox. Only registrations are serialized, requests of known
+     * chargeboxes go straight to their receiver.
+     */
+    private synchronized WebServiceReceiver register(String identity, SOAPMessageInfo messageInfo) {
+      WebServiceReceiver registered = chargeBoxes.get(identity);
+      if (registered != null) return registered;
+
+      String toUrl = messageInfo.getMessage().getFrom();
+      WebServiceReceiver receiver =
+          new WebServiceReceiver(toUrl, () -> chargeBoxes.remove(identity), transport);
+
+      SOAPHostInfo hostInfo =
+          new SOAPHostInfo.Builder()
+              .isClient(false)
+              .chargeBoxIdentity(identity)
+              .fromUrl(fromUrl)
+              .namespace(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM)
+              .build();
+      SOAPCommunicator communicator = new SOAPCommunicator(hostInfo, receiver);
+      communicator.setToUrl(toUrl);
+
+      ISession session = sessionFactory.createSession(communicator);
+      // Closing the session disconnects the receiver, which removes the chargebox.
+      TimeoutTimer timeoutTimer = new TimeoutTimer(INITIAL_TIMEOUT, session::close, scheduler);
+      ISession sessionDecorator = new TimeoutSessionDecorator(timeoutTimer, session);
+
+      SessionInformation information =
+          new SessionInformation.Builder()
+              .Identifier(identity)
+                  .InternetAddress(messageInfo.getAddress())
+                  .SOAPtoURL(toUrl)
+                  .build();
+      events.newSession(sessionDecorator, information);
+      chargeBoxes.put(identity, receiver);
+      return receiver;
+    }
   }
 }
@@ -25,38 +25,28 @@ package eu.chargetime.ocpp;
    SOFTWARE.
 */
 
-import javax.xml.soap.SOAPConnection;
-import javax.xml.soap.SOAPConnectionFactory;
-import javax.xml.soap.SOAPException;
-import javax.xml.soap.SOAPMessage;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 public class WebServiceReceiver extends SOAPSyncHelper implements Receiver {
-  private static final Logger logger = LoggerFactory.getLogger(WebServiceReceiver.class);
-
+  private final SOAPHttpTransport transport;
   private RadioEvents events;
-  private SOAPConnection soapConnection;
   private String url;
   private WebServiceReceiverEvents receiverEvents;
-  private boolean connected;
+  private volatile boolean connected;
 
   public WebServiceReceiver(String url, WebServiceReceiverEvents receiverEvents) {
+    this(url, receiverEvents, SOAPHttpTransport.getDefault());
+  }
+
+  public WebServiceReceiver(
+      String url, WebServiceReceiverEvents receiverEvents, SOAPHttpTransport transport) {
     this.url = url;
     this.receiverEvents = receiverEvents;
+    this.transport = transport;
     connected = false;
   }
 
   @Override
   public void disconnect() {
-    if (connected) {
-      try {
-        soapConnection.close();
-        connected = false;
-      } catch (SOAPException e) {
-        logger.info("disconnect() failed", e);
-      }
-    }
+    connected = false;
     events.disconnected();
     receiverEvents.disconnect();
   }
@@ -69,36 +59,18 @@ public class WebServiceReceiver extends SOAPSyncHelper implements Receiver {
   @Override
   public void accept(RadioEvents events) {
     this.events = events;
-    try {
-      SOAPConnectionFactory soapConnectionFactory = SOAPConnectionFactory.newInstance();
-      soapConnection = soapConnectionFactory.createConnection();
-      connected = true;
-      events.connected();
-    } catch (SOAPException e) {
-      logger.warn("accept() failed", e);
-    }
+    connected = true;
+    events.connected();
   }
 
   @Override
-  void forwardMessage(SOAPMessage message) {
+  void forwardMessage(SOAPEnvelope message) {
     events.receivedMessage(message);
   }
 
   @Override
-  void sendRequest(SOAPMessage message) throws NotConnectedException {
+  void sendRequest(SOAPEnvelope message) throws NotConnectedException {
     if (!connected) throw new NotConnectedException();
-
-    new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                try {
-                  events.receivedMessage(soapConnection.call(message, url));
-                } catch (SOAPException e) {
-                  disconnect();
-                }
-              }
-            })
-        .start();
+    call(transport, url, message, events, this::disconnect);
   }
 }
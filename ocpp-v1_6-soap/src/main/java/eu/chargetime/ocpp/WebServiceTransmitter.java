@@ -1,12 +1,5 @@
 package eu.chargetime.ocpp;
 
-import javax.xml.soap.SOAPConnection;
-import javax.xml.soap.SOAPConnectionFactory;
-import javax.xml.soap.SOAPException;
-import javax.xml.soap.SOAPMessage;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /*
    ChargeTime.eu - Java-OCA-OCPP
 
@@ -34,27 +27,23 @@ import org.slf4j.LoggerFactory;
 */
 
 public class WebServiceTransmitter extends SOAPSyncHelper implements Transmitter {
-  private static final Logger logger = LoggerFactory.getLogger(WebServiceTransmitter.class);
-
-  private SOAPConnection soapConnection;
+  private final SOAPHttpTransport transport;
   private String url;
   private RadioEvents events;
-  private boolean connected;
+  private volatile boolean connected;
 
   public WebServiceTransmitter() {
+    this(SOAPHttpTransport.getDefault());
+  }
+
+  public WebServiceTransmitter(SOAPHttpTransport transport) {
+    this.transport = transport;
     connected = false;
   }
 
   @Override
   public void disconnect() {
-    if (connected) {
-      try {
-        soapConnection.close();
-        connected = false;
-      } catch (SOAPException e) {
-        logger.info("disconnect() failed", e);
-      }
-    }
+    connected = false;
     events.disconnected();
   }
 
@@ -67,38 +56,18 @@ public class WebServiceTransmitter extends SOAPSyncHelper implements Transmitter
   public void connect(String uri, RadioEvents events) {
     url = uri;
     this.events = events;
-    try {
-      SOAPConnectionFactory soapConnectionFactory = SOAPConnectionFactory.newInstance();
-      soapConnection = soapConnectionFactory.createConnection();
-      connected = true;
-      events.connected();
-    } catch (SOAPException e) {
-      logger.warn("connect() failed", e);
-    }
+    connected = true;
+    events.connected();
   }
 
   @Override
-  protected void sendRequest(final SOAPMessage message) throws NotConnectedException {
+  protected void sendRequest(final SOAPEnvelope message) throws NotConnectedException {
     if (!connected) throw new NotConnectedException();
-    Thread thread =
-        new Thread(
-            new Runnable() {
-              @Override
-              public void run() {
-                try {
-                  SOAPMessage response = soapConnection.call(message, url);
-                  events.receivedMessage(response);
-                } catch (SOAPException e) {
-                  logger.warn("sendRequest() failed", e);
-                  disconnect();
-                }
-              }
-            });
-    thread.start();
+    call(transport, url, message, events, this::disconnect);
   }
 
   @Override
-  protected void forwardMessage(SOAPMessage message) {
+  protected void forwardMessage(SOAPEnvelope message) {
     events.receivedMessage(message);
   }
 }
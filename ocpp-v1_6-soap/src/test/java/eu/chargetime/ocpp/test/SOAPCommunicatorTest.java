@@ -9,7 +9,10 @@ import eu.chargetime.ocpp.model.SOAPHostInfo;
 import eu.chargetime.ocpp.model.TestModel;
 import eu.chargetime.ocpp.model.core.BootNotificationConfirmation;
 import eu.chargetime.ocpp.model.core.BootNotificationRequest;
+import eu.chargetime.ocpp.model.core.MeterValue;
+import eu.chargetime.ocpp.model.core.MeterValuesRequest;
 import eu.chargetime.ocpp.model.core.RegistrationStatus;
+import eu.chargetime.ocpp.model.core.SampledValue;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.time.ZonedDateTime;
@@ -28,6 +31,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
 import org.xml.sax.InputSource;
 
 /*
@@ -107,7 +111,6 @@ public class SOAPCommunicatorTest {
   }
 
   @Test
-  @Ignore
   public void unpackPayload_emptyPayload_returnRequestedType() throws Exception {
     // Given
     Document payload =
@@ -262,7 +265,6 @@ public class SOAPCommunicatorTest {
   }
 
   @Test
-  @Ignore
   public void unpackPayload_aGenericBooleanPayload_returnsTestModelWithAGenericBoolean()
       throws Exception {
     // Given
@@ -308,7 +310,6 @@ public class SOAPCommunicatorTest {
   }
 
   @Test
-  @Ignore
   public void unpackPayload_bootNotificationCallResultPayload_returnBootNotificationConfirmation()
       throws Exception {
     // Given
@@ -332,7 +333,6 @@ public class SOAPCommunicatorTest {
   }
 
   @Test
-  @Ignore
   public void pack_bootNotificationRequest_returnsBootNotificationRequestPayload() {
     // Given
     String expected =
@@ -346,4 +346,29 @@ public class SOAPCommunicatorTest {
     // Then
     assertThat(docToString(payload), equalTo(expected));
   }
+
+  @Test
+  public void packPayload_meterValuesRequest_allElementsInHostNamespaceAndUnpacksAgain() {
+    // Given
+    MeterValuesRequest request = new MeterValuesRequest(1);
+    request.setMeterValue(
+        new MeterValue[] {
+          new MeterValue(
+              ZonedDateTime.parse("2016-04-28T07:16:11.988Z"),
+              new SampledValue[] {new SampledValue("42")})
+        });
+
+    // When
+    Document payload = (Document) communicator.packPayload(request);
+
+    // Then
+    NodeList elements = payload.getElementsByTagNameNS("*", "*");
+    assertThat(elements.getLength() > 3, is(true));
+    for (int i = 0; i < elements.getLength(); i++) {
+      assertThat(elements.item(i).getNamespaceURI(), equalTo(namespace));
+    }
+    MeterValuesRequest result = communicator.unpackPayload(payload, MeterValuesRequest.class);
+    assertThat(result.getConnectorId(), is(1));
+    assertThat(result.getMeterValue()[0].getSampledValue()[0].getValue(), equalTo("42"));
+  }
 }
@@ -0,0 +1,202 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import eu.chargetime.ocpp.SOAPCommunicator;
+import eu.chargetime.ocpp.SOAPEnvelope;
+import eu.chargetime.ocpp.SOAPEnvelopeCodec;
+import eu.chargetime.ocpp.Transmitter;
+import eu.chargetime.ocpp.model.SOAPHostInfo;
+import eu.chargetime.ocpp.model.core.BootNotificationRequest;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.w3c.dom.Document;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SOAPEnvelopeCodecTest {
+  private static final String BOOT_NOTIFICATION =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+          + "<s:Envelope xmlns:s=\"http://www.w3.org/2003/05/soap-envelope\""
+          + " xmlns:a=\"http://schemas.xmlsoap.org/ws/2004/08/addressing\">"
+          + "<s:Header>"
+          + "<chargeBoxIdentity s:mustUnderstand=\"true\" xmlns=\"urn://Ocpp/Cs/2015/10/\">"
+          + "CP-1</chargeBoxIdentity>"
+          + "<a:Action s:mustUnderstand=\"true\">/BootNotification</a:Action>"
+          + "<a:MessageID>urn:uuid:3b3c0a2f</a:MessageID>"
+          + "<a:From><a:Address>http://cp.example:8000</a:Address></a:From>"
+          + "<a:ReplyTo><a:Address>http://www.w3.org/2005/08/addressing/anonymous</a:Address>"
+          + "</a:ReplyTo>"
+          + "<a:To s:mustUnderstand=\"true\">\n  http://cs.example/ocpp\n</a:To>"
+          + "<Unknown xmlns=\"urn:other\"><Nested>ignored</Nested></Unknown>"
+          + "</s:Header>"
+          + "<s:Body>"
+          + "<bootNotificationRequest xmlns=\"urn://Ocpp/Cs/2015/10/\">"
+          + "<chargePointVendor>ChargeTime</chargePointVendor>"
+          + "<chargePointModel>Model &amp; Co</chargePointModel>"
+          + "</bootNotificationRequest>"
+          + "</s:Body>"
+          + "</s:Envelope>";
+
+  @Mock private Transmitter transmitter;
+
+  @Test
+  public void read_bootNotification_collectsAllHeaders() throws Exception {
+    // When
+    SOAPEnvelope envelope = read(BOOT_NOTIFICATION);
+
+    // Then
+    assertThat(envelope.getNamespace(), equalTo("urn://Ocpp/Cs/2015/10/"));
+    assertThat(envelope.getChargeBoxIdentity(), equalTo("CP-1"));
+    assertThat(envelope.getAction(), equalTo("/BootNotification"));
+    assertThat(envelope.getMessageId(), equalTo("urn:uuid:3b3c0a2f"));
+    assertThat(envelope.getRelatesTo(), nullValue());
+    assertThat(envelope.getFrom(), equalTo("http://cp.example:8000"));
+    assertThat(envelope.getReplyTo(), equalTo(SOAPEnvelopeCodec.ANONYMOUS_ADDRESS));
+    assertThat(envelope.getTo(), equalTo("http://cs.example/ocpp"));
+    assertThat(envelope.hasFault(), is(false));
+  }
+
+  @Test
+  public void read_bootNotification_payloadUnpacks() throws Exception {
+    // Given
+    SOAPHostInfo hostInfo =
+        new SOAPHostInfo.Builder()
+            .chargeBoxIdentity("CP-1")
+            .fromUrl("http://cs.example/ocpp")
+            .namespace(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM)
+            .build();
+    SOAPCommunicator communicator = new SOAPCommunicator(hostInfo, transmitter);
+
+    // When
+    SOAPEnvelope envelope = read(BOOT_NOTIFICATION);
+    BootNotificationRequest request =
+        communicator.unpackPayload(envelope.getPayload(), BootNotificationRequest.class);
+
+    // Then
+    assertThat(request.getChargePointVendor(), equalTo("ChargeTime"));
+    assertThat(request.getChargePointModel(), equalTo("Model & Co"));
+  }
+
+  @Test
+  public void write_readBack_keepsHeadersAndPayload() throws Exception {
+    // Given
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setNamespace(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM);
+    envelope.setChargeBoxIdentity("CP-1");
+    envelope.setAction("/BootNotificationResponse");
+    envelope.setMessageId("urn:uuid:3b3c0a2f");
+    envelope.setRelatesTo("urn:uuid:3b3c0a2f");
+    envelope.setFrom("http://cs.example/ocpp");
+    envelope.setReplyTo(SOAPEnvelopeCodec.ANONYMOUS_ADDRESS);
+    envelope.setTo("http://cp.example:8000");
+    envelope.setPayload(
+        SOAPCommunicatorTest.stringToDocument(
+            "<bootNotificationResponse xmlns=\"urn://Ocpp/Cp/2015/10/\">"
+                + "<status>Accepted</status><interval>300</interval>"
+                + "</bootNotificationResponse>"));
+
+    // When
+    SOAPEnvelope result = read(write(envelope));
+
+    // Then
+    assertThat(result.getNamespace(), equalTo(envelope.getNamespace()));
+    assertThat(result.getChargeBoxIdentity(), equalTo(envelope.getChargeBoxIdentity()));
+    assertThat(result.getAction(), equalTo(envelope.getAction()));
+    assertThat(result.getMessageId(), equalTo(envelope.getMessageId()));
+    assertThat(result.getRelatesTo(), equalTo(envelope.getRelatesTo()));
+    assertThat(result.getFrom(), equalTo(envelope.getFrom()));
+    assertThat(result.getReplyTo(), equalTo(envelope.getReplyTo()));
+    assertThat(result.getTo(), equalTo(envelope.getTo()));
+
+    Document payload = result.getPayload();
+    assertThat(payload.getDocumentElement().getLocalName(), equalTo("bootNotificationResponse"));
+    assertThat(
+        payload.getDocumentElement().getNamespaceURI(), equalTo(SOAPHostInfo.NAMESPACE_CHARGEBOX));
+    assertThat(
+        payload
+            .getElementsByTagNameNS(SOAPHostInfo.NAMESPACE_CHARGEBOX, "interval")
+            .item(0)
+            .getTextContent(),
+        equalTo("300"));
+  }
+
+  @Test
+  public void write_readBack_keepsFault() throws Exception {
+    // Given
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setAction("/AuthorizeResponse");
+    envelope.setRelatesTo("42");
+    envelope.setFault(
+        SOAPEnvelopeCodec.SENDER_FAULT,
+        new QName(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM, "SecurityError"),
+        "Unknown charge box");
+
+    // When
+    SOAPEnvelope result = read(write(envelope));
+
+    // Then
+    assertThat(result.hasFault(), is(true));
+    assertThat(result.getPayload(), nullValue());
+    assertThat(result.getFaultCode(), equalTo(SOAPEnvelopeCodec.SENDER_FAULT));
+    assertThat(
+        result.getFaultSubcode(),
+        equalTo(new QName(SOAPHostInfo.NAMESPACE_CENTRALSYSTEM, "SecurityError")));
+    assertThat(result.getFaultReason(), equalTo("Unknown charge box"));
+  }
+
+  @Test(expected = XMLStreamException.class)
+  public void read_notAnEnvelope_throwsException() throws Exception {
+    read("<bootNotificationRequest xmlns=\"urn://Ocpp/Cs/2015/10/\"/>");
+  }
+
+  @Test(expected = XMLStreamException.class)
+  public void read_withDoctype_throwsException() throws Exception {
+    read(
+        "<!DOCTYPE e [<!ENTITY x SYSTEM \"file:///etc/passwd\">]>"
+            + "<e:Envelope xmlns:e=\"http://www.w3.org/2003/05/soap-envelope\">"
+            + "<e:Body><a>&x;</a></e:Body></e:Envelope>");
+  }
+
+  private static SOAPEnvelope read(String xml) throws XMLStreamException {
+    return SOAPEnvelopeCodec.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String write(SOAPEnvelope envelope) throws XMLStreamException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    SOAPEnvelopeCodec.write(envelope, out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,240 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import eu.chargetime.ocpp.NotConnectedException;
+import eu.chargetime.ocpp.RadioEvents;
+import eu.chargetime.ocpp.SOAPEnvelope;
+import eu.chargetime.ocpp.SOAPEnvelopeCodec;
+import eu.chargetime.ocpp.SOAPHttpTransport;
+import eu.chargetime.ocpp.WebServiceReceiver;
+import eu.chargetime.ocpp.WebServiceReceiverEvents;
+import eu.chargetime.ocpp.WebServiceTransmitter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SOAPHttpTransportTest {
+
+  private HttpServer server;
+  private String url;
+  private SOAPHttpTransport transport;
+  private final Set<InetSocketAddress> remotes = ConcurrentHashMap.newKeySet();
+  private volatile int status = 200;
+  private volatile CountDownLatch release = new CountDownLatch(0);
+
+  @Before
+  public void setup() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::respond);
+    server.start();
+    url = String.format("http://localhost:%d/", server.getAddress().getPort());
+  }
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if (transport != null) transport.close();
+    server.stop(0);
+  }
+
+  private void respond(HttpExchange exchange) throws IOException {
+    remotes.add(exchange.getRemoteAddress());
+    SOAPEnvelope request;
+    try (InputStream in = exchange.getRequestBody()) {
+      request = SOAPEnvelopeCodec.read(in);
+      release.await(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      exchange.sendResponseHeaders(400, -1);
+      exchange.close();
+      return;
+    }
+
+    SOAPEnvelope response = new SOAPEnvelope();
+    response.setAction(request.getAction() + "Response");
+    response.setRelatesTo(request.getMessageId());
+    if (status != 200) {
+      response.setFault(
+          SOAPEnvelopeCodec.RECEIVER_FAULT,
+          new QName("urn://Ocpp/Cp/2015/10/", "InternalError"),
+          "Broken");
+    }
+    exchange.getResponseHeaders().add("Content-Type", SOAPEnvelopeCodec.CONTENT_TYPE);
+    exchange.sendResponseHeaders(status, 0);
+    try (OutputStream out = exchange.getResponseBody()) {
+      SOAPEnvelopeCodec.write(response, out);
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+
+  private static SOAPEnvelope request(String id) {
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setAction("/Reset");
+    envelope.setMessageId(id);
+    return envelope;
+  }
+
+  @Test
+  public void call_sequentialCalls_reuseOneConnection() throws Exception {
+    // Given
+    transport = new SOAPHttpTransport();
+
+    // When
+    for (int i = 0; i < 20; i++) {
+      SOAPEnvelope response = transport.call(url, request(Integer.toString(i))).get();
+      assertThat(response.getRelatesTo(), equalTo(Integer.toString(i)));
+    }
+
+    // Then
+    assertThat(remotes.size(), is(1));
+  }
+
+  @Test
+  public void call_faultWithStatus500_returnsFault() throws Exception {
+    // Given
+    transport = new SOAPHttpTransport();
+    status = 500;
+
+    // When
+    SOAPEnvelope response = transport.call(url, request("1")).get();
+
+    // Then
+    assertThat(response.hasFault(), is(true));
+    assertThat(response.getFaultSubcode().getLocalPart(), equalTo("InternalError"));
+  }
+
+  @Test
+  public void call_noResponseInTime_failsWithTimeout() throws Exception {
+    // Given
+    transport = new SOAPHttpTransport(1, 1, 1000, 100);
+    release = new CountDownLatch(1);
+
+    // When
+    Throwable cause = null;
+    try {
+      transport.call(url, request("1")).get();
+    } catch (ExecutionException e) {
+      cause = e.getCause();
+    }
+
+    // Then
+    assertThat(cause, instanceOf(SocketTimeoutException.class));
+  }
+
+  @Test
+  public void call_poolAndQueueFull_rejectsCall() throws Exception {
+    // Given
+    transport = new SOAPHttpTransport(1, 1, 1000, 5000);
+    release = new CountDownLatch(1);
+    transport.call(url, request("1"));
+    transport.call(url, request("2"));
+
+    // When
+    CompletableFuture<SOAPEnvelope> rejected = transport.call(url, request("3"));
+
+    // Then
+    assertThat(rejected.isCompletedExceptionally(), is(true));
+    try {
+      rejected.get();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+    }
+  }
+
+  @Test
+  public void send_transportSaturated_throwsNotConnectedException() throws Exception {
+    // Given
+    transport = new SOAPHttpTransport(1, 1, 1000, 5000);
+    release = new CountDownLatch(1);
+    WebServiceReceiver receiver =
+        new WebServiceReceiver(url, mock(WebServiceReceiverEvents.class), transport);
+    receiver.accept(mock(RadioEvents.class));
+    receiver.send(request("1"));
+    receiver.send(request("2"));
+
+    // When
+    NotConnectedException rejected = null;
+    try {
+      receiver.send(request("3"));
+    } catch (NotConnectedException e) {
+      rejected = e;
+    }
+
+    // Then
+    assertThat(rejected, notNullValue());
+  }
+
+  @Test
+  public void relay_responseSent_promiseRemoved() throws Exception {
+    // Given
+    WebServiceTransmitter transmitter = new WebServiceTransmitter();
+    transmitter.connect(url, mock(RadioEvents.class));
+    CompletableFuture<SOAPEnvelope> promise = transmitter.relay(request("42"));
+    SOAPEnvelope response = new SOAPEnvelope();
+    response.setRelatesTo("42");
+
+    // When
+    transmitter.send(response);
+
+    // Then
+    assertThat(promise.get(), is(response));
+    assertThat(transmitter.getPendingCount(), is(0));
+  }
+
+  @Test
+  public void relay_promiseCancelled_promiseRemoved() throws Exception {
+    // Given
+    WebServiceTransmitter transmitter = new WebServiceTransmitter();
+    transmitter.connect(url, mock(RadioEvents.class));
+    CompletableFuture<SOAPEnvelope> promise = transmitter.relay(request("42"));
+
+    // When
+    promise.cancel(false);
+
+    // Then
+    assertThat(transmitter.getPendingCount(), is(0));
+  }
+}
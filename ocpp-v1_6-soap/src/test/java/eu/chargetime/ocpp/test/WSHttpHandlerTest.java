@@ -0,0 +1,168 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import eu.chargetime.ocpp.SOAPEnvelope;
+import eu.chargetime.ocpp.SOAPHttpTransport;
+import eu.chargetime.ocpp.WSHttpHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WSHttpHandlerTest {
+
+  private final LinkedBlockingQueue<CompletableFuture<SOAPEnvelope>> pending =
+      new LinkedBlockingQueue<>();
+  private HttpServer server;
+  private ExecutorService serverThread;
+  private SOAPHttpTransport transport;
+  private String url;
+
+  @Before
+  public void setup() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/",
+        new WSHttpHandler(
+            "",
+            messageInfo -> {
+              CompletableFuture<SOAPEnvelope> confirmation = new CompletableFuture<>();
+              pending.add(confirmation);
+              return confirmation;
+            }));
+    serverThread = Executors.newSingleThreadExecutor();
+    server.setExecutor(serverThread);
+    server.start();
+    url = String.format("http://localhost:%d/", server.getAddress().getPort());
+    transport = new SOAPHttpTransport(4, 4, 1000, 5000);
+  }
+
+  @After
+  public void tearDown() {
+    transport.close();
+    server.stop(0);
+    serverThread.shutdownNow();
+  }
+
+  private static SOAPEnvelope request(String id) {
+    SOAPEnvelope envelope = new SOAPEnvelope();
+    envelope.setAction("/Heartbeat");
+    envelope.setMessageId(id);
+    return envelope;
+  }
+
+  @Test
+  public void handle_confirmationsPending_serverThreadNotBlocked() throws Exception {
+    // Given
+    List<CompletableFuture<SOAPEnvelope>> responses = new ArrayList<>();
+    List<CompletableFuture<SOAPEnvelope>> confirmations = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      responses.add(transport.call(url, request(Integer.toString(i))));
+      // Only handed over while the single server thread is free.
+      confirmations.add(pending.poll(5, TimeUnit.SECONDS));
+    }
+
+    // When
+    for (int i = 0; i < confirmations.size(); i++) {
+      SOAPEnvelope confirmation = new SOAPEnvelope();
+      confirmation.setAction("/HeartbeatResponse");
+      confirmation.setRelatesTo(Integer.toString(i));
+      confirmations.get(i).complete(confirmation);
+    }
+
+    // Then
+    for (int i = 0; i < responses.size(); i++) {
+      assertThat(
+          responses.get(i).get(5, TimeUnit.SECONDS).getRelatesTo(), equalTo(Integer.toString(i)));
+    }
+  }
+
+  @Test
+  public void handle_withResponseExecutor_respondsOnExecutor() throws Exception {
+    // Given
+    AtomicInteger responses = new AtomicInteger();
+    Executor responseExecutor =
+        task -> {
+          responses.incrementAndGet();
+          serverThread.execute(task);
+        };
+    server.createContext(
+        "/pooled",
+        new WSHttpHandler(
+            "",
+            messageInfo -> {
+              CompletableFuture<SOAPEnvelope> confirmation = new CompletableFuture<>();
+              pending.add(confirmation);
+              return confirmation;
+            },
+            responseExecutor));
+    CompletableFuture<SOAPEnvelope> response = transport.call(url + "pooled", request("1"));
+
+    // When
+    SOAPEnvelope confirmation = new SOAPEnvelope();
+    confirmation.setAction("/HeartbeatResponse");
+    confirmation.setRelatesTo("1");
+    pending.poll(5, TimeUnit.SECONDS).complete(confirmation);
+
+    // Then
+    assertThat(response.get(5, TimeUnit.SECONDS).getRelatesTo(), equalTo("1"));
+    assertThat(responses.get(), is(1));
+  }
+
+  @Test
+  public void handle_confirmationFails_respondsWithError() throws Exception {
+    // Given
+    CompletableFuture<SOAPEnvelope> response = transport.call(url, request("1"));
+
+    // When
+    pending.poll(5, TimeUnit.SECONDS).completeExceptionally(new IllegalStateException());
+
+    // Then
+    Throwable cause = null;
+    try {
+      response.get(5, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      cause = e.getCause();
+    }
+    assertThat(cause, instanceOf(IOException.class));
+  }
+}
@@ -0,0 +1,83 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+
+/**
+ * Measures the heap the calling thread allocates with {@link
+ * com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}, to hold the message path to an
+ * allocation budget.
+ */
+public final class AllocationMeter {
+
+  private static final int WARMUP_OPERATIONS = 20_000;
+  private static final int ROUNDS = 5;
+  private static final int OPERATIONS_PER_ROUND = 2_000;
+
+  // Keeps the results reachable, so the JIT can't drop the operation.
+  private static volatile Object sink;
+
+  private AllocationMeter() {}
+
+  /** @return true if the JVM counts the bytes allocated per thread. */
+  public static boolean isSupported() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    return threads instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+  }
+
+  /**
+   * Run an operation until it's compiled, then measure what it allocates.
+   *
+   * @param operation the operation, its result is kept until the next call.
+   * @return the least bytes allocated per call over a few rounds.
+   * @throws Exception if the operation failed.
+   */
+  public static long bytesPerOperation(Callable<?> operation) throws Exception {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    threads.setThreadAllocatedMemoryEnabled(true);
+    long threadId = Thread.currentThread().getId();
+
+    for (int i = 0; i < WARMUP_OPERATIONS; i++) {
+      sink = operation.call();
+    }
+    long least = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS; round++) {
+      long before = threads.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < OPERATIONS_PER_ROUND; i++) {
+        sink = operation.call();
+      }
+      long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+      least = Math.min(least, allocated / OPERATIONS_PER_ROUND);
+    }
+    sink = null;
+    return least;
+  }
+}
@@ -0,0 +1,217 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.*;
+import eu.chargetime.ocpp.feature.Feature;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Message;
+import eu.chargetime.ocpp.model.Request;
+import java.util.UUID;
+import javax.annotation.Nullable;
+
+/**
+ * The JSON message path of a receiving session, without a network: a received CALL frame is parsed,
+ * decoded, validated and dispatched to its handler on the calling thread, and the CALLRESULT it
+ * answers with is encoded and handed to a radio that keeps the last frame.
+ */
+public class JSONMessagePath {
+
+  private static final String UNIQUE_ID = "19223201";
+
+  private final FrameCodec communicator;
+  private final FeatureRepository featureRepository;
+  private final Session session;
+  private RadioEvents radioEvents;
+  @Nullable private Object sent;
+
+  /** @param protocolVersion the protocol version the session speaks. */
+  public JSONMessagePath(ProtocolVersion protocolVersion) {
+    this(protocolVersion, JSONCodec.TREE);
+  }
+
+  /**
+   * @param protocolVersion the protocol version the session speaks.
+   * @param codec the codec received frames are decoded with.
+   */
+  public JSONMessagePath(ProtocolVersion protocolVersion, JSONCodec codec) {
+    communicator = new FrameCodec(new LoopbackRadio(), codec);
+    featureRepository = new FeatureRepository(protocolVersion);
+    session =
+        new Session(communicator, new Queue(), new SimplePromiseFulfiller(), featureRepository);
+    session.accept(new Handler());
+  }
+
+  /**
+   * Answer every call of an action with the same confirmation.
+   *
+   * @param action the action of the call.
+   * @param requestType the request type of the call.
+   * @param confirmation the confirmation to answer with.
+   */
+  public void answer(
+      String action, Class<? extends Request> requestType, Confirmation confirmation) {
+    featureRepository.addFeature(
+        new Feature() {
+          @Override
+          public Confirmation handleRequest(UUID sessionIndex, Request request) {
+            return confirmation;
+          }
+
+          @Override
+          public Class<? extends Request> getRequestType() {
+            return requestType;
+          }
+
+          @Override
+          public Class<? extends Confirmation> getConfirmationType() {
+            return confirmation.getClass();
+          }
+
+          @Override
+          public String getAction() {
+            return action;
+          }
+        });
+  }
+
+  /**
+   * @param action the action of the request.
+   * @param request the request to encode.
+   * @return the CALL frame of the request.
+   */
+  public Object encode(String action, Request request) {
+    return communicator.packCall(UNIQUE_ID, action, request);
+  }
+
+  /**
+   * @param action the action of the request answered.
+   * @param confirmation the confirmation to encode.
+   * @return the CALLRESULT frame of the confirmation.
+   */
+  public Object encode(String action, Confirmation confirmation) {
+    return communicator.packCallResult(UNIQUE_ID, action, confirmation);
+  }
+
+  /**
+   * @param frame a CALL or CALLRESULT frame.
+   * @param type the type of its payload.
+   * @return the decoded payload.
+   */
+  public <T> T decode(Object frame, Class<T> type) {
+    Message message = communicator.parse(frame);
+    return communicator.unpackPayload(message.getPayload(), type);
+  }
+
+  /**
+   * Receive a CALL frame.
+   *
+   * @param frame the CALL frame.
+   * @return the frame sent in answer.
+   */
+  @Nullable
+  public Object dispatch(Object frame) {
+    sent = null;
+    radioEvents.receivedMessage(frame);
+    return sent;
+  }
+
+  private class Handler implements SessionEvents {
+    @Override
+    public void handleConfirmation(String uniqueId, @Nullable Confirmation confirmation) {}
+
+    @Override
+    public Confirmation handleRequest(Request request) throws UnsupportedFeatureException {
+      return featureRepository
+          .findFeature(request)
+          .orElseThrow(UnsupportedFeatureException::new)
+          .handleRequest(session.getSessionId(), request);
+    }
+
+    @Override
+    public boolean asyncCompleteRequest(String uniqueId, Confirmation confirmation)
+        throws UnsupportedFeatureException, OccurenceConstraintException {
+      return session.completePendingPromise(uniqueId, confirmation);
+    }
+
+    @Override
+    public void handleError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConfirmationError(
+        String uniqueId, String errorCode, String errorDescription, Object payload) {}
+
+    @Override
+    public void handleConnectionClosed() {}
+
+    @Override
+    public void handleConnectionOpened() {}
+  }
+
+  private class LoopbackRadio implements Receiver {
+    @Override
+    public void accept(RadioEvents events) {
+      radioEvents = events;
+    }
+
+    @Override
+    public void send(Object message) {
+      sent = message;
+    }
+
+    @Override
+    public boolean isClosed() {
+      return false;
+    }
+
+    @Override
+    public void disconnect() {}
+  }
+
+  /** Opens up the frame level packing and parsing of {@link JSONCommunicator}. */
+  private static class FrameCodec extends JSONCommunicator {
+
+    FrameCodec(Receiver radio, JSONCodec codec) {
+      super(radio, null, codec);
+    }
+
+    @Override
+    protected Object packCall(String uniqueId, String action, Request request) {
+      return super.packCall(uniqueId, action, request);
+    }
+
+    @Override
+    protected Object packCallResult(String uniqueId, String action, Confirmation confirmation) {
+      return super.packCallResult(uniqueId, action, confirmation);
+    }
+
+    @Override
+    protected Message parse(Object json) {
+      return super.parse(json);
+    }
+  }
+}
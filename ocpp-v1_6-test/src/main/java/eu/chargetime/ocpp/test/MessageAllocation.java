@@ -0,0 +1,82 @@
+package eu.chargetime.ocpp.test;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
+
+/**
+ * Bytes allocated per message by each stage of the JSON message path, measured with {@link
+ * AllocationMeter} on a {@link JSONMessagePath} answering the request with a fixed confirmation.
+ */
+public class MessageAllocation {
+
+  private final JSONMessagePath path;
+  private final String action;
+  private final Request request;
+  private final Object frame;
+
+  /**
+   * @param protocolVersion the protocol version of the message.
+   * @param action the action of the request.
+   * @param request a valid request.
+   * @param confirmation the confirmation to answer the request with.
+   */
+  public MessageAllocation(
+      ProtocolVersion protocolVersion, String action, Request request, Confirmation confirmation) {
+    this.path = new JSONMessagePath(protocolVersion);
+    this.action = action;
+    this.request = request;
+    path.answer(action, request.getClass(), confirmation);
+    frame = path.encode(action, request);
+    Object answer = path.dispatch(frame);
+    if (answer == null || !answer.toString().startsWith("[3,")) {
+      throw new IllegalArgumentException(action + " isn't answered with a CALLRESULT: " + answer);
+    }
+  }
+
+  /** @return bytes allocated to parse the CALL frame and unpack its payload. */
+  public long decode() throws Exception {
+    Class<? extends Request> type = request.getClass();
+    return AllocationMeter.bytesPerOperation(() -> path.decode(frame, type));
+  }
+
+  /** @return bytes allocated to validate the request. */
+  public long validate() throws Exception {
+    return AllocationMeter.bytesPerOperation(request::validate);
+  }
+
+  /** @return bytes allocated from receiving the CALL frame to sending the CALLRESULT frame. */
+  public long dispatch() throws Exception {
+    return AllocationMeter.bytesPerOperation(() -> path.dispatch(frame));
+  }
+
+  /** @return bytes allocated to pack the request into a CALL frame. */
+  public long encode() throws Exception {
+    return AllocationMeter.bytesPerOperation(() -> path.encode(action, request));
+  }
+}
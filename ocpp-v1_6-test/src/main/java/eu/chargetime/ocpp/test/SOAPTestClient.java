@@ -37,10 +37,8 @@ import java.net.InetSocketAddress;
 import java.net.URL;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import javax.xml.soap.SOAPMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -137,21 +135,7 @@ public class SOAPTestClient implements IClientAPI {
       server = HttpServer.create(new InetSocketAddress(callback.getHost(), getPort()), 0);
       server.createContext(
           "/",
-          new WSHttpHandler(
-              WSDL_CHARGE_POINT,
-              message -> {
-                SOAPMessage soapMessage = null;
-                try {
-                  soapMessage = transmitter.relay(message.getMessage()).get();
-                } catch (InterruptedException e) {
-                  logger.warn("openWS() transmitter.relay interrupted", e);
-                  // restore thread interrupted state
-                  Thread.currentThread().interrupt();
-                } catch (ExecutionException e) {
-                  logger.warn("openWS() transmitter.relay failed", e);
-                }
-                return soapMessage;
-              }));
+          new WSHttpHandler(WSDL_CHARGE_POINT, message -> transmitter.relay(message.getMessage())));
       threadPool = Executors.newCachedThreadPool();
       server.setExecutor(threadPool);
       server.start();
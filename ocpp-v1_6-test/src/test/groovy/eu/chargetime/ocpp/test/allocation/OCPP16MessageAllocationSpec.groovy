@@ -0,0 +1,66 @@
+package eu.chargetime.ocpp.test.allocation
+
+import eu.chargetime.ocpp.ProtocolVersion
+import eu.chargetime.ocpp.model.core.BootNotificationConfirmation
+import eu.chargetime.ocpp.model.core.BootNotificationRequest
+import eu.chargetime.ocpp.model.core.MeterValue
+import eu.chargetime.ocpp.model.core.MeterValuesConfirmation
+import eu.chargetime.ocpp.model.core.MeterValuesRequest
+import eu.chargetime.ocpp.model.core.RegistrationStatus
+import eu.chargetime.ocpp.model.core.SampledValue
+import eu.chargetime.ocpp.model.core.ValueFormat
+import eu.chargetime.ocpp.test.AllocationMeter
+import eu.chargetime.ocpp.test.MessageAllocation
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.time.ZonedDateTime
+
+/**
+ * Holds decoding, validation, dispatch and encoding of OCPP 1.6 messages to an allocation budget
+ * per message, see {@link MessageAllocation}. Budgets leave about a third of headroom over what was
+ * measured, a change that needs more has to raise them on purpose.
+ */
+@Requires({ AllocationMeter.isSupported() })
+class OCPP16MessageAllocationSpec extends Specification {
+
+    static final ZonedDateTime TIMESTAMP = ZonedDateTime.parse("2024-05-01T12:00:00Z")
+
+    def "BootNotification stays within its allocation budget"() {
+        given:
+        def request = new BootNotificationRequest("ChargeTime", "Fleet-22")
+        request.setChargePointSerialNumber("CP-000001")
+        request.setFirmwareVersion("1.4.2")
+        def allocation = new MessageAllocation(ProtocolVersion.OCPP1_6, "BootNotification", request,
+                new BootNotificationConfirmation(TIMESTAMP, 300, RegistrationStatus.Accepted))
+
+        expect:
+        allocation.decode() <= 10_500
+        allocation.validate() <= 256
+        allocation.dispatch() <= 12_000
+        allocation.encode() <= 768
+    }
+
+    def "MeterValues of 20 sampled values stays within its allocation budget"() {
+        given:
+        def sampledValues = (0..<20).collect { i ->
+            def sampledValue = new SampledValue(Integer.toString(1_000 + i * 17))
+            sampledValue.setContext("Sample.Periodic")
+            sampledValue.setFormat(ValueFormat.Raw)
+            sampledValue.setMeasurand("Energy.Active.Import.Register")
+            sampledValue.setUnit("Wh")
+            sampledValue
+        } as SampledValue[]
+        def request = new MeterValuesRequest(1)
+        request.setTransactionId(42)
+        request.setMeterValue([new MeterValue(TIMESTAMP, sampledValues)] as MeterValue[])
+        def allocation = new MessageAllocation(ProtocolVersion.OCPP1_6, "MeterValues", request,
+                new MeterValuesConfirmation())
+
+        expect:
+        allocation.decode() <= 72_000
+        allocation.validate() <= 256
+        allocation.dispatch() <= 73_000
+        allocation.encode() <= 4_500
+    }
+}
@@ -45,6 +45,8 @@ public class ClientCoreProfile implements Profile {
 
   ArrayList<Feature> features;
   private ClientCoreEventHandler eventHandler;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientCoreProfile.class);
 
   /**
    * Set up handler for client core feature requests.
@@ -71,6 +73,44 @@ public class ClientCoreProfile implements Profile {
     features.add(new StatusNotificationFeature(null));
     features.add(new StopTransactionFeature(null));
     features.add(new UnlockConnectorFeature(this));
+
+    requestHandlers.put(
+        ChangeAvailabilityRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleChangeAvailabilityRequest((ChangeAvailabilityRequest) request));
+    requestHandlers.put(
+        ChangeConfigurationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleChangeConfigurationRequest((ChangeConfigurationRequest) request));
+    requestHandlers.put(
+        ClearCacheRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearCacheRequest((ClearCacheRequest) request));
+    requestHandlers.put(
+        DataTransferRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleDataTransferRequest((DataTransferRequest) request));
+    requestHandlers.put(
+        GetConfigurationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetConfigurationRequest((GetConfigurationRequest) request));
+    requestHandlers.put(
+        RemoteStartTransactionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleRemoteStartTransactionRequest(
+                (RemoteStartTransactionRequest) request));
+    requestHandlers.put(
+        RemoteStopTransactionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleRemoteStopTransactionRequest(
+                (RemoteStopTransactionRequest) request));
+    requestHandlers.put(
+        ResetRequest.class,
+        (sessionIndex, request) -> eventHandler.handleResetRequest((ResetRequest) request));
+    requestHandlers.put(
+        UnlockConnectorRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUnlockConnectorRequest((UnlockConnectorRequest) request));
   }
 
   /**
@@ -226,30 +266,11 @@ public class ClientCoreProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof ChangeAvailabilityRequest) {
-      result = eventHandler.handleChangeAvailabilityRequest((ChangeAvailabilityRequest) request);
-    } else if (request instanceof ChangeConfigurationRequest) {
-      result = eventHandler.handleChangeConfigurationRequest((ChangeConfigurationRequest) request);
-    } else if (request instanceof ClearCacheRequest) {
-      result = eventHandler.handleClearCacheRequest((ClearCacheRequest) request);
-    } else if (request instanceof DataTransferRequest) {
-      result = eventHandler.handleDataTransferRequest((DataTransferRequest) request);
-    } else if (request instanceof GetConfigurationRequest) {
-      result = eventHandler.handleGetConfigurationRequest((GetConfigurationRequest) request);
-    } else if (request instanceof RemoteStartTransactionRequest) {
-      result =
-          eventHandler.handleRemoteStartTransactionRequest((RemoteStartTransactionRequest) request);
-    } else if (request instanceof RemoteStopTransactionRequest) {
-      result =
-          eventHandler.handleRemoteStopTransactionRequest((RemoteStopTransactionRequest) request);
-    } else if (request instanceof ResetRequest) {
-      result = eventHandler.handleResetRequest((ResetRequest) request);
-    } else if (request instanceof UnlockConnectorRequest) {
-      result = eventHandler.handleUnlockConnectorRequest((UnlockConnectorRequest) request);
-    }
-
-    return result;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
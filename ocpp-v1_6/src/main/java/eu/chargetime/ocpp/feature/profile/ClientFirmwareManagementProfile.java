@@ -37,6 +37,8 @@ public class ClientFirmwareManagementProfile implements Profile {
 
   private HashSet<Feature> features;
   private ClientFirmwareManagementEventHandler eventHandler;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientFirmwareManagementProfile.class);
 
   public ClientFirmwareManagementProfile(ClientFirmwareManagementEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -45,6 +47,15 @@ public class ClientFirmwareManagementProfile implements Profile {
     features.add(new FirmwareStatusNotificationFeature(null));
     features.add(new GetDiagnosticsFeature(this));
     features.add(new UpdateFirmwareFeature(this));
+
+    requestHandlers.put(
+        GetDiagnosticsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetDiagnosticsRequest((GetDiagnosticsRequest) request));
+    requestHandlers.put(
+        UpdateFirmwareRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUpdateFirmwareRequest((UpdateFirmwareRequest) request));
   }
 
   /**
@@ -80,14 +91,11 @@ public class ClientFirmwareManagementProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof GetDiagnosticsRequest) {
-      result = eventHandler.handleGetDiagnosticsRequest((GetDiagnosticsRequest) request);
-    } else if (request instanceof UpdateFirmwareRequest) {
-      result = eventHandler.handleUpdateFirmwareRequest((UpdateFirmwareRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
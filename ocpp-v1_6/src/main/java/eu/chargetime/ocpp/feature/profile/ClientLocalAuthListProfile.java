@@ -30,6 +30,8 @@ SOFTWARE.
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.GetLocalListVersionFeature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.SendLocalListFeature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -42,6 +44,8 @@ public class ClientLocalAuthListProfile implements Profile {
 
   private ClientLocalAuthListEventHandler eventHandler;
   private ArrayList<Feature> featureList;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientLocalAuthListProfile.class);
 
   public ClientLocalAuthListProfile(ClientLocalAuthListEventHandler handler) {
     eventHandler = handler;
@@ -49,6 +53,15 @@ public class ClientLocalAuthListProfile implements Profile {
     featureList = new ArrayList<>();
     featureList.add(new GetLocalListVersionFeature(this));
     featureList.add(new SendLocalListFeature(this));
+
+    requestHandlers.put(
+        GetLocalListVersionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetLocalListVersionRequest((GetLocalListVersionRequest) request));
+    requestHandlers.put(
+        SendLocalListRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSendLocalListRequest((SendLocalListRequest) request));
   }
 
   @Override
@@ -58,14 +71,11 @@ public class ClientLocalAuthListProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof GetLocalListVersionRequest) {
-      result = eventHandler.handleGetLocalListVersionRequest((GetLocalListVersionRequest) request);
-    } else if (request instanceof SendLocalListRequest) {
-      result = eventHandler.handleSendLocalListRequest((SendLocalListRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
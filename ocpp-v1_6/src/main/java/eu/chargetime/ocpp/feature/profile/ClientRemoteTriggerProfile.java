@@ -2,6 +2,8 @@ package eu.chargetime.ocpp.feature.profile;
 
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.TriggerMessageFeature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,12 +42,19 @@ SOFTWARE.
 public class ClientRemoteTriggerProfile implements Profile {
   private ClientRemoteTriggerEventHandler eventHandler;
   private ArrayList<Feature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientRemoteTriggerProfile.class);
 
   public ClientRemoteTriggerProfile(ClientRemoteTriggerEventHandler handler) {
     features = new ArrayList<>();
     eventHandler = handler;
 
     features.add(new TriggerMessageFeature(this));
+
+    requestHandlers.put(
+        TriggerMessageRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleTriggerMessageRequest((TriggerMessageRequest) request));
   }
 
   @Override
@@ -55,12 +64,11 @@ public class ClientRemoteTriggerProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof TriggerMessageRequest) {
-      result = eventHandler.handleTriggerMessageRequest((TriggerMessageRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
@@ -31,6 +31,8 @@ package eu.chargetime.ocpp.feature.profile;
 import eu.chargetime.ocpp.feature.CancelReservationFeature;
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.ReserveNowFeature;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -43,12 +45,23 @@ public class ClientReservationProfile implements Profile {
 
   private HashSet<Feature> features;
   private ClientReservationEventHandler eventHandler;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientReservationProfile.class);
 
   public ClientReservationProfile(ClientReservationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new HashSet<>();
     features.add(new CancelReservationFeature(this));
     features.add(new ReserveNowFeature(this));
+
+    requestHandlers.put(
+        CancelReservationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCancelReservationRequest((CancelReservationRequest) request));
+    requestHandlers.put(
+        ReserveNowRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleReserveNowRequest((ReserveNowRequest) request));
   }
 
   @Override
@@ -58,14 +71,11 @@ public class ClientReservationProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof CancelReservationRequest) {
-      result = eventHandler.handleCancelReservationRequest((CancelReservationRequest) request);
-    } else if (request instanceof ReserveNowRequest) {
-      result = eventHandler.handleReserveNowRequest((ReserveNowRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
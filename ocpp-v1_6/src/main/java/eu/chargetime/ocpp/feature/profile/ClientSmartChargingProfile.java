@@ -39,6 +39,8 @@ import java.util.UUID;
 public class ClientSmartChargingProfile implements Profile {
   private ClientSmartChargingEventHandler eventHandler;
   private ArrayList<Feature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientSmartChargingProfile.class);
 
   public ClientSmartChargingProfile(ClientSmartChargingEventHandler handler) {
     features = new ArrayList<>();
@@ -47,6 +49,19 @@ public class ClientSmartChargingProfile implements Profile {
     features.add(new ClearChargingProfileFeature(this));
     features.add(new GetCompositeScheduleFeature(this));
     features.add(new SetChargingProfileFeature(this));
+
+    requestHandlers.put(
+        ClearChargingProfileRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearChargingProfileRequest((ClearChargingProfileRequest) request));
+    requestHandlers.put(
+        GetCompositeScheduleRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetCompositeScheduleRequest((GetCompositeScheduleRequest) request));
+    requestHandlers.put(
+        SetChargingProfileRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetChargingProfileRequest((SetChargingProfileRequest) request));
   }
 
   @Override
@@ -56,18 +71,11 @@ public class ClientSmartChargingProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof ClearChargingProfileRequest) {
-      result =
-          eventHandler.handleClearChargingProfileRequest((ClearChargingProfileRequest) request);
-    } else if (request instanceof GetCompositeScheduleRequest) {
-      result =
-          eventHandler.handleGetCompositeScheduleRequest((GetCompositeScheduleRequest) request);
-    } else if (request instanceof SetChargingProfileRequest) {
-      result = eventHandler.handleSetChargingProfileRequest((SetChargingProfileRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
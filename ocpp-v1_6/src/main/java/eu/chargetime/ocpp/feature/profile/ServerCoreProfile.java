@@ -37,6 +37,8 @@ public class ServerCoreProfile implements Profile {
 
   private ServerCoreEventHandler handler;
   private HashSet<Feature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerCoreProfile.class);
 
   public ServerCoreProfile(ServerCoreEventHandler handler) {
     this.handler = handler;
@@ -58,6 +60,40 @@ public class ServerCoreProfile implements Profile {
     features.add(new StatusNotificationFeature(this));
     features.add(new StopTransactionFeature(this));
     features.add(new UnlockConnectorFeature(null));
+
+    requestHandlers.put(
+        AuthorizeRequest.class,
+        (sessionIndex, request) ->
+            handler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request));
+    requestHandlers.put(
+        BootNotificationRequest.class,
+        (sessionIndex, request) ->
+            handler.handleBootNotificationRequest(sessionIndex, (BootNotificationRequest) request));
+    requestHandlers.put(
+        DataTransferRequest.class,
+        (sessionIndex, request) ->
+            handler.handleDataTransferRequest(sessionIndex, (DataTransferRequest) request));
+    requestHandlers.put(
+        HeartbeatRequest.class,
+        (sessionIndex, request) ->
+            handler.handleHeartbeatRequest(sessionIndex, (HeartbeatRequest) request));
+    requestHandlers.put(
+        MeterValuesRequest.class,
+        (sessionIndex, request) ->
+            handler.handleMeterValuesRequest(sessionIndex, (MeterValuesRequest) request));
+    requestHandlers.put(
+        StartTransactionRequest.class,
+        (sessionIndex, request) ->
+            handler.handleStartTransactionRequest(sessionIndex, (StartTransactionRequest) request));
+    requestHandlers.put(
+        StatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            handler.handleStatusNotificationRequest(
+                sessionIndex, (StatusNotificationRequest) request));
+    requestHandlers.put(
+        StopTransactionRequest.class,
+        (sessionIndex, request) ->
+            handler.handleStopTransactionRequest(sessionIndex, (StopTransactionRequest) request));
   }
 
   @Override
@@ -67,31 +103,12 @@ public class ServerCoreProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof AuthorizeRequest) {
-      result = handler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request);
-    } else if (request instanceof BootNotificationRequest) {
-      result =
-          handler.handleBootNotificationRequest(sessionIndex, (BootNotificationRequest) request);
-    } else if (request instanceof DataTransferRequest) {
-      result = handler.handleDataTransferRequest(sessionIndex, (DataTransferRequest) request);
-    } else if (request instanceof HeartbeatRequest) {
-      result = handler.handleHeartbeatRequest(sessionIndex, (HeartbeatRequest) request);
-    } else if (request instanceof MeterValuesRequest) {
-      result = handler.handleMeterValuesRequest(sessionIndex, (MeterValuesRequest) request);
-    } else if (request instanceof StartTransactionRequest) {
-      result =
-          handler.handleStartTransactionRequest(sessionIndex, (StartTransactionRequest) request);
-    } else if (request instanceof StatusNotificationRequest) {
-      result =
-          handler.handleStatusNotificationRequest(
-              sessionIndex, (StatusNotificationRequest) request);
-    } else if (request instanceof StopTransactionRequest) {
-      result = handler.handleStopTransactionRequest(sessionIndex, (StopTransactionRequest) request);
-    }
-
-    return result;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -41,6 +41,8 @@ public class ServerFirmwareManagementProfile implements Profile {
 
   private final ServerFirmwareManagementEventHandler eventHandler;
   private HashSet<Feature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerFirmwareManagementProfile.class);
 
   public ServerFirmwareManagementProfile(ServerFirmwareManagementEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -49,6 +51,17 @@ public class ServerFirmwareManagementProfile implements Profile {
     features.add(new DiagnosticsStatusNotificationFeature(this));
     features.add(new FirmwareStatusNotificationFeature(this));
     features.add(new UpdateFirmwareFeature(null));
+
+    requestHandlers.put(
+        DiagnosticsStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleDiagnosticsStatusNotificationRequest(
+                sessionIndex, (DiagnosticsStatusNotificationRequest) request));
+    requestHandlers.put(
+        FirmwareStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleFirmwareStatusNotificationRequest(
+                sessionIndex, (FirmwareStatusNotificationRequest) request));
   }
 
   @Override
@@ -58,19 +71,12 @@ public class ServerFirmwareManagementProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof DiagnosticsStatusNotificationRequest) {
-      result =
-          eventHandler.handleDiagnosticsStatusNotificationRequest(
-              sessionIndex, (DiagnosticsStatusNotificationRequest) request);
-    } else if (request instanceof FirmwareStatusNotificationRequest) {
-      result =
-          eventHandler.handleFirmwareStatusNotificationRequest(
-              sessionIndex, (FirmwareStatusNotificationRequest) request);
-    }
+    return requestHandlers.handle(sessionIndex, request);
+  }
 
-    return result;
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
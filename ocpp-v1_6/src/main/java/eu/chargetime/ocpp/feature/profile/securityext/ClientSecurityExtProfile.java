@@ -28,6 +28,8 @@ package eu.chargetime.ocpp.feature.profile.securityext;
 
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.feature.securityext.CertificateSignedFeature;
 import eu.chargetime.ocpp.feature.securityext.DeleteCertificateFeature;
@@ -64,6 +66,8 @@ public class ClientSecurityExtProfile implements Profile {
 
   private final Set<Feature> features;
   private final ClientSecurityExtEventHandler eventHandler;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientSecurityExtProfile.class);
 
   public ClientSecurityExtProfile(ClientSecurityExtEventHandler handler) {
     this.features = new HashSet<>();
@@ -80,6 +84,36 @@ public class ClientSecurityExtProfile implements Profile {
     features.add(new SignCertificateFeature(null));
     features.add(new SignedFirmwareStatusNotificationFeature(null));
     features.add(new SignedUpdateFirmwareFeature(this));
+
+    requestHandlers.put(
+        CertificateSignedRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCertificateSignedRequest((CertificateSignedRequest) request));
+    requestHandlers.put(
+        DeleteCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleDeleteCertificateRequest((DeleteCertificateRequest) request));
+    requestHandlers.put(
+        ExtendedTriggerMessageRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleExtendedTriggerMessageRequest(
+                (ExtendedTriggerMessageRequest) request));
+    requestHandlers.put(
+        GetInstalledCertificateIdsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetInstalledCertificateIdsRequest(
+                (GetInstalledCertificateIdsRequest) request));
+    requestHandlers.put(
+        GetLogRequest.class,
+        (sessionIndex, request) -> eventHandler.handleGetLogRequest((GetLogRequest) request));
+    requestHandlers.put(
+        InstallCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleInstallCertificateRequest((InstallCertificateRequest) request));
+    requestHandlers.put(
+        SignedUpdateFirmwareRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSignedUpdateFirmwareRequest((SignedUpdateFirmwareRequest) request));
   }
 
   @Override
@@ -89,29 +123,12 @@ public class ClientSecurityExtProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof CertificateSignedRequest) {
-      result = eventHandler.handleCertificateSignedRequest((CertificateSignedRequest) request);
-    } else if (request instanceof DeleteCertificateRequest) {
-      result = eventHandler.handleDeleteCertificateRequest((DeleteCertificateRequest) request);
-    } else if (request instanceof ExtendedTriggerMessageRequest) {
-      result =
-          eventHandler.handleExtendedTriggerMessageRequest((ExtendedTriggerMessageRequest) request);
-    } else if (request instanceof GetInstalledCertificateIdsRequest) {
-      result =
-          eventHandler.handleGetInstalledCertificateIdsRequest(
-              (GetInstalledCertificateIdsRequest) request);
-    } else if (request instanceof GetLogRequest) {
-      result = eventHandler.handleGetLogRequest((GetLogRequest) request);
-    } else if (request instanceof InstallCertificateRequest) {
-      result = eventHandler.handleInstallCertificateRequest((InstallCertificateRequest) request);
-    } else if (request instanceof SignedUpdateFirmwareRequest) {
-      result =
-          eventHandler.handleSignedUpdateFirmwareRequest((SignedUpdateFirmwareRequest) request);
-    }
-
-    return result;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
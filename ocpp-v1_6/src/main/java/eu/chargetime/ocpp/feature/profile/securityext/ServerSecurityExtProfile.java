@@ -28,6 +28,8 @@ package eu.chargetime.ocpp.feature.profile.securityext;
 
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.ProfileFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.profile.Profile;
 import eu.chargetime.ocpp.feature.securityext.CertificateSignedFeature;
 import eu.chargetime.ocpp.feature.securityext.DeleteCertificateFeature;
@@ -67,6 +69,8 @@ public class ServerSecurityExtProfile implements Profile {
 
   private final Set<Feature> features;
   private final ServerSecurityExtEventHandler handler;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerSecurityExtProfile.class);
 
   public ServerSecurityExtProfile(ServerSecurityExtEventHandler handler) {
     this.features = new HashSet<>();
@@ -83,6 +87,26 @@ public class ServerSecurityExtProfile implements Profile {
     features.add(new SignCertificateFeature(this));
     features.add(new SignedFirmwareStatusNotificationFeature(this));
     features.add(new SignedUpdateFirmwareFeature(null));
+
+    requestHandlers.put(
+        LogStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            handler.handleLogStatusNotificationRequest(
+                sessionIndex, (LogStatusNotificationRequest) request));
+    requestHandlers.put(
+        SecurityEventNotificationRequest.class,
+        (sessionIndex, request) ->
+            handler.handleSecurityEventNotificationRequest(
+                sessionIndex, (SecurityEventNotificationRequest) request));
+    requestHandlers.put(
+        SignCertificateRequest.class,
+        (sessionIndex, request) ->
+            handler.handleSignCertificateRequest(sessionIndex, (SignCertificateRequest) request));
+    requestHandlers.put(
+        SignedFirmwareStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            handler.handleSignedFirmwareStatusNotificationRequest(
+                sessionIndex, (SignedFirmwareStatusNotificationRequest) request));
   }
 
   @Override
@@ -92,25 +116,12 @@ public class ServerSecurityExtProfile implements Profile {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    Confirmation result = null;
-
-    if (request instanceof LogStatusNotificationRequest) {
-      result =
-          handler.handleLogStatusNotificationRequest(
-              sessionIndex, (LogStatusNotificationRequest) request);
-    } else if (request instanceof SecurityEventNotificationRequest) {
-      result =
-          handler.handleSecurityEventNotificationRequest(
-              sessionIndex, (SecurityEventNotificationRequest) request);
-    } else if (request instanceof SignCertificateRequest) {
-      result = handler.handleSignCertificateRequest(sessionIndex, (SignCertificateRequest) request);
-    } else if (request instanceof SignedFirmwareStatusNotificationRequest) {
-      result =
-          handler.handleSignedFirmwareStatusNotificationRequest(
-              sessionIndex, (SignedFirmwareStatusNotificationRequest) request);
-    }
-
-    return result;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
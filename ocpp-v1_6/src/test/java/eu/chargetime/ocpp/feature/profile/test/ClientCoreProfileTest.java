@@ -345,6 +345,18 @@ public class ClientCoreProfileTest extends ProfileTest {
     verify(handler, times(1)).handleResetRequest(eq(request));
   }
 
+  @Test
+  public void getRequestHandler_aResetRequest_callsHandleResetRequest() {
+    // Given
+    ResetRequest request = new ResetRequest(ResetType.Hard);
+
+    // When
+    core.getRequestHandler(ResetRequest.class).handleRequest(SESSION_NULL, request);
+
+    // Then
+    verify(handler, times(1)).handleResetRequest(eq(request));
+  }
+
   @Test
   public void handleRequest_anUnlockConnectorRequest_callsHandleUnlockConnectorRequest() {
     // Given
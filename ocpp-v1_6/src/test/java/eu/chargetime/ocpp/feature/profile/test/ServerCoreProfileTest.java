@@ -3,13 +3,17 @@ package eu.chargetime.ocpp.feature.profile.test;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import eu.chargetime.ocpp.feature.*;
 import eu.chargetime.ocpp.feature.profile.ServerCoreEventHandler;
 import eu.chargetime.ocpp.feature.profile.ServerCoreProfile;
+import eu.chargetime.ocpp.model.Confirmation;
+import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.model.core.*;
 import java.time.ZonedDateTime;
 import java.util.UUID;
@@ -80,6 +84,57 @@ public class ServerCoreProfileTest extends ProfileTest {
     verify(handler, times(1)).handleAuthorizeRequest(eq(sessionId), eq(request));
   }
 
+  @Test
+  public void bootNotificationFeature_handleRequest_callsHandleBootNotificationRequest() {
+    // Given
+    BootNotificationRequest request = new BootNotificationRequest("vendor", "model");
+    UUID sessionId = UUID.randomUUID();
+    Feature feature = findFeature(core.getFeatureList(), "BootNotification");
+
+    // When
+    feature.handleRequest(sessionId, request);
+    feature.handleRequest(sessionId, request);
+
+    // Then
+    verify(handler, times(2)).handleBootNotificationRequest(eq(sessionId), eq(request));
+  }
+
+  @Test
+  public void getRequestHandler_aStatusNotificationRequest_callsHandleStatusNotificationRequest() {
+    // Given
+    StatusNotificationRequest request =
+        new StatusNotificationRequest(
+            0, ChargePointErrorCode.InternalError, ChargePointStatus.Charging);
+    UUID sessionId = UUID.randomUUID();
+
+    // When
+    core.getRequestHandler(StatusNotificationRequest.class).handleRequest(sessionId, request);
+
+    // Then
+    verify(handler, times(1)).handleStatusNotificationRequest(eq(sessionId), eq(request));
+  }
+
+  @Test
+  public void featureHandleRequest_handleRequestOverridden_callsOverride() {
+    // Given
+    HeartbeatConfirmation confirmation = new HeartbeatConfirmation(ZonedDateTime.now());
+    ServerCoreProfile overriding =
+        new ServerCoreProfile(handler) {
+          @Override
+          public Confirmation handleRequest(UUID sessionIndex, Request request) {
+            return confirmation;
+          }
+        };
+    Feature feature = findFeature(overriding.getFeatureList(), "Heartbeat");
+
+    // When
+    Confirmation result = feature.handleRequest(UUID.randomUUID(), new HeartbeatRequest());
+
+    // Then
+    assertThat(result, is(confirmation));
+    verify(handler, never()).handleHeartbeatRequest(any(), any());
+  }
+
   @Test
   public void getFeatureList_containsBootNotificatonFeature() {
     // When
@@ -0,0 +1,160 @@
+/*
+ * ChargeTime.eu - Java-OCA-OCPP
+ *
+ * Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+ *
+ * MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package eu.chargetime.ocpp.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assume.assumeTrue;
+
+import eu.chargetime.ocpp.ProtocolVersion;
+import eu.chargetime.ocpp.v201.model.messages.BootNotificationRequest;
+import eu.chargetime.ocpp.v201.model.messages.BootNotificationResponse;
+import eu.chargetime.ocpp.v201.model.messages.MeterValuesRequest;
+import eu.chargetime.ocpp.v201.model.messages.MeterValuesResponse;
+import eu.chargetime.ocpp.v201.model.messages.NotifyReportRequest;
+import eu.chargetime.ocpp.v201.model.messages.NotifyReportResponse;
+import eu.chargetime.ocpp.v201.model.messages.TransactionEventRequest;
+import eu.chargetime.ocpp.v201.model.messages.TransactionEventResponse;
+import eu.chargetime.ocpp.v201.model.types.*;
+import java.time.ZonedDateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Holds decoding, validation, dispatch and encoding of OCPP 2.0.1 messages to an allocation budget
+ * per message, see {@link MessageAllocation}. Budgets leave about a third of headroom over what was
+ * measured, a change that needs more has to raise them on purpose.
+ */
+public class OCPP201MessageAllocationTest {
+
+  private static final ZonedDateTime TIMESTAMP = ZonedDateTime.parse("2024-05-01T12:00:00Z");
+
+  @Before
+  public void setup() {
+    assumeTrue(AllocationMeter.isSupported());
+  }
+
+  @Test
+  public void bootNotification_staysWithinBudget() throws Exception {
+    BootNotificationRequest request =
+        new BootNotificationRequest(
+            new ChargingStation("Fleet-22", "ChargeTime")
+                .withSerialNumber("CS-000001")
+                .withFirmwareVersion("1.4.2"),
+            BootReasonEnum.PowerUp);
+    MessageAllocation allocation =
+        new MessageAllocation(
+            ProtocolVersion.OCPP2_0_1,
+            "BootNotification",
+            request,
+            new BootNotificationResponse(TIMESTAMP, 300, RegistrationStatusEnum.Accepted));
+
+    assertThat(allocation.decode(), lessThanOrEqualTo(11_000L));
+    assertThat(allocation.validate(), lessThanOrEqualTo(256L));
+    assertThat(allocation.dispatch(), lessThanOrEqualTo(13_000L));
+    assertThat(allocation.encode(), lessThanOrEqualTo(768L));
+  }
+
+  @Test
+  public void meterValuesOfTwentySamples_staysWithinBudget() throws Exception {
+    MeterValuesRequest request =
+        new MeterValuesRequest(1, new MeterValue[] {new MeterValue(sampledValues(20), TIMESTAMP)});
+    MessageAllocation allocation =
+        new MessageAllocation(
+            ProtocolVersion.OCPP2_0_1, "MeterValues", request, new MeterValuesResponse());
+
+    assertThat(allocation.decode(), lessThanOrEqualTo(84_000L));
+    assertThat(allocation.validate(), lessThanOrEqualTo(512L));
+    assertThat(allocation.dispatch(), lessThanOrEqualTo(85_000L));
+    assertThat(allocation.encode(), lessThanOrEqualTo(5_000L));
+  }
+
+  @Test
+  public void transactionEvent_staysWithinBudget() throws Exception {
+    TransactionEventRequest request =
+        new TransactionEventRequest(
+                TransactionEventEnum.Updated,
+                TIMESTAMP,
+                TriggerReasonEnum.MeterValuePeriodic,
+                7,
+                new Transaction("f4d4a6e2-0c37-4f3a-9b1e-2f1c6d8a7b90")
+                    .withChargingState(ChargingStateEnum.Charging)
+                    .withTimeSpentCharging(1_800))
+            .withEvse(new EVSE(1).withConnectorId(1))
+            .withIdToken(new IdToken("04A2B3C4D5E6F7", IdTokenEnum.ISO14443))
+            .withMeterValue(new MeterValue[] {new MeterValue(sampledValues(4), TIMESTAMP)});
+    MessageAllocation allocation =
+        new MessageAllocation(
+            ProtocolVersion.OCPP2_0_1, "TransactionEvent", request, new TransactionEventResponse());
+
+    assertThat(allocation.decode(), lessThanOrEqualTo(38_000L));
+    assertThat(allocation.validate(), lessThanOrEqualTo(512L));
+    assertThat(allocation.dispatch(), lessThanOrEqualTo(39_000L));
+    assertThat(allocation.encode(), lessThanOrEqualTo(3_200L));
+  }
+
+  @Test
+  public void notifyReport_staysWithinBudget() throws Exception {
+    ReportData[] reportData = new ReportData[10];
+    for (int i = 0; i < reportData.length; i++) {
+      reportData[i] =
+          new ReportData(
+                  new Component("EVSE").withEvse(new EVSE(i + 1)),
+                  new Variable("Power").withInstance("Max"),
+                  new VariableAttribute[] {
+                    new VariableAttribute()
+                        .withType(AttributeEnum.Actual)
+                        .withValue(Integer.toString(22_000 + i))
+                        .withMutability(MutabilityEnum.ReadOnly)
+                  })
+              .withVariableCharacteristics(
+                  new VariableCharacteristics(DataEnum.decimal, false).withUnit("W"));
+    }
+    NotifyReportRequest request =
+        new NotifyReportRequest(3, TIMESTAMP, 0).withReportData(reportData);
+    MessageAllocation allocation =
+        new MessageAllocation(
+            ProtocolVersion.OCPP2_0_1, "NotifyReport", request, new NotifyReportResponse());
+
+    assertThat(allocation.decode(), lessThanOrEqualTo(97_000L));
+    assertThat(allocation.validate(), lessThanOrEqualTo(2_400L));
+    assertThat(allocation.dispatch(), lessThanOrEqualTo(100_000L));
+    assertThat(allocation.encode(), lessThanOrEqualTo(5_000L));
+  }
+
+  private static SampledValue[] sampledValues(int count) {
+    SampledValue[] sampledValues = new SampledValue[count];
+    for (int i = 0; i < count; i++) {
+      sampledValues[i] =
+          new SampledValue(1_000.0 + i * 17)
+              .withContext(ReadingContextEnum.SamplePeriodic)
+              .withMeasurand(MeasurandEnum.EnergyActiveImportRegister)
+              .withUnitOfMeasure(new UnitOfMeasure().withUnit("Wh"));
+    }
+    return sampledValues;
+  }
+}
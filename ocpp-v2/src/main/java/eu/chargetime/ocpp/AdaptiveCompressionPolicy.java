@@ -0,0 +1,80 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import javax.annotation.Nullable;
+
+/**
+ * Stops compressing actions whose messages don't shrink enough, based on their rolling ratio in
+ * {@link CompressionStatistics}.
+ *
+ * <p>Messages below the threshold are never compressed. Once an action has {@link #MIN_SAMPLES}
+ * compressed messages and its ratio is above the maximum, only every {@link #PROBE_INTERVAL}th of
+ * its messages is compressed, to notice when its payloads change.
+ */
+public class AdaptiveCompressionPolicy implements CompressionPolicy {
+
+  public static final double DEFAULT_MAX_RATIO = 0.8;
+  public static final int MIN_SAMPLES = 16;
+  public static final int PROBE_INTERVAL = 64;
+
+  private final CompressionStatistics statistics;
+  private final int threshold;
+  private final double maxRatio;
+
+  /**
+   * @param statistics the statistics the extension records to.
+   * @param threshold minimum payload size in bytes.
+   * @param maxRatio highest rolling ratio at which an action is still compressed.
+   */
+  public AdaptiveCompressionPolicy(
+      CompressionStatistics statistics, int threshold, double maxRatio) {
+    this.statistics = statistics;
+    this.threshold = threshold;
+    this.maxRatio = maxRatio;
+  }
+
+  public AdaptiveCompressionPolicy(CompressionStatistics statistics, int threshold) {
+    this(statistics, threshold, DEFAULT_MAX_RATIO);
+  }
+
+  @Override
+  public boolean shouldCompress(@Nullable String action, int payloadSize) {
+    if (payloadSize < threshold) {
+      return false;
+    }
+    if (action == null) {
+      return true;
+    }
+    CompressionStatistics.Action stats = statistics.get(action);
+    if (stats == null
+        || stats.getCompressedMessages() < MIN_SAMPLES
+        || stats.getRatio() <= maxRatio) {
+      return true;
+    }
+    return stats.getMessages() % PROBE_INTERVAL == 0;
+  }
+}
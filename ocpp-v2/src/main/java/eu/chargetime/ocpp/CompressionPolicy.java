@@ -0,0 +1,57 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import javax.annotation.Nullable;
+
+/**
+ * Decides per outbound message whether {@link PerMessageDeflateExtension} compresses it.
+ *
+ * <p>Small, high frequency messages like Heartbeat gain next to nothing from deflate while large
+ * ones like NotifyReport shrink several times, so the decision may look at both.
+ */
+public interface CompressionPolicy {
+
+  /**
+   * Called for the first fragment of every outbound message.
+   *
+   * @param action the OCPP action of the call or of the call a result answers, null if it is not
+   *     known.
+   * @param payloadSize size of the first fragment in bytes.
+   * @return whether to compress the message.
+   */
+  boolean shouldCompress(@Nullable String action, int payloadSize);
+
+  /**
+   * Compress every message of at least the given size, how the extension behaves without a policy.
+   *
+   * @param threshold minimum payload size in bytes.
+   * @return the policy.
+   */
+  static CompressionPolicy threshold(int threshold) {
+    return (action, payloadSize) -> payloadSize >= threshold;
+  }
+}
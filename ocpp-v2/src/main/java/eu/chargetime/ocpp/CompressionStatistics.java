@@ -0,0 +1,150 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+
+/**
+ * Compression results of outbound messages per OCPP action, shared by all connections it is
+ * configured for.
+ *
+ * <p>Next to the totals every action keeps a rolling compression ratio, an exponentially weighted
+ * moving average over its recently compressed messages.
+ */
+public class CompressionStatistics {
+
+  /** Weight of the newest message in the rolling ratio. */
+  public static final double RATIO_WEIGHT = 0.1;
+
+  private final Map<String, Action> actions = new ConcurrentHashMap<>();
+
+  /**
+   * Record a compressed message.
+   *
+   * @param action the OCPP action.
+   * @param uncompressedBytes payload size before compression.
+   * @param compressedBytes payload size after compression.
+   */
+  public void recordCompressed(String action, long uncompressedBytes, long compressedBytes) {
+    actions
+        .computeIfAbsent(action, key -> new Action())
+        .compressed(uncompressedBytes, compressedBytes);
+  }
+
+  /**
+   * Record a message which was sent without compression.
+   *
+   * @param action the OCPP action.
+   * @param bytes payload size.
+   */
+  public void recordUncompressed(String action, long bytes) {
+    actions.computeIfAbsent(action, key -> new Action()).uncompressed(bytes);
+  }
+
+  /**
+   * @param action the OCPP action.
+   * @return statistics of the action, null if none of its messages were sent yet.
+   */
+  @Nullable
+  public Action get(String action) {
+    return actions.get(action);
+  }
+
+  /** @return live view of the statistics by action. */
+  public Map<String, Action> getActions() {
+    return Collections.unmodifiableMap(actions);
+  }
+
+  /** Statistics of a single action. */
+  public static final class Action {
+    private long messages;
+    private long compressedMessages;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private double ratio = 1;
+
+    private synchronized void compressed(long uncompressed, long compressed) {
+      messages++;
+      uncompressedBytes += uncompressed;
+      compressedBytes += compressed;
+      double messageRatio = uncompressed > 0 ? (double) compressed / uncompressed : 1;
+      ratio =
+          compressedMessages++ == 0 ? messageRatio : ratio + RATIO_WEIGHT * (messageRatio - ratio);
+    }
+
+    private synchronized void uncompressed(long bytes) {
+      messages++;
+      uncompressedBytes += bytes;
+      compressedBytes += bytes;
+    }
+
+    /** @return all messages sent, compressed or not. */
+    public synchronized long getMessages() {
+      return messages;
+    }
+
+    public synchronized long getCompressedMessages() {
+      return compressedMessages;
+    }
+
+    /** @return payload bytes before compression. */
+    public synchronized long getUncompressedBytes() {
+      return uncompressedBytes;
+    }
+
+    /** @return payload bytes on the wire, uncompressed messages included. */
+    public synchronized long getCompressedBytes() {
+      return compressedBytes;
+    }
+
+    /**
+     * Rolling compression ratio of the compressed messages, below 1 means compression pays off.
+     *
+     * @return the ratio, 1 if no message was compressed yet.
+     */
+    public synchronized double getRatio() {
+      return ratio;
+    }
+
+    @Override
+    public synchronized String toString() {
+      return "Action{messages="
+          + messages
+          + ", compressedMessages="
+          + compressedMessages
+          + ", uncompressedBytes="
+          + uncompressedBytes
+          + ", compressedBytes="
+          + compressedBytes
+          + ", ratio="
+          + ratio
+          + '}';
+    }
+  }
+}
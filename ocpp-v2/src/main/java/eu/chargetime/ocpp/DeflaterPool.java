@@ -0,0 +1,112 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Bounded pool of raw deflate compressors and decompressors.
+ *
+ * <p>Without context takeover every message starts with an empty window, so a connection only needs
+ * a {@link Deflater} or {@link Inflater} while it is encoding or decoding a message. Sharing them
+ * keeps the native zlib memory proportional to the number of busy connections instead of the number
+ * of open ones.
+ */
+final class DeflaterPool {
+
+  static final int DEFAULT_CAPACITY = 64;
+
+  private static final int LEVELS = Deflater.BEST_COMPRESSION + 2;
+  private static final DeflaterPool SHARED = new DeflaterPool(DEFAULT_CAPACITY);
+
+  private final int capacity;
+  // indexed by compression level + 1, so DEFAULT_COMPRESSION (-1) gets its own queue
+  private final List<BlockingQueue<Deflater>> deflaters;
+  private final BlockingQueue<Inflater> inflaters;
+
+  DeflaterPool(int capacity) {
+    this.capacity = capacity;
+    deflaters = new ArrayList<>(LEVELS);
+    for (int i = 0; i < LEVELS; i++) {
+      deflaters.add(new ArrayBlockingQueue<>(capacity));
+    }
+    inflaters = new ArrayBlockingQueue<>(capacity);
+  }
+
+  static DeflaterPool shared() {
+    return SHARED;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  Deflater borrowDeflater(int level) {
+    Deflater deflater = deflaters.get(index(level)).poll();
+    return deflater != null ? deflater : new Deflater(level, true);
+  }
+
+  /** Hand back a compressor borrowed with the same level, it is reset or ended when full. */
+  void release(int level, Deflater deflater) {
+    deflater.reset();
+    if (!deflaters.get(index(level)).offer(deflater)) {
+      deflater.end();
+    }
+  }
+
+  Inflater borrowInflater() {
+    Inflater inflater = inflaters.poll();
+    return inflater != null ? inflater : new Inflater(true);
+  }
+
+  /** Hand back a decompressor, it is reset or ended when the pool is full. */
+  void release(Inflater inflater) {
+    inflater.reset();
+    if (!inflaters.offer(inflater)) {
+      inflater.end();
+    }
+  }
+
+  int idleDeflaters(int level) {
+    return deflaters.get(index(level)).size();
+  }
+
+  int idleInflaters() {
+    return inflaters.size();
+  }
+
+  private static int index(int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level " + level);
+    }
+    return level + 1;
+  }
+}
@@ -0,0 +1,156 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.Nullable;
+
+/**
+ * Message type, unique id and action at the head of an OCPP-J frame, e.g. {@code [2,"19223201",
+ * "BootNotification",{...}]}, read without parsing the payload.
+ */
+final class JsonFrameHeader {
+
+  static final int CALL = 2;
+  static final int CALL_RESULT = 3;
+  static final int CALL_ERROR = 4;
+  static final int CALL_RESULT_ERROR = 5;
+  static final int SEND = 6;
+
+  // the head is well within this, longer ids or actions are not valid OCPP
+  private static final int MAX_HEADER_LENGTH = 256;
+
+  final int messageType;
+  final String uniqueId;
+  @Nullable final String action;
+
+  private JsonFrameHeader(int messageType, String uniqueId, @Nullable String action) {
+    this.messageType = messageType;
+    this.uniqueId = uniqueId;
+    this.action = action;
+  }
+
+  boolean isCall() {
+    return messageType == CALL || messageType == SEND;
+  }
+
+  boolean isAnswer() {
+    return messageType == CALL_RESULT
+        || messageType == CALL_ERROR
+        || messageType == CALL_RESULT_ERROR;
+  }
+
+  /**
+   * @param payload the frame payload, its position is left untouched.
+   * @return the header, null if the payload does not start like an OCPP-J message.
+   */
+  @Nullable
+  static JsonFrameHeader parse(ByteBuffer payload) {
+    Reader reader = new Reader(payload);
+    if (!reader.expect('[')) {
+      return null;
+    }
+    int messageType = reader.digit();
+    if (messageType < 0 || !reader.expect(',')) {
+      return null;
+    }
+    String uniqueId = reader.string();
+    if (uniqueId == null) {
+      return null;
+    }
+    String action = null;
+    if (messageType == CALL || messageType == SEND) {
+      if (!reader.expect(',') || (action = reader.string()) == null) {
+        return null;
+      }
+    }
+    return new JsonFrameHeader(messageType, uniqueId, action);
+  }
+
+  private static final class Reader {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    Reader(ByteBuffer buffer) {
+      this.buffer = buffer;
+      position = buffer.position();
+      limit = Math.min(buffer.limit(), position + MAX_HEADER_LENGTH);
+    }
+
+    private void skipWhitespace() {
+      while (position < limit && Character.isWhitespace(buffer.get(position))) {
+        position++;
+      }
+    }
+
+    boolean expect(char c) {
+      skipWhitespace();
+      if (position < limit && buffer.get(position) == c) {
+        position++;
+        return true;
+      }
+      return false;
+    }
+
+    int digit() {
+      skipWhitespace();
+      if (position < limit) {
+        byte b = buffer.get(position);
+        if (b >= '0' && b <= '9') {
+          position++;
+          return b - '0';
+        }
+      }
+      return -1;
+    }
+
+    @Nullable
+    String string() {
+      if (!expect('"')) {
+        return null;
+      }
+      int start = position;
+      while (position < limit) {
+        byte b = buffer.get(position);
+        if (b == '\\') {
+          position += 2;
+        } else if (b == '"') {
+          byte[] bytes = new byte[position - start];
+          for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+          }
+          position++;
+          return new String(bytes, StandardCharsets.UTF_8);
+        } else {
+          position++;
+        }
+      }
+      return null;
+    }
+  }
+}
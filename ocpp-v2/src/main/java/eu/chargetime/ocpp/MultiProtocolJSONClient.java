@@ -29,6 +29,7 @@ package eu.chargetime.ocpp;
 
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.feature.profile.Profile;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.wss.BaseWssSocketBuilder;
@@ -38,7 +39,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
-import java.util.zip.Deflater;
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import org.java_websocket.drafts.Draft;
@@ -91,14 +91,9 @@ public class MultiProtocolJSONClient implements IMultiProtocolClientAPI {
     featureRepository = new MultiProtocolFeatureRepository(protocolVersions);
     int maxFrameSize = configuration.getParameter(JSONConfiguration.WEBSOCKET_MAX_FRAME_SIZE, 0);
     List<IExtension> inputExtensions = new ArrayList<>();
-    if (configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_SUPPORT, false)) {
-      PerMessageDeflateExtension perMessageDeflateExtension =
-          maxFrameSize > 0
-              ? new PerMessageDeflateExtension(Deflater.BEST_COMPRESSION, maxFrameSize)
-              : new PerMessageDeflateExtension(Deflater.BEST_COMPRESSION);
-      perMessageDeflateExtension.setThreshold(64);
-      perMessageDeflateExtension.setServerNoContextTakeover(false);
-      perMessageDeflateExtension.setClientNoContextTakeover(false);
+    PerMessageDeflateExtension perMessageDeflateExtension =
+        PerMessageDeflateExtensionFactory.forClient(configuration);
+    if (perMessageDeflateExtension != null) {
       inputExtensions.add(perMessageDeflateExtension);
     }
     List<IProtocol> inputProtocols = new ArrayList<>(protocolVersions.size());
@@ -110,10 +105,30 @@ public class MultiProtocolJSONClient implements IMultiProtocolClientAPI {
             ? new Draft_6455(inputExtensions, inputProtocols, maxFrameSize)
             : new Draft_6455(inputExtensions, inputProtocols);
     transmitter = new MultiProtocolWebSocketTransmitter(featureRepository, configuration, draft);
-    JSONCommunicator communicator = new JSONCommunicator(transmitter, false);
-    ISessionFactory sessionFactory = new MultiProtocolSessionFactory(featureRepository);
+    JSONCommunicator communicator =
+        new JSONCommunicator(
+            transmitter,
+            configuration.<TransactionQueue>getParameter(
+                JSONConfiguration.TRANSACTION_QUEUE_PARAMETER),
+            configuration.getParameter(JSONConfiguration.JSON_CODEC_PARAMETER, JSONCodec.TREE),
+            configuration.getParameter(JSONConfiguration.ENCODE_FRAMES_PARAMETER, false));
+    communicator.setTransactionReplaySettings(
+        configuration.getParameter(
+            JSONConfiguration.TRANSACTION_REPLAY_PARAMETER, TransactionReplaySettings.DEFAULT));
+    OcppMetrics metrics = configuration.getParameter(JSONConfiguration.METRICS_PARAMETER);
+    MultiProtocolSessionFactory sessionFactory =
+        new MultiProtocolSessionFactory(
+            featureRepository,
+            configuration.getParameter(JSONConfiguration.DISPATCH_EXECUTOR_PARAMETER));
+    sessionFactory.setMetrics(metrics);
+    sessionFactory.setTracing(configuration.getParameter(JSONConfiguration.TRACING_PARAMETER));
+    sessionFactory.setMessageIdGenerator(
+        configuration.getParameter(JSONConfiguration.MESSAGE_ID_GENERATOR_PARAMETER));
     ISession session = sessionFactory.createSession(communicator);
-    client = new Client(session, new PromiseRepository());
+    client = new Client(session, new PromiseRepository(metrics));
+    client.setRequestTimeouts(
+        configuration.getParameter(
+            JSONConfiguration.REQUEST_TIMEOUTS_PARAMETER, RequestTimeouts.NONE));
   }
 
   /**
@@ -29,16 +29,18 @@ package eu.chargetime.ocpp;
 
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.feature.profile.Profile;
+import eu.chargetime.ocpp.metrics.OcppMetrics;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import eu.chargetime.ocpp.wss.BaseWssFactoryBuilder;
 import eu.chargetime.ocpp.wss.WssFactoryBuilder;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletionStage;
-import java.util.zip.Deflater;
+import javax.annotation.Nullable;
 import javax.net.ssl.SSLContext;
 import org.java_websocket.drafts.Draft;
 import org.java_websocket.drafts.Draft_6455;
@@ -56,6 +58,7 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
   private final MultiProtocolWebSocketListener listener;
   private final Server server;
   private final MultiProtocolFeatureRepository featureRepository;
+  @Nullable private final PromiseFulfillerExecutor fulfillerExecutor;
 
   /**
    * The constructor creates WS-ready server.
@@ -66,17 +69,22 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
   public MultiProtocolJSONServer(
       List<ProtocolVersion> protocolVersions, JSONConfiguration configuration) {
     featureRepository = new MultiProtocolFeatureRepository(protocolVersions);
-    MultiProtocolSessionFactory sessionFactory = new MultiProtocolSessionFactory(featureRepository);
+    fulfillerExecutor = PromiseFulfillerExecutorFactory.create(configuration);
+    MultiProtocolSessionFactory sessionFactory =
+        new MultiProtocolSessionFactory(
+            featureRepository,
+            configuration.getParameter(JSONConfiguration.DISPATCH_EXECUTOR_PARAMETER),
+            fulfillerExecutor);
+    OcppMetrics metrics = configuration.getParameter(JSONConfiguration.METRICS_PARAMETER);
+    sessionFactory.setMetrics(metrics);
+    sessionFactory.setTracing(configuration.getParameter(JSONConfiguration.TRACING_PARAMETER));
+    sessionFactory.setMessageIdGenerator(
+        configuration.getParameter(JSONConfiguration.MESSAGE_ID_GENERATOR_PARAMETER));
     int maxFrameSize = configuration.getParameter(JSONConfiguration.WEBSOCKET_MAX_FRAME_SIZE, 0);
     List<IExtension> extensions = new ArrayList<>();
-    if (configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_SUPPORT, true)) {
-      PerMessageDeflateExtension perMessageDeflateExtension =
-          maxFrameSize > 0
-              ? new PerMessageDeflateExtension(Deflater.BEST_COMPRESSION, maxFrameSize)
-              : new PerMessageDeflateExtension(Deflater.BEST_COMPRESSION);
-      perMessageDeflateExtension.setThreshold(64);
-      perMessageDeflateExtension.setServerNoContextTakeover(false);
-      perMessageDeflateExtension.setClientNoContextTakeover(false);
+    PerMessageDeflateExtension perMessageDeflateExtension =
+        PerMessageDeflateExtensionFactory.forServer(configuration);
+    if (perMessageDeflateExtension != null) {
       extensions.add(perMessageDeflateExtension);
     }
     List<IProtocol> protocols = new ArrayList<>(protocolVersions.size());
@@ -95,7 +103,11 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
     } else {
       listener = new MultiProtocolWebSocketListener(sessionFactory, configuration, draft);
     }
-    server = new Server(listener, new PromiseRepository());
+    server = new Server(listener, new PromiseRepository(metrics));
+    server.setMetrics(metrics);
+    server.setRequestTimeouts(
+        configuration.getParameter(
+            JSONConfiguration.REQUEST_TIMEOUTS_PARAMETER, RequestTimeouts.NONE));
   }
 
   /**
@@ -187,6 +199,19 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
     server.closeSession(session);
   }
 
+  /**
+   * The executor for incoming requests, configured with {@link
+   * JSONConfiguration#FULFILLER_POOL_SIZE_PARAMETER} or {@link
+   * JSONConfiguration#FULFILLER_VIRTUAL_THREADS_PARAMETER}. Use it to monitor queue depth and
+   * rejections.
+   *
+   * @return the executor, or null if requests use the shared default executor.
+   */
+  @Nullable
+  public PromiseFulfillerExecutor getPromiseFulfillerExecutor() {
+    return fulfillerExecutor;
+  }
+
   @Override
   public void open(String host, int port, ServerEvents serverEvents) {
     logger.info("Feature repository: {}", featureRepository);
@@ -196,6 +221,9 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
   @Override
   public void close() {
     server.close();
+    if (fulfillerExecutor != null) {
+      fulfillerExecutor.shutdown();
+    }
   }
 
   @Override
@@ -209,6 +237,13 @@ public class MultiProtocolJSONServer implements IMultiProtocolServerAPI {
     return server.send(session, request);
   }
 
+  @Override
+  public Broadcast broadcast(
+      Collection<UUID> sessionIndexes, Request request, int messagesPerSecond)
+      throws OccurenceConstraintException {
+    return server.broadcast(sessionIndexes, request, messagesPerSecond);
+  }
+
   @Override
   public boolean asyncCompleteRequest(UUID sessionIndex, String uniqueId, Confirmation confirmation)
       throws NotConnectedException, UnsupportedFeatureException, OccurenceConstraintException {
@@ -27,13 +27,81 @@
 
 package eu.chargetime.ocpp;
 
+import eu.chargetime.ocpp.metrics.OcppMetrics;
+import eu.chargetime.ocpp.tracing.MessageTracing;
+import java.util.concurrent.Executor;
+import javax.annotation.Nullable;
+
 public class MultiProtocolSessionFactory implements ISessionFactory {
 
   private final MultiProtocolFeatureRepository multiProtocolFeatureRepository;
+  @Nullable private final Executor dispatchExecutor;
+  @Nullable private final PromiseFulfillerExecutor fulfillerExecutor;
+  @Nullable private OcppMetrics metrics;
+  @Nullable private MessageTracing tracing;
+  @Nullable private MessageIdGenerator messageIdGenerator;
 
   public MultiProtocolSessionFactory(
       MultiProtocolFeatureRepository multiProtocolFeatureRepository) {
+    this(multiProtocolFeatureRepository, null);
+  }
+
+  /**
+   * @param multiProtocolFeatureRepository the feature repositories to use.
+   * @param dispatchExecutor shared executor for incoming messages, see {@link Session}. Null to
+   *     handle them on the network thread.
+   */
+  public MultiProtocolSessionFactory(
+      MultiProtocolFeatureRepository multiProtocolFeatureRepository,
+      @Nullable Executor dispatchExecutor) {
+    this(multiProtocolFeatureRepository, dispatchExecutor, null);
+  }
+
+  /**
+   * @param multiProtocolFeatureRepository the feature repositories to use.
+   * @param dispatchExecutor shared executor for incoming messages, see {@link Session}. Null to
+   *     handle them on the network thread.
+   * @param fulfillerExecutor bounded executor for incoming requests. Null to use the shared default
+   *     of {@link AsyncPromiseFulfillerDecorator}.
+   */
+  public MultiProtocolSessionFactory(
+      MultiProtocolFeatureRepository multiProtocolFeatureRepository,
+      @Nullable Executor dispatchExecutor,
+      @Nullable PromiseFulfillerExecutor fulfillerExecutor) {
     this.multiProtocolFeatureRepository = multiProtocolFeatureRepository;
+    this.dispatchExecutor = dispatchExecutor;
+    this.fulfillerExecutor = fulfillerExecutor;
+  }
+
+  /**
+   * Record the messages of the sessions created from now on, see {@link
+   * Session#setMetrics(OcppMetrics)}.
+   *
+   * @param metrics the metrics to record to, null disables metrics.
+   */
+  public void setMetrics(@Nullable OcppMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Trace a sample of the calls received on the sessions created from now on, see {@link
+   * Session#setTracing(MessageTracing)}.
+   *
+   * @param tracing the tracing to record to, null disables tracing.
+   */
+  public void setTracing(@Nullable MessageTracing tracing) {
+    this.tracing = tracing;
+  }
+
+  /**
+   * Generate the ids of outgoing calls of the sessions created from now on, see {@link
+   * Queue#Queue(MessageIdGenerator)}.
+   *
+   * @param messageIdGenerator generator shared by the sessions, null gives every session its own
+   *     {@link MessageIdGenerator#sequential()} generator.
+   */
+  public void setMessageIdGenerator(@Nullable MessageIdGenerator messageIdGenerator) {
+    this.messageIdGenerator = messageIdGenerator;
   }
 
   /**
@@ -48,9 +116,14 @@ public class MultiProtocolSessionFactory implements ISessionFactory {
    */
   @Override
   public ISession createSession(Communicator communicator) {
-    AsyncPromiseFulfillerDecorator promiseFulfiller =
-        new AsyncPromiseFulfillerDecorator(new SimplePromiseFulfiller());
-    return new Session(communicator, new Queue(), promiseFulfiller, multiProtocolFeatureRepository);
+    AsyncPromiseFulfillerDecorator promiseFulfiller = createPromiseFulfiller();
+    return configured(
+        new Session(
+            communicator,
+            createQueue(),
+            promiseFulfiller,
+            multiProtocolFeatureRepository,
+            dispatchExecutor));
   }
 
   /**
@@ -65,8 +138,25 @@ public class MultiProtocolSessionFactory implements ISessionFactory {
   public ISession createSession(Communicator communicator, ProtocolVersion protocolVersion) {
     IFeatureRepository featureRepository =
         multiProtocolFeatureRepository.getFeatureRepository(protocolVersion);
-    AsyncPromiseFulfillerDecorator promiseFulfiller =
-        new AsyncPromiseFulfillerDecorator(new SimplePromiseFulfiller());
-    return new Session(communicator, new Queue(), promiseFulfiller, featureRepository);
+    AsyncPromiseFulfillerDecorator promiseFulfiller = createPromiseFulfiller();
+    return configured(
+        new Session(
+            communicator, createQueue(), promiseFulfiller, featureRepository, dispatchExecutor));
+  }
+
+  private Queue createQueue() {
+    return messageIdGenerator != null ? new Queue(messageIdGenerator) : new Queue();
+  }
+
+  private Session configured(Session session) {
+    if (metrics != null) session.setMetrics(metrics);
+    if (tracing != null) session.setTracing(tracing);
+    return session;
+  }
+
+  private AsyncPromiseFulfillerDecorator createPromiseFulfiller() {
+    return new AsyncPromiseFulfillerDecorator(
+        new SimplePromiseFulfiller(),
+        fulfillerExecutor != null ? fulfillerExecutor.sessionExecutor() : null);
   }
 }
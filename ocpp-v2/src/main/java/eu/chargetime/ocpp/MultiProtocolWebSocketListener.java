@@ -103,6 +103,8 @@ public class MultiProtocolWebSocketListener implements Listener {
                 clientHandshake.getResourceDescriptor(),
                 protocol);
 
+            CoalescingFrameWriter writer =
+                CoalescingFrameWriter.fromConfiguration(webSocket, configuration);
             WebSocketReceiver receiver =
                 new WebSocketReceiver(
                     new WebSocketReceiverEvents() {
@@ -113,12 +115,28 @@ public class MultiProtocolWebSocketListener implements Listener {
 
                       @Override
                       public void close() {
+                        if (writer != null) {
+                          writer.flush();
+                        }
                         webSocket.close();
                       }
 
                       @Override
                       public void relay(String message) {
-                        webSocket.send(message);
+                        if (writer != null) {
+                          writer.send(message);
+                        } else {
+                          webSocket.send(message);
+                        }
+                      }
+
+                      @Override
+                      public void relay(EncodedMessage message) {
+                        if (writer != null) {
+                          writer.send(message.toFrame());
+                        } else {
+                          webSocket.sendFrame(message.toFrame());
+                        }
                       }
                     });
 
@@ -141,7 +159,7 @@ public class MultiProtocolWebSocketListener implements Listener {
                     .build();
 
             handler.newSession(
-                sessionFactory.createSession(new JSONCommunicator(receiver), protocolVersion),
+                sessionFactory.createSession(createCommunicator(receiver), protocolVersion),
                 information);
           }
 
@@ -284,6 +302,14 @@ public class MultiProtocolWebSocketListener implements Listener {
         configuration.getParameter(JSONConfiguration.PING_INTERVAL_PARAMETER, 60));
   }
 
+  private JSONCommunicator createCommunicator(WebSocketReceiver receiver) {
+    return new JSONCommunicator(
+        receiver,
+        new InMemoryTransactionQueue(),
+        configuration.getParameter(JSONConfiguration.JSON_CODEC_PARAMETER, JSONCodec.TREE),
+        configuration.getParameter(JSONConfiguration.ENCODE_FRAMES_PARAMETER, false));
+  }
+
   void enableWSS(WssFactoryBuilder wssFactoryBuilder) {
     if (server != null) {
       throw new IllegalStateException("Cannot enable WSS on already running server");
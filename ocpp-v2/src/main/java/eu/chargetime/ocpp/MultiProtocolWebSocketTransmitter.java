@@ -34,6 +34,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.net.SocketFactory;
 import org.java_websocket.WebSocket;
 import org.java_websocket.client.WebSocketClient;
@@ -60,6 +61,7 @@ public class MultiProtocolWebSocketTransmitter implements Transmitter {
   private volatile Exception lastError = null;
   private volatile boolean closed = true;
   private volatile WebSocketClient client;
+  @Nullable private volatile CoalescingFrameWriter writer;
   private WssSocketBuilder wssSocketBuilder;
 
   public MultiProtocolWebSocketTransmitter(
@@ -170,6 +172,7 @@ public class MultiProtocolWebSocketTransmitter implements Transmitter {
     }
 
     configure();
+    writer = CoalescingFrameWriter.fromConfiguration(client.getConnection(), configuration);
 
     boolean isNonBlocking = isNonBlockingParameterSet();
 
@@ -224,6 +227,11 @@ public class MultiProtocolWebSocketTransmitter implements Transmitter {
       return;
     }
 
+    CoalescingFrameWriter coalescingWriter = writer;
+    if (coalescingWriter != null) {
+      coalescingWriter.flush();
+    }
+
     boolean isNonBlocking = isNonBlockingParameterSet();
 
     logger.debug("Disconnecting{}", isNonBlocking ? "" : " [blocking]");
@@ -260,8 +268,19 @@ public class MultiProtocolWebSocketTransmitter implements Transmitter {
       throw new NotConnectedException();
     }
 
+    CoalescingFrameWriter coalescingWriter = writer;
     try {
-      client.send(request.toString());
+      if (coalescingWriter != null) {
+        if (request instanceof EncodedMessage) {
+          coalescingWriter.send(((EncodedMessage) request).toFrame());
+        } else {
+          coalescingWriter.send(request.toString());
+        }
+      } else if (request instanceof EncodedMessage) {
+        client.sendFrame(((EncodedMessage) request).toFrame());
+      } else {
+        client.send(request.toString());
+      }
     } catch (WebsocketNotConnectedException ex) {
       throw new NotConnectedException();
     }
@@ -31,14 +31,14 @@ import static java.util.zip.Deflater.NO_FLUSH;
 import static java.util.zip.Deflater.SYNC_FLUSH;
 import static org.java_websocket.extensions.ExtensionRequestData.parseExtensionRequest;
 
-import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
+import javax.annotation.Nullable;
 import org.java_websocket.exceptions.InvalidDataException;
 import org.java_websocket.exceptions.InvalidFrameException;
 import org.java_websocket.extensions.CompressionExtension;
@@ -80,13 +80,21 @@ public class PerMessageDeflateExtension extends CompressionExtension {
   public static final byte[] EMPTY_UNCOMPRESSED_DEFLATE_BLOCK = new byte[] {0x00};
 
   private static final int TRANSFER_CHUNK_SIZE = 8192;
+  // OCPP allows a single call in flight per direction, this leaves room for peers that pipeline
+  private static final int RECEIVED_CALLS = 64;
 
   private final int compressionLevel;
   private final int maxFragmentSize;
-  private final Deflater compressor;
-  private final Inflater decompressor;
+  private final DeflaterPool pool;
+
+  // Created on first use. Borrowed from the pool for a single message when they are reset after
+  // every message anyway, so idle connections don't hold on to native zlib memory.
+  private Deflater compressor;
+  private Inflater decompressor;
 
   private int compressionThreshold;
+  @Nullable private CompressionPolicy compressionPolicy;
+  @Nullable private CompressionStatistics statistics;
   private boolean clientNoContextTakeover;
   private boolean serverNoContextTakeover;
   private int clientMaxWindowBits;
@@ -99,6 +107,21 @@ public class PerMessageDeflateExtension extends CompressionExtension {
   private long compressedBytes;
   private long decompressedBytes;
 
+  // action and size of the outbound message, for the statistics
+  @Nullable private String messageAction;
+  private long messageUncompressedBytes;
+  private long messageCompressedBytes;
+  // unique id to action of the unanswered calls received, to know what a result answers. Filled
+  // on the reader thread and taken on the writer threads, so access is guarded by the map. Once
+  // more than RECEIVED_CALLS are unanswered the oldest is dropped and its result is not attributed.
+  private final Map<String, String> receivedCalls =
+      new LinkedHashMap<String, String>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+          return size() > RECEIVED_CALLS;
+        }
+      };
+
   public PerMessageDeflateExtension() {
     this(DEFAULT_COMPRESSION);
   }
@@ -115,10 +138,13 @@ public class PerMessageDeflateExtension extends CompressionExtension {
    * @param maxFragmentSize the maximum allowed fragment size after decompression
    */
   public PerMessageDeflateExtension(int compressionLevel, int maxFragmentSize) {
+    this(compressionLevel, maxFragmentSize, DeflaterPool.shared());
+  }
+
+  PerMessageDeflateExtension(int compressionLevel, int maxFragmentSize, DeflaterPool pool) {
     this.compressionLevel = compressionLevel;
     this.maxFragmentSize = maxFragmentSize;
-    compressor = new Deflater(compressionLevel, true);
-    decompressor = new Inflater(true);
+    this.pool = pool;
     compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
     clientNoContextTakeover = DEFAULT_CLIENT_NO_CONTEXT_TAKEOVER;
     serverNoContextTakeover = DEFAULT_SERVER_NO_CONTEXT_TAKEOVER;
@@ -148,6 +174,34 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     this.compressionThreshold = threshold;
   }
 
+  @Nullable
+  public CompressionPolicy getCompressionPolicy() {
+    return compressionPolicy;
+  }
+
+  /**
+   * Decide per outbound message whether to compress it, instead of by the threshold alone.
+   *
+   * @param compressionPolicy the policy, null to only use the threshold.
+   */
+  public void setCompressionPolicy(@Nullable CompressionPolicy compressionPolicy) {
+    this.compressionPolicy = compressionPolicy;
+  }
+
+  @Nullable
+  public CompressionStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Record the compression of outbound messages per action, shared by all copies of this instance.
+   *
+   * @param statistics where to record to, null to not record.
+   */
+  public void setStatistics(@Nullable CompressionStatistics statistics) {
+    this.statistics = statistics;
+  }
+
   public boolean isClientNoContextTakeover() {
     return clientNoContextTakeover;
   }
@@ -164,6 +218,29 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     this.serverNoContextTakeover = serverNoContextTakeover;
   }
 
+  public int getClientMaxWindowBits() {
+    return clientMaxWindowBits;
+  }
+
+  /**
+   * Limits the LZ77 window the client may compress with, which bounds the memory both ends need for
+   * the client's messages. Only requested from clients that offer the parameter.
+   *
+   * @param clientMaxWindowBits between {@link #MINIMUM_CLIENT_MAX_WINDOW_BITS} and {@link
+   *     #MAXIMUM_CLIENT_MAX_WINDOW_BITS}
+   */
+  public void setClientMaxWindowBits(int clientMaxWindowBits) {
+    if (clientMaxWindowBits < MINIMUM_CLIENT_MAX_WINDOW_BITS
+        || clientMaxWindowBits > MAXIMUM_CLIENT_MAX_WINDOW_BITS) {
+      throw new IllegalArgumentException(
+          "clientMaxWindowBits must be between "
+              + MINIMUM_CLIENT_MAX_WINDOW_BITS
+              + " and "
+              + MAXIMUM_CLIENT_MAX_WINDOW_BITS);
+    }
+    this.clientMaxWindowBits = clientMaxWindowBits;
+  }
+
   /**
    * Returns the overall compression ratio of all incoming and outgoing payloads which were
    * compressed.
@@ -196,6 +273,15 @@ public class PerMessageDeflateExtension extends CompressionExtension {
 
   @Override
   public void decodeFrame(Framedata inputFrame) throws InvalidDataException {
+    decompressFrame(inputFrame);
+    if (tracksActions()
+        && inputFrame instanceof DataFrame
+        && !(inputFrame instanceof ContinuousFrame)) {
+      rememberReceivedCall(inputFrame.getPayloadData());
+    }
+  }
+
+  private void decompressFrame(Framedata inputFrame) throws InvalidDataException {
     // RFC 7692: PMCEs operate only on data messages.
     if (!(inputFrame instanceof DataFrame)) {
       return;
@@ -219,9 +305,9 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     DataFrame dataFrame = (DataFrame) inputFrame;
     ByteBuffer payload = dataFrame.getPayloadData();
     compressedBytes += payload.remaining();
-    byte[] decompressed = decompress(payload, dataFrame.isFin());
-    decompressedBytes += decompressed.length;
-    dataFrame.setPayload(ByteBuffer.wrap(decompressed));
+    ByteBuffer decompressed = decompress(payload, dataFrame.isFin());
+    decompressedBytes += decompressed.remaining();
+    dataFrame.setPayload(decompressed);
 
     // payload is no longer compressed, clear the RFC 7692 compression marker RSV1
     if (!(dataFrame instanceof ContinuousFrame)) {
@@ -235,41 +321,75 @@ public class PerMessageDeflateExtension extends CompressionExtension {
       // extension parameter, the server|client MAY decompress each new message with an empty
       // LZ77 sliding window.
       if (isDecompressorResetAllowed) {
-        decompressor.reset();
+        releaseDecompressor();
+      }
+    }
+  }
+
+  private Inflater decompressor() {
+    if (decompressor == null) {
+      decompressor = isDecompressorResetAllowed ? pool.borrowInflater() : new Inflater(true);
+    }
+    return decompressor;
+  }
+
+  private void releaseDecompressor() {
+    if (decompressor != null) {
+      if (isDecompressorResetAllowed) {
+        pool.release(decompressor);
+      } else {
+        decompressor.end();
+      }
+      decompressor = null;
+    }
+  }
+
+  private Deflater compressor() {
+    if (compressor == null) {
+      compressor =
+          isCompressorResetRequired
+              ? pool.borrowDeflater(compressionLevel)
+              : new Deflater(compressionLevel, true);
+    }
+    return compressor;
+  }
+
+  private void releaseCompressor() {
+    if (compressor != null) {
+      if (isCompressorResetRequired) {
+        pool.release(compressionLevel, compressor);
+      } else {
+        compressor.end();
       }
+      compressor = null;
     }
   }
 
-  private byte[] decompress(ByteBuffer buffer, boolean isFinal) throws InvalidDataException {
-    ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+  private ByteBuffer decompress(ByteBuffer buffer, boolean isFinal) throws InvalidDataException {
+    Inflater inflater = decompressor();
+    Output decompressed = new Output(Math.max(TRANSFER_CHUNK_SIZE, buffer.remaining() * 4));
     try {
-      decompress(buffer, decompressed);
+      decompress(inflater, buffer, decompressed);
       // RFC 7692: Append empty deflate block to the tail end of the payload of the message
       if (isFinal) {
-        decompress(ByteBuffer.wrap(EMPTY_DEFLATE_BLOCK), decompressed);
+        decompress(inflater, ByteBuffer.wrap(EMPTY_DEFLATE_BLOCK), decompressed);
       }
     } catch (DataFormatException e) {
       throw new InvalidDataException(CloseFrame.POLICY_VALIDATION, e.getMessage());
     }
-    return decompressed.toByteArray();
+    return decompressed.toByteBuffer();
   }
 
-  private void decompress(ByteBuffer buffer, ByteArrayOutputStream decompressed)
+  /** Inflate straight into the output array, growing it as needed. */
+  private void decompress(Inflater inflater, ByteBuffer buffer, Output decompressed)
       throws DataFormatException {
-    if (buffer.hasArray()) {
-      decompressor.setInput(
-          buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
-    } else {
-      byte[] input = new byte[buffer.remaining()];
-      buffer.duplicate().get(input);
-      decompressor.setInput(input);
-    }
-    byte[] chunk = new byte[TRANSFER_CHUNK_SIZE];
-    while (!decompressor.finished()) {
-      int length = decompressor.inflate(chunk);
+    setInput(buffer, inflater::setInput);
+    while (!inflater.finished()) {
+      decompressed.ensureSpace();
+      int length = inflater.inflate(decompressed.bytes, decompressed.length, decompressed.space());
       if (length > 0) {
-        decompressed.write(chunk, 0, length);
-        if (maxFragmentSize > 0 && maxFragmentSize < decompressed.size()) {
+        decompressed.length += length;
+        if (maxFragmentSize > 0 && maxFragmentSize < decompressed.length) {
           throw new DataFormatException(
               "Inflated fragment size exceeds limit of " + maxFragmentSize + " bytes");
         }
@@ -279,6 +399,59 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     }
   }
 
+  private interface InputSink {
+    void setInput(byte[] input, int offset, int length);
+  }
+
+  private static void setInput(ByteBuffer buffer, InputSink sink) {
+    if (buffer.hasArray()) {
+      sink.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    } else {
+      byte[] input = new byte[buffer.remaining()];
+      buffer.duplicate().get(input);
+      sink.setInput(input, 0, input.length);
+    }
+  }
+
+  /** Growable output array, handed over as the frame payload without a copy. */
+  private static final class Output {
+    private byte[] bytes;
+    private int length;
+
+    Output(int capacity) {
+      bytes = new byte[capacity];
+    }
+
+    int space() {
+      return bytes.length - length;
+    }
+
+    void ensureSpace() {
+      if (space() == 0) {
+        byte[] grown = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, grown, 0, length);
+        bytes = grown;
+      }
+    }
+
+    boolean endsWith(byte[] tail) {
+      int offset = length - tail.length;
+      if (offset < 0) {
+        return false;
+      }
+      for (int i = 0; i < tail.length; i++) {
+        if (bytes[offset + i] != tail[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    ByteBuffer toByteBuffer() {
+      return ByteBuffer.wrap(bytes, 0, length).slice();
+    }
+  }
+
   @Override
   public void encodeFrame(Framedata inputFrame) {
     // RFC 7692: PMCEs operate only on data messages.
@@ -291,9 +464,18 @@ public class PerMessageDeflateExtension extends CompressionExtension {
       return;
     }
 
-    // check the threshold whether to start compressing
-    if (inputFrame.getPayloadData().remaining() >= compressionThreshold) {
-      isCompressing = true;
+    // decide on the first fragment whether to compress the message
+    if (!(inputFrame instanceof ContinuousFrame)) {
+      ByteBuffer payload = inputFrame.getPayloadData();
+      int size = payload.remaining();
+      messageAction = tracksActions() ? outboundAction(payload) : null;
+      isCompressing =
+          compressionPolicy != null
+              ? compressionPolicy.shouldCompress(messageAction, size)
+              : size >= compressionThreshold;
+      if (!isCompressing && statistics != null && messageAction != null) {
+        statistics.recordUncompressed(messageAction, size);
+      }
     }
 
     if (!isCompressing) {
@@ -304,9 +486,11 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     DataFrame dataFrame = (DataFrame) inputFrame;
     ByteBuffer payload = dataFrame.getPayloadData();
     decompressedBytes += payload.remaining();
-    byte[] compressed = compress(payload, dataFrame.isFin());
-    compressedBytes += compressed.length;
-    dataFrame.setPayload(ByteBuffer.wrap(compressed));
+    messageUncompressedBytes += payload.remaining();
+    ByteBuffer compressed = compress(payload, dataFrame.isFin());
+    compressedBytes += compressed.remaining();
+    messageCompressedBytes += compressed.remaining();
+    dataFrame.setPayload(compressed);
 
     // payload is compressed now, set the RFC 7692 compression marker RSV1
     if (!(dataFrame instanceof ContinuousFrame)) {
@@ -316,69 +500,89 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     // stop compressing after the final fragment
     if (dataFrame.isFin()) {
       isCompressing = false;
+      if (statistics != null && messageAction != null) {
+        statistics.recordCompressed(
+            messageAction, messageUncompressedBytes, messageCompressedBytes);
+      }
+      messageAction = null;
+      messageUncompressedBytes = 0;
+      messageCompressedBytes = 0;
       // RFC 7692: If the "agreed parameters" contain the "client|server_no_context_takeover"
       // extension parameter, the client|server MUST start compressing each new message with an
       // empty LZ77 sliding window.
       if (isCompressorResetRequired) {
-        compressor.reset();
+        releaseCompressor();
       }
     }
   }
 
-  private byte[] compress(ByteBuffer buffer, boolean isFinal) {
+  private boolean tracksActions() {
+    return compressionPolicy != null || statistics != null;
+  }
+
+  @Nullable
+  private String outboundAction(ByteBuffer payload) {
+    JsonFrameHeader header = JsonFrameHeader.parse(payload);
+    if (header == null) {
+      return null;
+    }
+    return header.isAnswer() ? takeReceivedCall(header.uniqueId) : header.action;
+  }
+
+  private void rememberReceivedCall(ByteBuffer payload) {
+    JsonFrameHeader header = JsonFrameHeader.parse(payload);
+    if (header == null || !header.isCall()) {
+      return;
+    }
+    synchronized (receivedCalls) {
+      receivedCalls.put(header.uniqueId, header.action);
+    }
+  }
+
+  @Nullable
+  private String takeReceivedCall(String uniqueId) {
+    synchronized (receivedCalls) {
+      return receivedCalls.remove(uniqueId);
+    }
+  }
+
+  private ByteBuffer compress(ByteBuffer buffer, boolean isFinal) {
     // RFC 7692: Generate an empty fragment if the buffer for uncompressed data buffer is empty.
     if (!buffer.hasRemaining() && isFinal) {
-      return EMPTY_UNCOMPRESSED_DEFLATE_BLOCK;
-    }
-    if (buffer.hasArray()) {
-      compressor.setInput(
-          buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
-    } else {
-      byte[] input = new byte[buffer.remaining()];
-      buffer.duplicate().get(input);
-      compressor.setInput(input);
+      return ByteBuffer.wrap(EMPTY_UNCOMPRESSED_DEFLATE_BLOCK);
     }
+    Deflater deflater = compressor();
+    setInput(buffer, deflater::setInput);
     // RFC 7692 prefers the compressor output not to have the BFINAL bit set, so instead of calling
     // finish(), deflate with NO_FLUSH until the input is exhausted, then deflate with SYNC_FLUSH
     // until the output runs dry.
-    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
-    byte[] chunk = new byte[TRANSFER_CHUNK_SIZE];
-    while (!compressor.needsInput()) {
-      int length = compressor.deflate(chunk, 0, chunk.length, NO_FLUSH);
+    Output compressed = new Output(buffer.remaining() + 64);
+    while (!deflater.needsInput()) {
+      compressed.ensureSpace();
+      int length =
+          deflater.deflate(compressed.bytes, compressed.length, compressed.space(), NO_FLUSH);
       if (length > 0) {
-        compressed.write(chunk, 0, length);
+        compressed.length += length;
       } else {
         break;
       }
     }
-    while (!compressor.finished()) {
-      int length = compressor.deflate(chunk, 0, chunk.length, SYNC_FLUSH);
+    while (!deflater.finished()) {
+      compressed.ensureSpace();
+      int length =
+          deflater.deflate(compressed.bytes, compressed.length, compressed.space(), SYNC_FLUSH);
       if (length > 0) {
-        compressed.write(chunk, 0, length);
-      } else {
+        compressed.length += length;
+      }
+      // A full output array may hold back the rest of the flush, only stop when it had room.
+      if (compressed.space() > 0) {
         break;
       }
     }
-    return isFinal
-        ? removeTail(compressed.toByteArray(), EMPTY_DEFLATE_BLOCK)
-        : compressed.toByteArray();
-  }
-
-  private byte[] removeTail(byte[] input, byte[] tail) {
-    return hasTail(input, tail) ? Arrays.copyOf(input, input.length - tail.length) : input;
-  }
-
-  private boolean hasTail(byte[] input, byte[] tail) {
-    int offset = input.length - tail.length;
-    if (offset < 0) {
-      return false;
-    }
-    for (int i = 0; i < tail.length; i++) {
-      if (input[offset + i] != tail[i]) {
-        return false;
-      }
+    if (isFinal && compressed.endsWith(EMPTY_DEFLATE_BLOCK)) {
+      compressed.length -= EMPTY_DEFLATE_BLOCK.length;
     }
-    return true;
+    return compressed.toByteBuffer();
   }
 
   @Override
@@ -449,7 +653,12 @@ public class PerMessageDeflateExtension extends CompressionExtension {
     // merge accepted extension parameters with local configuration
     clientNoContextTakeover |= offerClientNoContextTakeover;
     serverNoContextTakeover |= offerServerNoContextTakeover;
-    clientMaxWindowBits = offerClientMaxWindowBits.orElse(clientMaxWindowBits);
+    // RFC 7692: client_max_window_bits may only be sent back if the client offered it.
+    int localClientMaxWindowBits = clientMaxWindowBits;
+    clientMaxWindowBits =
+        offerClientMaxWindowBits
+            .map(bits -> Math.min(bits, localClientMaxWindowBits))
+            .orElse(DEFAULT_CLIENT_MAX_WINDOW_BITS);
     serverMaxWindowBits = offerServerMaxWindowBits.orElse(serverMaxWindowBits);
 
     // RFC 7692: The extension parameters with the "server_" prefix are used by the server to
@@ -562,22 +771,32 @@ public class PerMessageDeflateExtension extends CompressionExtension {
   @Override
   public IExtension copyInstance() {
     PerMessageDeflateExtension clone =
-        new PerMessageDeflateExtension(getCompressionLevel(), getMaxFragmentSize());
+        new PerMessageDeflateExtension(getCompressionLevel(), getMaxFragmentSize(), pool);
     clone.setClientNoContextTakeover(isClientNoContextTakeover());
     clone.setServerNoContextTakeover(isServerNoContextTakeover());
     clone.clientMaxWindowBits = clientMaxWindowBits;
     clone.serverMaxWindowBits = serverMaxWindowBits;
     clone.setThreshold(getThreshold());
+    clone.setCompressionPolicy(getCompressionPolicy());
+    clone.setStatistics(getStatistics());
     return clone;
   }
 
   @Override
   public void reset() {
     super.reset();
+    releaseCompressor();
+    releaseDecompressor();
     isCompressing = false;
     isDecompressing = false;
     compressedBytes = 0;
     decompressedBytes = 0;
+    messageAction = null;
+    messageUncompressedBytes = 0;
+    messageCompressedBytes = 0;
+    synchronized (receivedCalls) {
+      receivedCalls.clear();
+    }
   }
 
   @Override
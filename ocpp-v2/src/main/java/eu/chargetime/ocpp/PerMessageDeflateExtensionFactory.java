@@ -0,0 +1,108 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import java.util.zip.Deflater;
+import javax.annotation.Nullable;
+
+/** Creates the {@link PerMessageDeflateExtension} described by a {@link JSONConfiguration}. */
+public final class PerMessageDeflateExtensionFactory {
+
+  static final int COMPRESSION_THRESHOLD = 64;
+
+  private PerMessageDeflateExtensionFactory() {}
+
+  /**
+   * Create the permessage-deflate extension a server accepts, enabled unless {@link
+   * JSONConfiguration#WEBSOCKET_COMPRESSION_SUPPORT} is false.
+   *
+   * <p>{@link JSONConfiguration#WEBSOCKET_COMPRESSION_LEVEL} selects the {@link Deflater} level,
+   * {@link JSONConfiguration#WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER} makes both ends compress
+   * every message on its own, which lets idle connections hand their compressors back to a shared
+   * pool, and {@link JSONConfiguration#WEBSOCKET_COMPRESSION_CLIENT_MAX_WINDOW_BITS} limits the
+   * window clients are asked to compress with. {@link
+   * JSONConfiguration#WEBSOCKET_COMPRESSION_POLICY} takes a {@link CompressionPolicy} instead of
+   * the fixed threshold and {@link JSONConfiguration#WEBSOCKET_COMPRESSION_STATISTICS} the {@link
+   * CompressionStatistics} to record to.
+   *
+   * @param configuration the server configuration.
+   * @return the extension, or null when compression is disabled.
+   */
+  @Nullable
+  public static PerMessageDeflateExtension forServer(JSONConfiguration configuration) {
+    if (!configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_SUPPORT, true)) {
+      return null;
+    }
+    PerMessageDeflateExtension extension = create(configuration);
+    extension.setClientMaxWindowBits(
+        configuration.getParameter(
+            JSONConfiguration.WEBSOCKET_COMPRESSION_CLIENT_MAX_WINDOW_BITS,
+            PerMessageDeflateExtension.DEFAULT_CLIENT_MAX_WINDOW_BITS));
+    return extension;
+  }
+
+  /**
+   * Create the permessage-deflate extension a client offers, disabled unless {@link
+   * JSONConfiguration#WEBSOCKET_COMPRESSION_SUPPORT} is true.
+   *
+   * <p>Level, context takeover, policy and statistics are configured as for {@link
+   * #forServer(JSONConfiguration)}. The window bits are not offered, the JDK {@link Deflater}
+   * always compresses with a 15 bit window.
+   *
+   * @param configuration the client configuration.
+   * @return the extension, or null when compression is disabled.
+   */
+  @Nullable
+  public static PerMessageDeflateExtension forClient(JSONConfiguration configuration) {
+    if (!configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_SUPPORT, false)) {
+      return null;
+    }
+    return create(configuration);
+  }
+
+  private static PerMessageDeflateExtension create(JSONConfiguration configuration) {
+    int level =
+        configuration.getParameter(
+            JSONConfiguration.WEBSOCKET_COMPRESSION_LEVEL, Deflater.BEST_COMPRESSION);
+    int maxFrameSize = configuration.getParameter(JSONConfiguration.WEBSOCKET_MAX_FRAME_SIZE, 0);
+    boolean noContextTakeover =
+        configuration.getParameter(
+            JSONConfiguration.WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER, false);
+
+    PerMessageDeflateExtension extension =
+        maxFrameSize > 0
+            ? new PerMessageDeflateExtension(level, maxFrameSize)
+            : new PerMessageDeflateExtension(level);
+    extension.setThreshold(COMPRESSION_THRESHOLD);
+    extension.setServerNoContextTakeover(noContextTakeover);
+    extension.setClientNoContextTakeover(noContextTakeover);
+    extension.setCompressionPolicy(
+        configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_POLICY));
+    extension.setStatistics(
+        configuration.getParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_STATISTICS));
+    return extension;
+  }
+}
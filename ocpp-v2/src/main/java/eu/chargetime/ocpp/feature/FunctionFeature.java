@@ -26,6 +26,7 @@
 
 package eu.chargetime.ocpp.feature;
 
+import eu.chargetime.ocpp.feature.RequestHandler;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -35,6 +36,7 @@ import javax.annotation.Nullable;
 public abstract class FunctionFeature implements Feature {
 
   private final Function function;
+  private volatile RequestHandler requestHandler;
 
   /**
    * Creates link back to the {@link Function}.
@@ -54,6 +56,14 @@ public abstract class FunctionFeature implements Feature {
    */
   @Nullable
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    return function.handleRequest(sessionIndex, request);
+    RequestHandler handler = requestHandler;
+    if (handler == null) {
+      handler = function.getRequestHandler(getRequestType());
+      if (handler == null) {
+        handler = function::handleRequest;
+      }
+      requestHandler = handler;
+    }
+    return handler.handleRequest(sessionIndex, request);
   }
 }
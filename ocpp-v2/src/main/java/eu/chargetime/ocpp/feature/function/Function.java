@@ -29,6 +29,7 @@ package eu.chargetime.ocpp.feature.function;
 
 import eu.chargetime.ocpp.feature.Feature;
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
 import java.util.UUID;
@@ -53,4 +54,16 @@ public interface Function {
    */
   @Nullable
   Confirmation handleRequest(UUID sessionIndex, Request request);
+
+  /**
+   * Get a handler for one type of {@link Request}. It's resolved once per {@link FunctionFeature},
+   * so a function can return a handler that calls its event handler directly instead of checking
+   * the request type on every call. By default {@link #handleRequest(UUID, Request)} is used.
+   *
+   * @param requestType the {@link Request} type to handle.
+   * @return the {@link RequestHandler} for the type.
+   */
+  default RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return this::handleRequest;
+  }
 }
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,12 +41,19 @@ public class ClientAuthorizationFunction implements Function {
 
   private final ClientAuthorizationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientAuthorizationFunction.class);
 
   public ClientAuthorizationFunction(ClientAuthorizationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new AuthorizeFeature(null));
     features.add(new ClearCacheFeature(this));
+
+    requestHandlers.put(
+        ClearCacheRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearCacheRequest((ClearCacheRequest) request));
   }
 
   @Override
@@ -54,10 +63,12 @@ public class ClientAuthorizationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearCacheRequest) {
-      return eventHandler.handleClearCacheRequest((ClearCacheRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
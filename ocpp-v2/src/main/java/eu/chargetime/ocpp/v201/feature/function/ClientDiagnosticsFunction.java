@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientDiagnosticsFunction implements Function {
 
   private final ClientDiagnosticsEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientDiagnosticsFunction.class);
 
   public ClientDiagnosticsFunction(ClientDiagnosticsEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -54,6 +58,36 @@ public class ClientDiagnosticsFunction implements Function {
     features.add(new SetMonitoringBaseFeature(this));
     features.add(new SetMonitoringLevelFeature(this));
     features.add(new SetVariableMonitoringFeature(this));
+
+    requestHandlers.put(
+        ClearVariableMonitoringRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearVariableMonitoringRequest(
+                (ClearVariableMonitoringRequest) request));
+    requestHandlers.put(
+        CustomerInformationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCustomerInformationRequest((CustomerInformationRequest) request));
+    requestHandlers.put(
+        GetLogRequest.class,
+        (sessionIndex, request) -> eventHandler.handleGetLogRequest((GetLogRequest) request));
+    requestHandlers.put(
+        GetMonitoringReportRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetMonitoringReportRequest((GetMonitoringReportRequest) request));
+    requestHandlers.put(
+        SetMonitoringBaseRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetMonitoringBaseRequest((SetMonitoringBaseRequest) request));
+    requestHandlers.put(
+        SetMonitoringLevelRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetMonitoringLevelRequest((SetMonitoringLevelRequest) request));
+    requestHandlers.put(
+        SetVariableMonitoringRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetVariableMonitoringRequest(
+                (SetVariableMonitoringRequest) request));
   }
 
   @Override
@@ -63,24 +97,12 @@ public class ClientDiagnosticsFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearVariableMonitoringRequest) {
-      return eventHandler.handleClearVariableMonitoringRequest(
-          (ClearVariableMonitoringRequest) request);
-    } else if (request instanceof CustomerInformationRequest) {
-      return eventHandler.handleCustomerInformationRequest((CustomerInformationRequest) request);
-    } else if (request instanceof GetLogRequest) {
-      return eventHandler.handleGetLogRequest((GetLogRequest) request);
-    } else if (request instanceof GetMonitoringReportRequest) {
-      return eventHandler.handleGetMonitoringReportRequest((GetMonitoringReportRequest) request);
-    } else if (request instanceof SetMonitoringBaseRequest) {
-      return eventHandler.handleSetMonitoringBaseRequest((SetMonitoringBaseRequest) request);
-    } else if (request instanceof SetMonitoringLevelRequest) {
-      return eventHandler.handleSetMonitoringLevelRequest((SetMonitoringLevelRequest) request);
-    } else if (request instanceof SetVariableMonitoringRequest) {
-      return eventHandler.handleSetVariableMonitoringRequest(
-          (SetVariableMonitoringRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
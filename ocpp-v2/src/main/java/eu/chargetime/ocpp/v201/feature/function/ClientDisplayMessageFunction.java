@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ClientDisplayMessageFunction implements Function {
 
   private final ClientDisplayMessageEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientDisplayMessageFunction.class);
 
   public ClientDisplayMessageFunction(ClientDisplayMessageEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,19 @@ public class ClientDisplayMessageFunction implements Function {
     features.add(new GetDisplayMessagesFeature(this));
     features.add(new NotifyDisplayMessagesFeature(null));
     features.add(new SetDisplayMessageFeature(this));
+
+    requestHandlers.put(
+        ClearDisplayMessageRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearDisplayMessageRequest((ClearDisplayMessageRequest) request));
+    requestHandlers.put(
+        GetDisplayMessagesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetDisplayMessagesRequest((GetDisplayMessagesRequest) request));
+    requestHandlers.put(
+        SetDisplayMessageRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetDisplayMessageRequest((SetDisplayMessageRequest) request));
   }
 
   @Override
@@ -56,14 +73,12 @@ public class ClientDisplayMessageFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearDisplayMessageRequest) {
-      return eventHandler.handleClearDisplayMessageRequest((ClearDisplayMessageRequest) request);
-    } else if (request instanceof GetDisplayMessagesRequest) {
-      return eventHandler.handleGetDisplayMessagesRequest((GetDisplayMessagesRequest) request);
-    } else if (request instanceof SetDisplayMessageRequest) {
-      return eventHandler.handleSetDisplayMessageRequest((SetDisplayMessageRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
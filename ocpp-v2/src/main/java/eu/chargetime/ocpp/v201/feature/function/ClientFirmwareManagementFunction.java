@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ClientFirmwareManagementFunction implements Function {
 
   private final ClientFirmwareManagementEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientFirmwareManagementFunction.class);
 
   public ClientFirmwareManagementFunction(ClientFirmwareManagementEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -48,6 +52,19 @@ public class ClientFirmwareManagementFunction implements Function {
     features.add(new PublishFirmwareStatusNotificationFeature(null));
     features.add(new UnpublishFirmwareFeature(this));
     features.add(new UpdateFirmwareFeature(this));
+
+    requestHandlers.put(
+        PublishFirmwareRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handlePublishFirmwareRequest((PublishFirmwareRequest) request));
+    requestHandlers.put(
+        UnpublishFirmwareRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUnpublishFirmwareRequest((UnpublishFirmwareRequest) request));
+    requestHandlers.put(
+        UpdateFirmwareRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUpdateFirmwareRequest((UpdateFirmwareRequest) request));
   }
 
   @Override
@@ -57,14 +74,12 @@ public class ClientFirmwareManagementFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof PublishFirmwareRequest) {
-      return eventHandler.handlePublishFirmwareRequest((PublishFirmwareRequest) request);
-    } else if (request instanceof UnpublishFirmwareRequest) {
-      return eventHandler.handleUnpublishFirmwareRequest((UnpublishFirmwareRequest) request);
-    } else if (request instanceof UpdateFirmwareRequest) {
-      return eventHandler.handleUpdateFirmwareRequest((UpdateFirmwareRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
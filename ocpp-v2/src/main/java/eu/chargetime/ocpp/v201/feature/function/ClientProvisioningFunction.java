@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientProvisioningFunction implements Function {
 
   private final ClientProvisioningEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientProvisioningFunction.class);
 
   public ClientProvisioningFunction(ClientProvisioningEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -53,6 +57,29 @@ public class ClientProvisioningFunction implements Function {
     features.add(new ResetFeature(this));
     features.add(new SetNetworkProfileFeature(this));
     features.add(new SetVariablesFeature(this));
+
+    requestHandlers.put(
+        GetBaseReportRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetBaseReportRequest((GetBaseReportRequest) request));
+    requestHandlers.put(
+        GetReportRequest.class,
+        (sessionIndex, request) -> eventHandler.handleGetReportRequest((GetReportRequest) request));
+    requestHandlers.put(
+        GetVariablesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetVariablesRequest((GetVariablesRequest) request));
+    requestHandlers.put(
+        ResetRequest.class,
+        (sessionIndex, request) -> eventHandler.handleResetRequest((ResetRequest) request));
+    requestHandlers.put(
+        SetNetworkProfileRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetNetworkProfileRequest((SetNetworkProfileRequest) request));
+    requestHandlers.put(
+        SetVariablesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetVariablesRequest((SetVariablesRequest) request));
   }
 
   @Override
@@ -62,20 +89,12 @@ public class ClientProvisioningFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof GetBaseReportRequest) {
-      return eventHandler.handleGetBaseReportRequest((GetBaseReportRequest) request);
-    } else if (request instanceof GetReportRequest) {
-      return eventHandler.handleGetReportRequest((GetReportRequest) request);
-    } else if (request instanceof GetVariablesRequest) {
-      return eventHandler.handleGetVariablesRequest((GetVariablesRequest) request);
-    } else if (request instanceof ResetRequest) {
-      return eventHandler.handleResetRequest((ResetRequest) request);
-    } else if (request instanceof SetNetworkProfileRequest) {
-      return eventHandler.handleSetNetworkProfileRequest((SetNetworkProfileRequest) request);
-    } else if (request instanceof SetVariablesRequest) {
-      return eventHandler.handleSetVariablesRequest((SetVariablesRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,11 +41,18 @@ public class ClientTariffAndCostFunction implements Function {
 
   private final ClientTariffAndCostEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientTariffAndCostFunction.class);
 
   public ClientTariffAndCostFunction(ClientTariffAndCostEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new CostUpdatedFeature(this));
+
+    requestHandlers.put(
+        CostUpdatedRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCostUpdatedRequest((CostUpdatedRequest) request));
   }
 
   @Override
@@ -53,9 +62,11 @@ public class ClientTariffAndCostFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof CostUpdatedRequest) {
-      return eventHandler.handleCostUpdatedRequest((CostUpdatedRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,12 +42,19 @@ public class ClientTransactionsFunction implements Function {
 
   private final ClientTransactionsEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientTransactionsFunction.class);
 
   public ClientTransactionsFunction(ClientTransactionsEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new GetTransactionStatusFeature(this));
     features.add(new TransactionEventFeature(null));
+
+    requestHandlers.put(
+        GetTransactionStatusRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetTransactionStatusRequest((GetTransactionStatusRequest) request));
   }
 
   @Override
@@ -55,10 +64,12 @@ public class ClientTransactionsFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof GetTransactionStatusRequest) {
-      return eventHandler.handleGetTransactionStatusRequest((GetTransactionStatusRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,12 +41,19 @@ public class ServerAuthorizationFunction implements Function {
 
   private final ServerAuthorizationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerAuthorizationFunction.class);
 
   public ServerAuthorizationFunction(ServerAuthorizationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new AuthorizeFeature(this));
     features.add(new ClearCacheFeature(null));
+
+    requestHandlers.put(
+        AuthorizeRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request));
   }
 
   @Override
@@ -54,10 +63,12 @@ public class ServerAuthorizationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof AuthorizeRequest) {
-      return eventHandler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
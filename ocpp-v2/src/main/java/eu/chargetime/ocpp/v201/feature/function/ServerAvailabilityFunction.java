@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerAvailabilityFunction implements Function {
 
   private final ServerAvailabilityEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerAvailabilityFunction.class);
 
   public ServerAvailabilityFunction(ServerAvailabilityEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -46,6 +50,16 @@ public class ServerAvailabilityFunction implements Function {
     features.add(new ChangeAvailabilityFeature(null));
     features.add(new NotifyEventFeature(this));
     features.add(new StatusNotificationFeature(this));
+
+    requestHandlers.put(
+        NotifyEventRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyEventRequest(sessionIndex, (NotifyEventRequest) request));
+    requestHandlers.put(
+        StatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleStatusNotificationRequest(
+                sessionIndex, (StatusNotificationRequest) request));
   }
 
   @Override
@@ -55,13 +69,12 @@ public class ServerAvailabilityFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof NotifyEventRequest) {
-      return eventHandler.handleNotifyEventRequest(sessionIndex, (NotifyEventRequest) request);
-    } else if (request instanceof StatusNotificationRequest) {
-      return eventHandler.handleStatusNotificationRequest(
-          sessionIndex, (StatusNotificationRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
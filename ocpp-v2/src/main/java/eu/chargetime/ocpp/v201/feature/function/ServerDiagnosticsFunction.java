@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerDiagnosticsFunction implements Function {
 
   private final ServerDiagnosticsEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerDiagnosticsFunction.class);
 
   public ServerDiagnosticsFunction(ServerDiagnosticsEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -53,6 +57,22 @@ public class ServerDiagnosticsFunction implements Function {
     features.add(new SetMonitoringBaseFeature(null));
     features.add(new SetMonitoringLevelFeature(null));
     features.add(new SetVariableMonitoringFeature(null));
+
+    requestHandlers.put(
+        LogStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleLogStatusNotificationRequest(
+                sessionIndex, (LogStatusNotificationRequest) request));
+    requestHandlers.put(
+        NotifyCustomerInformationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyCustomerInformationRequest(
+                sessionIndex, (NotifyCustomerInformationRequest) request));
+    requestHandlers.put(
+        NotifyMonitoringReportRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyMonitoringReportRequest(
+                sessionIndex, (NotifyMonitoringReportRequest) request));
   }
 
   @Override
@@ -62,17 +82,12 @@ public class ServerDiagnosticsFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof LogStatusNotificationRequest) {
-      return eventHandler.handleLogStatusNotificationRequest(
-          sessionIndex, (LogStatusNotificationRequest) request);
-    } else if (request instanceof NotifyCustomerInformationRequest) {
-      return eventHandler.handleNotifyCustomerInformationRequest(
-          sessionIndex, (NotifyCustomerInformationRequest) request);
-    } else if (request instanceof NotifyMonitoringReportRequest) {
-      return eventHandler.handleNotifyMonitoringReportRequest(
-          sessionIndex, (NotifyMonitoringReportRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
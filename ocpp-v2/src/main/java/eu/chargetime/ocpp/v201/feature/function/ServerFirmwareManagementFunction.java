@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerFirmwareManagementFunction implements Function {
 
   private final ServerFirmwareManagementEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerFirmwareManagementFunction.class);
 
   public ServerFirmwareManagementFunction(ServerFirmwareManagementEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -48,6 +52,17 @@ public class ServerFirmwareManagementFunction implements Function {
     features.add(new PublishFirmwareStatusNotificationFeature(this));
     features.add(new UnpublishFirmwareFeature(null));
     features.add(new UpdateFirmwareFeature(null));
+
+    requestHandlers.put(
+        FirmwareStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleFirmwareStatusNotificationRequest(
+                sessionIndex, (FirmwareStatusNotificationRequest) request));
+    requestHandlers.put(
+        PublishFirmwareStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handlePublishFirmwareStatusNotificationRequest(
+                sessionIndex, (PublishFirmwareStatusNotificationRequest) request));
   }
 
   @Override
@@ -57,14 +72,12 @@ public class ServerFirmwareManagementFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof FirmwareStatusNotificationRequest) {
-      return eventHandler.handleFirmwareStatusNotificationRequest(
-          sessionIndex, (FirmwareStatusNotificationRequest) request);
-    } else if (request instanceof PublishFirmwareStatusNotificationRequest) {
-      return eventHandler.handlePublishFirmwareStatusNotificationRequest(
-          sessionIndex, (PublishFirmwareStatusNotificationRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
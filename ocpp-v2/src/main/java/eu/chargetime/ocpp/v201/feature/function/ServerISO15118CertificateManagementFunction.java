@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -42,6 +44,8 @@ public class ServerISO15118CertificateManagementFunction implements Function {
 
   private final ServerISO15118CertificateManagementEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerISO15118CertificateManagementFunction.class);
 
   public ServerISO15118CertificateManagementFunction(
       ServerISO15118CertificateManagementEventHandler eventHandler) {
@@ -51,6 +55,17 @@ public class ServerISO15118CertificateManagementFunction implements Function {
     features.add(new Get15118EVCertificateFeature(this));
     features.add(new GetCertificateStatusFeature(this));
     features.add(new GetInstalledCertificateIdsFeature(null));
+
+    requestHandlers.put(
+        Get15118EVCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGet15118EVCertificateRequest(
+                sessionIndex, (Get15118EVCertificateRequest) request));
+    requestHandlers.put(
+        GetCertificateStatusRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetCertificateStatusRequest(
+                sessionIndex, (GetCertificateStatusRequest) request));
   }
 
   @Override
@@ -60,14 +75,12 @@ public class ServerISO15118CertificateManagementFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof Get15118EVCertificateRequest) {
-      return eventHandler.handleGet15118EVCertificateRequest(
-          sessionIndex, (Get15118EVCertificateRequest) request);
-    } else if (request instanceof GetCertificateStatusRequest) {
-      return eventHandler.handleGetCertificateStatusRequest(
-          sessionIndex, (GetCertificateStatusRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
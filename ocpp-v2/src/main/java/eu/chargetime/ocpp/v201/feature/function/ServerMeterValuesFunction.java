@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,11 +41,18 @@ public class ServerMeterValuesFunction implements Function {
 
   private final ServerMeterValuesEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerMeterValuesFunction.class);
 
   public ServerMeterValuesFunction(ServerMeterValuesEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new MeterValuesFeature(this));
+
+    requestHandlers.put(
+        MeterValuesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleMeterValuesRequest(sessionIndex, (MeterValuesRequest) request));
   }
 
   @Override
@@ -53,9 +62,11 @@ public class ServerMeterValuesFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof MeterValuesRequest) {
-      return eventHandler.handleMeterValuesRequest(sessionIndex, (MeterValuesRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v201.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,12 +41,20 @@ public class ServerTransactionsFunction implements Function {
 
   private final ServerTransactionsEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerTransactionsFunction.class);
 
   public ServerTransactionsFunction(ServerTransactionsEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new GetTransactionStatusFeature(null));
     features.add(new TransactionEventFeature(this));
+
+    requestHandlers.put(
+        TransactionEventRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleTransactionEventRequest(
+                sessionIndex, (TransactionEventRequest) request));
   }
 
   @Override
@@ -54,11 +64,12 @@ public class ServerTransactionsFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof TransactionEventRequest) {
-      return eventHandler.handleTransactionEventRequest(
-          sessionIndex, (TransactionEventRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
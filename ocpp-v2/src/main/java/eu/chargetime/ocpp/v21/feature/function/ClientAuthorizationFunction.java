@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientAuthorizationFunction implements Function {
 
   private final ClientAuthorizationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientAuthorizationFunction.class);
 
   public ClientAuthorizationFunction(ClientAuthorizationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -49,6 +53,16 @@ public class ClientAuthorizationFunction implements Function {
     features.add(new NotifySettlementFeature(null));
     features.add(new NotifyWebPaymentStartedFeature(this));
     features.add(new VatNumberValidationFeature(null));
+
+    requestHandlers.put(
+        ClearCacheRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearCacheRequest((ClearCacheRequest) request));
+    requestHandlers.put(
+        NotifyWebPaymentStartedRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyWebPaymentStartedRequest(
+                (NotifyWebPaymentStartedRequest) request));
   }
 
   @Override
@@ -58,13 +72,12 @@ public class ClientAuthorizationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearCacheRequest) {
-      return eventHandler.handleClearCacheRequest((ClearCacheRequest) request);
-    } else if (request instanceof NotifyWebPaymentStartedRequest) {
-      return eventHandler.handleNotifyWebPaymentStartedRequest(
-          (NotifyWebPaymentStartedRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientAvailabilityFunction implements Function {
 
   private final ClientAvailabilityEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientAvailabilityFunction.class);
 
   public ClientAvailabilityFunction(ClientAvailabilityEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,11 @@ public class ClientAvailabilityFunction implements Function {
     features.add(new ChangeAvailabilityFeature(this));
     features.add(new NotifyEventFeature(null));
     features.add(new StatusNotificationFeature(null));
+
+    requestHandlers.put(
+        ChangeAvailabilityRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleChangeAvailabilityRequest((ChangeAvailabilityRequest) request));
   }
 
   @Override
@@ -56,10 +65,12 @@ public class ClientAvailabilityFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ChangeAvailabilityRequest) {
-      return eventHandler.handleChangeAvailabilityRequest((ChangeAvailabilityRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
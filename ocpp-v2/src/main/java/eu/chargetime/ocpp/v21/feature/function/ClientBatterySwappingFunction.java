@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,12 +41,19 @@ public class ClientBatterySwappingFunction implements Function {
 
   private final ClientBatterySwappingEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientBatterySwappingFunction.class);
 
   public ClientBatterySwappingFunction(ClientBatterySwappingEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new BatterySwapFeature(null));
     features.add(new RequestBatterySwapFeature(this));
+
+    requestHandlers.put(
+        RequestBatterySwapRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleRequestBatterySwapRequest((RequestBatterySwapRequest) request));
   }
 
   @Override
@@ -54,10 +63,12 @@ public class ClientBatterySwappingFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof RequestBatterySwapRequest) {
-      return eventHandler.handleRequestBatterySwapRequest((RequestBatterySwapRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -42,6 +44,8 @@ public class ClientBidirectionalPowerTransferFunction implements Function {
 
   private final ClientBidirectionalPowerTransferEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientBidirectionalPowerTransferFunction.class);
 
   public ClientBidirectionalPowerTransferFunction(
       ClientBidirectionalPowerTransferEventHandler eventHandler) {
@@ -49,6 +53,16 @@ public class ClientBidirectionalPowerTransferFunction implements Function {
     features = new ArrayList<>();
     features.add(new AFRRSignalFeature(this));
     features.add(new NotifyAllowedEnergyTransferFeature(this));
+
+    requestHandlers.put(
+        AFRRSignalRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleAFRRSignalRequest((AFRRSignalRequest) request));
+    requestHandlers.put(
+        NotifyAllowedEnergyTransferRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyAllowedEnergyTransferRequest(
+                (NotifyAllowedEnergyTransferRequest) request));
   }
 
   @Override
@@ -58,12 +72,11 @@ public class ClientBidirectionalPowerTransferFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof AFRRSignalRequest) {
-      return eventHandler.handleAFRRSignalRequest((AFRRSignalRequest) request);
-    } else if (request instanceof NotifyAllowedEnergyTransferRequest) {
-      return eventHandler.handleNotifyAllowedEnergyTransferRequest(
-          (NotifyAllowedEnergyTransferRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientDERControlFunction implements Function {
 
   private final ClientDERControlEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientDERControlFunction.class);
 
   public ClientDERControlFunction(ClientDERControlEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -50,6 +54,19 @@ public class ClientDERControlFunction implements Function {
     features.add(new NotifyDERStartStopFeature(null));
     features.add(new ReportDERControlFeature(null));
     features.add(new SetDERControlFeature(this));
+
+    requestHandlers.put(
+        ClearDERControlRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearDERControlRequest((ClearDERControlRequest) request));
+    requestHandlers.put(
+        GetDERControlRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetDERControlRequest((GetDERControlRequest) request));
+    requestHandlers.put(
+        SetDERControlRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetDERControlRequest((SetDERControlRequest) request));
   }
 
   @Override
@@ -59,14 +76,12 @@ public class ClientDERControlFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearDERControlRequest) {
-      return eventHandler.handleClearDERControlRequest((ClearDERControlRequest) request);
-    } else if (request instanceof GetDERControlRequest) {
-      return eventHandler.handleGetDERControlRequest((GetDERControlRequest) request);
-    } else if (request instanceof SetDERControlRequest) {
-      return eventHandler.handleSetDERControlRequest((SetDERControlRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
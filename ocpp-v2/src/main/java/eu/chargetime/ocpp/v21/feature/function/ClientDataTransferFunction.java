@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,11 +41,18 @@ public class ClientDataTransferFunction implements Function {
 
   private final ClientDataTransferEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientDataTransferFunction.class);
 
   public ClientDataTransferFunction(ClientDataTransferEventHandler eventHandler) {
     this.eventHandler = eventHandler;
     features = new ArrayList<>();
     features.add(new DataTransferFeature(this));
+
+    requestHandlers.put(
+        DataTransferRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleDataTransferRequest((DataTransferRequest) request));
   }
 
   @Override
@@ -53,10 +62,12 @@ public class ClientDataTransferFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof DataTransferRequest) {
-      return eventHandler.handleDataTransferRequest((DataTransferRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
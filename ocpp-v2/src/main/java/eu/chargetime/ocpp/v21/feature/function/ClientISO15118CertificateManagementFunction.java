@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -42,6 +44,8 @@ public class ClientISO15118CertificateManagementFunction implements Function {
 
   private final ClientISO15118CertificateManagementEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientISO15118CertificateManagementFunction.class);
 
   public ClientISO15118CertificateManagementFunction(
       ClientISO15118CertificateManagementEventHandler eventHandler) {
@@ -52,6 +56,16 @@ public class ClientISO15118CertificateManagementFunction implements Function {
     features.add(new GetCertificateChainStatusFeature(null));
     features.add(new GetCertificateStatusFeature(null));
     features.add(new GetInstalledCertificateIdsFeature(this));
+
+    requestHandlers.put(
+        DeleteCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleDeleteCertificateRequest((DeleteCertificateRequest) request));
+    requestHandlers.put(
+        GetInstalledCertificateIdsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetInstalledCertificateIdsRequest(
+                (GetInstalledCertificateIdsRequest) request));
   }
 
   @Override
@@ -61,13 +75,12 @@ public class ClientISO15118CertificateManagementFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof DeleteCertificateRequest) {
-      return eventHandler.handleDeleteCertificateRequest((DeleteCertificateRequest) request);
-    } else if (request instanceof GetInstalledCertificateIdsRequest) {
-      return eventHandler.handleGetInstalledCertificateIdsRequest(
-          (GetInstalledCertificateIdsRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -42,6 +44,8 @@ public class ClientLocalAuthorizationListManagementFunction implements Function
 
   private final ClientLocalAuthorizationListManagementEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientLocalAuthorizationListManagementFunction.class);
 
   public ClientLocalAuthorizationListManagementFunction(
       ClientLocalAuthorizationListManagementEventHandler eventHandler) {
@@ -49,6 +53,15 @@ public class ClientLocalAuthorizationListManagementFunction implements Function
     features = new ArrayList<>();
     features.add(new GetLocalListVersionFeature(this));
     features.add(new SendLocalListFeature(this));
+
+    requestHandlers.put(
+        GetLocalListVersionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetLocalListVersionRequest((GetLocalListVersionRequest) request));
+    requestHandlers.put(
+        SendLocalListRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSendLocalListRequest((SendLocalListRequest) request));
   }
 
   @Override
@@ -58,11 +71,11 @@ public class ClientLocalAuthorizationListManagementFunction implements Function
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof GetLocalListVersionRequest) {
-      return eventHandler.handleGetLocalListVersionRequest((GetLocalListVersionRequest) request);
-    } else if (request instanceof SendLocalListRequest) {
-      return eventHandler.handleSendLocalListRequest((SendLocalListRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
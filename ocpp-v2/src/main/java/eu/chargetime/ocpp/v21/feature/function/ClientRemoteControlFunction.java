@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ClientRemoteControlFunction implements Function {
 
   private final ClientRemoteControlEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientRemoteControlFunction.class);
 
   public ClientRemoteControlFunction(ClientRemoteControlEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,25 @@ public class ClientRemoteControlFunction implements Function {
     features.add(new RequestStopTransactionFeature(this));
     features.add(new TriggerMessageFeature(this));
     features.add(new UnlockConnectorFeature(this));
+
+    requestHandlers.put(
+        RequestStartTransactionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleRequestStartTransactionRequest(
+                (RequestStartTransactionRequest) request));
+    requestHandlers.put(
+        RequestStopTransactionRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleRequestStopTransactionRequest(
+                (RequestStopTransactionRequest) request));
+    requestHandlers.put(
+        TriggerMessageRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleTriggerMessageRequest((TriggerMessageRequest) request));
+    requestHandlers.put(
+        UnlockConnectorRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUnlockConnectorRequest((UnlockConnectorRequest) request));
   }
 
   @Override
@@ -56,17 +79,11 @@ public class ClientRemoteControlFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof RequestStartTransactionRequest) {
-      return eventHandler.handleRequestStartTransactionRequest(
-          (RequestStartTransactionRequest) request);
-    } else if (request instanceof RequestStopTransactionRequest) {
-      return eventHandler.handleRequestStopTransactionRequest(
-          (RequestStopTransactionRequest) request);
-    } else if (request instanceof TriggerMessageRequest) {
-      return eventHandler.handleTriggerMessageRequest((TriggerMessageRequest) request);
-    } else if (request instanceof UnlockConnectorRequest) {
-      return eventHandler.handleUnlockConnectorRequest((UnlockConnectorRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ClientReservationFunction implements Function {
 
   private final ClientReservationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientReservationFunction.class);
 
   public ClientReservationFunction(ClientReservationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -46,6 +50,15 @@ public class ClientReservationFunction implements Function {
     features.add(new CancelReservationFeature(this));
     features.add(new ReservationStatusUpdateFeature(null));
     features.add(new ReserveNowFeature(this));
+
+    requestHandlers.put(
+        CancelReservationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCancelReservationRequest((CancelReservationRequest) request));
+    requestHandlers.put(
+        ReserveNowRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleReserveNowRequest((ReserveNowRequest) request));
   }
 
   @Override
@@ -55,12 +68,12 @@ public class ClientReservationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof CancelReservationRequest) {
-      return eventHandler.handleCancelReservationRequest((CancelReservationRequest) request);
-    } else if (request instanceof ReserveNowRequest) {
-      return eventHandler.handleReserveNowRequest((ReserveNowRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
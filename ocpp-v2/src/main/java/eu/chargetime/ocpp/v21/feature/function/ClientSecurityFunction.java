@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientSecurityFunction implements Function {
 
   private final ClientSecurityEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientSecurityFunction.class);
 
   public ClientSecurityFunction(ClientSecurityEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -48,6 +52,15 @@ public class ClientSecurityFunction implements Function {
     features.add(new InstallCertificateFeature(this));
     features.add(new SecurityEventNotificationFeature(null));
     features.add(new SignCertificateFeature(null));
+
+    requestHandlers.put(
+        CertificateSignedRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCertificateSignedRequest((CertificateSignedRequest) request));
+    requestHandlers.put(
+        InstallCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleInstallCertificateRequest((InstallCertificateRequest) request));
   }
 
   @Override
@@ -57,12 +70,12 @@ public class ClientSecurityFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof CertificateSignedRequest) {
-      return eventHandler.handleCertificateSignedRequest((CertificateSignedRequest) request);
-    } else if (request instanceof InstallCertificateRequest) {
-      return eventHandler.handleInstallCertificateRequest((InstallCertificateRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
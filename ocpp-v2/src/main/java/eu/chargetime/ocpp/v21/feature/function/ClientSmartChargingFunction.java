@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ClientSmartChargingFunction implements Function {
 
   private final ClientSmartChargingEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientSmartChargingFunction.class);
 
   public ClientSmartChargingFunction(ClientSmartChargingEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -57,6 +61,32 @@ public class ClientSmartChargingFunction implements Function {
     features.add(new SetChargingProfileFeature(this));
     features.add(new UpdateDynamicScheduleFeature(this));
     features.add(new UsePriorityChargingFeature(this));
+
+    requestHandlers.put(
+        ClearChargingProfileRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearChargingProfileRequest((ClearChargingProfileRequest) request));
+    requestHandlers.put(
+        GetChargingProfilesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetChargingProfilesRequest((GetChargingProfilesRequest) request));
+    requestHandlers.put(
+        GetCompositeScheduleRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetCompositeScheduleRequest((GetCompositeScheduleRequest) request));
+    requestHandlers.put(
+        SetChargingProfileRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetChargingProfileRequest((SetChargingProfileRequest) request));
+    requestHandlers.put(
+        UpdateDynamicScheduleRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUpdateDynamicScheduleRequest(
+                (UpdateDynamicScheduleRequest) request));
+    requestHandlers.put(
+        UsePriorityChargingRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleUsePriorityChargingRequest((UsePriorityChargingRequest) request));
   }
 
   @Override
@@ -66,21 +96,12 @@ public class ClientSmartChargingFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearChargingProfileRequest) {
-      return eventHandler.handleClearChargingProfileRequest((ClearChargingProfileRequest) request);
-    } else if (request instanceof GetChargingProfilesRequest) {
-      return eventHandler.handleGetChargingProfilesRequest((GetChargingProfilesRequest) request);
-    } else if (request instanceof GetCompositeScheduleRequest) {
-      return eventHandler.handleGetCompositeScheduleRequest((GetCompositeScheduleRequest) request);
-    } else if (request instanceof SetChargingProfileRequest) {
-      return eventHandler.handleSetChargingProfileRequest((SetChargingProfileRequest) request);
-    } else if (request instanceof UpdateDynamicScheduleRequest) {
-      return eventHandler.handleUpdateDynamicScheduleRequest(
-          (UpdateDynamicScheduleRequest) request);
-    } else if (request instanceof UsePriorityChargingRequest) {
-      return eventHandler.handleUsePriorityChargingRequest((UsePriorityChargingRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
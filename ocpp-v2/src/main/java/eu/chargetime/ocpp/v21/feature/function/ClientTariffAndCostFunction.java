@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ClientTariffAndCostFunction implements Function {
 
   private final ClientTariffAndCostEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ClientTariffAndCostFunction.class);
 
   public ClientTariffAndCostFunction(ClientTariffAndCostEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -48,6 +52,28 @@ public class ClientTariffAndCostFunction implements Function {
     features.add(new CostUpdatedFeature(this));
     features.add(new GetTariffsFeature(this));
     features.add(new SetDefaultTariffFeature(this));
+
+    requestHandlers.put(
+        ChangeTransactionTariffRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleChangeTransactionTariffRequest(
+                (ChangeTransactionTariffRequest) request));
+    requestHandlers.put(
+        ClearTariffsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearTariffsRequest((ClearTariffsRequest) request));
+    requestHandlers.put(
+        CostUpdatedRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleCostUpdatedRequest((CostUpdatedRequest) request));
+    requestHandlers.put(
+        GetTariffsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleGetTariffsRequest((GetTariffsRequest) request));
+    requestHandlers.put(
+        SetDefaultTariffRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSetDefaultTariffRequest((SetDefaultTariffRequest) request));
   }
 
   @Override
@@ -57,18 +83,11 @@ public class ClientTariffAndCostFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ChangeTransactionTariffRequest) {
-      return eventHandler.handleChangeTransactionTariffRequest(
-          (ChangeTransactionTariffRequest) request);
-    } else if (request instanceof ClearTariffsRequest) {
-      return eventHandler.handleClearTariffsRequest((ClearTariffsRequest) request);
-    } else if (request instanceof CostUpdatedRequest) {
-      return eventHandler.handleCostUpdatedRequest((CostUpdatedRequest) request);
-    } else if (request instanceof GetTariffsRequest) {
-      return eventHandler.handleGetTariffsRequest((GetTariffsRequest) request);
-    } else if (request instanceof SetDefaultTariffRequest) {
-      return eventHandler.handleSetDefaultTariffRequest((SetDefaultTariffRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 }
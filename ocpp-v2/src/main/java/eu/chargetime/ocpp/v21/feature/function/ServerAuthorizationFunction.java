@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerAuthorizationFunction implements Function {
 
   private final ServerAuthorizationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerAuthorizationFunction.class);
 
   public ServerAuthorizationFunction(ServerAuthorizationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -48,6 +52,21 @@ public class ServerAuthorizationFunction implements Function {
     features.add(new NotifySettlementFeature(this));
     features.add(new NotifyWebPaymentStartedFeature(null));
     features.add(new VatNumberValidationFeature(this));
+
+    requestHandlers.put(
+        AuthorizeRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request));
+    requestHandlers.put(
+        NotifySettlementRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifySettlementRequest(
+                sessionIndex, (NotifySettlementRequest) request));
+    requestHandlers.put(
+        VatNumberValidationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleVatNumberValidationRequest(
+                sessionIndex, (VatNumberValidationRequest) request));
   }
 
   @Override
@@ -57,16 +76,12 @@ public class ServerAuthorizationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof AuthorizeRequest) {
-      return eventHandler.handleAuthorizeRequest(sessionIndex, (AuthorizeRequest) request);
-    } else if (request instanceof NotifySettlementRequest) {
-      return eventHandler.handleNotifySettlementRequest(
-          sessionIndex, (NotifySettlementRequest) request);
-    } else if (request instanceof VatNumberValidationRequest) {
-      return eventHandler.handleVatNumberValidationRequest(
-          sessionIndex, (VatNumberValidationRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
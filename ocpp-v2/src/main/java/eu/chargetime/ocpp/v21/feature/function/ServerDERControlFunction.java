@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerDERControlFunction implements Function {
 
   private final ServerDERControlEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerDERControlFunction.class);
 
   public ServerDERControlFunction(ServerDERControlEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -49,6 +53,22 @@ public class ServerDERControlFunction implements Function {
     features.add(new NotifyDERStartStopFeature(this));
     features.add(new ReportDERControlFeature(this));
     features.add(new SetDERControlFeature(null));
+
+    requestHandlers.put(
+        NotifyDERAlarmRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyDERAlarmRequest(
+                sessionIndex, (NotifyDERAlarmRequest) request));
+    requestHandlers.put(
+        NotifyDERStartStopRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyDERStartStopRequest(
+                sessionIndex, (NotifyDERStartStopRequest) request));
+    requestHandlers.put(
+        ReportDERControlRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleReportDERControlRequest(
+                sessionIndex, (ReportDERControlRequest) request));
   }
 
   @Override
@@ -58,17 +78,12 @@ public class ServerDERControlFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof NotifyDERAlarmRequest) {
-      return eventHandler.handleNotifyDERAlarmRequest(
-          sessionIndex, (NotifyDERAlarmRequest) request);
-    } else if (request instanceof NotifyDERStartStopRequest) {
-      return eventHandler.handleNotifyDERStartStopRequest(
-          sessionIndex, (NotifyDERStartStopRequest) request);
-    } else if (request instanceof ReportDERControlRequest) {
-      return eventHandler.handleReportDERControlRequest(
-          sessionIndex, (ReportDERControlRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
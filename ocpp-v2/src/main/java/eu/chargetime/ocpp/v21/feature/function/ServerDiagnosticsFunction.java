@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerDiagnosticsFunction implements Function {
 
   private final ServerDiagnosticsEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerDiagnosticsFunction.class);
 
   public ServerDiagnosticsFunction(ServerDiagnosticsEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -58,6 +62,39 @@ public class ServerDiagnosticsFunction implements Function {
     features.add(new SetMonitoringBaseFeature(null));
     features.add(new SetMonitoringLevelFeature(null));
     features.add(new SetVariableMonitoringFeature(null));
+
+    requestHandlers.put(
+        ClosePeriodicEventStreamRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClosePeriodicEventStreamRequest(
+                sessionIndex, (ClosePeriodicEventStreamRequest) request));
+    requestHandlers.put(
+        LogStatusNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleLogStatusNotificationRequest(
+                sessionIndex, (LogStatusNotificationRequest) request));
+    requestHandlers.put(
+        NotifyCustomerInformationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyCustomerInformationRequest(
+                sessionIndex, (NotifyCustomerInformationRequest) request));
+    requestHandlers.put(
+        NotifyMonitoringReportRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyMonitoringReportRequest(
+                sessionIndex, (NotifyMonitoringReportRequest) request));
+    requestHandlers.put(
+        NotifyPeriodicEventStream.class,
+        (sessionIndex, request) -> {
+          eventHandler.handleNotifyPeriodicEventStream(
+              sessionIndex, (NotifyPeriodicEventStream) request);
+          return null;
+        });
+    requestHandlers.put(
+        OpenPeriodicEventStreamRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleOpenPeriodicEventStreamRequest(
+                sessionIndex, (OpenPeriodicEventStreamRequest) request));
   }
 
   @Override
@@ -67,27 +104,12 @@ public class ServerDiagnosticsFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClosePeriodicEventStreamRequest) {
-      return eventHandler.handleClosePeriodicEventStreamRequest(
-          sessionIndex, (ClosePeriodicEventStreamRequest) request);
-    } else if (request instanceof LogStatusNotificationRequest) {
-      return eventHandler.handleLogStatusNotificationRequest(
-          sessionIndex, (LogStatusNotificationRequest) request);
-    } else if (request instanceof NotifyCustomerInformationRequest) {
-      return eventHandler.handleNotifyCustomerInformationRequest(
-          sessionIndex, (NotifyCustomerInformationRequest) request);
-    } else if (request instanceof NotifyMonitoringReportRequest) {
-      return eventHandler.handleNotifyMonitoringReportRequest(
-          sessionIndex, (NotifyMonitoringReportRequest) request);
-    } else if (request instanceof NotifyPeriodicEventStream) {
-      eventHandler.handleNotifyPeriodicEventStream(
-          sessionIndex, (NotifyPeriodicEventStream) request);
-      return null;
-    } else if (request instanceof OpenPeriodicEventStreamRequest) {
-      return eventHandler.handleOpenPeriodicEventStreamRequest(
-          sessionIndex, (OpenPeriodicEventStreamRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerDisplayMessageFunction implements Function {
 
   private final ServerDisplayMessageEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerDisplayMessageFunction.class);
 
   public ServerDisplayMessageFunction(ServerDisplayMessageEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,12 @@ public class ServerDisplayMessageFunction implements Function {
     features.add(new GetDisplayMessagesFeature(null));
     features.add(new NotifyDisplayMessagesFeature(this));
     features.add(new SetDisplayMessageFeature(null));
+
+    requestHandlers.put(
+        NotifyDisplayMessagesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyDisplayMessagesRequest(
+                sessionIndex, (NotifyDisplayMessagesRequest) request));
   }
 
   @Override
@@ -56,11 +66,12 @@ public class ServerDisplayMessageFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof NotifyDisplayMessagesRequest) {
-      return eventHandler.handleNotifyDisplayMessagesRequest(
-          sessionIndex, (NotifyDisplayMessagesRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
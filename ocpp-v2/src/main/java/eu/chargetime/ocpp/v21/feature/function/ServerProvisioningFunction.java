@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerProvisioningFunction implements Function {
 
   private final ServerProvisioningEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerProvisioningFunction.class);
 
   public ServerProvisioningFunction(ServerProvisioningEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -52,6 +56,20 @@ public class ServerProvisioningFunction implements Function {
     features.add(new ResetFeature(null));
     features.add(new SetNetworkProfileFeature(null));
     features.add(new SetVariablesFeature(null));
+
+    requestHandlers.put(
+        BootNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleBootNotificationRequest(
+                sessionIndex, (BootNotificationRequest) request));
+    requestHandlers.put(
+        HeartbeatRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleHeartbeatRequest(sessionIndex, (HeartbeatRequest) request));
+    requestHandlers.put(
+        NotifyReportRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyReportRequest(sessionIndex, (NotifyReportRequest) request));
   }
 
   @Override
@@ -61,15 +79,12 @@ public class ServerProvisioningFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof BootNotificationRequest) {
-      return eventHandler.handleBootNotificationRequest(
-          sessionIndex, (BootNotificationRequest) request);
-    } else if (request instanceof HeartbeatRequest) {
-      return eventHandler.handleHeartbeatRequest(sessionIndex, (HeartbeatRequest) request);
-    } else if (request instanceof NotifyReportRequest) {
-      return eventHandler.handleNotifyReportRequest(sessionIndex, (NotifyReportRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -40,6 +42,8 @@ public class ServerReservationFunction implements Function {
 
   private final ServerReservationEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerReservationFunction.class);
 
   public ServerReservationFunction(ServerReservationEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,12 @@ public class ServerReservationFunction implements Function {
     features.add(new CancelReservationFeature(null));
     features.add(new ReservationStatusUpdateFeature(this));
     features.add(new ReserveNowFeature(null));
+
+    requestHandlers.put(
+        ReservationStatusUpdateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleReservationStatusUpdateRequest(
+                sessionIndex, (ReservationStatusUpdateRequest) request));
   }
 
   @Override
@@ -56,11 +66,12 @@ public class ServerReservationFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ReservationStatusUpdateRequest) {
-      return eventHandler.handleReservationStatusUpdateRequest(
-          sessionIndex, (ReservationStatusUpdateRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
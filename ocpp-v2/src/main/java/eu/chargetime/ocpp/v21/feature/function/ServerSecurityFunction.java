@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerSecurityFunction implements Function {
 
   private final ServerSecurityEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerSecurityFunction.class);
 
   public ServerSecurityFunction(ServerSecurityEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -47,6 +51,17 @@ public class ServerSecurityFunction implements Function {
     features.add(new InstallCertificateFeature(null));
     features.add(new SecurityEventNotificationFeature(this));
     features.add(new SignCertificateFeature(this));
+
+    requestHandlers.put(
+        SecurityEventNotificationRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSecurityEventNotificationRequest(
+                sessionIndex, (SecurityEventNotificationRequest) request));
+    requestHandlers.put(
+        SignCertificateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleSignCertificateRequest(
+                sessionIndex, (SignCertificateRequest) request));
   }
 
   @Override
@@ -56,14 +71,12 @@ public class ServerSecurityFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof SecurityEventNotificationRequest) {
-      return eventHandler.handleSecurityEventNotificationRequest(
-          sessionIndex, (SecurityEventNotificationRequest) request);
-    } else if (request instanceof SignCertificateRequest) {
-      return eventHandler.handleSignCertificateRequest(
-          sessionIndex, (SignCertificateRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -25,6 +25,8 @@
 package eu.chargetime.ocpp.v21.feature.function;
 
 import eu.chargetime.ocpp.feature.FunctionFeature;
+import eu.chargetime.ocpp.feature.RequestHandler;
+import eu.chargetime.ocpp.feature.RequestHandlers;
 import eu.chargetime.ocpp.feature.function.Function;
 import eu.chargetime.ocpp.model.Confirmation;
 import eu.chargetime.ocpp.model.Request;
@@ -39,6 +41,8 @@ public class ServerSmartChargingFunction implements Function {
 
   private final ServerSmartChargingEventHandler eventHandler;
   private final ArrayList<FunctionFeature> features;
+  private final RequestHandlers requestHandlers =
+      new RequestHandlers(this, ServerSmartChargingFunction.class);
 
   public ServerSmartChargingFunction(ServerSmartChargingEventHandler eventHandler) {
     this.eventHandler = eventHandler;
@@ -56,6 +60,42 @@ public class ServerSmartChargingFunction implements Function {
     features.add(new SetChargingProfileFeature(null));
     features.add(new UpdateDynamicScheduleFeature(null));
     features.add(new UsePriorityChargingFeature(null));
+
+    requestHandlers.put(
+        ClearedChargingLimitRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleClearedChargingLimitRequest(
+                sessionIndex, (ClearedChargingLimitRequest) request));
+    requestHandlers.put(
+        NotifyChargingLimitRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyChargingLimitRequest(
+                sessionIndex, (NotifyChargingLimitRequest) request));
+    requestHandlers.put(
+        NotifyEVChargingNeedsRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyEVChargingNeedsRequest(
+                sessionIndex, (NotifyEVChargingNeedsRequest) request));
+    requestHandlers.put(
+        NotifyEVChargingScheduleRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyEVChargingScheduleRequest(
+                sessionIndex, (NotifyEVChargingScheduleRequest) request));
+    requestHandlers.put(
+        NotifyPriorityChargingRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleNotifyPriorityChargingRequest(
+                sessionIndex, (NotifyPriorityChargingRequest) request));
+    requestHandlers.put(
+        PullDynamicScheduleUpdateRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handlePullDynamicScheduleUpdateRequest(
+                sessionIndex, (PullDynamicScheduleUpdateRequest) request));
+    requestHandlers.put(
+        ReportChargingProfilesRequest.class,
+        (sessionIndex, request) ->
+            eventHandler.handleReportChargingProfilesRequest(
+                sessionIndex, (ReportChargingProfilesRequest) request));
   }
 
   @Override
@@ -65,29 +105,12 @@ public class ServerSmartChargingFunction implements Function {
 
   @Override
   public Confirmation handleRequest(UUID sessionIndex, Request request) {
-    if (request instanceof ClearedChargingLimitRequest) {
-      return eventHandler.handleClearedChargingLimitRequest(
-          sessionIndex, (ClearedChargingLimitRequest) request);
-    } else if (request instanceof NotifyChargingLimitRequest) {
-      return eventHandler.handleNotifyChargingLimitRequest(
-          sessionIndex, (NotifyChargingLimitRequest) request);
-    } else if (request instanceof NotifyEVChargingNeedsRequest) {
-      return eventHandler.handleNotifyEVChargingNeedsRequest(
-          sessionIndex, (NotifyEVChargingNeedsRequest) request);
-    } else if (request instanceof NotifyEVChargingScheduleRequest) {
-      return eventHandler.handleNotifyEVChargingScheduleRequest(
-          sessionIndex, (NotifyEVChargingScheduleRequest) request);
-    } else if (request instanceof NotifyPriorityChargingRequest) {
-      return eventHandler.handleNotifyPriorityChargingRequest(
-          sessionIndex, (NotifyPriorityChargingRequest) request);
-    } else if (request instanceof PullDynamicScheduleUpdateRequest) {
-      return eventHandler.handlePullDynamicScheduleUpdateRequest(
-          sessionIndex, (PullDynamicScheduleUpdateRequest) request);
-    } else if (request instanceof ReportChargingProfilesRequest) {
-      return eventHandler.handleReportChargingProfilesRequest(
-          sessionIndex, (ReportChargingProfilesRequest) request);
-    }
-    return null;
+    return requestHandlers.handle(sessionIndex, request);
+  }
+
+  @Override
+  public RequestHandler getRequestHandler(Class<? extends Request> requestType) {
+    return requestHandlers.get(requestType, this::handleRequest);
   }
 
   /**
@@ -0,0 +1,105 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptiveCompressionPolicyTest {
+
+  private CompressionStatistics statistics;
+  private AdaptiveCompressionPolicy policy;
+
+  @Before
+  public void setup() {
+    statistics = new CompressionStatistics();
+    policy = new AdaptiveCompressionPolicy(statistics, 64, 0.8);
+  }
+
+  @Test
+  public void shouldCompress_belowThreshold_returnsFalse() {
+    assertThat(policy.shouldCompress("NotifyReport", 63), is(false));
+  }
+
+  @Test
+  public void shouldCompress_unknownAction_returnsTrue() {
+    assertThat(policy.shouldCompress(null, 64), is(true));
+    assertThat(policy.shouldCompress("NotifyReport", 64), is(true));
+  }
+
+  @Test
+  public void shouldCompress_actionCompressesWell_returnsTrue() {
+    // Given
+    record("NotifyReport", 1000, 100, AdaptiveCompressionPolicy.MIN_SAMPLES);
+
+    // When
+    boolean result = policy.shouldCompress("NotifyReport", 1000);
+
+    // Then
+    assertThat(result, is(true));
+  }
+
+  @Test
+  public void shouldCompress_actionCompressesPoorly_onlyProbes() {
+    // Given
+    record("Heartbeat", 100, 95, AdaptiveCompressionPolicy.MIN_SAMPLES);
+
+    // When
+    int compressed = 0;
+    for (int i = 0; i < AdaptiveCompressionPolicy.PROBE_INTERVAL; i++) {
+      if (policy.shouldCompress("Heartbeat", 100)) {
+        compressed++;
+        statistics.recordCompressed("Heartbeat", 100, 95);
+      } else {
+        statistics.recordUncompressed("Heartbeat", 100);
+      }
+    }
+
+    // Then
+    assertThat(compressed, is(1));
+  }
+
+  @Test
+  public void getRatio_rollingAverage_followsRecentMessages() {
+    // Given
+    record("StatusNotification", 100, 100, 1);
+
+    // When
+    record("StatusNotification", 100, 10, 100);
+
+    // Then
+    assertThat(statistics.get("StatusNotification").getRatio() < 0.11, is(true));
+  }
+
+  private void record(String action, long uncompressed, long compressed, int times) {
+    for (int i = 0; i < times; i++) {
+      statistics.recordCompressed(action, uncompressed, compressed);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package eu.chargetime.ocpp;
+
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.util.Collections;
+import org.junit.Test;
+
+public class MultiProtocolJSONServerTest {
+
+  @Test
+  public void close_withFulfillerPool_shutsDownPool() {
+    // Given
+    JSONConfiguration configuration =
+        JSONConfiguration.get().setParameter(JSONConfiguration.FULFILLER_POOL_SIZE_PARAMETER, 2);
+    MultiProtocolJSONServer server =
+        new MultiProtocolJSONServer(
+            Collections.singletonList(ProtocolVersion.OCPP2_0_1), configuration);
+
+    // When
+    server.close();
+
+    // Then
+    assertThat(server.getPromiseFulfillerExecutor().isShutdown(), is(true));
+  }
+}
@@ -0,0 +1,259 @@
+package eu.chargetime.ocpp;
+/*
+   ChargeTime.eu - Java-OCA-OCPP
+
+   MIT License
+
+   Copyright (C) 2016-2018 Thomas Volden <tv@chargetime.eu>
+
+   Permission is hereby granted, free of charge, to any person obtaining a copy
+   of this software and associated documentation files (the "Software"), to deal
+   in the Software without restriction, including without limitation the rights
+   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+   copies of the Software, and to permit persons to whom the Software is
+   furnished to do so, subject to the following conditions:
+
+   The above copyright notice and this permission notice shall be included in all
+   copies or substantial portions of the Software.
+
+   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+   SOFTWARE.
+*/
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import org.java_websocket.framing.TextFrame;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PerMessageDeflateExtensionTest {
+
+  private static final String MESSAGE =
+      "[2,\"19223201\",\"BootNotification\",{\"reason\":\"PowerUp\",\"chargingStation\":"
+          + "{\"model\":\"SingleSocketCharger\",\"vendorName\":\"VendorX\"}}]";
+
+  private DeflaterPool pool;
+  private PerMessageDeflateExtension server;
+  private PerMessageDeflateExtension client;
+
+  @Before
+  public void setup() {
+    pool = new DeflaterPool(4);
+    server = new PerMessageDeflateExtension(Deflater.BEST_SPEED, Integer.MAX_VALUE, pool);
+    client = new PerMessageDeflateExtension(Deflater.BEST_SPEED, Integer.MAX_VALUE, pool);
+  }
+
+  @Test
+  public void encodeFrame_contextTakeover_roundTripsAndKeepsCompressor() throws Exception {
+    // Given
+    negotiate("permessage-deflate");
+
+    // When
+    String first = roundTrip(MESSAGE);
+    String second = roundTrip(MESSAGE);
+
+    // Then
+    assertThat(first, is(MESSAGE));
+    assertThat(second, is(MESSAGE));
+    assertThat(pool.idleDeflaters(Deflater.BEST_SPEED), is(0));
+    assertThat(pool.idleInflaters(), is(0));
+  }
+
+  @Test
+  public void encodeFrame_noContextTakeover_roundTripsWithPooledCompressors() throws Exception {
+    // Given
+    negotiate("permessage-deflate; client_no_context_takeover; server_no_context_takeover");
+
+    // When
+    String first = roundTrip(MESSAGE);
+    String second = roundTrip(MESSAGE);
+
+    // Then
+    assertThat(first, is(MESSAGE));
+    assertThat(second, is(MESSAGE));
+    assertThat(pool.idleDeflaters(Deflater.BEST_SPEED), is(1));
+    assertThat(pool.idleInflaters(), is(1));
+  }
+
+  @Test
+  public void decodeFrame_largeMessage_growsOutput() throws Exception {
+    // Given
+    negotiate("permessage-deflate");
+    StringBuilder message = new StringBuilder();
+    while (message.length() < 100_000) {
+      message.append(MESSAGE);
+    }
+
+    // When
+    String result = roundTrip(message.toString());
+
+    // Then
+    assertThat(result, is(message.toString()));
+  }
+
+  @Test
+  public void encodeFrame_policyDeclines_sendsUncompressedAndRecordsIt() throws Exception {
+    // Given
+    CompressionStatistics statistics = new CompressionStatistics();
+    server.setStatistics(statistics);
+    server.setCompressionPolicy((action, size) -> !"BootNotification".equals(action));
+    negotiate("permessage-deflate");
+    TextFrame frame = frame(MESSAGE);
+
+    // When
+    server.encodeFrame(frame);
+
+    // Then
+    assertThat(frame.isRSV1(), is(false));
+    assertThat(statistics.get("BootNotification").getMessages(), is(1L));
+    assertThat(statistics.get("BootNotification").getCompressedMessages(), is(0L));
+  }
+
+  @Test
+  public void encodeFrame_statistics_recordsRatioPerAction() throws Exception {
+    // Given
+    CompressionStatistics statistics = new CompressionStatistics();
+    server.setStatistics(statistics);
+    negotiate("permessage-deflate");
+
+    // When
+    roundTrip(MESSAGE);
+
+    // Then
+    CompressionStatistics.Action action = statistics.get("BootNotification");
+    assertThat(action.getCompressedMessages(), is(1L));
+    assertThat(action.getUncompressedBytes(), is((long) MESSAGE.length()));
+    assertThat(action.getRatio() < 1, is(true));
+  }
+
+  @Test
+  public void encodeFrame_callResult_isAttributedToReceivedCall() throws Exception {
+    // Given
+    CompressionStatistics statistics = new CompressionStatistics();
+    client.setStatistics(statistics);
+    negotiate("permessage-deflate");
+    roundTrip(
+        "[2,\"42\",\"GetVariables\",{\"getVariableData\":[{\"component\":"
+            + "{\"name\":\"OCPPCommCtrlr\"},\"variable\":{\"name\":\"Enabled\"}}]}]");
+    String result =
+        "[3,\"42\",{\"getVariableResult\":[{\"attributeStatus\":\"Accepted\","
+            + "\"component\":{\"name\":\"OCPPCommCtrlr\"},\"variable\":{\"name\":\"Enabled\"}}]}]";
+
+    // When
+    client.encodeFrame(frame(result));
+
+    // Then
+    assertThat(statistics.get("GetVariables").getMessages(), is(1L));
+  }
+
+  @Test
+  public void encodeFrame_manyCallsInFlight_resultsAreAttributedToTheirCalls() throws Exception {
+    // Given
+    CompressionStatistics statistics = new CompressionStatistics();
+    client.setStatistics(statistics);
+    negotiate("permessage-deflate");
+    for (int i = 0; i < 8; i++) {
+      client.decodeFrame(
+          frame("[2,\"" + i + "\",\"" + (i % 2 == 0 ? "Reset" : "GetVariables") + "\",{}]"));
+    }
+
+    // When
+    for (int i = 7; i >= 0; i--) {
+      client.encodeFrame(frame("[3,\"" + i + "\",{}]"));
+    }
+
+    // Then
+    assertThat(statistics.get("Reset").getMessages(), is(4L));
+    assertThat(statistics.get("GetVariables").getMessages(), is(4L));
+  }
+
+  @Test
+  public void acceptProvidedExtensionAsServer_clientMaxWindowBitsNotOffered_isNotReturned() {
+    // Given
+    server.setClientMaxWindowBits(10);
+
+    // When
+    server.acceptProvidedExtensionAsServer("permessage-deflate");
+
+    // Then
+    assertThat(
+        server.getProvidedExtensionAsServer(),
+        not(containsString(PerMessageDeflateExtension.PARAMETER_CLIENT_MAX_WINDOW_BITS)));
+  }
+
+  @Test
+  public void acceptProvidedExtensionAsServer_clientMaxWindowBitsOffered_returnsConfigured() {
+    // Given
+    server.setClientMaxWindowBits(10);
+
+    // When
+    server.acceptProvidedExtensionAsServer("permessage-deflate; client_max_window_bits");
+
+    // Then
+    assertThat(server.getProvidedExtensionAsServer(), containsString("client_max_window_bits=10"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setClientMaxWindowBits_outOfRange_throwsException() {
+    server.setClientMaxWindowBits(16);
+  }
+
+  @Test
+  public void forServer_noContextTakeoverConfigured_offersIt() {
+    // Given
+    JSONConfiguration configuration =
+        JSONConfiguration.get()
+            .setParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_LEVEL, Deflater.BEST_SPEED)
+            .setParameter(JSONConfiguration.WEBSOCKET_COMPRESSION_NO_CONTEXT_TAKEOVER, true);
+
+    // When
+    PerMessageDeflateExtension extension =
+        PerMessageDeflateExtensionFactory.forServer(configuration);
+
+    // Then
+    assertThat(extension.getCompressionLevel(), is(Deflater.BEST_SPEED));
+    assertThat(extension.isClientNoContextTakeover(), is(true));
+    assertThat(extension.isServerNoContextTakeover(), is(true));
+  }
+
+  @Test
+  public void forClient_notConfigured_returnsNull() {
+    assertThat(PerMessageDeflateExtensionFactory.forClient(JSONConfiguration.get()), nullValue());
+  }
+
+  private void negotiate(String offer) {
+    assertThat(server.acceptProvidedExtensionAsServer(offer), is(true));
+    assertThat(
+        client.acceptProvidedExtensionAsClient(server.getProvidedExtensionAsServer()), is(true));
+  }
+
+  private static TextFrame frame(String message) {
+    TextFrame frame = new TextFrame();
+    frame.setPayload(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    frame.setFin(true);
+    return frame;
+  }
+
+  private String roundTrip(String message) throws Exception {
+    TextFrame frame = frame(message);
+    server.encodeFrame(frame);
+    assertThat(frame.isRSV1(), is(true));
+    client.decodeFrame(frame);
+    ByteBuffer payload = frame.getPayloadData();
+    byte[] bytes = new byte[payload.remaining()];
+    payload.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}